@@ -30,6 +30,7 @@ import org.sonar.batch.debt.IssueChangelogDebtCalculator;
 import org.sonar.batch.issue.ignore.IssueExclusionsConfiguration;
 import org.sonar.core.timemachine.Periods;
 import org.sonar.plugins.core.batch.IndexProjectPostJob;
+import org.sonar.plugins.core.batch.IndexProjectTaskHandler;
 import org.sonar.plugins.core.charts.DistributionAreaChart;
 import org.sonar.plugins.core.charts.DistributionBarChart;
 import org.sonar.plugins.core.charts.XradarChart;
@@ -269,6 +270,7 @@ public final class CorePlugin extends SonarPlugin {
       WeightedIssuesDecorator.class,
       IssuesDensityDecorator.class,
       InitialOpenIssuesSensor.class,
+      InitialOpenIssuesLoader.class,
       InitialOpenIssuesStack.class,
       HotspotMostViolatedResourcesWidget.class,
       HotspotMostViolatedRulesWidget.class,
@@ -319,6 +321,7 @@ public final class CorePlugin extends SonarPlugin {
       DirectoriesDecorator.class,
       FilesDecorator.class,
       IndexProjectPostJob.class,
+      IndexProjectTaskHandler.class,
       ManualMeasureDecorator.class,
       FileHashSensor.class,
 
@@ -23,22 +23,24 @@ import org.sonar.core.DryRunIncompatible;
 import org.sonar.api.batch.PostJob;
 import org.sonar.api.batch.SensorContext;
 import org.sonar.api.resources.Project;
-import org.sonar.core.resource.ResourceIndexerDao;
+import org.sonar.core.analysis.AnalysisTaskDao;
 
 /**
+ * Requests the server to index the project, see {@link IndexProjectTaskHandler}.
+ *
  * @since 2.13
  */
 @DryRunIncompatible
 public class IndexProjectPostJob implements PostJob {
-  private ResourceIndexerDao indexer;
+  private AnalysisTaskDao analysisTaskDao;
 
-  public IndexProjectPostJob(ResourceIndexerDao indexer) {
-    this.indexer = indexer;
+  public IndexProjectPostJob(AnalysisTaskDao analysisTaskDao) {
+    this.analysisTaskDao = analysisTaskDao;
   }
 
   public void executeOn(Project project, SensorContext context) {
     if (project.getId() != null) {
-      indexer.indexProject(project.getId());
+      analysisTaskDao.enqueue(IndexProjectTaskHandler.TASK_TYPE, project.getId());
     }
   }
 }
@@ -0,0 +1,48 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.core.batch;
+
+import org.sonar.core.analysis.AnalysisTaskHandler;
+import org.sonar.core.resource.ResourceIndexerDao;
+
+/**
+ * Indexes on server side the projects that have been analysed.
+ *
+ * @since 4.2.1
+ */
+public class IndexProjectTaskHandler implements AnalysisTaskHandler {
+
+  public static final String TASK_TYPE = "INDEX_PROJECT";
+
+  private final ResourceIndexerDao indexer;
+
+  public IndexProjectTaskHandler(ResourceIndexerDao indexer) {
+    this.indexer = indexer;
+  }
+
+  public String taskType() {
+    return TASK_TYPE;
+  }
+
+  public boolean execute(long projectId) {
+    indexer.indexProject((int) projectId);
+    return true;
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.core.issue;
+
+import com.google.common.base.Throwables;
+import org.apache.commons.lang.time.DateUtils;
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
+import org.picocontainer.Startable;
+import org.sonar.api.BatchExtension;
+import org.sonar.api.utils.SonarException;
+import org.sonar.core.issue.db.IssueChangeDao;
+import org.sonar.core.issue.db.IssueChangeDto;
+import org.sonar.core.issue.db.IssueDao;
+import org.sonar.core.issue.db.IssueDto;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Loads in background the issues of the module that are not closed in database, so that the database is requested
+ * while sensors are executed. Consumers of {@link InitialOpenIssuesStack} must call {@link #waitForLoading()} first.
+ *
+ * @since 4.2.1
+ */
+public class InitialOpenIssuesLoader implements BatchExtension, Startable {
+
+  private final InitialOpenIssuesStack initialOpenIssuesStack;
+  private final IssueDao issueDao;
+  private final IssueChangeDao issueChangeDao;
+  private ExecutorService executor;
+  private Future<?> loading;
+
+  public InitialOpenIssuesLoader(InitialOpenIssuesStack initialOpenIssuesStack, IssueDao issueDao, IssueChangeDao issueChangeDao) {
+    this.initialOpenIssuesStack = initialOpenIssuesStack;
+    this.issueDao = issueDao;
+    this.issueChangeDao = issueChangeDao;
+  }
+
+  @Override
+  public void start() {
+    // nothing to do, loading is started when the module is persisted
+  }
+
+  /**
+   * Starts loading the issues of the module in background.
+   */
+  public void load(final int moduleId) {
+    // Adding one second is a hack for resolving conflicts with concurrent user
+    // changes during issue persistence
+    final Date now = DateUtils.addSeconds(DateUtils.truncate(new Date(), Calendar.MILLISECOND), 1);
+
+    executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+      @Override
+      public Thread newThread(Runnable r) {
+        Thread thread = new Thread(r, "Initial open issues loader");
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+    loading = executor.submit(new Runnable() {
+      @Override
+      public void run() {
+        doLoad(moduleId, now);
+      }
+    });
+    executor.shutdown();
+  }
+
+  void doLoad(int moduleId, final Date now) {
+    issueDao.selectNonClosedIssuesByModule(moduleId, new ResultHandler() {
+      @Override
+      public void handleResult(ResultContext rc) {
+        IssueDto dto = (IssueDto) rc.getResultObject();
+        dto.setSelectedAt(now);
+        initialOpenIssuesStack.addIssue(dto);
+      }
+    });
+
+    issueChangeDao.selectChangelogOnNonClosedIssuesByModuleAndType(moduleId, new ResultHandler() {
+      @Override
+      public void handleResult(ResultContext rc) {
+        IssueChangeDto dto = (IssueChangeDto) rc.getResultObject();
+        initialOpenIssuesStack.addChangelog(dto);
+      }
+    });
+  }
+
+  /**
+   * Blocks until issues are loaded. Does nothing if loading is not started.
+   */
+  public void waitForLoading() {
+    if (loading == null) {
+      return;
+    }
+    try {
+      loading.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SonarException("Interrupted while loading the initial open issues", e);
+    } catch (ExecutionException e) {
+      throw Throwables.propagate(e.getCause());
+    }
+  }
+
+  @Override
+  public void stop() {
+    if (executor != null) {
+      executor.shutdownNow();
+    }
+  }
+}
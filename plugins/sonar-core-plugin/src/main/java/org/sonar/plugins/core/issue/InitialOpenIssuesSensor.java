@@ -19,33 +19,20 @@
  */
 package org.sonar.plugins.core.issue;
 
-import org.apache.commons.lang.time.DateUtils;
-import org.apache.ibatis.session.ResultContext;
-import org.apache.ibatis.session.ResultHandler;
 import org.sonar.api.batch.Sensor;
 import org.sonar.api.batch.SensorContext;
 import org.sonar.api.resources.Project;
-import org.sonar.core.issue.db.IssueChangeDao;
-import org.sonar.core.issue.db.IssueChangeDto;
-import org.sonar.core.issue.db.IssueDao;
-import org.sonar.core.issue.db.IssueDto;
-
-import java.util.Calendar;
-import java.util.Date;
 
 /**
- * Load all the issues referenced during the previous scan.
+ * Starts loading all the issues referenced during the previous scan. They are loaded in background
+ * while the other sensors are executed.
  */
 public class InitialOpenIssuesSensor implements Sensor {
 
-  private final InitialOpenIssuesStack initialOpenIssuesStack;
-  private final IssueDao issueDao;
-  private final IssueChangeDao issueChangeDao;
+  private final InitialOpenIssuesLoader loader;
 
-  public InitialOpenIssuesSensor(InitialOpenIssuesStack initialOpenIssuesStack, IssueDao issueDao, IssueChangeDao issueChangeDao) {
-    this.initialOpenIssuesStack = initialOpenIssuesStack;
-    this.issueDao = issueDao;
-    this.issueChangeDao = issueChangeDao;
+  public InitialOpenIssuesSensor(InitialOpenIssuesLoader loader) {
+    this.loader = loader;
   }
 
   @Override
@@ -55,26 +42,7 @@ public class InitialOpenIssuesSensor implements Sensor {
 
   @Override
   public void analyse(Project project, SensorContext context) {
-    // Adding one second is a hack for resolving conflicts with concurrent user
-    // changes during issue persistence
-    final Date now = DateUtils.addSeconds(DateUtils.truncate(new Date(), Calendar.MILLISECOND), 1);
-
-    issueDao.selectNonClosedIssuesByModule(project.getId(), new ResultHandler() {
-      @Override
-      public void handleResult(ResultContext rc) {
-        IssueDto dto = (IssueDto) rc.getResultObject();
-        dto.setSelectedAt(now);
-        initialOpenIssuesStack.addIssue(dto);
-      }
-    });
-
-    issueChangeDao.selectChangelogOnNonClosedIssuesByModuleAndType(project.getId(), new ResultHandler() {
-      @Override
-      public void handleResult(ResultContext rc) {
-        IssueChangeDto dto = (IssueChangeDto) rc.getResultObject();
-        initialOpenIssuesStack.addChangelog(dto);
-      }
-    });
+    loader.load(project.getId());
   }
 
   @Override
@@ -20,7 +20,6 @@
 
 package org.sonar.plugins.core.issue;
 
-import java.util.Collections;
 import org.sonar.api.BatchExtension;
 import org.sonar.api.batch.InstantiationStrategy;
 import org.sonar.batch.index.Cache;
@@ -28,7 +27,6 @@ import org.sonar.batch.index.Caches;
 import org.sonar.core.issue.db.IssueChangeDto;
 import org.sonar.core.issue.db.IssueDto;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import static com.google.common.collect.Lists.newArrayList;
@@ -37,7 +35,7 @@ import static com.google.common.collect.Lists.newArrayList;
 public class InitialOpenIssuesStack implements BatchExtension {
 
   private final Cache<IssueDto> issuesCache;
-  private final Cache<ArrayList<IssueChangeDto>> issuesChangelogCache;
+  private final Cache<IssueChangeDto> issuesChangelogCache;
 
   public InitialOpenIssuesStack(Caches caches) {
     issuesCache = caches.createCache("last-open-issues");
@@ -64,18 +62,12 @@ public class InitialOpenIssuesStack implements BatchExtension {
   }
 
   public InitialOpenIssuesStack addChangelog(IssueChangeDto issueChangeDto) {
-    List<IssueChangeDto> changeDtos = issuesChangelogCache.get(issueChangeDto.getIssueKey());
-    if (changeDtos == null) {
-      changeDtos = newArrayList();
-    }
-    changeDtos.add(issueChangeDto);
-    issuesChangelogCache.put(issueChangeDto.getIssueKey(), newArrayList(changeDtos));
+    issuesChangelogCache.append(issueChangeDto.getIssueKey(), issueChangeDto);
     return this;
   }
 
   public List<IssueChangeDto> selectChangelog(String issueKey) {
-    List<IssueChangeDto> changeDtos = issuesChangelogCache.get(issueKey);
-    return changeDtos != null ? changeDtos : Collections.<IssueChangeDto>emptyList();
+    return newArrayList(issuesChangelogCache.values(issueKey));
   }
 
   public void clear() {
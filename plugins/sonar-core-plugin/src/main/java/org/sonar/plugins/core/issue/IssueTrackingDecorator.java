@@ -58,6 +58,7 @@ public class IssueTrackingDecorator implements Decorator {
 
   private final IssueCache issueCache;
   private final InitialOpenIssuesStack initialOpenIssues;
+  private final InitialOpenIssuesLoader initialOpenIssuesLoader;
   private final IssueTracking tracking;
   private final LastSnapshots lastSnapshots;
   private final SonarIndex index;
@@ -70,7 +71,8 @@ public class IssueTrackingDecorator implements Decorator {
   private final RuleFinder ruleFinder;
   private final WorkDurationFactory workDurationFactory;
 
-  public IssueTrackingDecorator(IssueCache issueCache, InitialOpenIssuesStack initialOpenIssues, IssueTracking tracking,
+  public IssueTrackingDecorator(IssueCache issueCache, InitialOpenIssuesStack initialOpenIssues,
+                                InitialOpenIssuesLoader initialOpenIssuesLoader, IssueTracking tracking,
                                 LastSnapshots lastSnapshots, SonarIndex index,
                                 IssueHandlers handlers, IssueWorkflow workflow,
                                 IssueUpdater updater,
@@ -80,6 +82,7 @@ public class IssueTrackingDecorator implements Decorator {
                                 RuleFinder ruleFinder, WorkDurationFactory workDurationFactory) {
     this.issueCache = issueCache;
     this.initialOpenIssues = initialOpenIssues;
+    this.initialOpenIssuesLoader = initialOpenIssuesLoader;
     this.tracking = tracking;
     this.lastSnapshots = lastSnapshots;
     this.index = index;
@@ -114,6 +117,7 @@ public class IssueTrackingDecorator implements Decorator {
     // issues = all the issues created by rule engines during this module scan and not excluded by filters
 
     // all the issues that are not closed in db before starting this module scan, including manual issues
+    initialOpenIssuesLoader.waitForLoading();
     Collection<IssueDto> dbOpenIssues = initialOpenIssues.selectAndRemoveIssues(resource.getEffectiveKey());
 
     SourceHashHolder sourceHashHolder = new SourceHashHolder(index, lastSnapshots, resource);
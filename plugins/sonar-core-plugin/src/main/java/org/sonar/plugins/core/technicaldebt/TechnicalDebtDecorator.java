@@ -93,10 +93,11 @@ public final class TechnicalDebtDecorator implements Decorator {
     double total = 0.0;
     Map<Characteristic, Double> characteristicCosts = newHashMap();
     Map<Requirement, Double> requirementCosts = newHashMap();
+    Map<Requirement, Double> childrenCosts = childrenTechnicalDebtByRequirement(CoreMetrics.TECHNICAL_DEBT, context);
 
     for (Requirement requirement : model.requirements()) {
       List<Issue> requirementIssues = issuesByRequirement.get(requirement);
-      double value = computeTechnicalDebt(CoreMetrics.TECHNICAL_DEBT, context, requirement, requirementIssues);
+      double value = computeTechnicalDebt(requirement, requirementIssues, childrenCosts);
 
       requirementCosts.put(requirement, value);
       total += value;
@@ -166,7 +167,7 @@ public final class TechnicalDebtDecorator implements Decorator {
     return issuesByRequirement;
   }
 
-  private double computeTechnicalDebt(Metric metric, DecoratorContext context, Requirement requirement, Collection<Issue> issues) {
+  private double computeTechnicalDebt(Requirement requirement, Collection<Issue> issues, Map<Requirement, Double> childrenCosts) {
     WorkDuration debt = workDurationFactory.createFromWorkingValue(0, WorkDuration.UNIT.MINUTES);
     if (issues != null) {
       for (Issue issue : issues) {
@@ -175,13 +176,26 @@ public final class TechnicalDebtDecorator implements Decorator {
     }
 
     double value = debt.toWorkingDays();
-    for (Measure measure : context.getChildrenMeasures(MeasuresFilters.requirement(metric, requirement))) {
+    Double childrenCost = childrenCosts.get(requirement);
+    if (childrenCost != null) {
+      value += childrenCost;
+    }
+    return value;
+  }
+
+  /**
+   * Sum of the children measures, grouped by requirement. Children measures are loaded once, whatever the number of requirements.
+   */
+  private Map<Requirement, Double> childrenTechnicalDebtByRequirement(Metric metric, DecoratorContext context) {
+    Map<Requirement, Double> costs = newHashMap();
+    for (Measure measure : context.getChildrenMeasures(MeasuresFilters.requirements(metric))) {
       Requirement measureRequirement = measure.getRequirement();
-      if (measureRequirement != null && measureRequirement.equals(requirement) && measure.getValue() != null) {
-        value += measure.getValue();
+      if (measureRequirement != null && measure.getValue() != null) {
+        Double cost = costs.get(measureRequirement);
+        costs.put(measureRequirement, cost == null ? measure.getValue() : cost + measure.getValue());
       }
     }
-    return value;
+    return costs;
   }
 
   private void propagateTechnicalDebtInParents(Characteristic characteristic, double value, Map<Characteristic, Double> characteristicCosts) {
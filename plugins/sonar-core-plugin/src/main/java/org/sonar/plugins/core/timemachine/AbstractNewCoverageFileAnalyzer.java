@@ -20,25 +20,24 @@
 package org.sonar.plugins.core.timemachine;
 
 import com.google.common.collect.Lists;
-import com.google.common.collect.Maps;
-import org.apache.commons.lang.ObjectUtils;
 import org.sonar.api.batch.*;
 import org.sonar.api.measures.CoreMetrics;
+import org.sonar.api.measures.LineValues;
 import org.sonar.api.measures.Measure;
 import org.sonar.api.measures.Metric;
 import org.sonar.api.resources.Project;
 import org.sonar.api.resources.Qualifiers;
 import org.sonar.api.resources.Resource;
 import org.sonar.api.resources.Scopes;
-import org.sonar.api.utils.KeyValueFormat;
 import org.sonar.batch.components.Period;
 import org.sonar.batch.components.TimeMachineConfiguration;
 import org.sonar.core.DryRunIncompatible;
 
+import javax.annotation.Nullable;
+
 import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
-import java.util.Map;
 
 /**
  * @since 2.7
@@ -111,21 +110,23 @@ public abstract class AbstractNewCoverageFileAnalyzer implements Decorator {
     Measure hitsByLineMeasure = context.getMeasure(getCoverageLineHitsDataMetric());
 
     if (lastCommits != null && lastCommits.hasData() && hitsByLineMeasure != null && hitsByLineMeasure.hasData()) {
-      Map<Integer, Date> datesByLine = KeyValueFormat.parseIntDateTime(lastCommits.getData());
-      Map<Integer, Integer> hitsByLine = parseCountByLine(hitsByLineMeasure);
-      Map<Integer, Integer> conditionsByLine = parseCountByLine(context.getMeasure(getConditionsByLineMetric()));
-      Map<Integer, Integer> coveredConditionsByLine = parseCountByLine(context.getMeasure(getCoveredConditionsByLineMetric()));
+      LineValues datesByLine = LineValues.parseDateTimes(lastCommits.getData());
+      LineValues hitsByLine = parseCountByLine(hitsByLineMeasure);
+      LineValues conditionsByLine = parseCountByLine(context.getMeasure(getConditionsByLineMetric()));
+      LineValues coveredConditionsByLine = parseCountByLine(context.getMeasure(getCoveredConditionsByLineMetric()));
 
       reset();
 
-      for (Map.Entry<Integer, Integer> entry : hitsByLine.entrySet()) {
-        int lineId = entry.getKey();
-        int hits = entry.getValue();
-        int conditions = (Integer) ObjectUtils.defaultIfNull(conditionsByLine.get(lineId), 0);
-        int coveredConditions = (Integer) ObjectUtils.defaultIfNull(coveredConditionsByLine.get(lineId), 0);
-        Date date = datesByLine.get(lineId);
-        for (PeriodStruct struct : structs) {
-          struct.analyze(date, hits, conditions, coveredConditions);
+      for (int i = 0; i < hitsByLine.size(); i++) {
+        int lineId = hitsByLine.lineAt(i);
+        if (datesByLine.has(lineId)) {
+          long hits = hitsByLine.valueAt(i);
+          int conditions = (int) conditionsByLine.get(lineId, 0L);
+          int coveredConditions = (int) coveredConditionsByLine.get(lineId, 0L);
+          long date = datesByLine.get(lineId, 0L);
+          for (PeriodStruct struct : structs) {
+            struct.analyze(date, hits > 0, conditions, coveredConditions);
+          }
         }
       }
 
@@ -161,11 +162,11 @@ public abstract class AbstractNewCoverageFileAnalyzer implements Decorator {
     context.saveMeasure(newUncoveredConditions);
   }
 
-  private Map<Integer, Integer> parseCountByLine(Measure measure) {
+  private LineValues parseCountByLine(@Nullable Measure measure) {
     if (measure != null && measure.hasData()) {
-      return KeyValueFormat.parseIntInt(measure.getData());
+      return LineValues.parse(measure.getData());
     }
-    return Maps.newHashMap();
+    return new LineValues();
   }
 
   public static final class PeriodStruct {
@@ -188,13 +189,12 @@ public abstract class AbstractNewCoverageFileAnalyzer implements Decorator {
       newCoveredConditions = null;
     }
 
-    void analyze(Date lineDate, int hits, int conditions, int coveredConditions) {
-      if (lineDate == null) {
-        // TODO warning
-
-      } else if (date == null || lineDate.after(date)) {
-        // TODO test if string comparison is faster or not
-        addLine(hits > 0);
+    /**
+     * @param lineDate date of last commit of the line, in milliseconds
+     */
+    void analyze(long lineDate, boolean covered, int conditions, int coveredConditions) {
+      if (date == null || lineDate > date.getTime()) {
+        addLine(covered);
         addConditions(conditions, coveredConditions);
       }
     }
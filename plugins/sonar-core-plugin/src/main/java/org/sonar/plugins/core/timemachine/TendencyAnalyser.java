@@ -37,7 +37,28 @@ public class TendencyAnalyser {
     return null;
   }
 
+  /**
+   * Same as {@link #analyseLevel(java.util.List)}, missing values being represented by {@link Double#NaN}
+   */
+  public Integer analyseLevel(double[] values) {
+    TendencyAnalyser.SlopeData slopeData = analyse(values);
+    if (slopeData != null) {
+      return slopeData.getLevel();
+    }
+    return null;
+  }
+
   public SlopeData analyse(List<Double> values) {
+    double[] array = new double[values.size()];
+    int i = 0;
+    for (Double value : values) {
+      array[i] = value != null ? value : Double.NaN;
+      i++;
+    }
+    return analyse(array);
+  }
+
+  public SlopeData analyse(double[] values) {
     double sumY = 0.0;
     double sumX = 0.0;
     double sumYPower2 = 0.0;
@@ -45,9 +66,9 @@ public class TendencyAnalyser {
     double sumXPower2 = 0.0;
     int nbrPoints = 0;
     boolean nullValuesYList = true;
-    int i = 0;
-    for (Double p : values) {
-      if (p != null) {
+    for (int i = 0; i < values.length; i++) {
+      double p = values[i];
+      if (!Double.isNaN(p)) {
         nullValuesYList = false;
         //SumY calculation
         sumY += p;
@@ -62,7 +83,6 @@ public class TendencyAnalyser {
         //Point number calculation
         nbrPoints++;
       }
-      i++;
     }
     // no tendency if null values or only 1 value
     if (nullValuesYList || nbrPoints == 1) {
@@ -19,8 +19,6 @@
  */
 package org.sonar.plugins.core.timemachine;
 
-import com.google.common.collect.ArrayListMultimap;
-import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Lists;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.time.DateUtils;
@@ -31,9 +29,12 @@ import org.sonar.api.measures.MetricFinder;
 import org.sonar.api.resources.Project;
 import org.sonar.api.resources.Resource;
 import org.sonar.api.resources.Scopes;
+import org.sonar.batch.MeasuresHistory;
+import org.sonar.batch.MeasuresHistoryFinder;
 import org.sonar.batch.components.PeriodsDefinition;
 import org.sonar.core.DryRunIncompatible;
 
+import java.util.Arrays;
 import java.util.List;
 
 @DryRunIncompatible
@@ -42,13 +43,14 @@ public class TendencyDecorator implements Decorator {
 
   public static final String PROP_DAYS_DESCRIPTION = "Number of days the tendency should be calculated on.";
 
-  private TimeMachine timeMachine;
+  private MeasuresHistoryFinder historyFinder;
   private TimeMachineQuery query;
   private TendencyAnalyser analyser;
   private List<Metric> metrics;
+  private MeasuresHistory history;
 
-  public TendencyDecorator(TimeMachine timeMachine, MetricFinder metricFinder) {
-    this.timeMachine = timeMachine;
+  public TendencyDecorator(MeasuresHistoryFinder historyFinder, MetricFinder metricFinder) {
+    this.historyFinder = historyFinder;
     this.analyser = new TendencyAnalyser();
     this.metrics = Lists.newLinkedList();
     for (Metric metric : metricFinder.findAll()) {
@@ -58,8 +60,8 @@ public class TendencyDecorator implements Decorator {
     }
   }
 
-  TendencyDecorator(TimeMachine timeMachine, TimeMachineQuery query, TendencyAnalyser analyser) {
-    this.timeMachine = timeMachine;
+  TendencyDecorator(MeasuresHistoryFinder historyFinder, TimeMachineQuery query, TendencyAnalyser analyser) {
+    this.historyFinder = historyFinder;
     this.query = query;
     this.analyser = analyser;
   }
@@ -94,26 +96,32 @@ public class TendencyDecorator implements Decorator {
 
   public void decorate(Resource resource, DecoratorContext context) {
     if (shouldDecorateResource(resource)) {
-      resetQuery(context.getProject(), resource);
-      List<Object[]> fields = timeMachine.getMeasuresFields(query);
-      ListMultimap<Metric, Double> valuesPerMetric = ArrayListMultimap.create();
-      for (Object[] field : fields) {
-        valuesPerMetric.put((Metric) field[1], (Double) field[2]);
-      }
-
+      MeasuresHistory history = loadHistory(context.getProject());
       for (Metric metric : query.getMetrics()) {
         Measure measure = context.getMeasure(metric);
         if (measure != null) {
-          List<Double> values = valuesPerMetric.get(metric);
-          values.add(measure.getValue());
+          double[] pastValues = history.getValues(resource.getEffectiveKey(), metric.getKey());
+          double[] values = Arrays.copyOf(pastValues, pastValues.length + 1);
+          values[pastValues.length] = measure.getValue() != null ? measure.getValue() : Double.NaN;
 
-          measure.setTendency(analyser.analyseLevel(valuesPerMetric.get(metric)));
+          measure.setTendency(analyser.analyseLevel(values));
           context.saveMeasure(measure);
         }
       }
     }
   }
 
+  /**
+   * History of the module and of all its directories is loaded in a single request, when decorating the first resource.
+   */
+  private MeasuresHistory loadHistory(Project module) {
+    if (history == null) {
+      resetQuery(module, module);
+      history = historyFinder.getModuleMeasuresHistory(query);
+    }
+    return history;
+  }
+
   private boolean shouldDecorateResource(Resource resource) {
     return StringUtils.equals(Scopes.PROJECT, resource.getScope()) || StringUtils.equals(Scopes.DIRECTORY, resource.getScope());
   }
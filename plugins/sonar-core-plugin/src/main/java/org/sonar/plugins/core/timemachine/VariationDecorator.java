@@ -30,9 +30,12 @@ import org.sonar.api.resources.Scopes;
 import org.sonar.api.technicaldebt.batch.Characteristic;
 import org.sonar.api.technicaldebt.batch.Requirement;
 import org.sonar.batch.components.PastMeasuresLoader;
+import org.sonar.batch.components.PastMeasuresTable;
 import org.sonar.batch.components.PastSnapshot;
 import org.sonar.batch.components.TimeMachineConfiguration;
 
+import javax.annotation.Nullable;
+
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
@@ -43,7 +46,7 @@ public class VariationDecorator implements Decorator {
   private List<PastSnapshot> projectPastSnapshots;
   private MetricFinder metricFinder;
   private PastMeasuresLoader pastMeasuresLoader;
-
+  private Map<Integer, PastMeasuresTable> pastMeasuresByPeriod = Maps.newHashMap();
 
   public VariationDecorator(PastMeasuresLoader pastMeasuresLoader, MetricFinder metricFinder, TimeMachineConfiguration timeMachineConfiguration) {
     this(pastMeasuresLoader, metricFinder, timeMachineConfiguration.getProjectPastSnapshots());
@@ -82,14 +85,24 @@ public class VariationDecorator implements Decorator {
   }
 
   private void computeVariation(Resource resource, DecoratorContext context, PastSnapshot pastSnapshot) {
-    List<Object[]> pastMeasures = pastMeasuresLoader.getPastMeasures(resource, pastSnapshot);
-    compareWithPastMeasures(context, pastSnapshot.getIndex(), pastMeasures);
+    compareWithPastMeasures(context, pastSnapshot.getIndex(), resource.getEffectiveKey(), pastMeasuresTable(pastSnapshot));
+  }
+
+  /**
+   * Past measures of the whole module are loaded once per period, on first use.
+   */
+  private PastMeasuresTable pastMeasuresTable(PastSnapshot pastSnapshot) {
+    PastMeasuresTable table = pastMeasuresByPeriod.get(pastSnapshot.getIndex());
+    if (table == null) {
+      table = pastMeasuresLoader.getPastMeasuresTable(pastSnapshot);
+      pastMeasuresByPeriod.put(pastSnapshot.getIndex(), table);
+    }
+    return table;
   }
 
-  void compareWithPastMeasures(DecoratorContext context, int index, List<Object[]> pastMeasures) {
-    Map<MeasureKey, Object[]> pastMeasuresByKey = Maps.newHashMap();
-    for (Object[] pastMeasure : pastMeasures) {
-      pastMeasuresByKey.put(new MeasureKey(pastMeasure), pastMeasure);
+  void compareWithPastMeasures(DecoratorContext context, int index, String resourceKey, PastMeasuresTable pastMeasures) {
+    if (!pastMeasures.hasResource(resourceKey)) {
+      return;
     }
 
     // for each measure, search equivalent past measure
@@ -102,16 +115,16 @@ public class VariationDecorator implements Decorator {
       Integer personId = measure.getPersonId();
       Integer ruleId = measure instanceof RuleMeasure ? ((RuleMeasure) measure).getRule().getId() : null;
 
-      Object[] pastMeasure = pastMeasuresByKey.get(new MeasureKey(metricId, characteristicId, personId, ruleId));
-      if (updateVariation(measure, pastMeasure, index)) {
+      Double pastValue = pastMeasures.getValue(resourceKey, metricId, characteristicId, personId, ruleId);
+      if (updateVariation(measure, pastValue, index)) {
         context.saveMeasure(measure);
       }
     }
   }
 
-  boolean updateVariation(Measure measure, Object[] pastMeasure, int index) {
-    if (pastMeasure != null && PastMeasuresLoader.hasValue(pastMeasure) && measure.getValue() != null) {
-      double variation = measure.getValue() - PastMeasuresLoader.getValue(pastMeasure);
+  boolean updateVariation(Measure measure, @Nullable Double pastValue, int index) {
+    if (pastValue != null && measure.getValue() != null) {
+      double variation = measure.getValue() - pastValue;
       measure.setVariation(index, variation);
       return true;
     }
@@ -122,58 +135,4 @@ public class VariationDecorator implements Decorator {
   public String toString() {
     return getClass().getSimpleName();
   }
-
-  static final class MeasureKey {
-    int metricId;
-    Integer characteristicId;
-    Integer personId;
-    Integer ruleId;
-
-    MeasureKey(Object[] pastFields) {
-      metricId = PastMeasuresLoader.getMetricId(pastFields);
-      characteristicId = PastMeasuresLoader.getCharacteristicId(pastFields);
-      personId = PastMeasuresLoader.getPersonId(pastFields);
-      ruleId = PastMeasuresLoader.getRuleId(pastFields);
-    }
-
-    MeasureKey(int metricId, Integer characteristicId, Integer personId, Integer ruleId) {
-      this.metricId = metricId;
-      this.characteristicId = characteristicId;
-      this.personId = personId;
-      this.ruleId = ruleId;
-    }
-
-    @Override
-    public boolean equals(Object o) {
-      if (this == o) {
-        return true;
-      }
-      if (o == null || getClass() != o.getClass()) {
-        return false;
-      }
-      MeasureKey that = (MeasureKey) o;
-      if (metricId != that.metricId) {
-        return false;
-      }
-      if (characteristicId != null ? !characteristicId.equals(that.characteristicId) : that.characteristicId != null) {
-        return false;
-      }
-      if (personId != null ? !personId.equals(that.personId) : that.personId != null) {
-        return false;
-      }
-      if (ruleId != null ? !ruleId.equals(that.ruleId) : that.ruleId != null) {
-        return false;
-      }
-      return true;
-    }
-
-    @Override
-    public int hashCode() {
-      int result = metricId;
-      result = 31 * result + (characteristicId != null ? characteristicId.hashCode() : 0);
-      result = 31 * result + (personId != null ? personId.hashCode() : 0);
-      result = 31 * result + (ruleId != null ? ruleId.hashCode() : 0);
-      return result;
-    }
-  }
 }
@@ -21,7 +21,7 @@ package org.sonar.plugins.core.batch;
 
 import org.junit.Test;
 import org.sonar.api.resources.Project;
-import org.sonar.core.resource.ResourceIndexerDao;
+import org.sonar.core.analysis.AnalysisTaskDao;
 
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
@@ -29,25 +29,25 @@ import static org.mockito.Mockito.verifyZeroInteractions;
 
 public class IndexProjectPostJobTest {
   @Test
-  public void shouldIndexProject() {
-    ResourceIndexerDao indexer = mock(ResourceIndexerDao.class);
-    IndexProjectPostJob job = new IndexProjectPostJob(indexer);
+  public void shouldRequestProjectIndexing() {
+    AnalysisTaskDao analysisTaskDao = mock(AnalysisTaskDao.class);
+    IndexProjectPostJob job = new IndexProjectPostJob(analysisTaskDao);
     Project project = new Project("foo");
     project.setId(123);
 
     job.executeOn(project, null);
 
-    verify(indexer).indexProject(123);
+    verify(analysisTaskDao).enqueue("INDEX_PROJECT", 123L);
   }
 
   @Test
   public void shouldNotIndexProjectIfMissingId() {
-    ResourceIndexerDao indexer = mock(ResourceIndexerDao.class);
-    IndexProjectPostJob job = new IndexProjectPostJob(indexer);
+    AnalysisTaskDao analysisTaskDao = mock(AnalysisTaskDao.class);
+    IndexProjectPostJob job = new IndexProjectPostJob(analysisTaskDao);
 
     job.executeOn(new Project("foo"), null);
 
-    verifyZeroInteractions(indexer);
+    verifyZeroInteractions(analysisTaskDao);
   }
 
 }
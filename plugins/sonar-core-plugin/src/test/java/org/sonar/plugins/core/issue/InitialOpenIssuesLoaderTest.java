@@ -0,0 +1,89 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.core.issue;
+
+import org.apache.ibatis.session.ResultHandler;
+import org.junit.After;
+import org.junit.Test;
+import org.sonar.core.issue.db.IssueChangeDao;
+import org.sonar.core.issue.db.IssueDao;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.fest.assertions.Fail.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+public class InitialOpenIssuesLoaderTest {
+
+  InitialOpenIssuesStack stack = mock(InitialOpenIssuesStack.class);
+  IssueDao issueDao = mock(IssueDao.class);
+  IssueChangeDao issueChangeDao = mock(IssueChangeDao.class);
+
+  InitialOpenIssuesLoader loader = new InitialOpenIssuesLoader(stack, issueDao, issueChangeDao);
+
+  @After
+  public void tearDown() {
+    loader.stop();
+  }
+
+  @Test
+  public void should_select_module_open_issues() {
+    loader.start();
+    loader.load(1);
+    loader.waitForLoading();
+
+    verify(issueDao).selectNonClosedIssuesByModule(eq(1), any(ResultHandler.class));
+  }
+
+  @Test
+  public void should_select_module_open_issues_changelog() {
+    loader.start();
+    loader.load(1);
+    loader.waitForLoading();
+
+    verify(issueChangeDao).selectChangelogOnNonClosedIssuesByModuleAndType(eq(1), any(ResultHandler.class));
+  }
+
+  @Test
+  public void should_not_wait_if_loading_is_not_started() {
+    loader.start();
+    loader.waitForLoading();
+
+    verifyZeroInteractions(issueDao, issueChangeDao);
+  }
+
+  @Test
+  public void should_propagate_loading_failure() {
+    doThrow(new IllegalStateException("db is down")).when(issueDao).selectNonClosedIssuesByModule(anyInt(), any(ResultHandler.class));
+    loader.load(1);
+
+    try {
+      loader.waitForLoading();
+      fail();
+    } catch (IllegalStateException e) {
+      assertThat(e).hasMessage("db is down");
+    }
+  }
+}
@@ -19,42 +19,26 @@
  */
 package org.sonar.plugins.core.issue;
 
-import org.apache.ibatis.session.ResultHandler;
 import org.junit.Test;
 import org.sonar.api.resources.Project;
-import org.sonar.core.issue.db.IssueChangeDao;
-import org.sonar.core.issue.db.IssueDao;
 
 import static org.fest.assertions.Assertions.assertThat;
-import static org.mockito.Matchers.any;
-import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 
 public class InitialOpenIssuesSensorTest {
 
-  InitialOpenIssuesStack stack = mock(InitialOpenIssuesStack.class);
-  IssueDao issueDao = mock(IssueDao.class);
-  IssueChangeDao issueChangeDao = mock(IssueChangeDao.class);
+  InitialOpenIssuesLoader loader = mock(InitialOpenIssuesLoader.class);
 
-  InitialOpenIssuesSensor sensor = new InitialOpenIssuesSensor(stack, issueDao, issueChangeDao);
+  InitialOpenIssuesSensor sensor = new InitialOpenIssuesSensor(loader);
 
   @Test
-  public void should_select_module_open_issues() {
+  public void should_start_loading_module_open_issues() {
     Project project = new Project("key");
     project.setId(1);
     sensor.analyse(project, null);
 
-    verify(issueDao).selectNonClosedIssuesByModule(eq(1), any(ResultHandler.class));
-  }
-
-  @Test
-  public void should_select_module_open_issues_changelog() {
-    Project project = new Project("key");
-    project.setId(1);
-    sensor.analyse(project, null);
-
-    verify(issueChangeDao).selectChangelogOnNonClosedIssuesByModuleAndType(eq(1), any(ResultHandler.class));
+    verify(loader).load(1);
   }
 
   @Test
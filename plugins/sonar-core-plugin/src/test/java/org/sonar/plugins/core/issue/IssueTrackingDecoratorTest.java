@@ -69,6 +69,7 @@ public class IssueTrackingDecoratorTest extends AbstractDaoTestCase {
   IssueTrackingDecorator decorator;
   IssueCache issueCache = mock(IssueCache.class, RETURNS_MOCKS);
   InitialOpenIssuesStack initialOpenIssues = mock(InitialOpenIssuesStack.class);
+  InitialOpenIssuesLoader initialOpenIssuesLoader = mock(InitialOpenIssuesLoader.class);
   IssueTracking tracking = mock(IssueTracking.class, RETURNS_MOCKS);
   LastSnapshots lastSnapshots = mock(LastSnapshots.class);
   SonarIndex index = mock(SonarIndex.class);
@@ -87,6 +88,7 @@ public class IssueTrackingDecoratorTest extends AbstractDaoTestCase {
     decorator = new IssueTrackingDecorator(
       issueCache,
       initialOpenIssues,
+      initialOpenIssuesLoader,
       tracking,
       lastSnapshots,
       index,
@@ -124,6 +126,8 @@ public class IssueTrackingDecoratorTest extends AbstractDaoTestCase {
 
     decorator.doDecorate(file);
 
+    verify(initialOpenIssuesLoader).waitForLoading();
+
     // Apply filters, track, apply transitions, notify extensions then update cache
     verify(tracking).track(isA(SourceHashHolder.class), eq(dbIssues), argThat(new ArgumentMatcher<Collection<DefaultIssue>>() {
       @Override
@@ -52,6 +52,7 @@ import org.sonar.api.test.IsMeasure;
 import org.sonar.api.utils.internal.WorkDuration;
 import org.sonar.api.utils.internal.WorkDurationFactory;
 
+import java.util.Collections;
 import java.util.List;
 
 import static com.google.common.collect.Lists.newArrayList;
@@ -236,6 +237,29 @@ public class TechnicalDebtDecoratorTest {
     verify(context).saveMeasure(argThat(new IsCharacteristicMeasure(CoreMetrics.TECHNICAL_DEBT, requirement, 7.0)));
   }
 
+  @Test
+  public void load_children_measures_once_for_all_requirements() throws Exception {
+    when(issuable.issues()).thenReturn(Collections.<Issue>emptyList());
+
+    DefaultCharacteristic rootCharacteristic = new DefaultCharacteristic().setKey("rootCharacteristic");
+    DefaultCharacteristic characteristic = new DefaultCharacteristic().setKey("characteristic").setParent(rootCharacteristic);
+    DefaultRequirement requirement1 = new DefaultRequirement().setRuleKey(RuleKey.of("repo1", "rule1")).setCharacteristic(characteristic);
+    DefaultRequirement requirement2 = new DefaultRequirement().setRuleKey(RuleKey.of("repo2", "rule2")).setCharacteristic(characteristic);
+    doReturn(newArrayList(requirement1, requirement2)).when(defaultTechnicalDebtModel).requirements();
+
+    when(context.getChildrenMeasures(any(MeasuresFilter.class))).thenReturn(newArrayList(
+      new Measure(CoreMetrics.TECHNICAL_DEBT).setRequirement(requirement1).setValue(5.0),
+      new Measure(CoreMetrics.TECHNICAL_DEBT).setRequirement(requirement2).setValue(3.0),
+      new Measure(CoreMetrics.TECHNICAL_DEBT).setRequirement(requirement1).setValue(1.0)));
+
+    decorator.decorate(resource, context);
+
+    verify(context, times(1)).getChildrenMeasures(any(MeasuresFilter.class));
+    verify(context).saveMeasure(argThat(new IsCharacteristicMeasure(CoreMetrics.TECHNICAL_DEBT, 9.0)));
+    verify(context).saveMeasure(argThat(new IsCharacteristicMeasure(CoreMetrics.TECHNICAL_DEBT, requirement1, 6.0)));
+    verify(context).saveMeasure(argThat(new IsCharacteristicMeasure(CoreMetrics.TECHNICAL_DEBT, requirement2, 3.0)));
+  }
+
   @Test
   public void always_save_technical_debt_for_positive_values() throws Exception {
     // for a project
@@ -125,4 +125,12 @@ public class TendencyAnalyserTest {
 
     assertThat(slopeData1.getSlope()).isNotEqualTo(slopeData2.getSlope());
   }
+
+  @Test
+  public void testMissingValuesInPrimitiveArray() {
+    TendencyAnalyser analyser = new TendencyAnalyser();
+
+    assertThat(analyser.analyseLevel(new double[] {90.0, Double.NaN, 50.0})).isEqualTo(analyseLevel(90.0, null, 50.0));
+    assertThat(analyser.analyseLevel(new double[] {Double.NaN, 10.0})).isNull();
+  }
 }
@@ -21,13 +21,14 @@ package org.sonar.plugins.core.timemachine;
 
 import org.junit.Test;
 import org.sonar.api.batch.DecoratorContext;
-import org.sonar.api.batch.TimeMachine;
 import org.sonar.api.batch.TimeMachineQuery;
 import org.sonar.api.measures.CoreMetrics;
 import org.sonar.api.measures.Measure;
 import org.sonar.api.measures.MetricFinder;
 import org.sonar.api.resources.JavaPackage;
 import org.sonar.api.resources.Project;
+import org.sonar.batch.MeasuresHistory;
+import org.sonar.batch.MeasuresHistoryFinder;
 
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
@@ -41,6 +42,8 @@ import static org.mockito.Mockito.*;
 
 public class TendencyDecoratorTest {
 
+  private static final String PACKAGE_KEY = "project:org.foo";
+
   @Test
   public void initQuery() throws ParseException {
     Project project = mock(Project.class);
@@ -62,42 +65,64 @@ public class TendencyDecoratorTest {
   public void includeCurrentMeasures() throws ParseException {
     TendencyAnalyser analyser = mock(TendencyAnalyser.class);
     TimeMachineQuery query = new TimeMachineQuery(null).setMetrics(CoreMetrics.LINES, CoreMetrics.COVERAGE);
-    TimeMachine timeMachine = mock(TimeMachine.class);
+    MeasuresHistoryFinder historyFinder = mock(MeasuresHistoryFinder.class);
 
-    when(timeMachine.getMeasuresFields(query)).thenReturn(Arrays.<Object[]>asList(
-      new Object[]{date("2009-12-01"), CoreMetrics.LINES, 1200.0},
-      new Object[]{date("2009-12-01"), CoreMetrics.COVERAGE, 80.5},
-      new Object[]{date("2009-12-02"), CoreMetrics.LINES, 1300.0},
-      new Object[]{date("2009-12-02"), CoreMetrics.COVERAGE, 79.6},
-      new Object[]{date("2009-12-15"), CoreMetrics.LINES, 1150.0}
-    ));
+    when(historyFinder.getModuleMeasuresHistory(query)).thenReturn(new MeasuresHistory()
+      .add(PACKAGE_KEY, CoreMetrics.LINES_KEY, date("2009-12-01"), 1200.0)
+      .add(PACKAGE_KEY, CoreMetrics.COVERAGE_KEY, date("2009-12-01"), 80.5)
+      .add(PACKAGE_KEY, CoreMetrics.LINES_KEY, date("2009-12-02"), 1300.0)
+      .add(PACKAGE_KEY, CoreMetrics.COVERAGE_KEY, date("2009-12-02"), 79.6)
+      .add(PACKAGE_KEY, CoreMetrics.LINES_KEY, date("2009-12-15"), 1150.0)
+      .add("project:other", CoreMetrics.LINES_KEY, date("2009-12-15"), 42.0)
+    );
 
     DecoratorContext context = mock(DecoratorContext.class);
     when(context.getMeasure(CoreMetrics.LINES)).thenReturn(new Measure(CoreMetrics.LINES, 1400.0));
     when(context.getMeasure(CoreMetrics.COVERAGE)).thenReturn(new Measure(CoreMetrics.LINES, 90.0));
 
-    TendencyDecorator decorator = new TendencyDecorator(timeMachine, query, analyser);
-    decorator.decorate(new JavaPackage("org.foo"), context);
+    TendencyDecorator decorator = new TendencyDecorator(historyFinder, query, analyser);
+    decorator.decorate(new JavaPackage("org.foo").setEffectiveKey(PACKAGE_KEY), context);
+
+    verify(analyser).analyseLevel(new double[] {1200.0, 1300.0, 1150.0, 1400.0});
+    verify(analyser).analyseLevel(new double[] {80.5, 79.6, 90.0});
+  }
+
+  @Test
+  public void loadHistoryOncePerModule() throws ParseException {
+    TendencyAnalyser analyser = mock(TendencyAnalyser.class);
+    TimeMachineQuery query = new TimeMachineQuery(null).setMetrics(CoreMetrics.LINES);
+    MeasuresHistoryFinder historyFinder = mock(MeasuresHistoryFinder.class);
+    when(historyFinder.getModuleMeasuresHistory(query)).thenReturn(new MeasuresHistory()
+      .add(PACKAGE_KEY, CoreMetrics.LINES_KEY, date("2009-12-01"), 1200.0));
+
+    DecoratorContext context = mock(DecoratorContext.class);
+    when(context.getMeasure(CoreMetrics.LINES)).thenReturn(new Measure(CoreMetrics.LINES, 1400.0));
+
+    TendencyDecorator decorator = new TendencyDecorator(historyFinder, query, analyser);
+    decorator.decorate(new JavaPackage("org.foo").setEffectiveKey(PACKAGE_KEY), context);
+    decorator.decorate(new JavaPackage("org.bar").setEffectiveKey("project:org.bar"), context);
 
-    verify(analyser).analyseLevel(Arrays.asList(1200.0, 1300.0, 1150.0, 1400.0));
-    verify(analyser).analyseLevel(Arrays.asList(80.5, 79.6, 90.0));
+    verify(historyFinder, times(1)).getModuleMeasuresHistory(query);
+    verify(analyser).analyseLevel(new double[] {1200.0, 1400.0});
+    verify(analyser).analyseLevel(new double[] {1400.0});
   }
 
   @Test
   public void noTendencyIfNoCurrentMeasures() throws ParseException {
     TendencyAnalyser analyser = mock(TendencyAnalyser.class);
     TimeMachineQuery query = new TimeMachineQuery(null).setMetrics(CoreMetrics.LINES, CoreMetrics.COVERAGE);
-    TimeMachine timeMachine = mock(TimeMachine.class);
+    MeasuresHistoryFinder historyFinder = mock(MeasuresHistoryFinder.class);
 
-    when(timeMachine.getMeasuresFields(query)).thenReturn(Arrays.<Object[]>asList(
-      new Object[]{date("2009-12-01"), CoreMetrics.LINES, 1200.0},
-      new Object[]{date("2009-12-02"), CoreMetrics.LINES, 1300.0}
-    ));
+    when(historyFinder.getModuleMeasuresHistory(query)).thenReturn(new MeasuresHistory()
+      .add(PACKAGE_KEY, CoreMetrics.LINES_KEY, date("2009-12-01"), 1200.0)
+      .add(PACKAGE_KEY, CoreMetrics.LINES_KEY, date("2009-12-02"), 1300.0)
+    );
 
     DecoratorContext context = mock(DecoratorContext.class);
-    TendencyDecorator decorator = new TendencyDecorator(timeMachine, query, analyser);
-    decorator.decorate(new JavaPackage("org.foo"), context);
+    TendencyDecorator decorator = new TendencyDecorator(historyFinder, query, analyser);
+    decorator.decorate(new JavaPackage("org.foo").setEffectiveKey(PACKAGE_KEY), context);
 
+    verify(analyser, never()).analyseLevel(any(double[].class));
     verify(analyser, never()).analyseLevel(anyList());
   }
 
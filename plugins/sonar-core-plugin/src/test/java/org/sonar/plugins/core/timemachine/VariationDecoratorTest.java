@@ -29,6 +29,7 @@ import org.sonar.api.resources.Project;
 import org.sonar.api.resources.Resource;
 import org.sonar.api.rules.Rule;
 import org.sonar.batch.components.PastMeasuresLoader;
+import org.sonar.batch.components.PastMeasuresTable;
 import org.sonar.batch.components.PastSnapshot;
 import org.sonar.batch.components.TimeMachineConfiguration;
 import org.sonar.jpa.test.AbstractDbUnitTestCase;
@@ -41,6 +42,8 @@ import static org.mockito.Mockito.*;
 
 public class VariationDecoratorTest extends AbstractDbUnitTestCase {
 
+  public static final String PACKAGE_KEY = "project:org.foo";
+
   public static final int NCLOC_ID = 12;
   public static final Metric NCLOC = new Metric("ncloc").setId(NCLOC_ID);
 
@@ -61,20 +64,20 @@ public class VariationDecoratorTest extends AbstractDbUnitTestCase {
 
   @Test
   public void shouldCompareAndSaveVariation() {
-    Resource javaPackage = new JavaPackage("org.foo");
+    Resource javaPackage = new JavaPackage("org.foo").setEffectiveKey(PACKAGE_KEY);
 
     PastMeasuresLoader pastMeasuresLoader = mock(PastMeasuresLoader.class);
     PastSnapshot pastSnapshot1 = new PastSnapshot("days", new Date()).setIndex(1);
     PastSnapshot pastSnapshot3 = new PastSnapshot("days", new Date()).setIndex(3);
 
     // first past analysis
-    when(pastMeasuresLoader.getPastMeasures(javaPackage, pastSnapshot1)).thenReturn(Arrays.asList(
-      new Object[]{NCLOC_ID, null, null, null, 180.0},
-      new Object[]{COVERAGE_ID, null, null, null, 75.0}));
+    when(pastMeasuresLoader.getPastMeasuresTable(pastSnapshot1)).thenReturn(new PastMeasuresTable()
+      .add(PACKAGE_KEY, NCLOC_ID, null, null, null, 180.0)
+      .add(PACKAGE_KEY, COVERAGE_ID, null, null, null, 75.0));
 
     // second past analysis
-    when(pastMeasuresLoader.getPastMeasures(javaPackage, pastSnapshot3)).thenReturn(Arrays.<Object[]>asList(
-      new Object[]{NCLOC_ID, null, null, null, 240.0}));
+    when(pastMeasuresLoader.getPastMeasuresTable(pastSnapshot3)).thenReturn(new PastMeasuresTable()
+      .add(PACKAGE_KEY, NCLOC_ID, null, null, null, 240.0));
 
     // current analysis
     DecoratorContext context = mock(DecoratorContext.class);
@@ -104,16 +107,16 @@ public class VariationDecoratorTest extends AbstractDbUnitTestCase {
     Rule rule2 = Rule.create();
     rule2.setId(2);
 
-    Resource javaPackage = new JavaPackage("org.foo");
+    Resource javaPackage = new JavaPackage("org.foo").setEffectiveKey(PACKAGE_KEY);
 
     PastMeasuresLoader pastMeasuresLoader = mock(PastMeasuresLoader.class);
     PastSnapshot pastSnapshot1 = new PastSnapshot("days", new Date()).setIndex(1);
 
     // first past analysis
-    when(pastMeasuresLoader.getPastMeasures(javaPackage, pastSnapshot1)).thenReturn(Arrays.asList(
-      new Object[]{VIOLATIONS_ID, null, null, null, 180.0},// total
-      new Object[]{VIOLATIONS_ID, null, null, rule1.getId(), 100.0},// rule 1
-      new Object[]{VIOLATIONS_ID, null, null, rule2.getId(), 80.0})); // rule 2
+    when(pastMeasuresLoader.getPastMeasuresTable(pastSnapshot1)).thenReturn(new PastMeasuresTable()
+      .add(PACKAGE_KEY, VIOLATIONS_ID, null, null, null, 180.0)// total
+      .add(PACKAGE_KEY, VIOLATIONS_ID, null, null, rule1.getId(), 100.0)// rule 1
+      .add(PACKAGE_KEY, VIOLATIONS_ID, null, null, rule2.getId(), 80.0)); // rule 2
 
     // current analysis
     DecoratorContext context = mock(DecoratorContext.class);
@@ -129,6 +132,35 @@ public class VariationDecoratorTest extends AbstractDbUnitTestCase {
     verify(context, times(3)).saveMeasure(Matchers.<Measure>anyObject());
 
     assertThat(violations.getVariation1()).isEqualTo(20.0);
+    assertThat(violationsRule1.getVariation1()).isEqualTo(30.0);
+    assertThat(violationsRule2.getVariation1()).isEqualTo(-10.0);
+  }
+
+  @Test
+  public void shouldLoadPastMeasuresOncePerPeriod() {
+    Resource javaPackage = new JavaPackage("org.foo").setEffectiveKey(PACKAGE_KEY);
+    Resource project = new Project("project").setEffectiveKey("project");
+
+    PastMeasuresLoader pastMeasuresLoader = mock(PastMeasuresLoader.class);
+    PastSnapshot pastSnapshot1 = new PastSnapshot("days", new Date()).setIndex(1);
+    when(pastMeasuresLoader.getPastMeasuresTable(pastSnapshot1)).thenReturn(new PastMeasuresTable()
+      .add(PACKAGE_KEY, NCLOC_ID, null, null, null, 180.0)
+      .add("project", NCLOC_ID, null, null, null, 1000.0));
+
+    DecoratorContext packageContext = mock(DecoratorContext.class);
+    Measure packageNcloc = newMeasure(NCLOC, 200.0);
+    when(packageContext.getMeasures(Matchers.<MeasuresFilter>anyObject())).thenReturn(Arrays.asList(packageNcloc));
+    DecoratorContext projectContext = mock(DecoratorContext.class);
+    Measure projectNcloc = newMeasure(NCLOC, 1100.0);
+    when(projectContext.getMeasures(Matchers.<MeasuresFilter>anyObject())).thenReturn(Arrays.asList(projectNcloc));
+
+    VariationDecorator decorator = new VariationDecorator(pastMeasuresLoader, mock(MetricFinder.class), Arrays.asList(pastSnapshot1));
+    decorator.decorate(javaPackage, packageContext);
+    decorator.decorate(project, projectContext);
+
+    verify(pastMeasuresLoader, times(1)).getPastMeasuresTable(pastSnapshot1);
+    assertThat(packageNcloc.getVariation1()).isEqualTo(20.0);
+    assertThat(projectNcloc.getVariation1()).isEqualTo(100.0);
   }
 
   private Measure newMeasure(Metric metric, double value) {
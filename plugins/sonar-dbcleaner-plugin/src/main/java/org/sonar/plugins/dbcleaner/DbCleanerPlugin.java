@@ -34,7 +34,7 @@ import java.util.List;
 public final class DbCleanerPlugin extends SonarPlugin {
 
   public List getExtensions() {
-    return ImmutableList.builder().add(DefaultPeriodCleaner.class, DefaultPurgeTask.class, ProjectPurgePostJob.class)
+    return ImmutableList.builder().add(DefaultPeriodCleaner.class, DefaultPurgeTask.class, ProjectPurgePostJob.class, ProjectPurgeTaskHandler.class)
       .addAll(propertyDefinitions()).build();
   }
 
@@ -23,18 +23,21 @@ import org.sonar.api.batch.PostJob;
 import org.sonar.api.batch.SensorContext;
 import org.sonar.api.resources.Project;
 import org.sonar.core.DryRunIncompatible;
-import org.sonar.plugins.dbcleaner.api.PurgeTask;
+import org.sonar.core.analysis.AnalysisTaskDao;
 
+/**
+ * Requests the server to purge the project history, see {@link ProjectPurgeTaskHandler}.
+ */
 @DryRunIncompatible
 public class ProjectPurgePostJob implements PostJob {
 
-  private PurgeTask purgeTask;
+  private AnalysisTaskDao analysisTaskDao;
 
-  public ProjectPurgePostJob(PurgeTask purgeTask) {
-    this.purgeTask = purgeTask;
+  public ProjectPurgePostJob(AnalysisTaskDao analysisTaskDao) {
+    this.analysisTaskDao = analysisTaskDao;
   }
 
   public void executeOn(final Project project, SensorContext context) {
-    purgeTask.purge(project.getId());
+    analysisTaskDao.enqueue(ProjectPurgeTaskHandler.TASK_TYPE, project.getId());
   }
 }
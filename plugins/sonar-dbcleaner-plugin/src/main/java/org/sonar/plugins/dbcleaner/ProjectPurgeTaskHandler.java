@@ -0,0 +1,118 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.dbcleaner;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.api.config.Settings;
+import org.sonar.api.utils.Semaphores;
+import org.sonar.core.analysis.AnalysisTaskHandler;
+import org.sonar.core.properties.PropertiesDao;
+import org.sonar.core.properties.PropertyDto;
+import org.sonar.core.purge.PurgeDao;
+import org.sonar.core.purge.PurgeProfiler;
+import org.sonar.core.resource.ResourceDao;
+import org.sonar.core.resource.ResourceDto;
+import org.sonar.plugins.dbcleaner.period.DefaultPeriodCleaner;
+
+/**
+ * Purges on server side the history of the projects that have been analysed. The purge is configured
+ * by the global properties and by the properties of the project that are stored in database.
+ * <p/>
+ * The purge deletes the unprocessed snapshots and disables the resources without last snapshot, so it must not
+ * be executed while the project is analysed. It holds the semaphore "purge-&lt;project key&gt;", that the batch
+ * waits for before analysing the project, and it is postponed if the semaphore "batch-&lt;project key&gt;" of
+ * the batch is held.
+ *
+ * @since 4.2.1
+ */
+public class ProjectPurgeTaskHandler implements AnalysisTaskHandler {
+
+  public static final String TASK_TYPE = "PURGE";
+
+  private static final Logger LOG = LoggerFactory.getLogger(ProjectPurgeTaskHandler.class);
+
+  private final PurgeDao purgeDao;
+  private final ResourceDao resourceDao;
+  private final PropertiesDao propertiesDao;
+  private final Settings settings;
+  private final Semaphores semaphores;
+  private final PurgeProfiler profiler;
+
+  public ProjectPurgeTaskHandler(PurgeDao purgeDao, ResourceDao resourceDao, PropertiesDao propertiesDao, Settings settings,
+    Semaphores semaphores, PurgeProfiler profiler) {
+    this.purgeDao = purgeDao;
+    this.resourceDao = resourceDao;
+    this.propertiesDao = propertiesDao;
+    this.settings = settings;
+    this.semaphores = semaphores;
+    this.profiler = profiler;
+  }
+
+  public String taskType() {
+    return TASK_TYPE;
+  }
+
+  public boolean execute(long projectId) {
+    ResourceDto project = resourceDao.getResource(projectId);
+    if (project == null) {
+      return true;
+    }
+    String purgeSemaphore = "purge-" + project.getKey();
+    if (!semaphores.acquire(purgeSemaphore, 15, 10).isLocked()) {
+      LOG.debug("Purge of project {} is postponed because it is already being purged", project.getKey());
+      return false;
+    }
+    try {
+      if (isBeingAnalysed(project)) {
+        LOG.debug("Purge of project {} is postponed because the project is being analysed", project.getKey());
+        return false;
+      }
+      Settings projectSettings = projectSettings(project);
+      DefaultPeriodCleaner periodCleaner = new DefaultPeriodCleaner(purgeDao, projectSettings);
+      new DefaultPurgeTask(purgeDao, projectSettings, periodCleaner, profiler).purge(projectId);
+      return true;
+    } finally {
+      semaphores.release(purgeSemaphore);
+    }
+  }
+
+  /**
+   * The semaphore of the batch is released as soon as it is acquired : the analyses that start from now on
+   * wait for the release of the purge semaphore.
+   */
+  private boolean isBeingAnalysed(ResourceDto project) {
+    // same semaphore as org.sonar.batch.scan.ProjectLock
+    String batchSemaphore = "batch-" + project.getKey();
+    if (!semaphores.acquire(batchSemaphore, 15, 10).isLocked()) {
+      return true;
+    }
+    semaphores.release(batchSemaphore);
+    return false;
+  }
+
+  private Settings projectSettings(ResourceDto project) {
+    Settings projectSettings = new Settings(settings);
+    for (PropertyDto property : propertiesDao.selectProjectProperties(project.getKey())) {
+      projectSettings.setProperty(property.getKey(), property.getValue());
+    }
+    return projectSettings;
+  }
+}
@@ -0,0 +1,148 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.dbcleaner;
+
+import org.junit.Test;
+import org.mockito.ArgumentMatcher;
+import org.sonar.api.config.PropertyDefinitions;
+import org.sonar.api.config.Settings;
+import org.sonar.api.resources.Scopes;
+import org.sonar.api.utils.Semaphores;
+import org.sonar.core.persistence.AbstractDaoTestCase;
+import org.sonar.core.persistence.SemaphoreDao;
+import org.sonar.core.persistence.SemaphoreUpdater;
+import org.sonar.core.persistence.SemaphoresImpl;
+import org.sonar.core.properties.PropertiesDao;
+import org.sonar.core.properties.PropertyDto;
+import org.sonar.core.purge.PurgeConfiguration;
+import org.sonar.core.purge.PurgeDao;
+import org.sonar.core.purge.PurgeProfiler;
+import org.sonar.core.resource.ResourceDao;
+import org.sonar.core.resource.ResourceDto;
+import org.sonar.plugins.dbcleaner.api.DbCleanerConstants;
+
+import java.util.Arrays;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.argThat;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+public class ProjectPurgeTaskHandlerTest extends AbstractDaoTestCase {
+
+  PurgeDao purgeDao = mock(PurgeDao.class);
+  ResourceDao resourceDao = mock(ResourceDao.class);
+  PropertiesDao propertiesDao = mock(PropertiesDao.class);
+  Semaphores semaphores = mock(Semaphores.class);
+  Settings settings = new Settings(new PropertyDefinitions(DbCleanerPlugin.propertyDefinitions()));
+  ProjectPurgeTaskHandler handler = new ProjectPurgeTaskHandler(purgeDao, resourceDao, propertiesDao, settings, semaphores, new PurgeProfiler());
+
+  @Test
+  public void task_type() {
+    assertThat(handler.taskType()).isEqualTo("PURGE");
+  }
+
+  @Test
+  public void purge_project_with_its_properties() {
+    when(resourceDao.getResource(1L)).thenReturn(new ResourceDto().setId(1L).setKey("struts"));
+    when(propertiesDao.selectProjectProperties("struts")).thenReturn(Arrays.asList(
+      new PropertyDto().setKey(DbCleanerConstants.PROPERTY_CLEAN_DIRECTORY).setValue("false")));
+    when(semaphores.acquire("purge-struts", 15, 10)).thenReturn(new Semaphores.Semaphore().setLocked(true));
+    when(semaphores.acquire("batch-struts", 15, 10)).thenReturn(new Semaphores.Semaphore().setLocked(true));
+
+    assertThat(handler.execute(1L)).isTrue();
+
+    verify(purgeDao).purge(argThat(new ArgumentMatcher<PurgeConfiguration>() {
+      @Override
+      public boolean matches(Object o) {
+        PurgeConfiguration conf = (PurgeConfiguration) o;
+        return conf.rootProjectId() == 1L && conf.scopesWithoutHistoricalData().length == 1 && conf.scopesWithoutHistoricalData()[0].equals(Scopes.FILE);
+      }
+    }));
+    // global settings are not changed
+    assertThat(settings.getBoolean(DbCleanerConstants.PROPERTY_CLEAN_DIRECTORY)).isTrue();
+    verify(semaphores).release("batch-struts");
+    verify(semaphores).release("purge-struts");
+  }
+
+  @Test
+  public void postpone_purge_if_project_is_being_analysed() {
+    when(resourceDao.getResource(1L)).thenReturn(new ResourceDto().setId(1L).setKey("struts"));
+    when(semaphores.acquire("purge-struts", 15, 10)).thenReturn(new Semaphores.Semaphore().setLocked(true));
+    when(semaphores.acquire("batch-struts", 15, 10)).thenReturn(new Semaphores.Semaphore().setLocked(false).setDurationSinceLocked(1000L));
+
+    assertThat(handler.execute(1L)).isFalse();
+
+    verifyZeroInteractions(purgeDao);
+    verify(semaphores, never()).release("batch-struts");
+    verify(semaphores).release("purge-struts");
+  }
+
+  @Test
+  public void postpone_purge_if_project_is_already_being_purged() {
+    when(resourceDao.getResource(1L)).thenReturn(new ResourceDto().setId(1L).setKey("struts"));
+    when(semaphores.acquire(anyString(), anyInt(), anyInt())).thenReturn(new Semaphores.Semaphore().setLocked(false).setDurationSinceLocked(1000L));
+
+    assertThat(handler.execute(1L)).isFalse();
+
+    verifyZeroInteractions(purgeDao);
+    verify(semaphores, never()).acquire(eq("batch-struts"), anyInt(), anyInt());
+    verify(semaphores, never()).release(anyString());
+  }
+
+  @Test
+  public void ignore_deleted_project() {
+    when(resourceDao.getResource(1L)).thenReturn(null);
+
+    assertThat(handler.execute(1L)).isTrue();
+
+    verifyZeroInteractions(purgeDao, semaphores);
+  }
+
+  @Test
+  public void do_not_purge_snapshots_of_analysis_in_progress() {
+    setupData("analysis_in_progress");
+    SemaphoreDao semaphoreDao = new SemaphoreDao(getMyBatis());
+    Semaphores dbSemaphores = new SemaphoresImpl(semaphoreDao, new SemaphoreUpdater(semaphoreDao));
+    ResourceDao dbResourceDao = new ResourceDao(getMyBatis());
+    ProjectPurgeTaskHandler dbHandler = new ProjectPurgeTaskHandler(new PurgeDao(getMyBatis(), dbResourceDao, new PurgeProfiler()), dbResourceDao,
+      new PropertiesDao(getMyBatis()), settings, dbSemaphores, new PurgeProfiler());
+
+    // the batch holds the semaphore of the project while its unprocessed snapshots are being inserted
+    assertThat(dbSemaphores.acquire("batch-struts").isLocked()).isTrue();
+    assertThat(dbHandler.execute(1L)).isFalse();
+    checkTable("analysis_in_progress", "projects", "id", "enabled");
+    checkTable("analysis_in_progress", "snapshots", "id", "status", "islast");
+
+    // the analysis failed without any processed snapshot
+    dbSemaphores.release("batch-struts");
+    assertThat(dbHandler.execute(1L)).isTrue();
+    checkTable("purge_after_analysis", "projects", "id", "enabled");
+    checkTable("purge_after_analysis", "snapshots", "id", "status", "islast");
+    assertThat(dbSemaphores.acquire("batch-struts").isLocked()).isTrue();
+    assertThat(dbSemaphores.acquire("purge-struts").isLocked()).isTrue();
+  }
+}
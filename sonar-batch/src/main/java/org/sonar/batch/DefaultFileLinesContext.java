@@ -24,17 +24,21 @@ import com.google.common.base.Objects;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import org.sonar.api.batch.SonarIndex;
 import org.sonar.api.measures.FileLinesContext;
+import org.sonar.api.measures.LineValues;
 import org.sonar.api.measures.Measure;
 import org.sonar.api.measures.Metric;
 import org.sonar.api.measures.PersistenceMode;
 import org.sonar.api.resources.Resource;
 import org.sonar.api.resources.ResourceUtils;
 import org.sonar.api.utils.KeyValueFormat;
-import org.sonar.api.utils.KeyValueFormat.Converter;
+
+import javax.annotation.CheckForNull;
 
 import java.util.Map;
+import java.util.Set;
 
 /**
  * @since 2.14
@@ -45,10 +49,20 @@ public class DefaultFileLinesContext implements FileLinesContext {
   private final SonarIndex index;
   private final Resource resource;
 
+  /**
+   * metric key -> values of lines
+   */
+  private final Map<String, LineValues> intValues = Maps.newHashMap();
+
   /**
    * metric key -> line -> value
    */
-  private final Map<String, Map<Integer, Object>> map = Maps.newHashMap();
+  private final Map<String, Map<Integer, String>> stringValues = Maps.newHashMap();
+
+  /**
+   * keys of the metrics which are loaded or already saved
+   */
+  private final Set<String> readOnlyMetricKeys = Sets.newHashSet();
 
   public DefaultFileLinesContext(SonarIndex index, Resource resource) {
     Preconditions.checkNotNull(index);
@@ -60,96 +74,108 @@ public class DefaultFileLinesContext implements FileLinesContext {
   public void setIntValue(String metricKey, int line, int value) {
     Preconditions.checkNotNull(metricKey);
     Preconditions.checkArgument(line > 0);
+    checkNotReadOnly(metricKey);
 
-    setValue(metricKey, line, value);
+    LineValues lines = intValues.get(metricKey);
+    if (lines == null) {
+      lines = new LineValues();
+      intValues.put(metricKey, lines);
+    }
+    lines.set(line, value);
   }
 
   public Integer getIntValue(String metricKey, int line) {
     Preconditions.checkNotNull(metricKey);
     Preconditions.checkArgument(line > 0);
 
-    Map lines = map.get(metricKey);
+    LineValues lines = intValues.get(metricKey);
     if (lines == null) {
       // not in memory, so load
-      lines = loadData(metricKey, KeyValueFormat.newIntegerConverter());
-      map.put(metricKey, lines);
+      lines = LineValues.parse(loadData(metricKey));
+      intValues.put(metricKey, lines);
+      readOnlyMetricKeys.add(metricKey);
     }
-    return (Integer) lines.get(line);
+    return lines.has(line) ? (int) lines.get(line, 0L) : null;
   }
 
   public void setStringValue(String metricKey, int line, String value) {
     Preconditions.checkNotNull(metricKey);
     Preconditions.checkArgument(line > 0);
     Preconditions.checkNotNull(value);
+    checkNotReadOnly(metricKey);
 
-    setValue(metricKey, line, value);
+    Map<Integer, String> lines = stringValues.get(metricKey);
+    if (lines == null) {
+      lines = Maps.newHashMap();
+      stringValues.put(metricKey, lines);
+    }
+    lines.put(line, value);
   }
 
   public String getStringValue(String metricKey, int line) {
     Preconditions.checkNotNull(metricKey);
     Preconditions.checkArgument(line > 0);
 
-    Map lines = map.get(metricKey);
+    Map<Integer, String> lines = stringValues.get(metricKey);
     if (lines == null) {
       // not in memory, so load
-      lines = loadData(metricKey, KeyValueFormat.newStringConverter());
-      map.put(metricKey, lines);
+      String data = loadData(metricKey);
+      lines = data == null ? ImmutableMap.<Integer, String>of() : ImmutableMap.copyOf(KeyValueFormat.parseIntString(data));
+      stringValues.put(metricKey, lines);
+      readOnlyMetricKeys.add(metricKey);
     }
-    return (String) lines.get(line);
+    return lines.get(line);
   }
 
-  private Map<Integer, Object> getOrCreateLines(String metricKey) {
-    Map<Integer, Object> lines = map.get(metricKey);
-    if (lines == null) {
-      lines = Maps.newHashMap();
-      map.put(metricKey, lines);
+  private void checkNotReadOnly(String metricKey) {
+    if (readOnlyMetricKeys.contains(metricKey)) {
+      throw new UnsupportedOperationException("Values of metric " + metricKey + " are already saved");
     }
-    return lines;
-  }
-
-  private void setValue(String metricKey, int line, Object value) {
-    getOrCreateLines(metricKey).put(line, value);
   }
 
   public void save() {
-    for (Map.Entry<String, Map<Integer, Object>> entry : map.entrySet()) {
-      String metricKey = entry.getKey();
-      Map<Integer, Object> lines = entry.getValue();
-      if (shouldSave(lines)) {
-        String data = KeyValueFormat.format(lines);
-        Measure measure = new Measure(metricKey)
-          .setPersistenceMode(PersistenceMode.DATABASE)
-          .setData(data);
-        index.addMeasure(resource, measure);
-        entry.setValue(ImmutableMap.copyOf(lines));
+    for (Map.Entry<String, LineValues> entry : intValues.entrySet()) {
+      if (shouldSave(entry.getKey())) {
+        save(entry.getKey(), entry.getValue().format());
+      }
+    }
+    for (Map.Entry<String, Map<Integer, String>> entry : stringValues.entrySet()) {
+      if (shouldSave(entry.getKey())) {
+        save(entry.getKey(), KeyValueFormat.format(entry.getValue()));
       }
     }
   }
 
-  private Map loadData(String metricKey, Converter converter) {
+  private void save(String metricKey, String data) {
+    Measure measure = new Measure(metricKey)
+      .setPersistenceMode(PersistenceMode.DATABASE)
+      .setData(data);
+    index.addMeasure(resource, measure);
+    readOnlyMetricKeys.add(metricKey);
+  }
+
+  @CheckForNull
+  private String loadData(String metricKey) {
     // FIXME no way to load measure only by key
     Measure measure = index.getMeasure(resource, new Metric(metricKey));
-    if (measure == null || measure.getData() == null) {
-      // no such measure
-      return ImmutableMap.of();
-    }
-    return ImmutableMap.copyOf(KeyValueFormat.parse(measure.getData(), KeyValueFormat.newIntegerConverter(), converter));
+    return measure != null ? measure.getData() : null;
   }
 
   /**
    * Checks that measure was not saved.
    *
-   * @see #loadData(String, Converter)
+   * @see #loadData(String)
    * @see #save()
    */
-  private boolean shouldSave(Map<Integer, Object> lines) {
-    return !(lines instanceof ImmutableMap);
+  private boolean shouldSave(String metricKey) {
+    return !readOnlyMetricKeys.contains(metricKey);
   }
 
   @Override
   public String toString() {
     return Objects.toStringHelper(this)
-      .add("map", map)
+      .add("intValues", intValues)
+      .add("stringValues", stringValues)
       .toString();
   }
 
@@ -21,19 +21,24 @@ package org.sonar.batch;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.sonar.api.batch.TimeMachine;
 import org.sonar.api.batch.TimeMachineQuery;
 import org.sonar.api.database.DatabaseSession;
 import org.sonar.api.database.model.MeasureModel;
+import org.sonar.api.database.model.ResourceModel;
 import org.sonar.api.database.model.Snapshot;
 import org.sonar.api.measures.Measure;
 import org.sonar.api.measures.Metric;
 import org.sonar.api.measures.MetricFinder;
 import org.sonar.api.resources.Qualifiers;
 import org.sonar.api.resources.Resource;
+import org.sonar.api.resources.Scopes;
 import org.sonar.api.technicaldebt.batch.Characteristic;
 import org.sonar.api.technicaldebt.batch.Requirement;
 import org.sonar.api.technicaldebt.batch.TechnicalDebtModel;
+import org.sonar.api.utils.TimeProfiler;
 import org.sonar.batch.index.DefaultIndex;
 
 import javax.annotation.Nullable;
@@ -41,7 +46,9 @@ import javax.persistence.Query;
 
 import java.util.*;
 
-public class DefaultTimeMachine implements TimeMachine {
+public class DefaultTimeMachine implements TimeMachine, MeasuresHistoryFinder {
+
+  private static final Logger LOG = LoggerFactory.getLogger(DefaultTimeMachine.class);
 
   private DatabaseSession session;
   private DefaultIndex index;
@@ -82,6 +89,42 @@ public class DefaultTimeMachine implements TimeMachine {
     return rows;
   }
 
+  public MeasuresHistory getModuleMeasuresHistory(TimeMachineQuery query) {
+    MeasuresHistory history = new MeasuresHistory();
+    Resource module = query.getResource();
+    if (module != null && module.getId() == null) {
+      module = index.getResource(module);
+    }
+    if (module == null) {
+      return history;
+    }
+    Map<Integer, Metric> metricById = getMetricsById(query);
+
+    TimeProfiler profiler = new TimeProfiler(LOG).setLevelToDebug().start("Load measures history of " + module.getKey());
+    StringBuilder sb = new StringBuilder();
+    Map<String, Object> params = Maps.newHashMap();
+    sb.append("SELECT r.key, s.createdAt, m.metricId, m.value FROM ")
+      .append(MeasureModel.class.getSimpleName())
+      .append(" m, ")
+      .append(Snapshot.class.getSimpleName())
+      .append(" s, ")
+      .append(ResourceModel.class.getSimpleName())
+      .append(" r WHERE m.snapshotId=s.id AND s.resourceId=r.id AND s.status=:status AND s.qualifier<>:lib")
+      .append(" AND (r.id=:moduleId OR (r.rootId=:moduleId AND r.scope=:dirScope))");
+    params.put("status", Snapshot.STATUS_PROCESSED);
+    params.put("lib", Qualifiers.LIBRARY);
+    params.put("moduleId", module.getId());
+    params.put("dirScope", Scopes.DIRECTORY);
+    appendCriteria(query, sb, params, metricById.keySet());
+
+    List<Object[]> rows = createQuery(sb, params).getResultList();
+    for (Object[] row : rows) {
+      history.add((String) row[0], metricById.get(row[2]).getKey(), (Date) row[1], (Double) row[3]);
+    }
+    profiler.stop();
+    return history;
+  }
+
   protected List<Object[]> execute(TimeMachineQuery query, boolean selectAllFields, Set<Integer> metricIds) {
     Resource resource = query.getResource();
     if (resource != null && resource.getId() == null) {
@@ -108,6 +151,11 @@ public class DefaultTimeMachine implements TimeMachine {
     params.put("status", Snapshot.STATUS_PROCESSED);
     params.put("lib", Qualifiers.LIBRARY);
 
+    appendCriteria(query, sb, params, metricIds);
+    return createQuery(sb, params).getResultList();
+  }
+
+  private void appendCriteria(TimeMachineQuery query, StringBuilder sb, Map<String, Object> params, Set<Integer> metricIds) {
     sb.append(" AND m.characteristicId IS NULL");
     sb.append(" AND m.personId IS NULL");
     sb.append(" AND m.ruleId IS NULL AND m.rulePriority IS NULL");
@@ -136,13 +184,14 @@ public class DefaultTimeMachine implements TimeMachine {
       params.put("last", Boolean.TRUE);
     }
     sb.append(" ORDER BY s.createdAt ");
+  }
 
+  private Query createQuery(StringBuilder sb, Map<String, Object> params) {
     Query jpaQuery = session.createQuery(sb.toString());
-
     for (Map.Entry<String, Object> entry : params.entrySet()) {
       jpaQuery.setParameter(entry.getKey(), entry.getValue());
     }
-    return jpaQuery.getResultList();
+    return jpaQuery;
   }
 
   public Map<Integer, Metric> getMetricsById(TimeMachineQuery query) {
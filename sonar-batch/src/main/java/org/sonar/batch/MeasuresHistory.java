@@ -0,0 +1,102 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.batch;
+
+import com.google.common.collect.Maps;
+
+import javax.annotation.Nullable;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * Past values of measures, grouped by resource and metric. Each series is sorted by date and is stored
+ * in primitive arrays. Missing values are represented by {@link Double#NaN}.
+ *
+ * @see MeasuresHistoryFinder#getModuleMeasuresHistory(org.sonar.api.batch.TimeMachineQuery)
+ * @since 4.2
+ */
+public class MeasuresHistory {
+
+  private static final double[] NO_VALUES = new double[0];
+  private static final long[] NO_DATES = new long[0];
+
+  private final Map<String, Map<String, Series>> seriesByResource = Maps.newHashMap();
+
+  /**
+   * Values must be added in chronological order.
+   */
+  public MeasuresHistory add(String resourceKey, String metricKey, Date date, @Nullable Double value) {
+    Map<String, Series> seriesByMetric = seriesByResource.get(resourceKey);
+    if (seriesByMetric == null) {
+      seriesByMetric = Maps.newHashMap();
+      seriesByResource.put(resourceKey, seriesByMetric);
+    }
+    Series series = seriesByMetric.get(metricKey);
+    if (series == null) {
+      series = new Series();
+      seriesByMetric.put(metricKey, series);
+    }
+    series.add(date.getTime(), value != null ? value : Double.NaN);
+    return this;
+  }
+
+  /**
+   * Chronological values, {@link Double#NaN} when the measure had no value. Returns an empty array if no history.
+   */
+  public double[] getValues(@Nullable String resourceKey, String metricKey) {
+    Series series = series(resourceKey, metricKey);
+    return series != null ? Arrays.copyOf(series.values, series.size) : NO_VALUES;
+  }
+
+  /**
+   * Dates in milliseconds of the values returned by {@link #getValues(String, String)}
+   */
+  public long[] getDates(@Nullable String resourceKey, String metricKey) {
+    Series series = series(resourceKey, metricKey);
+    return series != null ? Arrays.copyOf(series.dates, series.size) : NO_DATES;
+  }
+
+  public boolean isEmpty() {
+    return seriesByResource.isEmpty();
+  }
+
+  private Series series(@Nullable String resourceKey, String metricKey) {
+    Map<String, Series> seriesByMetric = resourceKey != null ? seriesByResource.get(resourceKey) : null;
+    return seriesByMetric != null ? seriesByMetric.get(metricKey) : null;
+  }
+
+  private static final class Series {
+    private long[] dates = new long[8];
+    private double[] values = new double[8];
+    private int size = 0;
+
+    void add(long date, double value) {
+      if (size == values.length) {
+        dates = Arrays.copyOf(dates, size * 2);
+        values = Arrays.copyOf(values, size * 2);
+      }
+      dates[size] = date;
+      values[size] = value;
+      size++;
+    }
+  }
+}
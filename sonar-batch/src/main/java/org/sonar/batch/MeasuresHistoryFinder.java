@@ -0,0 +1,40 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.batch;
+
+import org.sonar.api.BatchComponent;
+import org.sonar.api.batch.TimeMachineQuery;
+
+/**
+ * Bulk access to the past measures of a module, when the {@link org.sonar.api.batch.TimeMachine} would
+ * be requested once per resource.
+ *
+ * @see DefaultTimeMachine
+ * @since 4.2
+ */
+public interface MeasuresHistoryFinder extends BatchComponent {
+
+  /**
+   * Loads in a single query the history of the module and of all its directories. The resource of the query
+   * must be the module.
+   */
+  MeasuresHistory getModuleMeasuresHistory(TimeMachineQuery query);
+
+}
@@ -19,8 +19,11 @@
  */
 package org.sonar.batch.bootstrap;
 
+import org.slf4j.LoggerFactory;
 import org.sonar.api.config.Settings;
 import org.sonar.core.persistence.DefaultDatabase;
+import org.sonar.core.persistence.profiling.PersistenceProfiling;
+import org.sonar.core.persistence.profiling.SqlStatistics;
 
 import java.util.Properties;
 
@@ -29,6 +32,8 @@ import java.util.Properties;
  */
 public class BatchDatabase extends DefaultDatabase {
 
+  private static final int SQL_STATISTICS_LIMIT = 30;
+
   private final AnalysisMode analysisMode;
 
   public BatchDatabase(Settings settings,
@@ -55,15 +60,30 @@ public class BatchDatabase extends DefaultDatabase {
 
   @Override
   protected void doCompleteProperties(Properties properties) {
-    // three connections are required : one for Hibernate, one for MyBatis for regular operations,
-    // and one for the SemaphoreUpdater
+    // four connections are required : one for Hibernate, one for MyBatis for regular operations,
+    // one for the SemaphoreUpdater and one for the background loading of open issues (see InitialOpenIssuesLoader)
     // Note that Hibernate will be removed soon
-    properties.setProperty("sonar.jdbc.initialSize", "3");
-    properties.setProperty("sonar.jdbc.maxActive", "3");
+    properties.setProperty("sonar.jdbc.initialSize", "4");
+    properties.setProperty("sonar.jdbc.maxActive", "4");
     // SONAR-2965
     properties.setProperty("sonar.jdbc.defaultAutoCommit", "false");
   }
 
+  @Override
+  public void start() {
+    // statistics are global to the JVM, so they must not include the requests of previous analyses
+    SqlStatistics.INSTANCE.reset();
+    super.start();
+  }
+
+  @Override
+  public void stop() {
+    super.stop();
+    // SQL requests are aggregated only when profiling is enabled
+    PersistenceProfiling.logStatistics(LoggerFactory.getLogger(BatchDatabase.class), SQL_STATISTICS_LIMIT);
+    SqlStatistics.INSTANCE.reset();
+  }
+
   @Override
   protected void checkH2Database() {
     if (!analysisMode.isPreview()) {
@@ -20,6 +20,7 @@
 package org.sonar.batch.bootstrap;
 
 import com.google.common.base.Joiner;
+import com.google.common.base.Throwables;
 import com.google.common.collect.Maps;
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
@@ -29,12 +30,19 @@ import org.sonar.api.Plugin;
 import org.sonar.api.config.Settings;
 import org.sonar.api.platform.PluginMetadata;
 import org.sonar.api.platform.PluginRepository;
+import org.sonar.api.utils.SonarException;
 import org.sonar.core.plugins.PluginClassloaders;
 import org.sonar.core.plugins.RemotePlugin;
 
 import java.io.File;
 import java.text.MessageFormat;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 import static com.google.common.collect.Lists.newArrayList;
 import static com.google.common.collect.Sets.newHashSet;
@@ -44,6 +52,7 @@ public class BatchPluginRepository implements PluginRepository {
   private static final Logger LOG = LoggerFactory.getLogger(BatchPluginRepository.class);
   private static final String CORE_PLUGIN = "core";
   private static final String ENGLISH_PACK_PLUGIN = "l10nen";
+  private static final int INSTALL_THREADS = 4;
 
   private PluginDownloader pluginDownloader;
   private Map<String, Plugin> pluginsByKey;
@@ -68,22 +77,83 @@ public class BatchPluginRepository implements PluginRepository {
 
   void doStart(List<RemotePlugin> remotePlugins) {
     PluginFilter filter = new PluginFilter(settings, analysisMode);
-    metadataByKey = Maps.newHashMap();
+    List<RemotePlugin> acceptedPlugins = newArrayList();
     for (RemotePlugin remote : remotePlugins) {
       if (filter.accepts(remote.getKey())) {
-        File pluginFile = pluginDownloader.downloadPlugin(remote);
-        PluginMetadata metadata = pluginInstaller.installToCache(pluginFile, remote.isCore());
-        if (StringUtils.isBlank(metadata.getBasePlugin()) || filter.accepts(metadata.getBasePlugin())) {
-          metadataByKey.put(metadata.getKey(), metadata);
-        } else {
-          LOG.debug("Excluded plugin: " + metadata.getKey());
-        }
+        acceptedPlugins.add(remote);
+      }
+    }
+    metadataByKey = Maps.newHashMap();
+    for (PluginMetadata metadata : install(acceptedPlugins)) {
+      if (StringUtils.isBlank(metadata.getBasePlugin()) || filter.accepts(metadata.getBasePlugin())) {
+        metadataByKey.put(metadata.getKey(), metadata);
+      } else {
+        LOG.debug("Excluded plugin: " + metadata.getKey());
       }
     }
     classLoaders = new PluginClassloaders(Thread.currentThread().getContextClassLoader());
     pluginsByKey = classLoaders.init(metadataByKey.values());
   }
 
+  /**
+   * Plugins are downloaded and unzipped concurrently into the user cache, which supports concurrent writes.
+   * Metadata are returned in the order of the remote plugins.
+   */
+  private List<PluginMetadata> install(List<RemotePlugin> remotePlugins) {
+    if (remotePlugins.size() <= 1) {
+      List<PluginMetadata> result = newArrayList();
+      for (RemotePlugin remote : remotePlugins) {
+        result.add(install(remote));
+      }
+      return result;
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(Math.min(remotePlugins.size(), INSTALL_THREADS), new ThreadFactory() {
+      @Override
+      public Thread newThread(Runnable r) {
+        Thread thread = new Thread(r, "Plugin installation");
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+    try {
+      List<Future<PluginMetadata>> futures = newArrayList();
+      for (final RemotePlugin remote : remotePlugins) {
+        futures.add(executor.submit(new Callable<PluginMetadata>() {
+          @Override
+          public PluginMetadata call() {
+            return install(remote);
+          }
+        }));
+      }
+      List<PluginMetadata> result = newArrayList();
+      for (Future<PluginMetadata> future : futures) {
+        result.add(get(future));
+      }
+      return result;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static PluginMetadata get(Future<PluginMetadata> future) {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SonarException("Installation of plugins is interrupted", e);
+    } catch (ExecutionException e) {
+      throw Throwables.propagate(e.getCause());
+    }
+  }
+
+  private PluginMetadata install(RemotePlugin remote) {
+    long start = System.currentTimeMillis();
+    File pluginFile = pluginDownloader.downloadPlugin(remote);
+    PluginMetadata metadata = pluginInstaller.installToCache(pluginFile, remote.isCore());
+    LOG.debug("Plugin {} installed in {} ms", remote.getKey(), System.currentTimeMillis() - start);
+    return metadata;
+  }
+
   public void stop() {
     if (classLoaders != null) {
       classLoaders.clean();
@@ -34,6 +34,7 @@ import org.sonar.core.i18n.RuleI18nManager;
 import org.sonar.core.metric.CacheMetricFinder;
 import org.sonar.core.persistence.*;
 import org.sonar.core.purge.PurgeProfiler;
+import org.sonar.core.qualityprofile.ActiveRulesLoader;
 import org.sonar.core.rule.CacheRuleFinder;
 import org.sonar.core.user.HibernateUserFinder;
 import org.sonar.jpa.dao.MeasuresDao;
@@ -98,6 +99,7 @@ public class BootstrapContainer extends ComponentContainer {
       JpaDatabaseSession.class,
       BatchDatabaseSessionFactory.class,
       DaoUtils.getDaoClasses(),
+      ActiveRulesLoader.class,
       PurgeProfiler.class);
   }
 
@@ -22,6 +22,8 @@ package org.sonar.batch.components;
 import com.google.common.collect.Maps;
 import org.apache.commons.lang.ObjectUtils;
 import org.apache.commons.lang.StringUtils;
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
 import org.sonar.api.BatchExtension;
 import org.sonar.api.database.DatabaseSession;
 import org.sonar.api.database.model.Snapshot;
@@ -29,6 +31,8 @@ import org.sonar.api.measures.Metric;
 import org.sonar.api.measures.MetricFinder;
 import org.sonar.api.resources.Qualifiers;
 import org.sonar.api.resources.Resource;
+import org.sonar.core.measure.db.PastMeasureDao;
+import org.sonar.core.measure.db.PastMeasureDto;
 
 import javax.annotation.Nullable;
 import javax.persistence.Query;
@@ -42,13 +46,15 @@ public class PastMeasuresLoader implements BatchExtension {
 
   private Map<Integer, Metric> metricByIds;
   private DatabaseSession session;
+  private PastMeasureDao pastMeasureDao;
 
-  public PastMeasuresLoader(DatabaseSession session, MetricFinder metricFinder) {
-    this(session, metricFinder.findAll());
+  public PastMeasuresLoader(DatabaseSession session, MetricFinder metricFinder, PastMeasureDao pastMeasureDao) {
+    this(session, metricFinder.findAll(), pastMeasureDao);
   }
 
-  PastMeasuresLoader(DatabaseSession session, Collection<Metric> metrics) {
+  PastMeasuresLoader(DatabaseSession session, Collection<Metric> metrics, PastMeasureDao pastMeasureDao) {
     this.session = session;
+    this.pastMeasureDao = pastMeasureDao;
     this.metricByIds = Maps.newHashMap();
     for (Metric metric : metrics) {
       if (metric.isNumericType()) {
@@ -91,6 +97,30 @@ public class PastMeasuresLoader implements BatchExtension {
     return q.getResultList();
   }
 
+  /**
+   * Loads in a single query the past numeric measures of all the projects and directories of the snapshot tree,
+   * instead of one query per resource. Rows are streamed from database and copied into the table as soon as they
+   * are read.
+   *
+   * @since 4.2
+   */
+  public PastMeasuresTable getPastMeasuresTable(@Nullable PastSnapshot projectPastSnapshot) {
+    final PastMeasuresTable table = new PastMeasuresTable();
+    if (projectPastSnapshot == null || projectPastSnapshot.getProjectSnapshot() == null || metricByIds.isEmpty()) {
+      return table;
+    }
+    Snapshot snapshot = projectPastSnapshot.getProjectSnapshot();
+    int rootSnapshotId = snapshot.getRootId() != null ? snapshot.getRootId() : snapshot.getId();
+    pastMeasureDao.selectProjectsAndDirectories(rootSnapshotId, snapshot.getId(), snapshot.getPath(), metricByIds.keySet(), new ResultHandler() {
+      public void handleResult(ResultContext context) {
+        PastMeasureDto measure = (PastMeasureDto) context.getResultObject();
+        table.add(measure.getResourceKey(), measure.getMetricId(), measure.getCharacteristicId(), measure.getPersonId(),
+          measure.getRuleId(), measure.getValue());
+      }
+    });
+    return table;
+  }
+
   public static int getMetricId(Object[] row) {
     // can be BigDecimal on Oracle
     return ((Number) row[0]).intValue();
@@ -0,0 +1,156 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.batch.components;
+
+import com.google.common.collect.Maps;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Past numeric measures of a whole snapshot tree, keyed by (resource key, metric id, characteristic id, person id, rule id).
+ * Values are stored in primitive arrays with open addressing, so that a lookup does not allocate.
+ *
+ * @since 4.2
+ */
+public class PastMeasuresTable {
+
+  private static final int NULL_ID = Integer.MIN_VALUE;
+  private static final int KEY_FIELDS = 5;
+  private static final int INITIAL_CAPACITY = 64;
+
+  private final Map<String, Integer> resourceIndexes = Maps.newHashMap();
+
+  // KEY_FIELDS ints per entry : resource index, metric id, characteristic id, person id, rule id
+  private int[] keys = new int[INITIAL_CAPACITY * KEY_FIELDS];
+  private double[] values = new double[INITIAL_CAPACITY];
+
+  // entry index + 1, 0 when the slot is free. Length is always a power of two.
+  private int[] slots = new int[INITIAL_CAPACITY * 2];
+  private int size = 0;
+
+  public PastMeasuresTable add(String resourceKey, int metricId, @Nullable Integer characteristicId, @Nullable Integer personId,
+    @Nullable Integer ruleId, double value) {
+    Integer resourceIndex = resourceIndexes.get(resourceKey);
+    if (resourceIndex == null) {
+      resourceIndex = resourceIndexes.size();
+      resourceIndexes.put(resourceKey, resourceIndex);
+    }
+    int r = resourceIndex;
+    int c = toInt(characteristicId);
+    int p = toInt(personId);
+    int u = toInt(ruleId);
+
+    int slot = findSlot(r, metricId, c, p, u);
+    if (slots[slot] != 0) {
+      // same key loaded twice, last one wins
+      values[slots[slot] - 1] = value;
+      return this;
+    }
+    ensureCapacity();
+    int offset = size * KEY_FIELDS;
+    keys[offset] = r;
+    keys[offset + 1] = metricId;
+    keys[offset + 2] = c;
+    keys[offset + 3] = p;
+    keys[offset + 4] = u;
+    values[size] = value;
+    size++;
+    if (size * 2 > slots.length) {
+      rehash();
+    } else {
+      slots[slot] = size;
+    }
+    return this;
+  }
+
+  /**
+   * @return the past value, or null if the measure does not exist or has no value
+   */
+  @CheckForNull
+  public Double getValue(@Nullable String resourceKey, int metricId, @Nullable Integer characteristicId, @Nullable Integer personId,
+    @Nullable Integer ruleId) {
+    Integer resourceIndex = resourceKey != null ? resourceIndexes.get(resourceKey) : null;
+    if (resourceIndex == null) {
+      return null;
+    }
+    int entry = slots[findSlot(resourceIndex, metricId, toInt(characteristicId), toInt(personId), toInt(ruleId))];
+    return entry == 0 ? null : values[entry - 1];
+  }
+
+  public boolean hasResource(@Nullable String resourceKey) {
+    return resourceKey != null && resourceIndexes.containsKey(resourceKey);
+  }
+
+  public int size() {
+    return size;
+  }
+
+  private int findSlot(int resourceIndex, int metricId, int characteristicId, int personId, int ruleId) {
+    int mask = slots.length - 1;
+    int slot = hash(resourceIndex, metricId, characteristicId, personId, ruleId) & mask;
+    while (true) {
+      int entry = slots[slot];
+      if (entry == 0) {
+        return slot;
+      }
+      int offset = (entry - 1) * KEY_FIELDS;
+      if (keys[offset] == resourceIndex && keys[offset + 1] == metricId && keys[offset + 2] == characteristicId
+        && keys[offset + 3] == personId && keys[offset + 4] == ruleId) {
+        return slot;
+      }
+      slot = (slot + 1) & mask;
+    }
+  }
+
+  private void ensureCapacity() {
+    if (size == values.length) {
+      values = Arrays.copyOf(values, size * 2);
+      keys = Arrays.copyOf(keys, size * 2 * KEY_FIELDS);
+    }
+  }
+
+  private void rehash() {
+    slots = new int[slots.length * 2];
+    for (int entry = 0; entry < size; entry++) {
+      int offset = entry * KEY_FIELDS;
+      int slot = findSlot(keys[offset], keys[offset + 1], keys[offset + 2], keys[offset + 3], keys[offset + 4]);
+      slots[slot] = entry + 1;
+    }
+  }
+
+  private static int hash(int resourceIndex, int metricId, int characteristicId, int personId, int ruleId) {
+    int h = resourceIndex;
+    h = 31 * h + metricId;
+    h = 31 * h + characteristicId;
+    h = 31 * h + personId;
+    h = 31 * h + ruleId;
+    // spread bits, as in java.util.HashMap
+    h ^= (h >>> 20) ^ (h >>> 12);
+    return h ^ (h >>> 7) ^ (h >>> 4);
+  }
+
+  private static int toInt(@Nullable Integer id) {
+    return id != null ? id : NULL_ID;
+  }
+}
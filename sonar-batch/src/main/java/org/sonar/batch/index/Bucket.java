@@ -22,6 +22,7 @@ package org.sonar.batch.index;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import org.sonar.api.measures.Measure;
 import org.sonar.api.measures.MeasuresFilter;
 import org.sonar.api.measures.MeasuresFilters;
@@ -31,11 +32,16 @@ import org.sonar.api.utils.SonarException;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 public final class Bucket {
 
   private Resource resource;
   private ListMultimap<String, Measure> measuresByMetric = ArrayListMultimap.create();
+  // same measures, to check in constant time that a measure is not added twice.
+  // Measures of a metric can be numerous : one per rule, per requirement, per characteristic...
+  // Keys are copied when measures are added, as measures are mutable.
+  private Map<MeasureKey, Measure> measuresByKey = Maps.newHashMap();
 
   private Bucket parent;
   private List<Bucket> children;
@@ -79,26 +85,19 @@ public final class Bucket {
   }
 
   public void addMeasure(Measure measure) {
-    List<Measure> metricMeasures = measuresByMetric.get(measure.getMetric().getKey());
-
-    boolean add = true;
-    if (metricMeasures != null) {
-      int index = metricMeasures.indexOf(measure);
-      if (index > -1) {
-        if (metricMeasures.get(index) == measure) {
-          add = false;
-        } else {
-          throw new SonarException("Can not add twice the same measure on " + resource + ": " + measure);
-        }
-      }
-    }
-    if (add) {
+    MeasureKey key = MeasureKey.of(measure);
+    Measure existing = measuresByKey.get(key);
+    if (existing == null) {
+      measuresByKey.put(key, measure);
       measuresByMetric.put(measure.getMetric().getKey(), measure);
+    } else if (existing != measure) {
+      throw new SonarException("Can not add twice the same measure on " + resource + ": " + measure);
     }
   }
 
   public void clear() {
     measuresByMetric = null;
+    measuresByKey = null;
     children = null;
     if (parent != null) {
       parent.removeChild(this);
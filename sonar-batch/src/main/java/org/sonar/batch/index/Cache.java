@@ -65,6 +65,30 @@ public class Cache<V extends Serializable> {
     return doPut(value);
   }
 
+  /**
+   * Appends a value to the values associated with the key, which are then returned by {@link #values(Object)}
+   * in the order of insertion. Values are stored in distinct entries indexed by a sequence number, so previous values
+   * are neither read nor rewritten.
+   *
+   * @since 4.2.1
+   */
+  public Cache append(Object key, V value) {
+    try {
+      exchange.clear().append(key).append(Key.AFTER);
+      long sequence = 0L;
+      if (exchange.previous(false)) {
+        Key lastKey = exchange.getKey().indexTo(0);
+        if (key.equals(lastKey.decode())) {
+          sequence = lastKey.decodeLong() + 1;
+        }
+      }
+      resetKey(key, sequence);
+    } catch (Exception e) {
+      throw new IllegalStateException("Fail to append element in the cache " + name, e);
+    }
+    return doPut(value);
+  }
+
   private Cache doPut(V value) {
     try {
       exchange.getValue().put(value);
@@ -0,0 +1,100 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.batch.index;
+
+import com.google.common.base.Objects;
+import org.sonar.api.measures.Measure;
+import org.sonar.api.measures.RuleMeasure;
+import org.sonar.api.rules.Rule;
+import org.sonar.api.technicaldebt.batch.Characteristic;
+import org.sonar.api.technicaldebt.batch.Requirement;
+
+import javax.annotation.Nullable;
+
+/**
+ * Immutable copy of the fields that identify a measure in a {@link Bucket}, as compared by {@link Measure#equals(Object)}
+ * and {@link RuleMeasure#equals(Object)}. Measures are mutable, so they can't be used as keys of hash-based collections.
+ *
+ * @since 4.2
+ */
+final class MeasureKey {
+
+  private final Class<? extends Measure> type;
+  private final String metricKey;
+  private final Characteristic characteristic;
+  private final Requirement requirement;
+  private final Integer personId;
+  private final String ruleRepository;
+  private final String ruleKey;
+
+  private MeasureKey(Class<? extends Measure> type, @Nullable String metricKey, @Nullable Characteristic characteristic,
+                     @Nullable Requirement requirement, @Nullable Integer personId, @Nullable Rule rule) {
+    this.type = type;
+    this.metricKey = metricKey;
+    this.characteristic = characteristic;
+    this.requirement = requirement;
+    this.personId = personId;
+    this.ruleRepository = rule != null ? rule.getRepositoryKey() : null;
+    this.ruleKey = rule != null ? rule.getKey() : null;
+  }
+
+  static MeasureKey of(Measure measure) {
+    if (measure instanceof RuleMeasure) {
+      // characteristic and requirement are ignored by RuleMeasure#equals()
+      return new MeasureKey(measure.getClass(), measure.getMetricKey(), null, null, measure.getPersonId(), ((RuleMeasure) measure).getRule());
+    }
+    return new MeasureKey(measure.getClass(), measure.getMetricKey(), measure.getCharacteristic(), measure.getRequirement(), measure.getPersonId(), null);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    MeasureKey that = (MeasureKey) o;
+    return type.equals(that.type)
+      && Objects.equal(metricKey, that.metricKey)
+      && Objects.equal(characteristic, that.characteristic)
+      && Objects.equal(requirement, that.requirement)
+      && Objects.equal(personId, that.personId)
+      && Objects.equal(ruleRepository, that.ruleRepository)
+      && Objects.equal(ruleKey, that.ruleKey);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hashCode(type, metricKey, characteristic, requirement, personId, ruleRepository, ruleKey);
+  }
+
+  @Override
+  public String toString() {
+    return Objects.toStringHelper(this)
+      .add("metric", metricKey)
+      .add("characteristic", characteristic)
+      .add("requirement", requirement)
+      .add("person", personId)
+      .add("ruleRepository", ruleRepository)
+      .add("rule", ruleKey)
+      .toString();
+  }
+}
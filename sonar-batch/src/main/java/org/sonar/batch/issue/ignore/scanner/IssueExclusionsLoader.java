@@ -20,6 +20,8 @@
 
 package org.sonar.batch.issue.ignore.scanner;
 
+import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
 import org.sonar.api.batch.fs.FileSystem;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.internal.DefaultInputFile;
@@ -29,6 +31,12 @@ import org.sonar.batch.issue.ignore.pattern.IssueExclusionPatternInitializer;
 import org.sonar.batch.issue.ignore.pattern.IssueInclusionPatternInitializer;
 
 import java.nio.charset.Charset;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public final class IssueExclusionsLoader {
 
@@ -57,22 +65,63 @@ public final class IssueExclusionsLoader {
   public void execute() {
     Charset sourcesEncoding = fileSystem.encoding();
 
+    List<DefaultInputFile> filesToScan = Lists.newArrayList();
     for (InputFile inputFile : fileSystem.inputFiles(fileSystem.predicates().all())) {
-      try {
-        String componentEffectiveKey = ((DefaultInputFile) inputFile).key();
-        if (componentEffectiveKey != null) {
-          String path = inputFile.relativePath();
-          inclusionPatternInitializer.initializePatternsForPath(path, componentEffectiveKey);
-          exclusionPatternInitializer.initializePatternsForPath(path, componentEffectiveKey);
-          if (exclusionPatternInitializer.hasFileContentPattern()) {
-            regexpScanner.scan(componentEffectiveKey, inputFile.file(), sourcesEncoding);
-          }
+      String componentEffectiveKey = ((DefaultInputFile) inputFile).key();
+      if (componentEffectiveKey != null) {
+        String path = inputFile.relativePath();
+        inclusionPatternInitializer.initializePatternsForPath(path, componentEffectiveKey);
+        exclusionPatternInitializer.initializePatternsForPath(path, componentEffectiveKey);
+        if (exclusionPatternInitializer.hasFileContentPattern()) {
+          filesToScan.add((DefaultInputFile) inputFile);
         }
-      } catch (Exception e) {
-        throw new SonarException("Unable to read the source file : '" + inputFile.absolutePath() + "' with the charset : '"
-          + sourcesEncoding.name() + "'.", e);
       }
     }
+    scan(filesToScan, sourcesEncoding);
+  }
+
+  private void scan(List<DefaultInputFile> inputFiles, final Charset sourcesEncoding) {
+    int threads = Math.min(Runtime.getRuntime().availableProcessors(), inputFiles.size());
+    if (threads <= 1) {
+      for (DefaultInputFile inputFile : inputFiles) {
+        scan(inputFile, sourcesEncoding);
+      }
+      return;
+    }
+
+    List<Callable<Void>> tasks = Lists.newArrayList();
+    for (final DefaultInputFile inputFile : inputFiles) {
+      tasks.add(new Callable<Void>() {
+        @Override
+        public Void call() {
+          scan(inputFile, sourcesEncoding);
+          return null;
+        }
+      });
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      for (Future<Void> result : executor.invokeAll(tasks)) {
+        result.get();
+      }
+    } catch (ExecutionException e) {
+      Throwables.propagateIfPossible(e.getCause());
+      throw new SonarException("Fail to scan source files", e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SonarException("Interrupted while scanning source files", e);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private void scan(DefaultInputFile inputFile, Charset sourcesEncoding) {
+    try {
+      regexpScanner.scan(inputFile.key(), inputFile.file(), sourcesEncoding);
+    } catch (Exception e) {
+      throw new SonarException("Unable to read the source file : '" + inputFile.absolutePath() + "' with the charset : '"
+        + sourcesEncoding.name() + "'.", e);
+    }
   }
 
   @Override
@@ -24,136 +24,237 @@ import org.sonar.batch.issue.ignore.pattern.IssueExclusionPatternInitializer;
 import org.sonar.batch.issue.ignore.pattern.IssuePattern;
 import org.sonar.batch.issue.ignore.pattern.LineRange;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
-import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.sonar.api.BatchExtension;
 
+import javax.annotation.CheckForNull;
+
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.nio.charset.Charset;
 import java.util.List;
 import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
+/**
+ * Thread-safe: files can be scanned concurrently.
+ */
 public class IssueExclusionsRegexpScanner implements BatchExtension {
 
   private static final Logger LOG = LoggerFactory.getLogger(IssueExclusionsRegexpScanner.class);
 
-  private IssueExclusionPatternInitializer exclusionPatternInitializer;
-  private List<java.util.regex.Pattern> allFilePatterns;
-  private List<DoubleRegexpMatcher> blockMatchers;
+  // numbered or named back references can not be renumbered when patterns are combined
+  private static final Pattern BACK_REFERENCE = Pattern.compile("\\\\([1-9]|k<)");
+
+  private final IssueExclusionPatternInitializer exclusionPatternInitializer;
+  private final List<Pattern> allFilePatterns;
+  private final List<DoubleRegexpMatcher> blockMatchers;
 
-  // fields to be reset at every new scan
-  private DoubleRegexpMatcher currentMatcher;
-  private int fileLength;
-  private List<LineExclusion> lineExclusions;
-  private LineExclusion currentLineExclusion;
+  // union of the all-file and begin-block patterns, so that the lines matching none of them are read once
+  private final Pattern startPattern;
 
   public IssueExclusionsRegexpScanner(IssueExclusionPatternInitializer patternsInitializer) {
     this.exclusionPatternInitializer = patternsInitializer;
 
-    lineExclusions = Lists.newArrayList();
     allFilePatterns = Lists.newArrayList();
     blockMatchers = Lists.newArrayList();
+    List<String> startRegexps = Lists.newArrayList();
 
     for (IssuePattern pattern : patternsInitializer.getAllFilePatterns()) {
-      allFilePatterns.add(java.util.regex.Pattern.compile(pattern.getAllFileRegexp()));
+      allFilePatterns.add(Pattern.compile(pattern.getAllFileRegexp()));
+      startRegexps.add(pattern.getAllFileRegexp());
     }
     for (IssuePattern pattern : patternsInitializer.getBlockPatterns()) {
       blockMatchers.add(new DoubleRegexpMatcher(
-          java.util.regex.Pattern.compile(pattern.getBeginBlockRegexp()),
-          java.util.regex.Pattern.compile(pattern.getEndBlockRegexp())));
+          Pattern.compile(pattern.getBeginBlockRegexp()),
+          Pattern.compile(pattern.getEndBlockRegexp())));
+      startRegexps.add(pattern.getBeginBlockRegexp());
     }
+    startPattern = union(startRegexps);
+  }
 
-    init();
+  /**
+   * @return null if the regular expressions can not be combined
+   */
+  @VisibleForTesting
+  @CheckForNull
+  static Pattern union(List<String> regexps) {
+    if (regexps.isEmpty()) {
+      return null;
+    }
+    StringBuilder union = new StringBuilder();
+    for (String regexp : regexps) {
+      if (BACK_REFERENCE.matcher(regexp).find() || hasUnterminatedQuote(regexp)) {
+        return null;
+      }
+      if (union.length() > 0) {
+        union.append('|');
+      }
+      // inline flags and groups are scoped to the non-capturing group
+      union.append("(?:").append(regexp).append(')');
+    }
+    try {
+      return Pattern.compile(union.toString());
+    } catch (PatternSyntaxException e) {
+      // for example a regexp in comments mode which ends with a comment
+      return null;
+    }
   }
 
-  private void init() {
-    currentMatcher = null;
-    fileLength = 0;
-    lineExclusions.clear();
-    currentLineExclusion = null;
+  /**
+   * A quotation \Q without \E extends to the end of the regexp. In the union it would quote the next alternatives
+   * up to their first \E, without making the union invalid.
+   */
+  private static boolean hasUnterminatedQuote(String regexp) {
+    int index = 0;
+    while (index < regexp.length() - 1) {
+      if (regexp.charAt(index) == '\\') {
+        if (regexp.charAt(index + 1) == 'Q') {
+          int end = regexp.indexOf("\\E", index + 2);
+          if (end < 0) {
+            return true;
+          }
+          index = end + 2;
+        } else {
+          // escaped character
+          index += 2;
+        }
+      } else {
+        index++;
+      }
+    }
+    return false;
   }
 
   public void scan(String resource, File file, Charset sourcesEncoding) throws IOException {
     LOG.debug("Scanning {}", resource);
-    init();
-
-    List<String> lines = FileUtils.readLines(file, sourcesEncoding.name());
-    int lineIndex = 0;
-    for (String line : lines) {
-      lineIndex++;
-      if (line.trim().length() == 0) {
-        continue;
-      }
+    BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), sourcesEncoding));
+    try {
+      new FileScan(resource).scan(reader);
+    } finally {
+      IOUtils.closeQuietly(reader);
+    }
+  }
 
-      // first check the single regexp patterns that can be used to totally exclude a file
-      for (java.util.regex.Pattern pattern : allFilePatterns) {
-        if (pattern.matcher(line).find()) {
-          exclusionPatternInitializer.getPatternMatcher().addPatternToExcludeResource(resource);
-          // nothing more to do on this file
-          LOG.debug("- Exclusion pattern '{}': every violation in this file will be ignored.", pattern);
-          return;
+  private boolean mayStart(String line) {
+    return startPattern == null || startPattern.matcher(line).find();
+  }
+
+  private synchronized void excludeResource(String resource) {
+    exclusionPatternInitializer.getPatternMatcher().addPatternToExcludeResource(resource);
+  }
+
+  private synchronized void excludeLines(String resource, Set<LineRange> lineRanges) {
+    exclusionPatternInitializer.getPatternMatcher().addPatternToExcludeLines(resource, lineRanges);
+  }
+
+  /**
+   * State of the scan of a single file
+   */
+  private class FileScan {
+
+    private final String resource;
+    private final List<LineExclusion> lineExclusions = Lists.newArrayList();
+    private DoubleRegexpMatcher currentMatcher;
+    private LineExclusion currentLineExclusion;
+
+    FileScan(String resource) {
+      this.resource = resource;
+    }
+
+    void scan(BufferedReader reader) throws IOException {
+      int lineIndex = 0;
+      String line = reader.readLine();
+      while (line != null) {
+        lineIndex++;
+        if (line.trim().length() > 0) {
+          boolean mayStart = mayStart(line);
+
+          // first check the single regexp patterns that can be used to totally exclude a file
+          if (mayStart && matchesAllFilePattern(line)) {
+            excludeResource(resource);
+            // nothing more to do on this file
+            return;
+          }
+
+          // then check the double regexps if we're still here
+          checkDoubleRegexps(line, lineIndex, mayStart);
         }
+        line = reader.readLine();
       }
 
-      // then check the double regexps if we're still here
-      checkDoubleRegexps(line, lineIndex);
-    }
+      if (currentMatcher != null && !currentMatcher.hasSecondPattern()) {
+        // this will happen when there is a start block regexp but no end block regexp
+        endExclusion(lineIndex + 1);
+      }
 
-    if (currentMatcher != null && !currentMatcher.hasSecondPattern()) {
-      // this will happen when there is a start block regexp but no end block regexp
-      endExclusion(lineIndex + 1);
+      // now create the new line-based pattern for this file if there are exclusions
+      if (!lineExclusions.isEmpty()) {
+        Set<LineRange> lineRanges = convertLineExclusionsToLineRanges(lineIndex);
+        LOG.debug("- Line exclusions found: {}", lineRanges);
+        excludeLines(resource, lineRanges);
+      }
     }
 
-    // now create the new line-based pattern for this file if there are exclusions
-    fileLength = lineIndex;
-    if (!lineExclusions.isEmpty()) {
-      Set<LineRange> lineRanges = convertLineExclusionsToLineRanges();
-      LOG.debug("- Line exclusions found: {}", lineRanges);
-      exclusionPatternInitializer.getPatternMatcher().addPatternToExcludeLines(resource, lineRanges);
+    private boolean matchesAllFilePattern(String line) {
+      for (Pattern pattern : allFilePatterns) {
+        if (pattern.matcher(line).find()) {
+          LOG.debug("- Exclusion pattern '{}': every violation in this file will be ignored.", pattern);
+          return true;
+        }
+      }
+      return false;
     }
-  }
 
-  private Set<LineRange> convertLineExclusionsToLineRanges() {
-    Set<LineRange> lineRanges = Sets.newHashSet();
-    for (LineExclusion lineExclusion : lineExclusions) {
-      lineRanges.add(lineExclusion.toLineRange());
+    private Set<LineRange> convertLineExclusionsToLineRanges(int fileLength) {
+      Set<LineRange> lineRanges = Sets.newHashSet();
+      for (LineExclusion lineExclusion : lineExclusions) {
+        lineRanges.add(lineExclusion.toLineRange(fileLength));
+      }
+      return lineRanges;
     }
-    return lineRanges;
-  }
 
-  private void checkDoubleRegexps(String line, int lineIndex) {
-    if (currentMatcher == null) {
-      for (DoubleRegexpMatcher matcher : blockMatchers) {
-        if (matcher.matchesFirstPattern(line)) {
-          startExclusion(lineIndex);
-          currentMatcher = matcher;
-          break;
+    private void checkDoubleRegexps(String line, int lineIndex, boolean mayStart) {
+      if (currentMatcher == null) {
+        if (mayStart) {
+          for (DoubleRegexpMatcher matcher : blockMatchers) {
+            if (matcher.matchesFirstPattern(line)) {
+              startExclusion(lineIndex);
+              currentMatcher = matcher;
+              break;
+            }
+          }
+        }
+      } else {
+        if (currentMatcher.matchesSecondPattern(line)) {
+          endExclusion(lineIndex);
+          currentMatcher = null;
         }
-      }
-    } else {
-      if (currentMatcher.matchesSecondPattern(line)) {
-        endExclusion(lineIndex);
-        currentMatcher = null;
       }
     }
-  }
 
-  private void startExclusion(int lineIndex) {
-    currentLineExclusion = new LineExclusion(lineIndex);
-    lineExclusions.add(currentLineExclusion);
-  }
+    private void startExclusion(int lineIndex) {
+      currentLineExclusion = new LineExclusion(lineIndex);
+      lineExclusions.add(currentLineExclusion);
+    }
 
-  private void endExclusion(int lineIndex) {
-    currentLineExclusion.setEnd(lineIndex);
-    currentLineExclusion = null;
+    private void endExclusion(int lineIndex) {
+      currentLineExclusion.setEnd(lineIndex);
+      currentLineExclusion = null;
+    }
   }
 
-  private class LineExclusion {
+  private static class LineExclusion {
 
     private int start;
     private int end;
@@ -167,7 +268,7 @@ public class IssueExclusionsRegexpScanner implements BatchExtension {
       this.end = end;
     }
 
-    public LineRange toLineRange() {
+    public LineRange toLineRange(int fileLength) {
       return new LineRange(start, end == -1 ? fileLength : end);
     }
 
@@ -175,10 +276,10 @@ public class IssueExclusionsRegexpScanner implements BatchExtension {
 
   private static class DoubleRegexpMatcher {
 
-    private java.util.regex.Pattern firstPattern;
-    private java.util.regex.Pattern secondPattern;
+    private Pattern firstPattern;
+    private Pattern secondPattern;
 
-    DoubleRegexpMatcher(java.util.regex.Pattern firstPattern, java.util.regex.Pattern secondPattern) {
+    DoubleRegexpMatcher(Pattern firstPattern, Pattern secondPattern) {
       this.firstPattern = firstPattern;
       this.secondPattern = secondPattern;
     }
@@ -19,76 +19,105 @@
  */
 package org.sonar.batch.rule;
 
-import com.google.common.collect.ArrayListMultimap;
-import com.google.common.collect.ListMultimap;
-import org.codehaus.plexus.util.StringUtils;
+import com.google.common.base.Charsets;
+import com.google.common.base.Joiner;
+import com.google.common.collect.Lists;
+import com.google.common.io.Closeables;
+import com.google.common.io.Files;
+import com.google.gson.Gson;
+import com.google.gson.JsonParser;
 import org.picocontainer.injectors.ProviderAdapter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.sonar.api.batch.rule.ActiveRules;
 import org.sonar.api.batch.rule.internal.ActiveRulesBuilder;
 import org.sonar.api.batch.rule.internal.NewActiveRule;
-import org.sonar.api.rules.Rule;
-import org.sonar.api.rules.RuleFinder;
-import org.sonar.api.rules.RuleParam;
-import org.sonar.core.qualityprofile.db.ActiveRuleDao;
-import org.sonar.core.qualityprofile.db.ActiveRuleDto;
-import org.sonar.core.qualityprofile.db.ActiveRuleParamDto;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.batch.bootstrap.ServerClient;
+import org.sonar.core.qualityprofile.ActiveRulesLoader;
+import org.sonar.home.cache.FileCache;
 
-import javax.annotation.CheckForNull;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Loads the rules that are activated on the Quality profiles
  * used by the current module and build {@link org.sonar.api.batch.rule.ActiveRules}.
+ * <p/>
+ * Active rules are downloaded as a single bundle, which is kept in the user cache and identified by its hash, so it
+ * is downloaded again only when rules are changed on server side. They are loaded from database if the bundle
+ * can't be downloaded.
  */
 public class ActiveRulesProvider extends ProviderAdapter {
 
+  static final String BUNDLE_FILENAME = "active_rules.json";
+
+  private static final Logger LOG = LoggerFactory.getLogger(ActiveRulesProvider.class);
+
   private ActiveRules singleton = null;
 
-  public ActiveRules provide(ModuleQProfiles qProfiles, ActiveRuleDao dao, RuleFinder ruleFinder) {
+  public ActiveRules provide(ModuleQProfiles qProfiles, ActiveRulesLoader loader, ServerClient server, FileCache fileCache) {
     if (singleton == null) {
-      singleton = load(qProfiles, dao, ruleFinder);
+      List<Integer> profileIds = Lists.newArrayList();
+      for (ModuleQProfiles.QProfile qProfile : qProfiles.findAll()) {
+        profileIds.add(qProfile.id());
+      }
+      singleton = load(profileIds, loader, server, fileCache);
     }
     return singleton;
   }
 
-  private ActiveRules load(ModuleQProfiles qProfiles, ActiveRuleDao dao, RuleFinder ruleFinder) {
-    ActiveRulesBuilder builder = new ActiveRulesBuilder();
-    for (ModuleQProfiles.QProfile qProfile : qProfiles.findAll()) {
-      ListMultimap<Integer, ActiveRuleParamDto> paramDtosByActiveRuleId = ArrayListMultimap.create();
-      for (ActiveRuleParamDto dto : dao.selectParamsByProfileId(qProfile.id())) {
-        paramDtosByActiveRuleId.put(dto.getActiveRuleId(), dto);
-      }
-
-      for (ActiveRuleDto activeDto : dao.selectByProfileId(qProfile.id())) {
-        Rule rule = ruleFinder.findById(activeDto.getRulId());
-        if (rule != null) {
-          NewActiveRule newActiveRule = builder.activate(rule.ruleKey());
-          newActiveRule.setSeverity(activeDto.getSeverityString());
-          if (rule.getParent() != null) {
-            newActiveRule.setInternalKey(rule.getParent().getConfigKey());
-          } else {
-            newActiveRule.setInternalKey(rule.getConfigKey());
-          }
+  private static ActiveRules load(List<Integer> profileIds, ActiveRulesLoader loader, ServerClient server, FileCache fileCache) {
+    if (profileIds.isEmpty()) {
+      return new ActiveRulesBuilder().build();
+    }
+    try {
+      return download(Joiner.on(',').join(profileIds), server, fileCache);
+    } catch (Exception e) {
+      LOG.debug("Fail to download active rules, they are loaded from database", e);
+      return loader.load(profileIds);
+    }
+  }
 
-          // load parameter values
-          for (ActiveRuleParamDto paramDto : paramDtosByActiveRuleId.get(activeDto.getId())) {
-            newActiveRule.setParam(paramDto.getKey(), paramDto.getValue());
-          }
+  private static ActiveRules download(final String profileIds, final ServerClient server, FileCache fileCache) throws IOException {
+    String hashJson = server.request("/api/batch/active_rules_hash?profileIds=" + profileIds, false);
+    String hash = new JsonParser().parse(hashJson).getAsJsonObject().get("hash").getAsString();
+    File bundle = fileCache.get(BUNDLE_FILENAME, hash, new FileCache.Downloader() {
+      public void download(String filename, File toFile) throws IOException {
+        LOG.debug("Download active rules of Quality profiles {}", profileIds);
+        server.download("/api/batch/active_rules?profileIds=" + profileIds, toFile);
+      }
+    });
 
-          // load default values
-          for (RuleParam param : rule.getParams()) {
-            if (!newActiveRule.params().containsKey(param.getKey())) {
-              newActiveRule.setParam(param.getKey(), param.getDefaultValue());
-            }
-          }
+    Reader reader = Files.newReader(bundle, Charsets.UTF_8);
+    try {
+      ActiveRulesBuilder builder = new ActiveRulesBuilder();
+      for (RuleJson rule : new Gson().fromJson(reader, BundleJson.class).rules) {
+        NewActiveRule newActiveRule = builder.activate(RuleKey.of(rule.repository, rule.key));
+        newActiveRule.setSeverity(rule.severity);
+        newActiveRule.setInternalKey(rule.internalKey);
+        for (Map.Entry<String, String> param : rule.params.entrySet()) {
+          newActiveRule.setParam(param.getKey(), param.getValue());
         }
       }
+      return builder.build();
+    } finally {
+      Closeables.closeQuietly(reader);
     }
-    return builder.build();
   }
 
-  @CheckForNull
-  private String defaultParamValue(Rule rule, String paramKey) {
-    RuleParam param = rule.getParam(paramKey);
-    return param != null ? param.getDefaultValue() : null;
+  private static class BundleJson {
+    private List<RuleJson> rules;
+  }
+
+  private static class RuleJson {
+    private String repository;
+    private String key;
+    private String severity;
+    private String internalKey;
+    private Map<String, String> params;
   }
 }
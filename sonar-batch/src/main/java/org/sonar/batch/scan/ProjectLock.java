@@ -22,6 +22,8 @@ package org.sonar.batch.scan;
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.sonar.api.CoreProperties;
+import org.sonar.api.config.Settings;
 import org.sonar.api.i18n.I18n;
 import org.sonar.api.resources.Project;
 import org.sonar.api.utils.Semaphores;
@@ -35,16 +37,24 @@ public class ProjectLock {
 
   private static final Logger LOG = LoggerFactory.getLogger(ProjectLock.class);
 
+  /**
+   * The server purges the history of the project after each analysis. The batch waits for the end of the purge
+   * instead of failing, so that analyses can be executed back-to-back.
+   */
+  static final int PURGE_MAX_WAIT_IN_SECONDS = 300;
+
   private final Semaphores semaphores;
   private final ProjectTree projectTree;
   private final AnalysisMode analysisMode;
   private final I18n i18n;
+  private final Settings settings;
 
-  public ProjectLock(Semaphores semaphores, ProjectTree projectTree, AnalysisMode analysisMode, I18n i18n) {
+  public ProjectLock(Semaphores semaphores, ProjectTree projectTree, AnalysisMode analysisMode, I18n i18n, Settings settings) {
     this.semaphores = semaphores;
     this.projectTree = projectTree;
     this.analysisMode = analysisMode;
     this.i18n = i18n;
+    this.settings = settings;
   }
 
   public void start() {
@@ -54,7 +64,24 @@ public class ProjectLock {
         LOG.error(getErrorMessage(semaphore));
         throw new SonarException("The project is already being analysed.");
       }
+      waitForPurge();
+    }
+  }
+
+  /**
+   * The semaphore of the purge is released as soon as it is acquired : the server does not start new purges
+   * of the project while the semaphore of the batch is held.
+   */
+  private void waitForPurge() {
+    String purgeSemaphoreKey = "purge-" + getProject().getKey();
+    Semaphores.Semaphore semaphore = semaphores.acquire(purgeSemaphoreKey, 15, 10, PURGE_MAX_WAIT_IN_SECONDS);
+    if (!semaphore.isLocked()) {
+      release();
+      LOG.error("The server has been purging the history of '" + getProject().getName() + "' for "
+        + i18n.age(Locale.ENGLISH, semaphore.getDurationSinceLocked()) + ".");
+      throw new SonarException("The history of the project is being purged by the server.");
     }
+    semaphores.release(purgeSemaphoreKey);
   }
 
   private String getErrorMessage(Semaphores.Semaphore semaphore) {
@@ -72,7 +99,18 @@ public class ProjectLock {
 
   private Semaphores.Semaphore acquire() {
     LOG.debug("Acquire semaphore on project : {}, with key {}", getProject(), getSemaphoreKey());
-    return semaphores.acquire(getSemaphoreKey(), 15, 10);
+    int maxWait = getMaxWait();
+    if (maxWait > 0) {
+      LOG.debug("Wait up to {} seconds for concurrent analysis of project : {}", maxWait, getProject());
+    }
+    return semaphores.acquire(getSemaphoreKey(), 15, 10, maxWait);
+  }
+
+  private int getMaxWait() {
+    if (settings.hasKey(CoreProperties.ANALYSIS_LOCK_MAX_WAIT)) {
+      return settings.getInt(CoreProperties.ANALYSIS_LOCK_MAX_WAIT);
+    }
+    return CoreProperties.ANALYSIS_LOCK_MAX_WAIT_DEFAULT_VALUE;
   }
 
   private void release() {
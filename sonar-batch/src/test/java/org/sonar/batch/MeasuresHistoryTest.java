@@ -0,0 +1,67 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.batch;
+
+import org.junit.Test;
+
+import java.util.Date;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class MeasuresHistoryTest {
+
+  @Test
+  public void should_group_values_by_resource_and_metric() {
+    MeasuresHistory history = new MeasuresHistory()
+      .add("project", "ncloc", new Date(1000L), 10.0)
+      .add("project", "coverage", new Date(1000L), 80.0)
+      .add("project:dir", "ncloc", new Date(1000L), 5.0)
+      .add("project", "ncloc", new Date(2000L), null)
+      .add("project", "ncloc", new Date(3000L), 12.0);
+
+    assertThat(history.isEmpty()).isFalse();
+    assertThat(history.getValues("project", "ncloc")).isEqualTo(new double[] {10.0, Double.NaN, 12.0});
+    assertThat(history.getDates("project", "ncloc")).isEqualTo(new long[] {1000L, 2000L, 3000L});
+    assertThat(history.getValues("project", "coverage")).isEqualTo(new double[] {80.0});
+    assertThat(history.getValues("project:dir", "ncloc")).isEqualTo(new double[] {5.0});
+  }
+
+  @Test
+  public void should_return_empty_arrays_if_no_history() {
+    MeasuresHistory history = new MeasuresHistory();
+
+    assertThat(history.isEmpty()).isTrue();
+    assertThat(history.getValues("project", "ncloc")).isEmpty();
+    assertThat(history.getValues(null, "ncloc")).isEmpty();
+    assertThat(history.getDates("project", "ncloc")).isEmpty();
+  }
+
+  @Test
+  public void should_grow_series() {
+    MeasuresHistory history = new MeasuresHistory();
+    for (int i = 0; i < 100; i++) {
+      history.add("project", "ncloc", new Date(i), (double) i);
+    }
+
+    double[] values = history.getValues("project", "ncloc");
+    assertThat(values).hasSize(100);
+    assertThat(values[99]).isEqualTo(99.0);
+  }
+}
@@ -19,24 +19,86 @@
  */
 package org.sonar.batch.bootstrap;
 
+import org.junit.After;
 import org.junit.Test;
 import org.sonar.api.config.Settings;
+import org.sonar.core.persistence.profiling.SqlStatistics;
+import org.sonar.core.profiling.Profiling;
 
+import java.sql.Connection;
+import java.sql.Statement;
 import java.util.Properties;
 
 import static org.fest.assertions.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 public class BatchDatabaseTest {
+
+  @After
+  public void resetStatistics() {
+    SqlStatistics.INSTANCE.reset();
+  }
+
   @Test
-  public void should_init_at_least_two_connections() {
+  public void should_init_at_least_four_connections() {
     BatchDatabase db = new BatchDatabase(new Settings(), mock(AnalysisMode.class), mock(JdbcDriverHolder.class), mock(PreviewDatabase.class));
     Properties props = new Properties();
 
     db.doCompleteProperties(props);
 
-    assertThat(Integer.parseInt(props.getProperty("sonar.jdbc.initialSize"))).isGreaterThanOrEqualTo(2);
-    assertThat(Integer.parseInt(props.getProperty("sonar.jdbc.maxActive"))).isGreaterThanOrEqualTo(2);
+    assertThat(Integer.parseInt(props.getProperty("sonar.jdbc.initialSize"))).isGreaterThanOrEqualTo(4);
+    assertThat(Integer.parseInt(props.getProperty("sonar.jdbc.maxActive"))).isGreaterThanOrEqualTo(4);
+  }
+
+  @Test
+  public void should_reset_sql_statistics_after_logging_them() throws Exception {
+    BatchDatabase db = newProfiledDatabase();
+    db.start();
+    executeRequest(db);
+    assertThat(SqlStatistics.INSTANCE.isEmpty()).isFalse();
+
+    db.stop();
+
+    assertThat(SqlStatistics.INSTANCE.isEmpty()).isTrue();
   }
 
+  @Test
+  public void should_not_include_sql_statistics_of_previous_analysis() throws Exception {
+    BatchDatabase previous = newProfiledDatabase();
+    previous.start();
+    executeRequest(previous);
+    assertThat(SqlStatistics.INSTANCE.isEmpty()).isFalse();
+
+    BatchDatabase db = newProfiledDatabase();
+    db.start();
+
+    assertThat(SqlStatistics.INSTANCE.isEmpty()).isTrue();
+    db.stop();
+    previous.stop();
+  }
+
+  private BatchDatabase newProfiledDatabase() {
+    Settings settings = new Settings();
+    settings.setProperty("sonar.jdbc.url", "jdbc:h2:mem:batch");
+    settings.setProperty("sonar.jdbc.driverClassName", "org.h2.Driver");
+    settings.setProperty("sonar.jdbc.username", "sonar");
+    settings.setProperty("sonar.jdbc.password", "sonar");
+    settings.setProperty(Profiling.CONFIG_PROFILING_METRICS, true);
+    AnalysisMode analysisMode = mock(AnalysisMode.class);
+    // H2 is accepted in preview mode only
+    when(analysisMode.isPreview()).thenReturn(true);
+    return new BatchDatabase(settings, analysisMode, mock(JdbcDriverHolder.class));
+  }
+
+  private static void executeRequest(BatchDatabase db) throws Exception {
+    Connection connection = db.getDataSource().getConnection();
+    try {
+      Statement statement = connection.createStatement();
+      statement.execute("SELECT 1");
+      statement.close();
+    } finally {
+      connection.close();
+    }
+  }
 }
@@ -27,6 +27,7 @@ import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 import org.sonar.api.CoreProperties;
 import org.sonar.api.config.Settings;
+import org.sonar.api.utils.SonarException;
 import org.sonar.core.plugins.RemotePlugin;
 import org.sonar.home.cache.FileCache;
 import org.sonar.home.cache.FileCacheBuilder;
@@ -37,6 +38,7 @@ import java.io.IOException;
 import java.util.Arrays;
 
 import static org.fest.assertions.Assertions.assertThat;
+import static org.fest.assertions.Fail.fail;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -119,6 +121,25 @@ public class BatchPluginRepositoryTest {
     assertThat(repository.getMetadata()).isEmpty();
   }
 
+  @Test
+  public void shouldFailIfPluginCanNotBeDownloaded() throws IOException {
+    RemotePlugin checkstyle = new RemotePlugin("checkstyle", true);
+    RemotePlugin checkstyleExt = new RemotePlugin("checkstyleextensions", false);
+
+    PluginDownloader downloader = mock(PluginDownloader.class);
+    when(downloader.downloadPlugin(checkstyle)).thenReturn(fileFromCache("sonar-checkstyle-plugin-2.8.jar"));
+    when(downloader.downloadPlugin(checkstyleExt)).thenThrow(new SonarException("Fail to download plugin: checkstyleextensions"));
+
+    repository = new BatchPluginRepository(downloader, new Settings(), mode, new BatchPluginInstaller(cache));
+
+    try {
+      repository.doStart(Arrays.asList(checkstyle, checkstyleExt));
+      fail();
+    } catch (SonarException e) {
+      assertThat(e).hasMessage("Fail to download plugin: checkstyleextensions");
+    }
+  }
+
   private File fileFromCache(String filename) throws IOException {
     File file = TestUtils.getResource("/org/sonar/batch/bootstrap/BatchPluginRepositoryTest/" + filename);
     File destDir = new File(userHome, "cache/foomd5");
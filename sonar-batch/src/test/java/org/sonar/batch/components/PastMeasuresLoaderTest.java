@@ -22,6 +22,9 @@ package org.sonar.batch.components;
 import org.junit.Test;
 import org.sonar.api.database.model.Snapshot;
 import org.sonar.api.measures.Metric;
+import org.sonar.core.config.Logback;
+import org.sonar.core.measure.db.PastMeasureDao;
+import org.sonar.core.persistence.MyBatis;
 import org.sonar.jpa.test.AbstractDbUnitTestCase;
 
 import java.util.Arrays;
@@ -31,11 +34,13 @@ import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.nullValue;
 import static org.junit.internal.matchers.IsCollectionContaining.hasItems;
+import static org.mockito.Mockito.mock;
 
 public class PastMeasuresLoaderTest extends AbstractDbUnitTestCase {
 
   private static final int PROJECT_SNAPSHOT_ID = 1000;
   private static final String PROJECT_KEY = "project";
+  private static final String PACKAGE_KEY = "project:org.foo";
   private static final String FILE_KEY = "project:org.foo.Bar";
 
   @Test
@@ -45,7 +50,7 @@ public class PastMeasuresLoaderTest extends AbstractDbUnitTestCase {
     List<Metric> metrics = selectMetrics();
     Snapshot projectSnapshot = getSession().getSingleResult(Snapshot.class, "id", PROJECT_SNAPSHOT_ID);
 
-    PastMeasuresLoader loader = new PastMeasuresLoader(getSession(), metrics);
+    PastMeasuresLoader loader = new PastMeasuresLoader(getSession(), metrics, mock(PastMeasureDao.class));
     List<Object[]> measures = loader.getPastMeasures(FILE_KEY, projectSnapshot);
     assertThat(measures.size(), is(2));
 
@@ -69,7 +74,7 @@ public class PastMeasuresLoaderTest extends AbstractDbUnitTestCase {
     List<Metric> metrics = selectMetrics();
     Snapshot projectSnapshot = getSession().getSingleResult(Snapshot.class, "id", PROJECT_SNAPSHOT_ID);
 
-    PastMeasuresLoader loader = new PastMeasuresLoader(getSession(), metrics);
+    PastMeasuresLoader loader = new PastMeasuresLoader(getSession(), metrics, mock(PastMeasureDao.class));
     List<Object[]> measures = loader.getPastMeasures(PROJECT_KEY, projectSnapshot);
     assertThat(measures.size(), is(2));
 
@@ -86,6 +91,36 @@ public class PastMeasuresLoaderTest extends AbstractDbUnitTestCase {
     assertThat(PastMeasuresLoader.getValue(pastMeasure), is(80.0));
   }
 
+  @Test
+  public void shouldLoadPastMeasuresOfProjectsAndDirectoriesInOneTable() {
+    setupData("shared");
+
+    List<Metric> metrics = selectMetrics();
+    Snapshot projectSnapshot = getSession().getSingleResult(Snapshot.class, "id", PROJECT_SNAPSHOT_ID);
+
+    MyBatis myBatis = new MyBatis(getDatabase(), new Logback());
+    myBatis.start();
+    PastMeasuresLoader loader = new PastMeasuresLoader(getSession(), metrics, new PastMeasureDao(myBatis));
+    PastMeasuresTable table = loader.getPastMeasuresTable(new PastSnapshot("days", null, projectSnapshot));
+
+    assertThat(table.size(), is(4));
+    assertThat(table.getValue(PROJECT_KEY, 1, null, null, null), is(60.0));
+    assertThat(table.getValue(PROJECT_KEY, 2, null, null, null), is(80.0));
+    assertThat(table.getValue(PACKAGE_KEY, 1, null, null, null), is(20.0));
+    assertThat(table.getValue(PACKAGE_KEY, 2, null, null, null), is(70.0));
+
+    // past measures are not available on files
+    assertThat(table.hasResource(FILE_KEY), is(false));
+  }
+
+  @Test
+  public void shouldReturnEmptyTableIfNoPastSnapshot() {
+    PastMeasuresLoader loader = new PastMeasuresLoader(getSession(), selectMetrics(), mock(PastMeasureDao.class));
+
+    assertThat(loader.getPastMeasuresTable(new PastSnapshot("days")).size(), is(0));
+    assertThat(loader.getPastMeasuresTable(null).size(), is(0));
+  }
+
   @Test
   public void shouldKeepOnlyNumericalMetrics() {
     Metric ncloc = new Metric("ncloc", Metric.ValueType.INT);
@@ -96,7 +131,7 @@ public class PastMeasuresLoaderTest extends AbstractDbUnitTestCase {
     data.setId(3);
     List<Metric> metrics = Arrays.asList(ncloc, complexity, data);
 
-    PastMeasuresLoader loader = new PastMeasuresLoader(getSession(), metrics);
+    PastMeasuresLoader loader = new PastMeasuresLoader(getSession(), metrics, mock(PastMeasureDao.class));
 
     assertThat(loader.getMetrics().size(), is(2));
     assertThat(loader.getMetrics(), hasItems(ncloc, complexity));
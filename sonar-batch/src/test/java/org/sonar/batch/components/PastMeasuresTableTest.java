@@ -0,0 +1,77 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.batch.components;
+
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class PastMeasuresTableTest {
+
+  @Test
+  public void should_find_value_by_full_key() {
+    PastMeasuresTable table = new PastMeasuresTable()
+      .add("project", 1, null, null, null, 10.0)
+      .add("project", 1, 5, null, null, 20.0)
+      .add("project", 1, null, 7, null, 30.0)
+      .add("project", 1, null, null, 9, 40.0)
+      .add("project:dir", 1, null, null, null, 50.0);
+
+    assertThat(table.size()).isEqualTo(5);
+    assertThat(table.getValue("project", 1, null, null, null)).isEqualTo(10.0);
+    assertThat(table.getValue("project", 1, 5, null, null)).isEqualTo(20.0);
+    assertThat(table.getValue("project", 1, null, 7, null)).isEqualTo(30.0);
+    assertThat(table.getValue("project", 1, null, null, 9)).isEqualTo(40.0);
+    assertThat(table.getValue("project:dir", 1, null, null, null)).isEqualTo(50.0);
+
+    assertThat(table.getValue("project", 2, null, null, null)).isNull();
+    assertThat(table.getValue("project", 1, 9, null, null)).isNull();
+    assertThat(table.getValue("unknown", 1, null, null, null)).isNull();
+    assertThat(table.getValue(null, 1, null, null, null)).isNull();
+  }
+
+  @Test
+  public void should_override_duplicated_key() {
+    PastMeasuresTable table = new PastMeasuresTable()
+      .add("project", 1, null, null, null, 10.0)
+      .add("project", 1, null, null, null, 15.0);
+
+    assertThat(table.size()).isEqualTo(1);
+    assertThat(table.getValue("project", 1, null, null, null)).isEqualTo(15.0);
+  }
+
+  @Test
+  public void should_grow() {
+    PastMeasuresTable table = new PastMeasuresTable();
+    for (int resource = 0; resource < 100; resource++) {
+      for (int metric = 0; metric < 50; metric++) {
+        table.add("dir" + resource, metric, null, null, null, resource * 1000 + metric);
+      }
+    }
+
+    assertThat(table.size()).isEqualTo(5000);
+    assertThat(table.hasResource("dir99")).isTrue();
+    for (int resource = 0; resource < 100; resource++) {
+      for (int metric = 0; metric < 50; metric++) {
+        assertThat(table.getValue("dir" + resource, metric, null, null, null)).isEqualTo(resource * 1000.0 + metric);
+      }
+    }
+  }
+}
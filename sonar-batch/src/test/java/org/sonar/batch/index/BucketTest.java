@@ -23,6 +23,7 @@ import org.junit.Test;
 import org.sonar.api.measures.Measure;
 import org.sonar.api.measures.MeasuresFilters;
 import org.sonar.api.measures.Metric;
+import org.sonar.api.measures.RuleMeasure;
 import org.sonar.api.resources.JavaFile;
 import org.sonar.api.resources.JavaPackage;
 import org.sonar.api.rules.Rule;
@@ -87,6 +88,33 @@ public class BucketTest {
     fileBucket.addMeasure(measure);
   }
 
+  @Test(expected = SonarException.class)
+  public void shouldFailIfAddingSameMeasureAfterAddedMeasureIsChanged() {
+    Bucket fileBucket = new Bucket(javaFile);
+    Measure measure = new Measure(ncloc).setValue(1200.0);
+    fileBucket.addMeasure(measure);
+    // the bucket keeps the key of the measure when it was added
+    measure.setPersonId(3);
+
+    fileBucket.addMeasure(new Measure(ncloc).setValue(500.0));
+  }
+
+  @Test
+  public void shouldAddMeasuresOfDifferentRules() {
+    Bucket fileBucket = new Bucket(javaFile);
+    fileBucket.addMeasure(RuleMeasure.createForRule(ncloc, Rule.create("squid", "S0001"), 1.0));
+    fileBucket.addMeasure(RuleMeasure.createForRule(ncloc, Rule.create("squid", "S0002"), 2.0));
+
+    assertThat(fileBucket.getMeasures(MeasuresFilters.all()).size(), is(2));
+  }
+
+  @Test(expected = SonarException.class)
+  public void shouldFailIfAddingSameRuleMeasures() {
+    Bucket fileBucket = new Bucket(javaFile);
+    fileBucket.addMeasure(RuleMeasure.createForRule(ncloc, Rule.create("squid", "S0001"), 1.0));
+    fileBucket.addMeasure(RuleMeasure.createForRule(ncloc, Rule.create("squid", "S0001"), 2.0));
+  }
+
   @Test
   public void shouldBeEquals() {
     assertEquals(new Bucket(javaPackage), new Bucket(javaPackage));
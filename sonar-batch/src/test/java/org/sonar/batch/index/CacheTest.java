@@ -26,6 +26,7 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
+import static com.google.common.collect.Lists.newArrayList;
 import static org.fest.assertions.Assertions.assertThat;
 
 public class CacheTest {
@@ -46,6 +47,26 @@ public class CacheTest {
     caches.stop();
   }
 
+  @Test
+  public void append_values() throws Exception {
+    Cache<String> cache = caches.createCache("cities");
+
+    assertThat(cache.values("france")).isEmpty();
+
+    cache.append("france", "paris");
+    cache.append("italy", "rome");
+    cache.append("france", "lyon");
+    cache.append("france", "marseille");
+    assertThat(newArrayList(cache.values("france"))).containsExactly("paris", "lyon", "marseille");
+    assertThat(newArrayList(cache.values("italy"))).containsExactly("rome");
+
+    cache.clear("france");
+    assertThat(cache.values("france")).isEmpty();
+    cache.append("france", "nantes");
+    assertThat(newArrayList(cache.values("france"))).containsExactly("nantes");
+    assertThat(newArrayList(cache.values("italy"))).containsExactly("rome");
+  }
+
   @Test
   public void one_part_key() throws Exception {
     Cache<String> cache = caches.createCache("capitals");
@@ -35,9 +35,12 @@ import org.sonar.test.TestUtils;
 
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Set;
+import java.util.regex.Pattern;
 
 import static com.google.common.base.Charsets.UTF_8;
+import static org.fest.assertions.Assertions.assertThat;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -160,4 +163,65 @@ public class IssueExclusionsRegexpScannerTest {
     verifyNoMoreInteractions(patternsInitializer);
   }
 
+  @Test
+  public void shouldCombinePatterns() {
+    Pattern union = IssueExclusionsRegexpScanner.union(Arrays.asList("// SONAR-OFF", "(?i)foo(bar)?", "@SONAR-IGNORE-ALL"));
+
+    assertThat(union.matcher("int i; // SONAR-OFF").find()).isTrue();
+    assertThat(union.matcher("FOOBAR").find()).isTrue();
+    assertThat(union.matcher("@SONAR-IGNORE-ALL").find()).isTrue();
+    // case-insensitive flag is scoped to its own pattern
+    assertThat(union.matcher("@sonar-ignore-all").find()).isFalse();
+    assertThat(union.matcher("int i;").find()).isFalse();
+  }
+
+  @Test
+  public void shouldNotCombinePatternsWithBackReferences() {
+    assertThat(IssueExclusionsRegexpScanner.union(Arrays.asList("(a)\\1", "b"))).isNull();
+    assertThat(IssueExclusionsRegexpScanner.union(Arrays.asList("(?<x>a)\\k<x>", "b"))).isNull();
+    assertThat(IssueExclusionsRegexpScanner.union(Collections.<String>emptyList())).isNull();
+  }
+
+  @Test
+  public void shouldNotCombinePatternsWithUnterminatedQuote() {
+    // "(?:\Qa)|(?:\Qb\E)" would be valid but would only match "a)|(?:\Qb"
+    assertThat(IssueExclusionsRegexpScanner.union(Arrays.asList("\\Qa", "\\Qb\\E"))).isNull();
+    assertThat(IssueExclusionsRegexpScanner.union(Arrays.asList("a\\Qb\\E\\Qc", "\\Qd\\E"))).isNull();
+  }
+
+  @Test
+  public void shouldCombinePatternsWithTerminatedQuote() {
+    Pattern union = IssueExclusionsRegexpScanner.union(Arrays.asList("\\Q(SONAR)\\E", "\\\\Qfoo", "@SONAR-IGNORE-ALL"));
+
+    assertThat(union.matcher("// (SONAR)").find()).isTrue();
+    assertThat(union.matcher("\\Qfoo").find()).isTrue();
+    assertThat(union.matcher("@SONAR-IGNORE-ALL").find()).isTrue();
+    assertThat(union.matcher("SONAR").find()).isFalse();
+  }
+
+  @Test
+  public void shouldScanWithUnterminatedQuote() throws IOException {
+    when(blockPattern1.getBeginBlockRegexp()).thenReturn("\\Q// SONAR-OFF");
+    when(blockPattern2.getBeginBlockRegexp()).thenReturn("\\Q// FOO-OFF\\E");
+    regexpScanner = new IssueExclusionsRegexpScanner(patternsInitializer);
+
+    regexpScanner.scan(javaFile, TestUtils.getResource(getClass(), "file-with-double-regexp.txt"), UTF_8);
+
+    Set<LineRange> lineRanges = Sets.newHashSet();
+    lineRanges.add(new LineRange(21, 25));
+    verify(patternMatcher, times(1)).addPatternToExcludeLines(javaFile, lineRanges);
+  }
+
+  @Test
+  public void shouldScanWithoutCombinedPatterns() throws IOException {
+    when(allFilePattern.getAllFileRegexp()).thenReturn("(@)SONAR-IGNORE-ALL|\\1");
+    regexpScanner = new IssueExclusionsRegexpScanner(patternsInitializer);
+
+    regexpScanner.scan(javaFile, TestUtils.getResource(getClass(), "file-with-double-regexp.txt"), UTF_8);
+
+    Set<LineRange> lineRanges = Sets.newHashSet();
+    lineRanges.add(new LineRange(21, 25));
+    verify(patternMatcher, times(1)).addPatternToExcludeLines(javaFile, lineRanges);
+  }
+
 }
@@ -19,67 +19,103 @@
  */
 package org.sonar.batch.rule;
 
-import org.junit.Before;
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.sonar.api.batch.rule.ActiveRule;
 import org.sonar.api.batch.rule.ActiveRules;
+import org.sonar.api.batch.rule.internal.ActiveRulesBuilder;
 import org.sonar.api.rule.RuleKey;
 import org.sonar.api.rule.Severity;
-import org.sonar.api.rules.Rule;
-import org.sonar.api.rules.RuleFinder;
-import org.sonar.core.persistence.AbstractDaoTestCase;
-import org.sonar.core.qualityprofile.db.ActiveRuleDao;
-import org.sonar.core.qualityprofile.db.QualityProfileDao;
+import org.sonar.api.utils.SonarException;
+import org.sonar.batch.bootstrap.ServerClient;
+import org.sonar.core.qualityprofile.ActiveRulesLoader;
+import org.sonar.home.cache.FileCache;
 
+import java.io.File;
 import java.util.Arrays;
+import java.util.Collections;
 
 import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
-public class ActiveRulesProviderTest extends AbstractDaoTestCase {
+public class ActiveRulesProviderTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
 
   ModuleQProfiles qProfiles = mock(ModuleQProfiles.class);
-  RuleFinder ruleFinder = mock(RuleFinder.class);
-
-  @Before
-  public void init_rules() {
-    Rule squidRule = new Rule().setRepositoryKey("squid").setKey("S0001");
-    squidRule.createParameter("min").setDefaultValue("12");
-    when(ruleFinder.findById(10)).thenReturn(squidRule);
-    when(ruleFinder.findById(100)).thenReturn(new Rule().setRepositoryKey("phpunit").setKey("P1"));
-  }
+  ActiveRulesLoader loader = mock(ActiveRulesLoader.class);
+  ServerClient server = mock(ServerClient.class);
+  FileCache fileCache = mock(FileCache.class);
 
   @Test
-  public void build_active_rules() throws Exception {
-    setupData("shared");
-    QualityProfileDao profileDao = new QualityProfileDao(getMyBatis());
+  public void load_active_rules_from_cached_bundle() throws Exception {
     when(qProfiles.findAll()).thenReturn(Arrays.asList(
-      // 1 rule is enabled on java with severity INFO
-      new ModuleQProfiles.QProfile(profileDao.selectById(2)),
-      // 1 rule is enabled on php with severity BLOCKER
-      new ModuleQProfiles.QProfile(profileDao.selectById(3))
-    ));
+      new ModuleQProfiles.QProfile(2, "Java Two", "java", 20),
+      new ModuleQProfiles.QProfile(3, "Php One", "php", 30)));
+    when(server.request("/api/batch/active_rules_hash?profileIds=2,3", false)).thenReturn("{\"hash\": \"abcde\"}");
+    File bundle = temp.newFile();
+    Files.write("{\"rules\": [" +
+      "{\"repository\": \"squid\", \"key\": \"S0001\", \"severity\": \"INFO\", \"params\": {\"max\": \"20\", \"min\": \"12\"}}," +
+      "{\"repository\": \"phpunit\", \"key\": \"P1\", \"severity\": \"BLOCKER\", \"internalKey\": \"Checker/P1\", \"params\": {}}" +
+      "]}", bundle, Charsets.UTF_8);
+    when(fileCache.get(eq(ActiveRulesProvider.BUNDLE_FILENAME), eq("abcde"), any(FileCache.Downloader.class))).thenReturn(bundle);
 
-    ActiveRulesProvider provider = new ActiveRulesProvider();
-    ActiveRuleDao activeRuleDao = new ActiveRuleDao(getMyBatis());
-    ActiveRules activeRules = provider.provide(qProfiles, activeRuleDao, ruleFinder);
+    ActiveRules activeRules = new ActiveRulesProvider().provide(qProfiles, loader, server, fileCache);
 
     assertThat(activeRules.findAll()).hasSize(2);
-    assertThat(activeRules.findByRepository("squid")).hasSize(1);
-    assertThat(activeRules.findByRepository("phpunit")).hasSize(1);
-    assertThat(activeRules.findByRepository("unknown")).isEmpty();
     ActiveRule squidRule = activeRules.find(RuleKey.of("squid", "S0001"));
     assertThat(squidRule.severity()).isEqualTo(Severity.INFO);
     assertThat(squidRule.internalKey()).isNull();
-    // "max" and "format" parameters are set in db, "min" is not set but has a default value
-    assertThat(squidRule.params()).hasSize(3);
-    assertThat(squidRule.param("min")).isEqualTo("12");
+    assertThat(squidRule.params()).hasSize(2);
     assertThat(squidRule.param("max")).isEqualTo("20");
-    assertThat(squidRule.param("format")).isEqualTo("html");
-
     ActiveRule phpRule = activeRules.find(RuleKey.of("phpunit", "P1"));
     assertThat(phpRule.severity()).isEqualTo(Severity.BLOCKER);
+    assertThat(phpRule.internalKey()).isEqualTo("Checker/P1");
     assertThat(phpRule.params()).isEmpty();
+    verifyZeroInteractions(loader);
+  }
+
+  @Test
+  public void load_active_rules_from_database_if_bundle_can_not_be_downloaded() throws Exception {
+    when(qProfiles.findAll()).thenReturn(Arrays.asList(new ModuleQProfiles.QProfile(2, "Java Two", "java", 20)));
+    when(server.request(anyString(), anyBoolean())).thenThrow(new SonarException("Fail to execute request [code=404]"));
+    ActiveRules fromDatabase = new ActiveRulesBuilder().build();
+    when(loader.load(Arrays.asList(2))).thenReturn(fromDatabase);
+
+    ActiveRules activeRules = new ActiveRulesProvider().provide(qProfiles, loader, server, fileCache);
+
+    assertThat(activeRules).isSameAs(fromDatabase);
+    verify(loader).load(Arrays.asList(2));
+  }
+
+  @Test
+  public void no_active_rules_without_profiles() throws Exception {
+    when(qProfiles.findAll()).thenReturn(Collections.<ModuleQProfiles.QProfile>emptyList());
+
+    ActiveRules activeRules = new ActiveRulesProvider().provide(qProfiles, loader, server, fileCache);
+
+    assertThat(activeRules.findAll()).isEmpty();
+    verifyZeroInteractions(loader, server, fileCache);
+  }
+
+  @Test
+  public void load_active_rules_once() throws Exception {
+    when(qProfiles.findAll()).thenReturn(Collections.<ModuleQProfiles.QProfile>emptyList());
+    ActiveRulesProvider provider = new ActiveRulesProvider();
+
+    ActiveRules activeRules = provider.provide(qProfiles, loader, server, fileCache);
+
+    assertThat(provider.provide(qProfiles, loader, server, fileCache)).isSameAs(activeRules);
   }
 }
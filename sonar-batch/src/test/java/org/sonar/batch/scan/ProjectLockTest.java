@@ -21,6 +21,8 @@ package org.sonar.batch.scan;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.sonar.api.CoreProperties;
+import org.sonar.api.config.Settings;
 import org.sonar.api.i18n.I18n;
 import org.sonar.api.resources.Project;
 import org.sonar.api.utils.Semaphores;
@@ -43,6 +45,7 @@ public class ProjectLockTest {
   Semaphores semaphores = mock(Semaphores.class);
   ProjectTree projectTree = mock(ProjectTree.class);
   I18n i18n = mock(I18n.class);
+  Settings settings = new Settings();
   Project project;
   private AnalysisMode mode;
 
@@ -53,20 +56,32 @@ public class ProjectLockTest {
     project = new Project("my-project-key");
     when(projectTree.getRootProject()).thenReturn(project);
 
-    projectLock = new ProjectLock(semaphores, projectTree, mode, i18n);
+    projectLock = new ProjectLock(semaphores, projectTree, mode, i18n, settings);
   }
 
   @Test
   public void shouldAcquireSemaphore() {
-    when(semaphores.acquire(anyString(), anyInt(), anyInt())).thenReturn(new Semaphores.Semaphore().setLocked(true));
+    when(semaphores.acquire(anyString(), anyInt(), anyInt(), anyInt())).thenReturn(new Semaphores.Semaphore().setLocked(true));
     projectLock.start();
 
-    verify(semaphores).acquire("batch-my-project-key", 15, 10);
+    verify(semaphores).acquire("batch-my-project-key", 15, 10, 0);
+    verify(semaphores).acquire("purge-my-project-key", 15, 10, ProjectLock.PURGE_MAX_WAIT_IN_SECONDS);
+    verify(semaphores).release("purge-my-project-key");
+    verify(semaphores, never()).release("batch-my-project-key");
+  }
+
+  @Test
+  public void shouldWaitForSemaphore() {
+    settings.setProperty(CoreProperties.ANALYSIS_LOCK_MAX_WAIT, 300);
+    when(semaphores.acquire(anyString(), anyInt(), anyInt(), anyInt())).thenReturn(new Semaphores.Semaphore().setLocked(true));
+    projectLock.start();
+
+    verify(semaphores).acquire("batch-my-project-key", 15, 10, 300);
   }
 
   @Test
   public void shouldNotAcquireSemaphoreIfTheProjectIsAlreadyBeenAnalysing() {
-    when(semaphores.acquire(anyString(), anyInt(), anyInt())).thenReturn(new Semaphores.Semaphore().setLocked(false).setDurationSinceLocked(1234L));
+    when(semaphores.acquire(anyString(), anyInt(), anyInt(), anyInt())).thenReturn(new Semaphores.Semaphore().setLocked(false).setDurationSinceLocked(1234L));
     try {
     projectLock.start();
       fail();
@@ -74,6 +89,23 @@ public class ProjectLockTest {
       assertThat(e).isInstanceOf(SonarException.class);
     }
     verify(i18n).age(eq(Locale.ENGLISH), eq(1234L));
+    verify(semaphores, never()).acquire(eq("purge-my-project-key"), anyInt(), anyInt(), anyInt());
+  }
+
+  @Test
+  public void shouldFailIfTheProjectIsStillBeingPurged() {
+    when(semaphores.acquire("batch-my-project-key", 15, 10, 0)).thenReturn(new Semaphores.Semaphore().setLocked(true));
+    when(semaphores.acquire("purge-my-project-key", 15, 10, ProjectLock.PURGE_MAX_WAIT_IN_SECONDS))
+      .thenReturn(new Semaphores.Semaphore().setLocked(false).setDurationSinceLocked(400000L));
+    try {
+      projectLock.start();
+      fail();
+    } catch (SonarException e) {
+      assertThat(e).hasMessage("The history of the project is being purged by the server.");
+    }
+    verify(i18n).age(eq(Locale.ENGLISH), eq(400000L));
+    verify(semaphores).release("batch-my-project-key");
+    verify(semaphores, never()).release("purge-my-project-key");
   }
 
   @Test
@@ -19,6 +19,8 @@
  */
 package org.sonar.channel;
 
+import java.util.BitSet;
+
 public abstract class Channel<O> {
 
   /**
@@ -32,4 +34,16 @@ public abstract class Channel<O> {
    * @return false if the Channel doesn't want to consume the character stream, true otherwise.
    */
   public abstract boolean consume(CodeReader code, O output);
+
+  /**
+   * Optional hint used by {@link org.sonar.channel.ChannelDispatcher} to try this channel only when the next character can be consumed
+   * by it. A channel returning a set must not consume anything, nor feed the OUTPUT, when the next character is not in this set.
+   *
+   * @return the characters that can start a sequence consumed by this channel, or null (default) if the channel must be tried on
+   *         every character
+   * @since 4.2.1
+   */
+  public BitSet getFirstCharacters() {
+    return null;
+  }
 }
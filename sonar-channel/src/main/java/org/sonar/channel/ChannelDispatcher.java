@@ -22,6 +22,7 @@ package org.sonar.channel;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
 
 import org.slf4j.Logger;
@@ -30,10 +31,17 @@ import org.slf4j.LoggerFactory;
 public class ChannelDispatcher<O> extends Channel<O> {
 
   private static final Logger LOG = LoggerFactory.getLogger(ChannelDispatcher.class);
+  private static final int DISPATCH_TABLE_SIZE = 128;
   private final boolean failIfNoChannelToConsumeOneCharacter;
 
   private final Channel<O>[] channels;
 
+  /**
+   * Channels that can consume a given ASCII character, in the same order than {@link #channels}. Other characters
+   * are submitted to all the channels.
+   */
+  private final Channel<O>[][] channelsByFirstCharacter;
+
   /**
    * @deprecated in version 2.9. Please use the builder() method
    */
@@ -60,11 +68,33 @@ public class ChannelDispatcher<O> extends Channel<O> {
   public ChannelDispatcher(List<Channel> channels, boolean failIfNoChannelToConsumeOneCharacter) {
     this.channels = channels.toArray(new Channel[channels.size()]);
     this.failIfNoChannelToConsumeOneCharacter = failIfNoChannelToConsumeOneCharacter;
+    this.channelsByFirstCharacter = dispatchTable(this.channels);
   }
 
   private ChannelDispatcher(Builder builder) {
     this.channels = builder.channels.toArray(new Channel[builder.channels.size()]);
     this.failIfNoChannelToConsumeOneCharacter = builder.failIfNoChannelToConsumeOneCharacter;
+    this.channelsByFirstCharacter = dispatchTable(this.channels);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <O> Channel<O>[][] dispatchTable(Channel<O>[] channels) {
+    BitSet[] firstCharacters = new BitSet[channels.length];
+    for (int i = 0; i < channels.length; i++) {
+      firstCharacters[i] = channels[i].getFirstCharacters();
+    }
+    Channel<O>[][] table = new Channel[DISPATCH_TABLE_SIZE][];
+    List<Channel<O>> candidates = new ArrayList<Channel<O>>();
+    for (int c = 0; c < DISPATCH_TABLE_SIZE; c++) {
+      candidates.clear();
+      for (int i = 0; i < channels.length; i++) {
+        if (firstCharacters[i] == null || firstCharacters[i].get(c)) {
+          candidates.add(channels[i]);
+        }
+      }
+      table[c] = candidates.toArray(new Channel[candidates.size()]);
+    }
+    return table;
   }
 
   @Override
@@ -72,7 +102,8 @@ public class ChannelDispatcher<O> extends Channel<O> {
     int nextChar = code.peek();
     while (nextChar != -1) {
       boolean characterConsumed = false;
-      for (Channel<O> channel : channels) {
+      Channel<O>[] candidates = nextChar < DISPATCH_TABLE_SIZE ? channelsByFirstCharacter[nextChar] : channels;
+      for (Channel<O> channel : candidates) {
         if (channel.consume(code, output)) {
           characterConsumed = true;
           break;
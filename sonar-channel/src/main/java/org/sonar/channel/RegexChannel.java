@@ -19,6 +19,7 @@
  */
 package org.sonar.channel;
 
+import java.util.BitSet;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -29,6 +30,7 @@ public abstract class RegexChannel<O> extends Channel<O> {
 
   private final StringBuilder tmpBuilder = new StringBuilder();
   private final Matcher matcher;
+  private final BitSet firstCharacters;
 
   /**
    * Create a RegexChannel object with the required regular expression
@@ -38,6 +40,15 @@ public abstract class RegexChannel<O> extends Channel<O> {
    */
   public RegexChannel(String regex) {
     matcher = Pattern.compile(regex).matcher("");
+    firstCharacters = RegexFirstCharacters.of(regex);
+  }
+
+  /**
+   * Derived from the prefix of the regular expression
+   */
+  @Override
+  public BitSet getFirstCharacters() {
+    return firstCharacters == null ? null : (BitSet) firstCharacters.clone();
   }
 
   @Override
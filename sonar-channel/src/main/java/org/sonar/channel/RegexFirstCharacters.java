@@ -0,0 +1,418 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.channel;
+
+import java.util.BitSet;
+
+/**
+ * Computes the characters that can start a non-empty match of a regular expression, so that the channel
+ * is not tried on other characters. The analysis is conservative : when the first character is matched by a
+ * construct that is not supported (negated classes, '.', most unicode properties, back-references...), or when the
+ * expression declares flags, no set is returned and the channel is tried on every character.
+ *
+ * @since 4.2.1
+ * @see Channel#getFirstCharacters()
+ */
+public final class RegexFirstCharacters {
+
+  private static final class UnsupportedRegexException extends RuntimeException {
+  }
+
+  private static final class Atom {
+    // null if unknown
+    private final BitSet first;
+    private final boolean canBeEmpty;
+
+    Atom(BitSet first, boolean canBeEmpty) {
+      this.first = first;
+      this.canBeEmpty = canBeEmpty;
+    }
+  }
+
+  private final String regex;
+  private int pos = 0;
+
+  private RegexFirstCharacters(String regex) {
+    this.regex = regex;
+  }
+
+  /**
+   * @return null if any character can start a match
+   */
+  public static BitSet of(String regex) {
+    try {
+      RegexFirstCharacters parser = new RegexFirstCharacters(regex);
+      Atom atom = parser.alternation();
+      if (parser.pos < regex.length()) {
+        // unbalanced parenthesis
+        return null;
+      }
+      return atom.first;
+    } catch (UnsupportedRegexException e) {
+      return null;
+    } catch (IndexOutOfBoundsException e) {
+      return null;
+    }
+  }
+
+  private Atom alternation() {
+    BitSet first = new BitSet();
+    boolean canBeEmpty = false;
+    while (true) {
+      Atom branch = sequence();
+      first = union(first, branch.first);
+      canBeEmpty |= branch.canBeEmpty;
+      if (pos < regex.length() && regex.charAt(pos) == '|') {
+        pos++;
+      } else {
+        return new Atom(first, canBeEmpty);
+      }
+    }
+  }
+
+  private Atom sequence() {
+    BitSet first = new BitSet();
+    boolean canBeEmpty = true;
+    while (pos < regex.length() && regex.charAt(pos) != '|' && regex.charAt(pos) != ')') {
+      Atom atom = quantified(atom());
+      if (canBeEmpty) {
+        first = union(first, atom.first);
+        canBeEmpty = atom.canBeEmpty;
+      }
+    }
+    return new Atom(first, canBeEmpty);
+  }
+
+  private Atom quantified(Atom atom) {
+    if (pos >= regex.length()) {
+      return atom;
+    }
+    char c = regex.charAt(pos);
+    boolean canBeEmpty = atom.canBeEmpty;
+    if (c == '?' || c == '*') {
+      pos++;
+      canBeEmpty = true;
+    } else if (c == '+') {
+      pos++;
+    } else if (c == '{') {
+      int end = regex.indexOf('}', pos);
+      if (end < 0) {
+        throw new UnsupportedRegexException();
+      }
+      String min = regex.substring(pos + 1, end).split(",", -1)[0].trim();
+      canBeEmpty |= "0".equals(min);
+      pos = end + 1;
+    } else {
+      return atom;
+    }
+    // lazy or possessive quantifier
+    if (pos < regex.length() && (regex.charAt(pos) == '?' || regex.charAt(pos) == '+')) {
+      pos++;
+    }
+    if (pos < regex.length() && "?*+{".indexOf(regex.charAt(pos)) >= 0) {
+      // stacked quantifiers, for example a?{1}, are accepted by java.util.regex with unclear semantics
+      throw new UnsupportedRegexException();
+    }
+    return new Atom(atom.first, canBeEmpty);
+  }
+
+  private Atom atom() {
+    char c = regex.charAt(pos);
+    switch (c) {
+      case '(':
+        return group();
+      case '[':
+        pos++;
+        return new Atom(characterClass(), false);
+      case '\\':
+        return escape();
+      case '^':
+      case '$':
+        pos++;
+        return zeroWidth();
+      case '.':
+        pos++;
+        return unknown();
+      case '{':
+        // quantifier without atom, for example {0}a, is accepted by java.util.regex
+        throw new UnsupportedRegexException();
+      default:
+        pos++;
+        return new Atom(single(c), false);
+    }
+  }
+
+  private Atom group() {
+    pos++;
+    boolean lookaround = false;
+    if (regex.charAt(pos) == '?') {
+      pos++;
+      char c = regex.charAt(pos);
+      if (c == '=' || c == '!') {
+        lookaround = true;
+        pos++;
+      } else if (c == '<' && (regex.charAt(pos + 1) == '=' || regex.charAt(pos + 1) == '!')) {
+        lookaround = true;
+        pos += 2;
+      } else if (c == '<') {
+        // named group
+        pos = regex.indexOf('>', pos) + 1;
+      } else if (c == ':' || c == '>') {
+        pos++;
+      } else {
+        // flags, for example (?i)
+        throw new UnsupportedRegexException();
+      }
+    }
+    Atom content = alternation();
+    if (regex.charAt(pos) != ')') {
+      throw new UnsupportedRegexException();
+    }
+    pos++;
+    // lookarounds only restrict the matches, they can be ignored
+    return lookaround ? zeroWidth() : content;
+  }
+
+  private Atom escape() {
+    pos++;
+    char c = regex.charAt(pos);
+    pos++;
+    switch (c) {
+      case 'Q':
+        int end = regex.indexOf("\\E", pos);
+        if (end == pos) {
+          // a quantifier after an empty quotation applies to the previous atom
+          throw new UnsupportedRegexException();
+        }
+        pos = end < 0 ? regex.length() : (end + 2);
+        return unknown();
+      case 'p':
+        return new Atom(property(), false);
+      case 'P':
+        skipName('{', '}');
+        return unknown();
+      case 'k':
+        skipName('<', '>');
+        return unknown();
+      case 'b':
+      case 'B':
+      case 'A':
+      case 'G':
+      case 'z':
+      case 'Z':
+        return zeroWidth();
+      default:
+        return new Atom(escapedCharacters(c), false);
+    }
+  }
+
+  /**
+   * @return null if unknown
+   */
+  private BitSet property() {
+    int nameStart = pos;
+    skipName('{', '}');
+    String name = regex.substring(nameStart, pos);
+    BitSet result = new BitSet();
+    if ("{javaJavaIdentifierStart}".equals(name) || "{javaJavaIdentifierPart}".equals(name)) {
+      boolean identifierStart = name.endsWith("Start}");
+      for (char c = 0; c < Character.MAX_VALUE; c++) {
+        if (identifierStart ? Character.isJavaIdentifierStart(c) : Character.isJavaIdentifierPart(c)) {
+          result.set(c);
+        }
+      }
+      // supplementary characters
+      result.set(Character.MIN_SURROGATE, Character.MAX_SURROGATE + 1);
+      return result;
+    }
+    if ("{Alpha}".equals(name)) {
+      result.set('a', 'z' + 1);
+      result.set('A', 'Z' + 1);
+      return result;
+    }
+    if ("{Digit}".equals(name)) {
+      result.set('0', '9' + 1);
+      return result;
+    }
+    return null;
+  }
+
+  private void skipName(char open, char close) {
+    if (pos < regex.length() && regex.charAt(pos) == open) {
+      int end = regex.indexOf(close, pos);
+      if (end < 0) {
+        throw new UnsupportedRegexException();
+      }
+      pos = end + 1;
+    }
+  }
+
+  /**
+   * @return null if unknown
+   */
+  private BitSet characterClass() {
+    BitSet result = new BitSet();
+    if (regex.charAt(pos) == '^') {
+      result = null;
+      pos++;
+    }
+    if (regex.charAt(pos) == ']') {
+      // literal at the start of the class, for example []a] or [^]a]
+      throw new UnsupportedRegexException();
+    }
+    while (regex.charAt(pos) != ']') {
+      char c = regex.charAt(pos);
+      if (c == '[' || (c == '&' && regex.charAt(pos + 1) == '&')) {
+        // nested classes, union and intersection
+        throw new UnsupportedRegexException();
+      }
+      pos++;
+      if (result == null) {
+        if (c == '\\') {
+          pos++;
+        }
+        continue;
+      }
+      if (c == '\\') {
+        char escaped = regex.charAt(pos);
+        if (escaped == 'Q') {
+          throw new UnsupportedRegexException();
+        }
+        pos++;
+        BitSet chars = escapedCharacters(escaped);
+        if (chars == null) {
+          // for example \S, \p{...} or \x..
+          result = null;
+        } else if (chars.cardinality() == 1 && isRangeAhead()) {
+          addRange(result, (char) chars.nextSetBit(0));
+        } else {
+          result.or(chars);
+        }
+      } else if (isRangeAhead()) {
+        addRange(result, c);
+      } else {
+        result.set(c);
+      }
+    }
+    pos++;
+    return result;
+  }
+
+  private boolean isRangeAhead() {
+    return regex.charAt(pos) == '-' && regex.charAt(pos + 1) != ']';
+  }
+
+  private void addRange(BitSet result, char from) {
+    // skip '-'
+    pos++;
+    char to = regex.charAt(pos);
+    pos++;
+    if (to == '\\') {
+      to = regex.charAt(pos);
+      pos++;
+      if (Character.isLetterOrDigit(to) && escapedLiteral(to) < 0) {
+        throw new UnsupportedRegexException();
+      }
+      to = escapedLiteral(to) < 0 ? to : (char) escapedLiteral(to);
+    }
+    if (to < from) {
+      throw new UnsupportedRegexException();
+    }
+    result.set(from, to + 1);
+  }
+
+  /**
+   * @return null if unknown
+   */
+  private static BitSet escapedCharacters(char c) {
+    BitSet result = new BitSet();
+    switch (c) {
+      case 'd':
+        result.set('0', '9' + 1);
+        break;
+      case 's':
+        result.set(' ');
+        result.set('\t');
+        result.set('\n');
+        result.set(0x0B);
+        result.set('\f');
+        result.set('\r');
+        break;
+      case 'w':
+        result.set('a', 'z' + 1);
+        result.set('A', 'Z' + 1);
+        result.set('0', '9' + 1);
+        result.set('_');
+        break;
+      default:
+        int literal = escapedLiteral(c);
+        if (literal >= 0) {
+          result.set(literal);
+        } else if (Character.isLetterOrDigit(c)) {
+          // negated classes, back-references, hexadecimal or octal characters...
+          return null;
+        } else {
+          result.set(c);
+        }
+    }
+    return result;
+  }
+
+  private static int escapedLiteral(char c) {
+    switch (c) {
+      case 't':
+        return '\t';
+      case 'n':
+        return '\n';
+      case 'r':
+        return '\r';
+      case 'f':
+        return '\f';
+      case 'a':
+        return 0x07;
+      case 'e':
+        return 0x1B;
+      default:
+        return -1;
+    }
+  }
+
+  private static BitSet union(BitSet set1, BitSet set2) {
+    if (set1 == null || set2 == null) {
+      return null;
+    }
+    set1.or(set2);
+    return set1;
+  }
+
+  private static Atom unknown() {
+    return new Atom(null, false);
+  }
+
+  private static BitSet single(char c) {
+    BitSet result = new BitSet();
+    result.set(c);
+    return result;
+  }
+
+  private static Atom zeroWidth() {
+    return new Atom(new BitSet(), true);
+  }
+}
@@ -48,6 +48,32 @@ public class ChannelDispatcherTest {
     dispatcher.consume(new CodeReader("two words"), new StringBuilder());
   }
 
+  @Test
+  public void shouldOnlyTryChannelsThatCanConsumeNextCharacter() {
+    ChannelDispatcher<StringBuilder> dispatcher = ChannelDispatcher.builder()
+        .addChannel(new TokenChannel("[0-9]++", "<n>"))
+        .addChannel(new TokenChannel("[a-z0-9]++", "<w>"))
+        .addChannel(new SpaceDeletionChannel())
+        .build();
+    StringBuilder output = new StringBuilder();
+    dispatcher.consume(new CodeReader("a1 23 \u00e9"), output);
+    assertThat(output.toString(), is("<w>a1<n>23\u00e9"));
+  }
+
+  private static class TokenChannel extends RegexChannel<StringBuilder> {
+    private final String prefix;
+
+    public TokenChannel(String regex, String prefix) {
+      super(regex);
+      this.prefix = prefix;
+    }
+
+    @Override
+    protected void consume(CharSequence token, StringBuilder output) {
+      output.append(prefix).append(token);
+    }
+  }
+
   private static class SpaceDeletionChannel extends Channel<StringBuilder> {
     @Override
     public boolean consume(CodeReader code, StringBuilder output) {
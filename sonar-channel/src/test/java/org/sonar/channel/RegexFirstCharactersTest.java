@@ -0,0 +1,94 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.channel;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.util.BitSet;
+
+import org.junit.Test;
+
+public class RegexFirstCharactersTest {
+
+  @Test
+  public void shouldComputeFirstCharactersOfLiteralsAndClasses() {
+    assertThat(RegexFirstCharacters.of("abc"), is(chars("a")));
+    assertThat(RegexFirstCharacters.of("[xy-z]++"), is(chars("xyz")));
+    assertThat(RegexFirstCharacters.of("\\.\\d+"), is(chars(".")));
+    assertThat(RegexFirstCharacters.of("\\s++"), is(chars(" \t\n\u000B\f\r")));
+    assertThat(RegexFirstCharacters.of("[\\-+]"), is(chars("-+")));
+  }
+
+  @Test
+  public void shouldCombineOptionalPrefixesAndAlternatives() {
+    assertThat(RegexFirstCharacters.of("a?b"), is(chars("ab")));
+    assertThat(RegexFirstCharacters.of("x{0,2}y"), is(chars("xy")));
+    assertThat(RegexFirstCharacters.of("a*+b"), is(chars("ab")));
+    assertThat(RegexFirstCharacters.of("a??b"), is(chars("ab")));
+    assertThat(RegexFirstCharacters.of("(a|b)c"), is(chars("ab")));
+    assertThat(RegexFirstCharacters.of("(?:0[xX])?[a-c]+"), is(chars("0abc")));
+    assertThat(RegexFirstCharacters.of("(?=x)y"), is(chars("y")));
+  }
+
+  @Test
+  public void shouldIgnoreUnsupportedConstructsAfterFirstCharacter() {
+    assertThat(RegexFirstCharacters.of("\"[^\"]*+\""), is(chars("\"")));
+    assertThat(RegexFirstCharacters.of("/\\*[\\s\\S]*?\\*/"), is(chars("/")));
+    assertThat(RegexFirstCharacters.of("a\\p{L}+"), is(chars("a")));
+  }
+
+  @Test
+  public void shouldComputeFirstCharactersOfJavaIdentifiers() {
+    BitSet chars = RegexFirstCharacters.of("\\p{javaJavaIdentifierStart}++\\p{javaJavaIdentifierPart}*+");
+    assertThat(chars.get('a'), is(true));
+    assertThat(chars.get('$'), is(true));
+    assertThat(chars.get('\u00e9'), is(true));
+    assertThat(chars.get('1'), is(false));
+    assertThat(chars.get('.'), is(false));
+  }
+
+  @Test
+  public void shouldNotComputeFirstCharactersOfUnsupportedConstructs() {
+    assertThat(RegexFirstCharacters.of("."), is(nullValue()));
+    assertThat(RegexFirstCharacters.of("[^a]b"), is(nullValue()));
+    assertThat(RegexFirstCharacters.of("(?i)abc"), is(nullValue()));
+    // ']' is a literal at the start of a class
+    assertThat(RegexFirstCharacters.of("[]a]"), is(nullValue()));
+    assertThat(RegexFirstCharacters.of("[^]a]"), is(nullValue()));
+    assertThat(RegexFirstCharacters.of("{0}a"), is(nullValue()));
+    assertThat(RegexFirstCharacters.of("-\\Q\\E?a"), is(nullValue()));
+    // stacked quantifiers
+    assertThat(RegexFirstCharacters.of("(a)?{1}b"), is(nullValue()));
+    assertThat(RegexFirstCharacters.of("a{0}{2}b"), is(nullValue()));
+    assertThat(RegexFirstCharacters.of("\\p{Alpha}"), is(nullValue()));
+    assertThat(RegexFirstCharacters.of("\\Q(\\Ex"), is(nullValue()));
+    assertThat(RegexFirstCharacters.of("a?.b"), is(nullValue()));
+  }
+
+  private static BitSet chars(String s) {
+    BitSet result = new BitSet();
+    for (char c : s.toCharArray()) {
+      result.set(c);
+    }
+    return result;
+  }
+}
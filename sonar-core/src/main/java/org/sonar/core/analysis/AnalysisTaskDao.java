@@ -0,0 +1,128 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.analysis;
+
+import org.apache.ibatis.session.SqlSession;
+import org.sonar.api.BatchComponent;
+import org.sonar.api.ServerComponent;
+import org.sonar.core.persistence.MyBatis;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Persistent queue of the tasks to be executed by server after analysis.
+ *
+ * @since 4.2.1
+ */
+public class AnalysisTaskDao implements BatchComponent, ServerComponent {
+
+  private final MyBatis mybatis;
+
+  public AnalysisTaskDao(MyBatis mybatis) {
+    this.mybatis = mybatis;
+  }
+
+  /**
+   * Adds a task to the queue, except if the same task is already pending for the project.
+   */
+  public void enqueue(String taskType, long projectId) {
+    SqlSession session = mybatis.openSession();
+    try {
+      AnalysisTaskMapper mapper = session.getMapper(AnalysisTaskMapper.class);
+      if (mapper.countPending(taskType, projectId) == 0) {
+        mapper.insert(new AnalysisTaskDto().setTaskType(taskType).setProjectId(projectId).setCreatedAt(new Date()));
+        session.commit();
+      }
+    } finally {
+      MyBatis.closeQuietly(session);
+    }
+  }
+
+  /**
+   * Pending tasks, from the oldest to the most recent. Tasks of projects that are currently being executed
+   * are excluded.
+   */
+  public List<AnalysisTaskDto> selectPending() {
+    SqlSession session = mybatis.openSession();
+    try {
+      return session.getMapper(AnalysisTaskMapper.class).selectPending();
+    } finally {
+      MyBatis.closeQuietly(session);
+    }
+  }
+
+  /**
+   * Flags the pending tasks of the same type and project as started, so that they are executed only once.
+   *
+   * @return false if the task has already been started
+   */
+  public boolean start(AnalysisTaskDto task) {
+    SqlSession session = mybatis.openSession();
+    try {
+      int count = session.getMapper(AnalysisTaskMapper.class).markAsStarted(task.getTaskType(), task.getProjectId(), new Date());
+      session.commit();
+      return count > 0;
+    } finally {
+      MyBatis.closeQuietly(session);
+    }
+  }
+
+  /**
+   * Removes the started tasks of the same type and project from the queue.
+   */
+  public void finish(AnalysisTaskDto task) {
+    SqlSession session = mybatis.openSession();
+    try {
+      session.getMapper(AnalysisTaskMapper.class).deleteStarted(task.getTaskType(), task.getProjectId());
+      session.commit();
+    } finally {
+      MyBatis.closeQuietly(session);
+    }
+  }
+
+  /**
+   * Flags the started tasks of the same type and project as pending, so that they are executed again
+   * at the next poll of the queue.
+   */
+  public void postpone(AnalysisTaskDto task) {
+    SqlSession session = mybatis.openSession();
+    try {
+      session.getMapper(AnalysisTaskMapper.class).resetStartedTask(task.getTaskType(), task.getProjectId());
+      session.commit();
+    } finally {
+      MyBatis.closeQuietly(session);
+    }
+  }
+
+  /**
+   * Flags all the started tasks as pending. It's used to execute again the tasks that have been interrupted
+   * by a server shutdown.
+   */
+  public void resetStarted() {
+    SqlSession session = mybatis.openSession();
+    try {
+      session.getMapper(AnalysisTaskMapper.class).resetStarted();
+      session.commit();
+    } finally {
+      MyBatis.closeQuietly(session);
+    }
+  }
+}
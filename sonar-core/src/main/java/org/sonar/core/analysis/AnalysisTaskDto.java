@@ -0,0 +1,91 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.analysis;
+
+import org.apache.commons.lang.builder.ReflectionToStringBuilder;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+import java.util.Date;
+
+/**
+ * Task to be executed by server after an analysis, for example the purge of the project history.
+ *
+ * @since 4.2.1
+ */
+public class AnalysisTaskDto {
+  private Long id;
+  private String taskType;
+  private Long projectId;
+  private Date createdAt;
+  private Date startedAt;
+
+  public Long getId() {
+    return id;
+  }
+
+  public AnalysisTaskDto setId(Long id) {
+    this.id = id;
+    return this;
+  }
+
+  public String getTaskType() {
+    return taskType;
+  }
+
+  public AnalysisTaskDto setTaskType(String taskType) {
+    this.taskType = taskType;
+    return this;
+  }
+
+  public Long getProjectId() {
+    return projectId;
+  }
+
+  public AnalysisTaskDto setProjectId(Long projectId) {
+    this.projectId = projectId;
+    return this;
+  }
+
+  public Date getCreatedAt() {
+    return createdAt;
+  }
+
+  public AnalysisTaskDto setCreatedAt(Date createdAt) {
+    this.createdAt = createdAt;
+    return this;
+  }
+
+  @CheckForNull
+  public Date getStartedAt() {
+    return startedAt;
+  }
+
+  public AnalysisTaskDto setStartedAt(@Nullable Date startedAt) {
+    this.startedAt = startedAt;
+    return this;
+  }
+
+  @Override
+  public String toString() {
+    return ReflectionToStringBuilder.toString(this);
+  }
+}
@@ -0,0 +1,41 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.analysis;
+
+import org.sonar.api.ServerExtension;
+
+/**
+ * Executes on server side the tasks of a given type that are queued by batch through {@link AnalysisTaskDao}.
+ *
+ * @since 4.2.1
+ */
+public interface AnalysisTaskHandler extends ServerExtension {
+
+  /**
+   * The type of tasks handled by this handler, for example "PURGE".
+   */
+  String taskType();
+
+  /**
+   * @return false if the task can't be executed for the moment, for example because the project is being
+   * analysed. The task is then kept in the queue and executed again later.
+   */
+  boolean execute(long projectId);
+}
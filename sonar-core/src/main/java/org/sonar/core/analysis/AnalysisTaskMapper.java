@@ -0,0 +1,45 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.analysis;
+
+import org.apache.ibatis.annotations.Param;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * @since 4.2.1
+ */
+public interface AnalysisTaskMapper {
+
+  int countPending(@Param("taskType") String taskType, @Param("projectId") long projectId);
+
+  void insert(AnalysisTaskDto task);
+
+  List<AnalysisTaskDto> selectPending();
+
+  int markAsStarted(@Param("taskType") String taskType, @Param("projectId") long projectId, @Param("startedAt") Date startedAt);
+
+  void deleteStarted(@Param("taskType") String taskType, @Param("projectId") long projectId);
+
+  void resetStarted();
+
+  void resetStartedTask(@Param("taskType") String taskType, @Param("projectId") long projectId);
+}
@@ -38,6 +38,7 @@ import org.sonar.api.utils.DateUtils;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import java.io.Serializable;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -87,6 +88,25 @@ public class IssueNotifications implements BatchComponent, ServerComponent {
     return notifications;
   }
 
+  /**
+   * Notifications of all the issues are queued at once
+   *
+   * @since 4.2.1
+   */
+  public List<Notification> sendChanges(Collection<DefaultIssue> issues, IssueChangeContext context, IssueQueryResult queryResult) {
+    List<Notification> notifications = Lists.newArrayList();
+    for (DefaultIssue issue : issues) {
+      Notification notification = createChangeNotification(issue, context, queryResult.rule(issue), queryResult.project(issue), queryResult.component(issue), null);
+      if (notification != null) {
+        notifications.add(notification);
+      }
+    }
+    if (!notifications.isEmpty()) {
+      notificationsManager.scheduleForSending(notifications);
+    }
+    return notifications;
+  }
+
   @CheckForNull
   public Notification sendChanges(DefaultIssue issue, IssueChangeContext context, IssueQueryResult queryResult, @Nullable String comment) {
     Notification notification = createChangeNotification(issue, context, queryResult.rule(issue), queryResult.project(issue), queryResult.component(issue), comment);
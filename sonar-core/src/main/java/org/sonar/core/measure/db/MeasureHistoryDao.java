@@ -0,0 +1,74 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.measure.db;
+
+import org.apache.ibatis.session.SqlSession;
+import org.sonar.api.ServerComponent;
+import org.sonar.core.persistence.MyBatis;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * History of the numeric measures of projects, without rule, characteristic and developer measures
+ *
+ * @since 4.2.1
+ */
+public class MeasureHistoryDao implements ServerComponent {
+
+  private final MyBatis mybatis;
+
+  public MeasureHistoryDao(MyBatis mybatis) {
+    this.mybatis = mybatis;
+  }
+
+  /**
+   * Measures of the processed snapshots of the project, ordered by snapshot date.
+   *
+   * @param afterSnapshotId if not null, only the snapshots with a greater id are returned
+   */
+  public List<MeasureHistoryDto> selectByProjectAndMetrics(long projectId, List<Integer> metricIds, @Nullable Long afterSnapshotId) {
+    if (metricIds.isEmpty()) {
+      return Collections.emptyList();
+    }
+    SqlSession session = mybatis.openSession();
+    try {
+      return session.getMapper(MeasureHistoryMapper.class).selectByProjectAndMetrics(projectId, metricIds, afterSnapshotId);
+    } finally {
+      MyBatis.closeQuietly(session);
+    }
+  }
+
+  /**
+   * Id of the last snapshot of the project, or null if the project has never been analyzed
+   */
+  @CheckForNull
+  public Long selectLastSnapshotId(long projectId) {
+    SqlSession session = mybatis.openSession();
+    try {
+      return session.getMapper(MeasureHistoryMapper.class).selectLastSnapshotId(projectId);
+    } finally {
+      MyBatis.closeQuietly(session);
+    }
+  }
+}
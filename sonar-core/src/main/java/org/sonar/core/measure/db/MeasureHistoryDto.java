@@ -0,0 +1,71 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.measure.db;
+
+import java.util.Date;
+
+/**
+ * Numeric value of a project measure, with the date of its snapshot
+ *
+ * @since 4.2.1
+ */
+public class MeasureHistoryDto {
+
+  private Long snapshotId;
+  private Date createdAt;
+  private Integer metricId;
+  private Double value;
+
+  public Long getSnapshotId() {
+    return snapshotId;
+  }
+
+  public MeasureHistoryDto setSnapshotId(Long snapshotId) {
+    this.snapshotId = snapshotId;
+    return this;
+  }
+
+  public Date getCreatedAt() {
+    return createdAt;
+  }
+
+  public MeasureHistoryDto setCreatedAt(Date createdAt) {
+    this.createdAt = createdAt;
+    return this;
+  }
+
+  public Integer getMetricId() {
+    return metricId;
+  }
+
+  public MeasureHistoryDto setMetricId(Integer metricId) {
+    this.metricId = metricId;
+    return this;
+  }
+
+  public Double getValue() {
+    return value;
+  }
+
+  public MeasureHistoryDto setValue(Double value) {
+    this.value = value;
+    return this;
+  }
+}
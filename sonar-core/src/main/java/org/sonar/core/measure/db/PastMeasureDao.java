@@ -0,0 +1,64 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.measure.db;
+
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.SqlSession;
+import org.sonar.api.BatchComponent;
+import org.sonar.core.persistence.MyBatis;
+
+import javax.annotation.Nullable;
+
+import java.util.Collection;
+
+/**
+ * Numeric measures of the past snapshots, used by batch to compute variations
+ *
+ * @since 4.2.1
+ */
+public class PastMeasureDao implements BatchComponent {
+
+  private final MyBatis mybatis;
+
+  public PastMeasureDao(MyBatis mybatis) {
+    this.mybatis = mybatis;
+  }
+
+  /**
+   * Streams the non-null measures of the processed snapshot and of its descendant projects and directories. The
+   * {@link PastMeasureDto} are passed to the handler as soon as they are read, so they are never loaded all together in memory.
+   *
+   * @param rootSnapshotId id of the root snapshot of the tree. It's the snapshot itself when it's the root.
+   * @param path           path of the snapshot, for example "1000.1001.", or null if root
+   */
+  public void selectProjectsAndDirectories(long rootSnapshotId, long snapshotId, @Nullable String path, Collection<Integer> metricIds,
+                                           ResultHandler handler) {
+    if (metricIds.isEmpty()) {
+      return;
+    }
+    String childrenPath = (path == null ? "" : path) + snapshotId + ".%";
+    SqlSession session = mybatis.openSession();
+    try {
+      session.getMapper(PastMeasureMapper.class).selectProjectsAndDirectories(rootSnapshotId, snapshotId, childrenPath, metricIds, handler);
+    } finally {
+      MyBatis.closeQuietly(session);
+    }
+  }
+}
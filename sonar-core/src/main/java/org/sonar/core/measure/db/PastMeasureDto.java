@@ -0,0 +1,95 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.measure.db;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+/**
+ * Numeric measure of a project or directory of a past snapshot tree
+ *
+ * @since 4.2.1
+ */
+public class PastMeasureDto {
+
+  private String resourceKey;
+  private Integer metricId;
+  private Integer characteristicId;
+  private Integer personId;
+  private Integer ruleId;
+  private Double value;
+
+  public String getResourceKey() {
+    return resourceKey;
+  }
+
+  public PastMeasureDto setResourceKey(String resourceKey) {
+    this.resourceKey = resourceKey;
+    return this;
+  }
+
+  public Integer getMetricId() {
+    return metricId;
+  }
+
+  public PastMeasureDto setMetricId(Integer metricId) {
+    this.metricId = metricId;
+    return this;
+  }
+
+  @CheckForNull
+  public Integer getCharacteristicId() {
+    return characteristicId;
+  }
+
+  public PastMeasureDto setCharacteristicId(@Nullable Integer characteristicId) {
+    this.characteristicId = characteristicId;
+    return this;
+  }
+
+  @CheckForNull
+  public Integer getPersonId() {
+    return personId;
+  }
+
+  public PastMeasureDto setPersonId(@Nullable Integer personId) {
+    this.personId = personId;
+    return this;
+  }
+
+  @CheckForNull
+  public Integer getRuleId() {
+    return ruleId;
+  }
+
+  public PastMeasureDto setRuleId(@Nullable Integer ruleId) {
+    this.ruleId = ruleId;
+    return this;
+  }
+
+  public Double getValue() {
+    return value;
+  }
+
+  public PastMeasureDto setValue(Double value) {
+    this.value = value;
+    return this;
+  }
+}
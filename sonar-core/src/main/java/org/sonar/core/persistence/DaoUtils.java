@@ -20,13 +20,16 @@
 package org.sonar.core.persistence;
 
 import com.google.common.collect.ImmutableList;
+import org.sonar.core.analysis.AnalysisTaskDao;
 import org.sonar.core.dashboard.ActiveDashboardDao;
 import org.sonar.core.dashboard.DashboardDao;
 import org.sonar.core.duplication.DuplicationDao;
 import org.sonar.core.graph.jdbc.GraphDao;
 import org.sonar.core.issue.db.*;
 import org.sonar.core.measure.db.MeasureDataDao;
+import org.sonar.core.measure.db.MeasureHistoryDao;
 import org.sonar.core.measure.db.MeasureFilterDao;
+import org.sonar.core.measure.db.PastMeasureDao;
 import org.sonar.core.notification.db.NotificationQueueDao;
 import org.sonar.core.permission.PermissionDao;
 import org.sonar.core.permission.PermissionTemplateDao;
@@ -59,6 +62,7 @@ public final class DaoUtils {
       ActionPlanStatsDao.class,
       ActiveDashboardDao.class,
       ActiveRuleDao.class,
+      AnalysisTaskDao.class,
       AuthorDao.class,
       AuthorizationDao.class,
       DashboardDao.class,
@@ -72,8 +76,10 @@ public final class DaoUtils {
       IssueFilterFavouriteDao.class,
       LoadedTemplateDao.class,
       MeasureDataDao.class,
+      MeasureHistoryDao.class,
       MeasureFilterDao.class,
       NotificationQueueDao.class,
+      PastMeasureDao.class,
       PermissionDao.class,
       PermissionTemplateDao.class,
       PropertiesDao.class,
@@ -33,7 +33,7 @@ import java.util.List;
  */
 public class DatabaseVersion implements BatchComponent, ServerComponent {
 
-  public static final int LAST_VERSION = 498;
+  public static final int LAST_VERSION = 499;
 
   public static enum Status {
     UP_TO_DATE, REQUIRES_UPGRADE, REQUIRES_DOWNGRADE, FRESH_INSTALL
@@ -52,6 +52,7 @@ public class DatabaseVersion implements BatchComponent, ServerComponent {
     "active_rule_parameters",
     "active_rule_param_changes",
     "alerts",
+    "analysis_tasks",
     "authors",
     "characteristics",
     "dashboards",
@@ -32,6 +32,8 @@ import org.sonar.api.BatchComponent;
 import org.sonar.api.ServerComponent;
 import org.sonar.api.database.model.MeasureMapper;
 import org.sonar.api.database.model.MeasureModel;
+import org.sonar.core.analysis.AnalysisTaskDto;
+import org.sonar.core.analysis.AnalysisTaskMapper;
 import org.sonar.core.component.ComponentDto;
 import org.sonar.core.config.Logback;
 import org.sonar.core.dashboard.*;
@@ -46,6 +48,10 @@ import org.sonar.core.graph.jdbc.GraphDtoMapper;
 import org.sonar.core.issue.db.*;
 import org.sonar.core.measure.db.MeasureDataDto;
 import org.sonar.core.measure.db.MeasureDataMapper;
+import org.sonar.core.measure.db.MeasureHistoryDto;
+import org.sonar.core.measure.db.MeasureHistoryMapper;
+import org.sonar.core.measure.db.PastMeasureDto;
+import org.sonar.core.measure.db.PastMeasureMapper;
 import org.sonar.core.measure.db.MeasureFilterDto;
 import org.sonar.core.measure.db.MeasureFilterMapper;
 import org.sonar.core.notification.db.NotificationQueueDto;
@@ -93,6 +99,7 @@ public class MyBatis implements BatchComponent, ServerComponent {
     conf.getVariables().setProperty("_false", database.getDialect().getFalseSqlValue());
 
     loadAlias(conf, "ActiveDashboard", ActiveDashboardDto.class);
+    loadAlias(conf, "AnalysisTask", AnalysisTaskDto.class);
     loadAlias(conf, "Author", AuthorDto.class);
     loadAlias(conf, "Component", ComponentDto.class);
     loadAlias(conf, "Dashboard", DashboardDto.class);
@@ -123,6 +130,8 @@ public class MyBatis implements BatchComponent, ServerComponent {
     loadAlias(conf, "WidgetProperty", WidgetPropertyDto.class);
     loadAlias(conf, "MeasureModel", MeasureModel.class);
     loadAlias(conf, "MeasureData", MeasureDataDto.class);
+    loadAlias(conf, "MeasureHistory", MeasureHistoryDto.class);
+    loadAlias(conf, "PastMeasure", PastMeasureDto.class);
     loadAlias(conf, "Issue", IssueDto.class);
     loadAlias(conf, "IssueChange", IssueChangeDto.class);
     loadAlias(conf, "IssueFilter", IssueFilterDto.class);
@@ -146,7 +155,7 @@ public class MyBatis implements BatchComponent, ServerComponent {
     loadMapper(conf, ResourceMapper.class);
 
     loadMapper(conf, "org.sonar.core.permission.PermissionMapper");
-    Class<?>[] mappers = {ActiveDashboardMapper.class, AuthorMapper.class, DashboardMapper.class,
+    Class<?>[] mappers = {ActiveDashboardMapper.class, AnalysisTaskMapper.class, AuthorMapper.class, DashboardMapper.class,
       DependencyMapper.class, DuplicationMapper.class, GraphDtoMapper.class,
       IssueMapper.class, IssueStatsMapper.class, IssueChangeMapper.class, IssueFilterMapper.class, IssueFilterFavouriteMapper.class,
       LoadedTemplateMapper.class, MeasureFilterMapper.class, PermissionTemplateMapper.class, PropertiesMapper.class, PurgeMapper.class,
@@ -155,7 +164,7 @@ public class MyBatis implements BatchComponent, ServerComponent {
       MeasureMapper.class, SnapshotDataMapper.class, SnapshotSourceMapper.class, ActionPlanMapper.class, ActionPlanStatsMapper.class,
       NotificationQueueMapper.class, CharacteristicMapper.class, RuleTagMapper.class,
       GroupMembershipMapper.class, QualityProfileMapper.class, ActiveRuleMapper.class,
-      MeasureDataMapper.class
+      MeasureDataMapper.class, MeasureHistoryMapper.class, PastMeasureMapper.class
     };
     loadMappers(conf, mappers);
     configureLogback(mappers);
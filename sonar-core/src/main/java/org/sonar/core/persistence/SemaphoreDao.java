@@ -21,11 +21,14 @@ package org.sonar.core.persistence;
 
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
+import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.time.DateUtils;
 import org.apache.ibatis.session.SqlSession;
 import org.sonar.api.utils.Semaphores;
 
 import java.util.Date;
+import java.util.List;
+import java.util.UUID;
 
 /**
  * @since 3.4
@@ -33,6 +36,7 @@ import java.util.Date;
 public class SemaphoreDao {
 
   private static final String SEMAPHORE_NAME_MUST_NOT_BE_EMPTY = "Semaphore name must not be empty";
+  private static final String WAITER_SEPARATOR = "#waiting#";
   private final MyBatis mybatis;
 
   public SemaphoreDao(MyBatis mybatis) {
@@ -103,6 +107,58 @@ public class SemaphoreDao {
     }
   }
 
+  /**
+   * Registers a new waiter on the semaphore. Waiters are stored as semaphores themselves, so that they
+   * can be kept alive with {@link #update(Semaphores.Semaphore)} and released with {@link #release(String)}.
+   *
+   * @return the name of the waiter
+   * @since 4.2.1
+   */
+  public String addWaiter(String name) {
+    Preconditions.checkArgument(!Strings.isNullOrEmpty(name), SEMAPHORE_NAME_MUST_NOT_BE_EMPTY);
+
+    String waiter = name + WAITER_SEPARATOR + UUID.randomUUID().toString();
+    SqlSession session = mybatis.openSession();
+    try {
+      SemaphoreMapper mapper = session.getMapper(SemaphoreMapper.class);
+      mapper.initialize(new SemaphoreDto().setName(waiter).setLockedAt(mapper.now()));
+      session.commit();
+      return waiter;
+    } finally {
+      MyBatis.closeQuietly(session);
+    }
+  }
+
+  /**
+   * Removes the waiters of the semaphore that have not been updated for more than the given max age, then
+   * checks whether the given waiter is the oldest remaining one.
+   *
+   * @since 4.2.1
+   */
+  public boolean isFirstWaiter(String name, String waiter, int maxAgeInSeconds) {
+    Preconditions.checkArgument(!Strings.isNullOrEmpty(name), SEMAPHORE_NAME_MUST_NOT_BE_EMPTY);
+    Preconditions.checkArgument(maxAgeInSeconds >= 0, "Semaphore max age must be positive: " + maxAgeInSeconds);
+
+    String prefix = waiterPrefixToSql(name);
+    SqlSession session = mybatis.openSession();
+    try {
+      SemaphoreMapper mapper = session.getMapper(SemaphoreMapper.class);
+      mapper.deleteWaiters(prefix, DateUtils.addSeconds(mapper.now(), -maxAgeInSeconds));
+      session.commit();
+      List<String> waiters = mapper.selectWaiters(prefix);
+      return !waiters.isEmpty() && waiters.get(0).equals(waiter);
+    } finally {
+      MyBatis.closeQuietly(session);
+    }
+  }
+
+  private static String waiterPrefixToSql(String name) {
+    String sql = StringUtils.replace(name + WAITER_SEPARATOR, "/", "//");
+    sql = StringUtils.replace(sql, "%", "/%");
+    sql = StringUtils.replace(sql, "_", "/_");
+    return sql + "%";
+  }
+
   private boolean acquireIfOutdated(String name, int maxAgeInSeconds, SqlSession session, SemaphoreMapper mapper) {
     Date updatedBefore = DateUtils.addSeconds(mapper.now(), -maxAgeInSeconds);
     boolean ok = mapper.acquire(name, updatedBefore) == 1;
@@ -22,6 +22,7 @@ package org.sonar.core.persistence;
 import org.apache.ibatis.annotations.Param;
 
 import java.util.Date;
+import java.util.List;
 
 public interface SemaphoreMapper {
 
@@ -36,4 +37,8 @@ public interface SemaphoreMapper {
   SemaphoreDto selectSemaphore(@Param("name") String name);
 
   void update(String name);
+
+  List<String> selectWaiters(@Param("prefix") String prefix);
+
+  void deleteWaiters(@Param("prefix") String prefix, @Param("updatedBefore") Date updatedBefore);
 }
@@ -26,7 +26,7 @@ import org.sonar.api.ServerComponent;
 import org.sonar.api.task.TaskComponent;
 import org.sonar.api.utils.Semaphores;
 
-import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -40,7 +40,8 @@ public class SemaphoreUpdater implements TaskComponent, ServerComponent {
 
   private SemaphoreDao dao;
 
-  private Map<String, ScheduledExecutorService> handlers = Maps.newHashMap();
+  // semaphores are acquired and released by concurrent threads, for example the server tasks and the web requests
+  private final ConcurrentMap<String, ScheduledExecutorService> handlers = Maps.newConcurrentMap();
 
   public SemaphoreUpdater(SemaphoreDao dao) {
     this.dao = dao;
@@ -60,21 +61,27 @@ public class SemaphoreUpdater implements TaskComponent, ServerComponent {
       }
     };
     scheduler.scheduleWithFixedDelay(updater, updatePeriodInSeconds, updatePeriodInSeconds, TimeUnit.SECONDS);
-    handlers.put(semaphore.getName(), scheduler);
+    ScheduledExecutorService previous = handlers.put(semaphore.getName(), scheduler);
+    if (previous != null) {
+      shutdown(previous);
+    }
   }
 
   public void stopUpdate(final String name) {
-    if (handlers.containsKey(name)) {
-      handlers.get(name).shutdown();
-      try {
-        if (!handlers.get(name).awaitTermination(1, TimeUnit.SECONDS)) {
-          LOG.error("Unable to cancel semaphore updater in 1 second");
-        }
-      } catch (InterruptedException e) {
-        LOG.error("Unable to cancel semaphore updater", e);
-      } finally {
-        handlers.remove(name);
+    ScheduledExecutorService scheduler = handlers.remove(name);
+    if (scheduler != null) {
+      shutdown(scheduler);
+    }
+  }
+
+  private static void shutdown(ScheduledExecutorService scheduler) {
+    scheduler.shutdown();
+    try {
+      if (!scheduler.awaitTermination(1, TimeUnit.SECONDS)) {
+        LOG.error("Unable to cancel semaphore updater in 1 second");
       }
+    } catch (InterruptedException e) {
+      LOG.error("Unable to cancel semaphore updater", e);
     }
   }
 }
@@ -19,6 +19,8 @@
  */
 package org.sonar.core.persistence;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.sonar.api.utils.Semaphores;
 
 /**
@@ -26,20 +28,59 @@ import org.sonar.api.utils.Semaphores;
  */
 public class SemaphoresImpl implements Semaphores {
 
+  private static final Logger LOG = LoggerFactory.getLogger(SemaphoresImpl.class);
+  private static final long DEFAULT_POLL_PERIOD_IN_MS = 1000L;
+
   private SemaphoreDao dao;
   private SemaphoreUpdater updater;
+  private final long pollPeriodInMs;
 
   public SemaphoresImpl(SemaphoreDao dao, SemaphoreUpdater updater) {
+    this(dao, updater, DEFAULT_POLL_PERIOD_IN_MS);
+  }
+
+  SemaphoresImpl(SemaphoreDao dao, SemaphoreUpdater updater, long pollPeriodInMs) {
     this.dao = dao;
     this.updater = updater;
+    this.pollPeriodInMs = pollPeriodInMs;
   }
 
   public Semaphore acquire(String name, int maxAgeInSeconds, int updatePeriodInSeconds) {
     Semaphore semaphore = dao.acquire(name, maxAgeInSeconds);
-    updater.scheduleForUpdate(semaphore, updatePeriodInSeconds);
+    if (semaphore.isLocked()) {
+      updater.scheduleForUpdate(semaphore, updatePeriodInSeconds);
+    }
     return semaphore;
   }
 
+  public Semaphore acquire(String name, int maxAgeInSeconds, int updatePeriodInSeconds, int maxWaitInSeconds) {
+    if (maxWaitInSeconds <= 0) {
+      return acquire(name, maxAgeInSeconds, updatePeriodInSeconds);
+    }
+    String waiter = dao.addWaiter(name);
+    updater.scheduleForUpdate(new Semaphore().setName(waiter), updatePeriodInSeconds);
+    try {
+      long deadline = System.currentTimeMillis() + maxWaitInSeconds * 1000L;
+      while (System.currentTimeMillis() < deadline) {
+        if (dao.isFirstWaiter(name, waiter, maxAgeInSeconds)) {
+          Semaphore semaphore = acquire(name, maxAgeInSeconds, updatePeriodInSeconds);
+          if (semaphore.isLocked()) {
+            return semaphore;
+          }
+        }
+        LOG.debug("Waiting for semaphore " + name);
+        Thread.sleep(pollPeriodInMs);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      updater.stopUpdate(waiter);
+      dao.release(waiter);
+    }
+    // last attempt once the max wait is reached
+    return acquire(name, maxAgeInSeconds, updatePeriodInSeconds);
+  }
+
   public Semaphore acquire(String name) {
     return dao.acquire(name);
   }
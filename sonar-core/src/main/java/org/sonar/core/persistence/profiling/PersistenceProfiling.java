@@ -20,6 +20,7 @@
 package org.sonar.core.persistence.profiling;
 
 import org.apache.commons.dbcp.BasicDataSource;
+import org.slf4j.Logger;
 import org.sonar.api.config.Settings;
 import org.sonar.core.profiling.Profiling;
 
@@ -32,11 +33,33 @@ public final class PersistenceProfiling {
     // Static stuff only
   }
 
+  /**
+   * SQL requests are logged when profiling level is FULL. They are aggregated in {@link SqlStatistics}
+   * when profiling level is FULL or when profiling metrics are enabled.
+   */
   public static BasicDataSource addProfilingIfNeeded(BasicDataSource datasource, Settings settings) {
     Profiling.Level level = Profiling.Level.fromConfigString(settings.getString(Profiling.CONFIG_PROFILING_LEVEL));
-    if (level == Profiling.Level.FULL) {
-      return new ProfilingDataSource(datasource);
+    boolean logStatements = level == Profiling.Level.FULL;
+    if (logStatements || settings.getBoolean(Profiling.CONFIG_PROFILING_METRICS)) {
+      return new ProfilingDataSource(datasource, new SqlProfiling(logStatements, SqlStatistics.INSTANCE));
     }
     return datasource;
   }
+
+  /**
+   * Logs the SQL requests that took the most time, if any.
+   * @since 4.2.1
+   */
+  public static void logStatistics(Logger logger, int limit) {
+    SqlStatistics statistics = SqlStatistics.INSTANCE;
+    if (!statistics.isEmpty()) {
+      logger.info("-------- SQL requests by total execution time --------");
+      logger.info("     count  total(ms)  max(ms)       rows  batched  request");
+      for (SqlStatistics.Entry entry : statistics.entries(limit)) {
+        logger.info(String.format("%10d %10d %8d %10d %8d  %s", entry.executions(), entry.totalTime(), entry.maxTime(), entry.rows(),
+          entry.batchedStatements(), entry.sql()));
+      }
+      logger.info("-------- End of SQL requests --------");
+    }
+  }
 }
@@ -30,9 +30,11 @@ import java.util.Collection;
 class ProfilingDataSource extends BasicDataSource {
 
   private final BasicDataSource delegate;
+  private final SqlProfiling profiling;
 
-  public ProfilingDataSource(BasicDataSource delegate) {
+  public ProfilingDataSource(BasicDataSource delegate, SqlProfiling profiling) {
     this.delegate = delegate;
+    this.profiling = profiling;
   }
 
   @Override
@@ -308,13 +310,13 @@ class ProfilingDataSource extends BasicDataSource {
   @Override
   public Connection getConnection() throws SQLException {
     return (Connection) Proxy.newProxyInstance(this.getClass().getClassLoader(), new Class[] { Connection.class },
-        new ProfilingConnectionHandler(delegate.getConnection()));
+        new ProfilingConnectionHandler(delegate.getConnection(), profiling));
   }
 
   @Override
   public Connection getConnection(String user, String pass) throws SQLException {
     return (Connection) Proxy.newProxyInstance(this.getClass().getClassLoader(), new Class[] { Connection.class },
-        new ProfilingConnectionHandler(delegate.getConnection(user, pass)));
+        new ProfilingConnectionHandler(delegate.getConnection(user, pass), profiling));
   }
 
   @Override
@@ -33,15 +33,22 @@ class ProfilingPreparedStatementHandler implements InvocationHandler {
   private static final String PARAM_PREFIX = "<";
   private static final String PARAM_SUFFIX = ">";
   private static final String PARAM_SEPARATOR = ", ";
-  private static final SqlProfiling PROFILING = new SqlProfiling();
 
   private final PreparedStatement statement;
+  private final SqlProfiling profiling;
   private final List<Object> arguments;
   private final String sql;
+  private final SqlStatistics.Entry entry;
+  private int batchSize = 0;
+  // the update count of execute() is read with getUpdateCount(), the other methods return it
+  private boolean updateCountPending = false;
 
-  ProfilingPreparedStatementHandler(PreparedStatement statement, String sql) {
+  ProfilingPreparedStatementHandler(PreparedStatement statement, String sql, SqlProfiling profiling) {
     this.statement = statement;
     this.sql = sql;
+    this.profiling = profiling;
+    // the SQL request never changes, so it's normalized only once
+    this.entry = profiling.statistics(sql);
     this.arguments = Lists.newArrayList();
     for (int argCount = 0; argCount < StringUtils.countMatches(sql, "?"); argCount ++) {
       arguments.add("!");
@@ -50,28 +57,59 @@ class ProfilingPreparedStatementHandler implements InvocationHandler {
 
   @Override
   public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
-    if (method.getName().startsWith("execute")) {
-      StopWatch watch = PROFILING.start();
+    String methodName = method.getName();
+    if (methodName.startsWith("execute")) {
+      StopWatch watch = profiling.start();
+      long start = profiling.now();
       Object result = null;
       try {
         result = InvocationUtils.invokeQuietly(statement, method, args);
       } finally {
-        StringBuilder sqlBuilder = new StringBuilder().append(sql);
-        if (!arguments.isEmpty()) {
-          sqlBuilder.append(" - parameters are: ");
-          for (Object arg: arguments) {
-            sqlBuilder.append(PARAM_PREFIX).append(arg).append(PARAM_SUFFIX).append(PARAM_SEPARATOR);
-          }
+        long duration = profiling.now() - start;
+        if ("executeBatch".equals(methodName)) {
+          entry.recordBatch(duration, batchSize);
+          batchSize = 0;
+        } else {
+          entry.recordExecution(duration);
         }
-        PROFILING.stop(watch, StringUtils.removeEnd(sqlBuilder.toString(), PARAM_SEPARATOR));
+        updateCountPending = "execute".equals(methodName);
+        profiling.stop(watch, profiling.isLoggingStatements() ? sqlWithArguments() : sql);
+      }
+      return profiling.countRows(entry, result);
+
+    } else if ("addBatch".equals(methodName)) {
+      batchSize++;
+      return InvocationUtils.invokeQuietly(statement, method, args);
+
+    } else if ("getResultSet".equals(methodName)) {
+      return profiling.countRows(entry, InvocationUtils.invokeQuietly(statement, method, args));
+
+    } else if ("getUpdateCount".equals(methodName)) {
+      Object result = InvocationUtils.invokeQuietly(statement, method, args);
+      if (updateCountPending) {
+        // can be called several times for the same execution
+        updateCountPending = false;
+        entry.addRows((Integer) result);
       }
       return result;
-    } else if (method.getName().startsWith("set") && args.length > 1) {
+
+    } else if (methodName.startsWith("set") && args != null && args.length > 1) {
       arguments.set((Integer) args[0] - 1, args[1]);
       return InvocationUtils.invokeQuietly(statement, method, args);
+
     } else {
       return InvocationUtils.invokeQuietly(statement, method, args);
     }
   }
 
+  private String sqlWithArguments() {
+    StringBuilder sqlBuilder = new StringBuilder().append(sql);
+    if (!arguments.isEmpty()) {
+      sqlBuilder.append(" - parameters are: ");
+      for (Object arg: arguments) {
+        sqlBuilder.append(PARAM_PREFIX).append(arg).append(PARAM_SUFFIX).append(PARAM_SEPARATOR);
+      }
+    }
+    return StringUtils.removeEnd(sqlBuilder.toString(), PARAM_SEPARATOR);
+  }
 }
@@ -0,0 +1,60 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.persistence.profiling;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.sql.ResultSet;
+
+/**
+ * Counts the rows read from a result set. The count is added to statistics when the last row is reached or when
+ * the result set is closed.
+ */
+class ProfilingResultSetHandler implements InvocationHandler {
+
+  private final ResultSet resultSet;
+  private final SqlStatistics.Entry entry;
+  private long rows = 0L;
+
+  ProfilingResultSetHandler(ResultSet resultSet, SqlStatistics.Entry entry) {
+    this.resultSet = resultSet;
+    this.entry = entry;
+  }
+
+  @Override
+  public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+    Object result = InvocationUtils.invokeQuietly(resultSet, method, args);
+    if ("next".equals(method.getName())) {
+      if (Boolean.TRUE.equals(result)) {
+        rows++;
+      } else {
+        flush();
+      }
+    } else if ("close".equals(method.getName())) {
+      flush();
+    }
+    return result;
+  }
+
+  private void flush() {
+    entry.addRows(rows);
+    rows = 0L;
+  }
+}
@@ -27,25 +27,64 @@ import java.sql.Statement;
 
 class ProfilingStatementHandler implements InvocationHandler {
 
-  private static final SqlProfiling PROFILING = new SqlProfiling();
-
   private final Statement statement;
+  private final SqlProfiling profiling;
+  private SqlStatistics.Entry lastEntry;
+  private String batchSql;
+  private int batchSize = 0;
+  // the update count of execute() is read with getUpdateCount(), the other methods return it
+  private boolean updateCountPending = false;
 
-  ProfilingStatementHandler(Statement statement) {
+  ProfilingStatementHandler(Statement statement, SqlProfiling profiling) {
     this.statement = statement;
+    this.profiling = profiling;
   }
 
   @Override
   public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
-    if (method.getName().startsWith("execute")) {
-      StopWatch watch = PROFILING.start();
+    String methodName = method.getName();
+    if (methodName.startsWith("execute")) {
+      boolean isBatch = "executeBatch".equals(methodName);
+      String sql = isBatch ? String.valueOf(batchSql) : (String) args[0];
+      SqlStatistics.Entry entry = profiling.statistics(sql);
+      StopWatch watch = profiling.start();
+      long start = profiling.now();
       Object result = null;
       try {
         result = InvocationUtils.invokeQuietly(statement, method, args);
       } finally {
-        PROFILING.stop(watch, (String) args[0]);
+        long duration = profiling.now() - start;
+        if (isBatch) {
+          entry.recordBatch(duration, batchSize);
+          batchSize = 0;
+          batchSql = null;
+        } else {
+          entry.recordExecution(duration);
+        }
+        lastEntry = entry;
+        updateCountPending = "execute".equals(methodName);
+        profiling.stop(watch, sql);
+      }
+      return profiling.countRows(entry, result);
+
+    } else if ("addBatch".equals(methodName)) {
+      // statements of a batch are aggregated on the first one
+      if (batchSql == null) {
+        batchSql = (String) args[0];
       }
+      batchSize++;
+      return InvocationUtils.invokeQuietly(statement, method, args);
+
+    } else if ("getResultSet".equals(methodName) && lastEntry != null) {
+      return profiling.countRows(lastEntry, InvocationUtils.invokeQuietly(statement, method, args));
+
+    } else if ("getUpdateCount".equals(methodName) && updateCountPending) {
+      // can be called several times for the same execution
+      updateCountPending = false;
+      Object result = InvocationUtils.invokeQuietly(statement, method, args);
+      lastEntry.addRows((Integer) result);
       return result;
+
     } else {
       return InvocationUtils.invokeQuietly(statement, method, args);
     }
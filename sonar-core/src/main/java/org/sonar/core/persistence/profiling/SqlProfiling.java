@@ -20,25 +20,74 @@
 package org.sonar.core.persistence.profiling;
 
 import org.sonar.api.config.Settings;
+import org.sonar.api.utils.System2;
 import org.sonar.core.profiling.Profiling;
 import org.sonar.core.profiling.Profiling.Level;
 import org.sonar.core.profiling.StopWatch;
 
+import javax.annotation.Nullable;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+
 class SqlProfiling {
 
   private final Profiling profiling;
+  private final boolean logStatements;
+  private final SqlStatistics statistics;
 
-  SqlProfiling() {
+  SqlProfiling(boolean logStatements, SqlStatistics statistics) {
     Settings settings = new Settings();
-    settings.setProperty(Profiling.CONFIG_PROFILING_LEVEL, Profiling.Level.FULL.toString());
-    profiling = new Profiling(settings);
+    settings.setProperty(Profiling.CONFIG_PROFILING_LEVEL, (logStatements ? Level.FULL : Level.NONE).toString());
+    // the JDBC proxies are enabled only on FULL level or when metrics are enabled, so durations of SQL requests are always recorded
+    settings.setProperty(Profiling.CONFIG_PROFILING_METRICS, true);
+    this.profiling = new Profiling(settings);
+    this.logStatements = logStatements;
+    this.statistics = statistics;
   }
 
   StopWatch start() {
     return profiling.start("sql", Level.FULL);
   }
 
+  long now() {
+    return System2.INSTANCE.now();
+  }
+
+  /**
+   * Building the messages of the executed statements is useless when they are not logged
+   */
+  boolean isLoggingStatements() {
+    return logStatements;
+  }
+
   void stop(StopWatch watch, String sql) {
-    watch.stop(String.format("Executed SQL: %s", sql.replaceAll("\\s+", " ")));
+    if (logStatements) {
+      watch.stop(String.format("Executed SQL: %s", sql.replaceAll("\\s+", " ")));
+    } else {
+      watch.stop(sql);
+    }
+  }
+
+  SqlStatistics.Entry statistics(String sql) {
+    return statistics.entry(sql);
+  }
+
+  /**
+   * Counts the rows updated or read by an execution. Result sets are wrapped in order to count the rows when they are read.
+   */
+  @Nullable
+  Object countRows(SqlStatistics.Entry entry, @Nullable Object result) {
+    if (result instanceof Integer) {
+      entry.addRows((Integer) result);
+    } else if (result instanceof int[]) {
+      for (int updateCount : (int[]) result) {
+        entry.addRows(updateCount);
+      }
+    } else if (result instanceof ResultSet) {
+      return Proxy.newProxyInstance(SqlProfiling.class.getClassLoader(), new Class[] {ResultSet.class},
+        new ProfilingResultSetHandler((ResultSet) result, entry));
+    }
+    return result;
   }
 }
@@ -0,0 +1,214 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.persistence.profiling;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Executions of SQL requests aggregated by normalized SQL text, in order to find the requests that
+ * are executed too many times (N+1 selects, inserts that are not batched, ...) without logging each execution.
+ * <p/>
+ * Entries are stored in a concurrent map, whose segments are locked independently, and their
+ * counters are atomic, so that threads executing different requests do not block each other.
+ * <p/>
+ * The number of entries is bounded. When the limit is reached, the least executed entry is evicted
+ * to make room for a new request.
+ *
+ * @since 4.2.1
+ */
+public final class SqlStatistics {
+
+  public static final SqlStatistics INSTANCE = new SqlStatistics();
+
+  static final int DEFAULT_MAX_ENTRIES = 1000;
+
+  private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+  private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w.])-?\\d+(?:\\.\\d+)?(?![\\w.])");
+  private static final Pattern WHITESPACES = Pattern.compile("\\s+");
+
+  private static final Comparator<Entry> BY_DESCENDING_TOTAL_TIME = new Comparator<Entry>() {
+    @Override
+    public int compare(Entry e1, Entry e2) {
+      long t1 = e1.totalTime();
+      long t2 = e2.totalTime();
+      return t1 > t2 ? -1 : (t1 == t2 ? e1.sql().compareTo(e2.sql()) : 1);
+    }
+  };
+
+  private final ConcurrentMap<String, Entry> entries = Maps.newConcurrentMap();
+  private final int maxEntries;
+
+  SqlStatistics() {
+    // use INSTANCE
+    this(DEFAULT_MAX_ENTRIES);
+  }
+
+  @VisibleForTesting
+  SqlStatistics(int maxEntries) {
+    this.maxEntries = maxEntries;
+  }
+
+  public static final class Entry {
+    private final String sql;
+    private final AtomicLong executions = new AtomicLong();
+    private final AtomicLong totalTime = new AtomicLong();
+    private final AtomicLong maxTime = new AtomicLong();
+    private final AtomicLong rows = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong batchedStatements = new AtomicLong();
+
+    private Entry(String sql) {
+      this.sql = sql;
+    }
+
+    void recordExecution(long durationInMs) {
+      executions.incrementAndGet();
+      totalTime.addAndGet(durationInMs);
+      long currentMax = maxTime.get();
+      while (durationInMs > currentMax && !maxTime.compareAndSet(currentMax, durationInMs)) {
+        currentMax = maxTime.get();
+      }
+    }
+
+    void recordBatch(long durationInMs, int batchSize) {
+      recordExecution(durationInMs);
+      batches.incrementAndGet();
+      batchedStatements.addAndGet(batchSize);
+    }
+
+    void addRows(long count) {
+      if (count > 0L) {
+        rows.addAndGet(count);
+      }
+    }
+
+    /**
+     * Normalized SQL request: whitespaces are collapsed and literal values are replaced by "?"
+     */
+    public String sql() {
+      return sql;
+    }
+
+    public long executions() {
+      return executions.get();
+    }
+
+    /**
+     * Total execution time, in milliseconds
+     */
+    public long totalTime() {
+      return totalTime.get();
+    }
+
+    /**
+     * Longest execution time, in milliseconds
+     */
+    public long maxTime() {
+      return maxTime.get();
+    }
+
+    /**
+     * Number of rows read from result sets or updated
+     */
+    public long rows() {
+      return rows.get();
+    }
+
+    /**
+     * Number of calls to {@link java.sql.Statement#executeBatch()}
+     */
+    public long batches() {
+      return batches.get();
+    }
+
+    /**
+     * Number of statements sent through {@link java.sql.Statement#executeBatch()}
+     */
+    public long batchedStatements() {
+      return batchedStatements.get();
+    }
+  }
+
+  /**
+   * Entry of the given SQL request, created on first call
+   */
+  Entry entry(String sql) {
+    String normalizedSql = normalize(sql);
+    Entry entry = entries.get(normalizedSql);
+    if (entry == null) {
+      if (entries.size() >= maxEntries) {
+        evictLeastExecuted();
+      }
+      Entry newEntry = new Entry(normalizedSql);
+      entry = entries.putIfAbsent(normalizedSql, newEntry);
+      if (entry == null) {
+        entry = newEntry;
+      }
+    }
+    return entry;
+  }
+
+  /**
+   * Concurrent creations of entries can exceed the limit by the number of threads
+   */
+  private void evictLeastExecuted() {
+    Entry leastExecuted = null;
+    for (Entry entry : entries.values()) {
+      if (leastExecuted == null || entry.executions() < leastExecuted.executions()) {
+        leastExecuted = entry;
+      }
+    }
+    if (leastExecuted != null) {
+      entries.remove(leastExecuted.sql(), leastExecuted);
+    }
+  }
+
+  public boolean isEmpty() {
+    return entries.isEmpty();
+  }
+
+  /**
+   * Entries sorted by descending total execution time
+   */
+  public List<Entry> entries(int limit) {
+    List<Entry> result = Lists.newArrayList(entries.values());
+    Collections.sort(result, BY_DESCENDING_TOTAL_TIME);
+    return result.size() > limit ? Lists.newArrayList(result.subList(0, limit)) : result;
+  }
+
+  public void reset() {
+    entries.clear();
+  }
+
+  static String normalize(String sql) {
+    String normalized = STRING_LITERAL.matcher(sql).replaceAll("?");
+    normalized = NUMBER_LITERAL.matcher(normalized).replaceAll("?");
+    return WHITESPACES.matcher(normalized).replaceAll(" ").trim();
+  }
+}
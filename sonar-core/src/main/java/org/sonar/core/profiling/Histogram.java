@@ -0,0 +1,115 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.profiling;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe histogram of positive values, for example durations in milliseconds.
+ * Values are counted in log-linear buckets (8 buckets per power of two), so percentiles
+ * are approximated with a relative error lower than 12.5% while recording never allocates.
+ *
+ * @since 4.2.1
+ */
+public final class Histogram {
+
+  private static final int SUB_BUCKET_BITS = 3;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final AtomicLong count = new AtomicLong();
+  private final AtomicLong sum = new AtomicLong();
+  private final AtomicLong max = new AtomicLong();
+
+  public void record(long value) {
+    long positiveValue = Math.max(value, 0L);
+    counts.incrementAndGet(bucket(positiveValue));
+    count.incrementAndGet();
+    sum.addAndGet(positiveValue);
+    long currentMax = max.get();
+    while (positiveValue > currentMax && !max.compareAndSet(currentMax, positiveValue)) {
+      currentMax = max.get();
+    }
+  }
+
+  public long count() {
+    return count.get();
+  }
+
+  public long sum() {
+    return sum.get();
+  }
+
+  public long max() {
+    return max.get();
+  }
+
+  public double mean() {
+    long c = count.get();
+    return c == 0L ? 0.0 : (double) sum.get() / c;
+  }
+
+  /**
+   * Approximated value below which the given percentage of the recorded values fall.
+   *
+   * @param percentile between 0.0 and 100.0
+   * @return 0 if no values have been recorded
+   */
+  public long percentile(double percentile) {
+    if (percentile < 0.0 || percentile > 100.0) {
+      throw new IllegalArgumentException("Percentile must be between 0 and 100: " + percentile);
+    }
+    long total = count.get();
+    if (total == 0L) {
+      return 0L;
+    }
+    long rank = Math.max(1L, (long) Math.ceil(percentile * total / 100.0));
+    long seen = 0L;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += counts.get(i);
+      if (seen >= rank) {
+        return Math.min(highestValue(i), max.get());
+      }
+    }
+    // values recorded concurrently with this loop
+    return max.get();
+  }
+
+  static int bucket(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+    int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+    return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+  }
+
+  static long highestValue(int bucket) {
+    if (bucket < 2 * SUB_BUCKETS) {
+      return bucket;
+    }
+    int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+    int shift = exponent - SUB_BUCKET_BITS;
+    long lowestValue = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+    return lowestValue + (1L << shift) - 1L;
+  }
+}
@@ -0,0 +1,52 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.profiling;
+
+import com.google.common.annotations.VisibleForTesting;
+import org.sonar.api.utils.System2;
+
+/**
+ * Records the duration into a histogram, then delegates to another watch, for example to log the message.
+ */
+class MetricsWatch extends StopWatch {
+
+  private final StopWatch delegate;
+  private final Histogram histogram;
+  private final System2 system;
+  private final long startTimeInMillis;
+
+  MetricsWatch(StopWatch delegate, Histogram histogram) {
+    this(delegate, histogram, System2.INSTANCE);
+  }
+
+  @VisibleForTesting
+  MetricsWatch(StopWatch delegate, Histogram histogram, System2 system) {
+    this.delegate = delegate;
+    this.histogram = histogram;
+    this.system = system;
+    this.startTimeInMillis = system.now();
+  }
+
+  @Override
+  public void stop(String message, Object... args) {
+    histogram.record(system.now() - startTimeInMillis);
+    delegate.stop(message, args);
+  }
+}
@@ -31,10 +31,17 @@ public final class Profiling implements ServerExtension {
 
   public static final String CONFIG_PROFILING_LEVEL = "sonar.log.profilingLevel";
 
+  /**
+   * When enabled, the durations of all the watches are recorded in {@link ProfilingMetrics}, whatever the profiling level.
+   * @since 4.2.1
+   */
+  public static final String CONFIG_PROFILING_METRICS = "sonar.log.profilingMetrics";
+
   private static final Logger LOGGER = LoggerFactory.getLogger(Profiling.class);
 
   private Settings settings;
   private ProfilingLogFactory logFactory;
+  private ProfilingMetrics metrics;
 
   public enum Level {
     NONE, BASIC, FULL;
@@ -53,14 +60,21 @@ public final class Profiling implements ServerExtension {
   }
 
   public Profiling(Settings settings) {
-    this(settings, new ProfilingLogFactory());
+    this(settings, new ProfilingLogFactory(), ProfilingMetrics.INSTANCE);
   }
 
-  Profiling(Settings settings, ProfilingLogFactory logFactory) {
+  Profiling(Settings settings, ProfilingLogFactory logFactory, ProfilingMetrics metrics) {
     this.settings = settings;
     this.logFactory = logFactory;
+    this.metrics = metrics;
   }
 
+  /**
+   * @since 4.2.1
+   */
+  public ProfilingMetrics metrics() {
+    return metrics;
+  }
 
   public StopWatch start(String domain, Level level) {
     StopWatch watch;
@@ -69,9 +83,19 @@ public final class Profiling implements ServerExtension {
     } else {
       watch = new NoopWatch();
     }
+    if (isMetricsEnabled()) {
+      watch = new MetricsWatch(watch, metrics.histogram(domain));
+    }
     return watch;
   }
 
+  /**
+   * @since 4.2.1
+   */
+  public boolean isMetricsEnabled() {
+    return settings.getBoolean(CONFIG_PROFILING_METRICS);
+  }
+
   private boolean isProfilingEnabled(Level level) {
     String settingsValue = settings.getString(CONFIG_PROFILING_LEVEL);
     Level settingsLevel = Level.fromConfigString(settingsValue);
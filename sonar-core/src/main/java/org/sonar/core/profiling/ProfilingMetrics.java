@@ -0,0 +1,145 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.profiling;
+
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.Maps;
+
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process registry of counters, gauges and latency histograms. Histograms are fed by the
+ * {@link StopWatch}es returned by {@link Profiling} when {@link Profiling#CONFIG_PROFILING_METRICS} is enabled.
+ * <p/>
+ * A single instance is shared by the whole JVM, so that components created outside of the
+ * component container (for example the JDBC profiling proxies) feed the same registry.
+ *
+ * @since 4.2.1
+ */
+public final class ProfilingMetrics implements ProfilingMetricsMBean {
+
+  public static final ProfilingMetrics INSTANCE = new ProfilingMetrics();
+
+  public interface Gauge {
+    long value();
+  }
+
+  private final ConcurrentMap<String, Histogram> histograms = Maps.newConcurrentMap();
+  private final ConcurrentMap<String, AtomicLong> counters = Maps.newConcurrentMap();
+  private final ConcurrentMap<String, Gauge> gauges = Maps.newConcurrentMap();
+
+  ProfilingMetrics() {
+    // use INSTANCE
+  }
+
+  public Histogram histogram(String name) {
+    Histogram histogram = histograms.get(name);
+    if (histogram == null) {
+      Histogram newHistogram = new Histogram();
+      histogram = histograms.putIfAbsent(name, newHistogram);
+      if (histogram == null) {
+        histogram = newHistogram;
+      }
+    }
+    return histogram;
+  }
+
+  public AtomicLong counter(String name) {
+    AtomicLong counter = counters.get(name);
+    if (counter == null) {
+      AtomicLong newCounter = new AtomicLong();
+      counter = counters.putIfAbsent(name, newCounter);
+      if (counter == null) {
+        counter = newCounter;
+      }
+    }
+    return counter;
+  }
+
+  /**
+   * Registers a gauge, which is evaluated only when metrics are read. An existing gauge with the same name is replaced.
+   */
+  public void gauge(String name, Gauge gauge) {
+    gauges.put(name, gauge);
+  }
+
+  public void removeGauge(String name) {
+    gauges.remove(name);
+  }
+
+  public SortedMap<String, Histogram> histograms() {
+    return ImmutableSortedMap.copyOf(histograms);
+  }
+
+  public SortedMap<String, Long> counters() {
+    SortedMap<String, Long> result = Maps.newTreeMap();
+    for (Map.Entry<String, AtomicLong> entry : counters.entrySet()) {
+      result.put(entry.getKey(), entry.getValue().get());
+    }
+    return result;
+  }
+
+  public SortedMap<String, Long> gauges() {
+    SortedMap<String, Long> result = Maps.newTreeMap();
+    for (Map.Entry<String, Gauge> entry : gauges.entrySet()) {
+      result.put(entry.getKey(), entry.getValue().value());
+    }
+    return result;
+  }
+
+  /**
+   * Forgets all the recorded values. Gauges are kept.
+   */
+  @Override
+  public void reset() {
+    histograms.clear();
+    counters.clear();
+  }
+
+  @Override
+  public String[] getHistogramNames() {
+    return histograms().keySet().toArray(new String[0]);
+  }
+
+  @Override
+  public Map<String, Long> getCounters() {
+    return counters();
+  }
+
+  @Override
+  public Map<String, Long> getGauges() {
+    return gauges();
+  }
+
+  @Override
+  public long getCount(String histogramName) {
+    Histogram histogram = histograms.get(histogramName);
+    return histogram != null ? histogram.count() : 0L;
+  }
+
+  @Override
+  public long getPercentile(String histogramName, double percentile) {
+    Histogram histogram = histograms.get(histogramName);
+    return histogram != null ? histogram.percentile(percentile) : 0L;
+  }
+}
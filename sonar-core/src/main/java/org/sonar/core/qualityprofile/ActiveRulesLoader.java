@@ -0,0 +1,149 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.qualityprofile;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.apache.ibatis.session.SqlSession;
+import org.sonar.api.BatchComponent;
+import org.sonar.api.ServerComponent;
+import org.sonar.api.batch.rule.ActiveRules;
+import org.sonar.api.batch.rule.internal.ActiveRulesBuilder;
+import org.sonar.api.batch.rule.internal.NewActiveRule;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.api.rules.Rule;
+import org.sonar.core.persistence.MyBatis;
+import org.sonar.core.qualityprofile.db.ActiveRuleDao;
+import org.sonar.core.qualityprofile.db.ActiveRuleDto;
+import org.sonar.core.qualityprofile.db.ActiveRuleParamDto;
+import org.sonar.core.rule.RuleDao;
+import org.sonar.core.rule.RuleDto;
+import org.sonar.core.rule.RuleParamDto;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Loads the rules that are activated on a set of Quality profiles.
+ * <p/>
+ * Rules and their parameters are loaded in bulk, so the number of requests does not depend on the number of active rules.
+ * It is shared by the batch, when it can't download the bundle of active rules, and by the server, which generates this bundle.
+ *
+ * @since 4.2.1
+ */
+public class ActiveRulesLoader implements BatchComponent, ServerComponent {
+
+  private final MyBatis myBatis;
+  private final ActiveRuleDao activeRuleDao;
+  private final RuleDao ruleDao;
+
+  public ActiveRulesLoader(MyBatis myBatis, ActiveRuleDao activeRuleDao, RuleDao ruleDao) {
+    this.myBatis = myBatis;
+    this.activeRuleDao = activeRuleDao;
+    this.ruleDao = ruleDao;
+  }
+
+  public ActiveRules load(Collection<Integer> profileIds) {
+    ActiveRulesBuilder builder = new ActiveRulesBuilder();
+    SqlSession session = myBatis.openSession();
+    try {
+      for (Integer profileId : profileIds) {
+        load(profileId, builder, session);
+      }
+    } finally {
+      MyBatis.closeQuietly(session);
+    }
+    return builder.build();
+  }
+
+  private void load(int profileId, ActiveRulesBuilder builder, SqlSession session) {
+    ListMultimap<Integer, ActiveRuleParamDto> paramDtosByActiveRuleId = ArrayListMultimap.create();
+    for (ActiveRuleParamDto dto : activeRuleDao.selectParamsByProfileId(profileId, session)) {
+      paramDtosByActiveRuleId.put(dto.getActiveRuleId(), dto);
+    }
+
+    List<ActiveRuleDto> activeDtos = activeRuleDao.selectByProfileId(profileId, session);
+    Set<Integer> ruleIds = Sets.newHashSet();
+    for (ActiveRuleDto activeDto : activeDtos) {
+      ruleIds.add(activeDto.getRulId());
+    }
+    Map<Integer, RuleDto> rulesById = selectRulesById(ruleIds, session);
+    ListMultimap<Integer, RuleParamDto> paramsByRuleId = ArrayListMultimap.create();
+    for (RuleParamDto param : ruleDao.selectParametersByRuleIds(rulesById.keySet(), session)) {
+      paramsByRuleId.put(param.getRuleId(), param);
+    }
+    Map<Integer, RuleDto> parentsById = selectParentsById(rulesById, session);
+
+    for (ActiveRuleDto activeDto : activeDtos) {
+      RuleDto rule = rulesById.get(activeDto.getRulId());
+      if (rule != null) {
+        NewActiveRule newActiveRule = builder.activate(RuleKey.of(rule.getRepositoryKey(), rule.getRuleKey()));
+        newActiveRule.setSeverity(activeDto.getSeverityString());
+        RuleDto parent = rule.getParentId() != null ? parentsById.get(rule.getParentId()) : null;
+        if (parent != null) {
+          newActiveRule.setInternalKey(parent.getConfigKey());
+        } else {
+          newActiveRule.setInternalKey(rule.getConfigKey());
+        }
+
+        // load parameter values
+        for (ActiveRuleParamDto paramDto : paramDtosByActiveRuleId.get(activeDto.getId())) {
+          newActiveRule.setParam(paramDto.getKey(), paramDto.getValue());
+        }
+
+        // load default values
+        for (RuleParamDto param : paramsByRuleId.get(rule.getId())) {
+          if (!newActiveRule.params().containsKey(param.getName())) {
+            newActiveRule.setParam(param.getName(), param.getDefaultValue());
+          }
+        }
+      }
+    }
+  }
+
+  private Map<Integer, RuleDto> selectRulesById(Set<Integer> ruleIds, SqlSession session) {
+    Map<Integer, RuleDto> rulesById = Maps.newHashMap();
+    for (RuleDto rule : ruleDao.selectByIds(ruleIds, session)) {
+      // removed rules are ignored, as done by RuleFinder
+      if (!Rule.STATUS_REMOVED.equals(rule.getStatus())) {
+        rulesById.put(rule.getId(), rule);
+      }
+    }
+    return rulesById;
+  }
+
+  private Map<Integer, RuleDto> selectParentsById(Map<Integer, RuleDto> rulesById, SqlSession session) {
+    Set<Integer> parentIds = Sets.newHashSet();
+    for (RuleDto rule : rulesById.values()) {
+      if (rule.getParentId() != null) {
+        parentIds.add(rule.getParentId());
+      }
+    }
+    Map<Integer, RuleDto> parentsById = Maps.newHashMap();
+    for (RuleDto parent : ruleDao.selectByIds(parentIds, session)) {
+      parentsById.put(parent.getId(), parent);
+    }
+    return parentsById;
+  }
+}
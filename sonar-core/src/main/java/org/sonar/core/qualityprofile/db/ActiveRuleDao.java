@@ -351,9 +351,13 @@ public class ActiveRuleDao implements ServerComponent {
   public List<ActiveRuleParamDto> selectParamsByProfileId(int profileId) {
     SqlSession session = mybatis.openSession();
     try {
-      return session.getMapper(ActiveRuleMapper.class).selectParamsByProfileId(profileId);
+      return selectParamsByProfileId(profileId, session);
     } finally {
       MyBatis.closeQuietly(session);
     }
   }
+
+  public List<ActiveRuleParamDto> selectParamsByProfileId(int profileId, SqlSession session) {
+    return session.getMapper(ActiveRuleMapper.class).selectParamsByProfileId(profileId);
+  }
 }
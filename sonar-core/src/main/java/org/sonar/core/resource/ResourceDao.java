@@ -102,6 +102,16 @@ public class ResourceDao {
     return session.getMapper(ResourceMapper.class).selectResource(projectId);
   }
 
+  @CheckForNull
+  public SnapshotDto getSnapshot(long snapshotId) {
+    SqlSession session = mybatis.openSession();
+    try {
+      return session.getMapper(ResourceMapper.class).selectSnapshot(snapshotId);
+    } finally {
+      MyBatis.closeQuietly(session);
+    }
+  }
+
   public SnapshotDto getLastSnapshot(String resourceKey, SqlSession session) {
     return session.getMapper(ResourceMapper.class).selectLastSnapshotByResourceKey(resourceKey);
   }
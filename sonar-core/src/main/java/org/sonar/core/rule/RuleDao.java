@@ -19,6 +19,7 @@
  */
 package org.sonar.core.rule;
 
+import com.google.common.collect.Lists;
 import org.apache.ibatis.session.SqlSession;
 import org.sonar.api.BatchComponent;
 import org.sonar.api.ServerComponent;
@@ -26,8 +27,11 @@ import org.sonar.core.persistence.MyBatis;
 
 import javax.annotation.CheckForNull;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
+import static com.google.common.collect.Lists.newArrayList;
+
 public class RuleDao implements BatchComponent, ServerComponent {
 
   private MyBatis mybatis;
@@ -64,6 +68,17 @@ public class RuleDao implements BatchComponent, ServerComponent {
     }
   }
 
+  public List<RuleDto> selectByIds(Collection<Integer> ids, SqlSession session) {
+    if (ids.isEmpty()) {
+      return Collections.emptyList();
+    }
+    List<RuleDto> dtos = newArrayList();
+    for (List<Integer> idsPartition : Lists.partition(newArrayList(ids), 1000)) {
+      dtos.addAll(getMapper(session).selectByIds(idsPartition));
+    }
+    return dtos;
+  }
+
   @CheckForNull
   public RuleDto selectByName(String name) {
     SqlSession session = mybatis.openSession();
@@ -140,6 +155,17 @@ public class RuleDao implements BatchComponent, ServerComponent {
     return getMapper(session).selectParamsForRule(ruleId);
   }
 
+  public List<RuleParamDto> selectParametersByRuleIds(Collection<Integer> ruleIds, SqlSession session) {
+    if (ruleIds.isEmpty()) {
+      return Collections.emptyList();
+    }
+    List<RuleParamDto> dtos = newArrayList();
+    for (List<Integer> idsPartition : Lists.partition(newArrayList(ruleIds), 1000)) {
+      dtos.addAll(getMapper(session).selectParamsByRuleIds(idsPartition));
+    }
+    return dtos;
+  }
+
   public void insert(RuleParamDto param, SqlSession session) {
     getMapper(session).insertParameter(param);
   }
@@ -30,6 +30,8 @@ public interface RuleMapper {
 
   RuleDto selectById(Integer id);
 
+  List<RuleDto> selectByIds(@Param("ids") List<Integer> ids);
+
   RuleDto selectByName(String name);
 
   void update(RuleDto rule);
@@ -42,6 +44,8 @@ public interface RuleMapper {
 
   List<RuleParamDto> selectParamsForRule(Integer id);
 
+  List<RuleParamDto> selectParamsByRuleIds(@Param("ruleIds") List<Integer> ruleIds);
+
   RuleParamDto selectParamByRuleAndKey(@Param("ruleId") Integer ruleId, @Param("key") String key);
 
   void insertParameter(RuleParamDto param);
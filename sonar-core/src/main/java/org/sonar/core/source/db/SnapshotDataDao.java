@@ -64,6 +64,14 @@ public class SnapshotDataDao implements BatchComponent, ServerComponent {
     return mapper.selectSnapshotDataByComponentKey(componentKey, dataTypes);
   }
 
+  /**
+   * Ids of the snapshots having data of the given types, without loading the data
+   */
+  public List<Long> selectSnapshotIdsByComponentKey(String componentKey, List<String> dataTypes, SqlSession session) {
+    SnapshotDataMapper mapper = session.getMapper(SnapshotDataMapper.class);
+    return mapper.selectSnapshotIdsByComponentKey(componentKey, dataTypes);
+  }
+
   void insert(SnapshotDataDto snapshotData) {
     SqlSession session = mybatis.openSession();
     try {
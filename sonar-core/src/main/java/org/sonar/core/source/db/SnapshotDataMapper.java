@@ -35,4 +35,6 @@ public interface SnapshotDataMapper {
   Collection<SnapshotDataDto> selectSnapshotData(@Param("sid") long snapshotId, @Param("dataTypes") List<String> dataTypes);
 
   Collection<SnapshotDataDto> selectSnapshotDataByComponentKey(@Param("componentKey") String componentKey, @Param("dataTypes") List<String> dataTypes);
+
+  List<Long> selectSnapshotIdsByComponentKey(@Param("componentKey") String componentKey, @Param("dataTypes") List<String> dataTypes);
 }
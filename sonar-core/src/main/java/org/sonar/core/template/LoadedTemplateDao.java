@@ -24,6 +24,8 @@ import org.sonar.api.BatchComponent;
 import org.sonar.api.ServerComponent;
 import org.sonar.core.persistence.MyBatis;
 
+import java.util.List;
+
 public class LoadedTemplateDao implements BatchComponent, ServerComponent {
 
   private MyBatis mybatis;
@@ -42,6 +44,15 @@ public class LoadedTemplateDao implements BatchComponent, ServerComponent {
     }
   }
 
+  public List<LoadedTemplateDto> selectByType(String type) {
+    SqlSession session = mybatis.openSession();
+    try {
+      return session.getMapper(LoadedTemplateMapper.class).selectByType(type);
+    } finally {
+      MyBatis.closeQuietly(session);
+    }
+  }
+
   public void insert(LoadedTemplateDto loadedTemplateDto) {
     SqlSession session = mybatis.openSession();
     LoadedTemplateMapper mapper = session.getMapper(LoadedTemplateMapper.class);
@@ -53,4 +64,12 @@ public class LoadedTemplateDao implements BatchComponent, ServerComponent {
     }
   }
 
+  public void insert(LoadedTemplateDto loadedTemplateDto, SqlSession session) {
+    session.getMapper(LoadedTemplateMapper.class).insert(loadedTemplateDto);
+  }
+
+  public void delete(String type, String key, SqlSession session) {
+    session.getMapper(LoadedTemplateMapper.class).deleteByTypeAndKey(type, key);
+  }
+
 }
@@ -21,10 +21,16 @@ package org.sonar.core.template;
 
 import org.apache.ibatis.annotations.Param;
 
+import java.util.List;
+
 public interface LoadedTemplateMapper {
 
   int countByTypeAndKey(@Param("type") String type, @Param("key") String key);
 
+  List<LoadedTemplateDto> selectByType(@Param("type") String type);
+
   void insert(LoadedTemplateDto template);
 
+  void deleteByTypeAndKey(@Param("type") String type, @Param("key") String key);
+
 }
@@ -25,6 +25,7 @@ import org.apache.ibatis.session.SqlSession;
 import org.sonar.api.ServerComponent;
 import org.sonar.core.persistence.MyBatis;
 
+import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 
 import java.util.Collection;
@@ -94,6 +95,80 @@ public class AuthorizationDao implements ServerComponent {
     return session.selectList(sql, params);
   }
 
+  /**
+   * Ids of the root projects on which the permission is directly granted to the user, excluding groups.
+   *
+   * @since 4.2.1
+   */
+  public List<Long> selectAuthorizedRootProjectIdsOfUser(long userId, String role) {
+    SqlSession session = mybatis.openSession();
+    try {
+      Map<String, Object> params = newHashMap();
+      params.put("userId", userId);
+      params.put("role", role);
+      return session.selectList("selectAuthorizedRootProjectIdsOfUser", params);
+    } finally {
+      MyBatis.closeQuietly(session);
+    }
+  }
+
+  /**
+   * Ids of the root projects on which the permission is granted to the group. A null group is the group "Anyone".
+   *
+   * @since 4.2.1
+   */
+  public List<Long> selectAuthorizedRootProjectIdsOfGroup(@Nullable Long groupId, String role) {
+    SqlSession session = mybatis.openSession();
+    try {
+      Map<String, Object> params = newHashMap();
+      params.put("groupId", groupId);
+      params.put("role", role);
+      return session.selectList("selectAuthorizedRootProjectIdsOfGroup", params);
+    } finally {
+      MyBatis.closeQuietly(session);
+    }
+  }
+
+  /**
+   * @since 4.2.1
+   */
+  public List<Long> selectGroupIdsOfUser(long userId) {
+    SqlSession session = mybatis.openSession();
+    try {
+      return session.selectList("selectGroupIdsOfUser", userId);
+    } finally {
+      MyBatis.closeQuietly(session);
+    }
+  }
+
+  /**
+   * @since 4.2.1
+   */
+  @CheckForNull
+  public Long selectRootProjectIdByKey(String projectKey) {
+    SqlSession session = mybatis.openSession();
+    try {
+      return (Long) session.selectOne("selectRootProjectIdByKey", projectKey);
+    } finally {
+      MyBatis.closeQuietly(session);
+    }
+  }
+
+  /**
+   * Greatest id of root projects, or null if there are no projects. Ids of new projects are greater than it.
+   *
+   * @since 4.2.1
+   */
+  @CheckForNull
+  public Long selectMaxRootProjectId() {
+    SqlSession session = mybatis.openSession();
+    try {
+      return (Long) session.selectOne("selectMaxRootProjectId");
+    } finally {
+      MyBatis.closeQuietly(session);
+    }
+  }
+
   public List<String> selectGlobalPermissions(@Nullable String userLogin) {
     SqlSession session = mybatis.openSession();
     try {
@@ -0,0 +1,123 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.analysis;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.sonar.core.persistence.AbstractDaoTestCase;
+
+import java.util.List;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class AnalysisTaskDaoTest extends AbstractDaoTestCase {
+
+  AnalysisTaskDao dao;
+
+  @Before
+  public void createDao() {
+    dao = new AnalysisTaskDao(getMyBatis());
+  }
+
+  @Test
+  public void enqueue() {
+    dao.enqueue("PURGE", 10L);
+
+    List<AnalysisTaskDto> tasks = dao.selectPending();
+    assertThat(tasks).hasSize(1);
+    AnalysisTaskDto task = tasks.get(0);
+    assertThat(task.getId()).isNotNull();
+    assertThat(task.getTaskType()).isEqualTo("PURGE");
+    assertThat(task.getProjectId()).isEqualTo(10L);
+    assertThat(task.getCreatedAt()).isNotNull();
+    assertThat(task.getStartedAt()).isNull();
+  }
+
+  @Test
+  public void enqueue_should_coalesce_pending_tasks_of_same_project() {
+    dao.enqueue("PURGE", 10L);
+    dao.enqueue("PURGE", 10L);
+    dao.enqueue("PURGE", 20L);
+    dao.enqueue("INDEX_PROJECT", 10L);
+
+    assertThat(dao.selectPending()).hasSize(3);
+  }
+
+  @Test
+  public void select_pending_should_exclude_tasks_being_executed() {
+    setupData("shared");
+
+    List<AnalysisTaskDto> tasks = dao.selectPending();
+    assertThat(tasks).onProperty("id").containsExactly(1L, 4L);
+  }
+
+  @Test
+  public void start_and_finish() {
+    setupData("start_and_finish");
+    AnalysisTaskDto task = new AnalysisTaskDto().setTaskType("PURGE").setProjectId(10L);
+
+    assertThat(dao.start(task)).isTrue();
+    // all the pending tasks of the same type and project are started at the same time
+    assertThat(dao.start(task)).isFalse();
+    assertThat(dao.selectPending()).onProperty("id").containsExactly(3L);
+
+    dao.finish(task);
+    checkTables("start_and_finish", new String[] {"created_at", "started_at"}, "analysis_tasks");
+  }
+
+  @Test
+  public void task_enqueued_during_execution_should_not_be_finished() {
+    AnalysisTaskDto task = new AnalysisTaskDto().setTaskType("PURGE").setProjectId(10L);
+    dao.enqueue("PURGE", 10L);
+    dao.start(task);
+
+    dao.enqueue("PURGE", 10L);
+    // still being executed
+    assertThat(dao.selectPending()).isEmpty();
+
+    dao.finish(task);
+    assertThat(dao.selectPending()).hasSize(1);
+  }
+
+  @Test
+  public void postpone() {
+    AnalysisTaskDto task = new AnalysisTaskDto().setTaskType("PURGE").setProjectId(10L);
+    dao.enqueue("PURGE", 10L);
+    dao.enqueue("PURGE", 20L);
+    dao.start(task);
+    dao.start(new AnalysisTaskDto().setTaskType("PURGE").setProjectId(20L));
+
+    dao.postpone(task);
+
+    List<AnalysisTaskDto> tasks = dao.selectPending();
+    assertThat(tasks).hasSize(1);
+    assertThat(tasks.get(0).getProjectId()).isEqualTo(10L);
+    assertThat(tasks.get(0).getStartedAt()).isNull();
+  }
+
+  @Test
+  public void reset_started() {
+    setupData("shared");
+
+    dao.resetStarted();
+
+    assertThat(dao.selectPending()).onProperty("id").containsExactly(1L, 2L, 3L, 4L);
+  }
+}
@@ -38,6 +38,7 @@ import org.sonar.core.component.ResourceComponent;
 
 import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
 
 import static org.fest.assertions.Assertions.assertThat;
 import static org.mockito.Matchers.eq;
@@ -103,6 +104,39 @@ public class IssueNotificationsTest {
     Mockito.verify(manager).scheduleForSending(eq(Arrays.asList(notification)));
   }
 
+  @Test
+  public void should_send_changes_of_several_issues_at_once() throws Exception {
+    IssueChangeContext context = IssueChangeContext.createUser(new Date(), "simon");
+    DefaultIssue changed = new DefaultIssue()
+      .setKey("ABCDE")
+      .setFieldChange(context, "assignee", null, "freddy")
+      .setSendNotifications(true)
+      .setComponentKey("struts:Action")
+      .setProjectKey("struts");
+    DefaultIssue notNotified = new DefaultIssue()
+      .setKey("FGHIJ")
+      .setComponentKey("struts:Action")
+      .setProjectKey("struts");
+    DefaultIssueQueryResult queryResult = new DefaultIssueQueryResult(Arrays.<Issue>asList(changed, notNotified));
+    queryResult.addProjects(Arrays.<Component>asList(new Project("struts")));
+
+    List<Notification> notifications = issueNotifications.sendChanges(Arrays.asList(changed, notNotified), context, queryResult);
+
+    assertThat(notifications).hasSize(1);
+    assertThat(notifications.get(0).getFieldValue("key")).isEqualTo("ABCDE");
+    assertThat(notifications.get(0).getFieldValue("new.assignee")).isEqualTo("freddy");
+    Mockito.verify(manager).scheduleForSending(notifications);
+  }
+
+  @Test
+  public void should_not_queue_empty_list_of_changes() throws Exception {
+    IssueChangeContext context = IssueChangeContext.createUser(new Date(), "simon");
+    DefaultIssueQueryResult queryResult = new DefaultIssueQueryResult(Arrays.<Issue>asList());
+
+    assertThat(issueNotifications.sendChanges(Arrays.<DefaultIssue>asList(), context, queryResult)).isEmpty();
+    Mockito.verifyZeroInteractions(manager);
+  }
+
   @Test
   public void should_send_changes_with_comment() throws Exception {
     IssueChangeContext context = IssueChangeContext.createScan(new Date());
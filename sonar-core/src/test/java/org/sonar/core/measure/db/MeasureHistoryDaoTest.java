@@ -0,0 +1,76 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.measure.db;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.sonar.core.persistence.AbstractDaoTestCase;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class MeasureHistoryDaoTest extends AbstractDaoTestCase {
+
+  MeasureHistoryDao dao;
+
+  @Before
+  public void createDao() {
+    dao = new MeasureHistoryDao(getMyBatis());
+  }
+
+  @Test
+  public void select_by_project_and_metrics() throws Exception {
+    setupData("shared");
+
+    List<MeasureHistoryDto> history = dao.selectByProjectAndMetrics(1L, Arrays.asList(1, 2), null);
+
+    assertThat(history).onProperty("snapshotId").containsExactly(10L, 11L, 13L, 13L);
+    assertThat(history.get(0).getMetricId()).isEqualTo(1);
+    assertThat(history.get(0).getValue()).isEqualTo(100.0);
+    assertThat(history.get(0).getCreatedAt()).isNotNull();
+  }
+
+  @Test
+  public void select_after_snapshot() throws Exception {
+    setupData("shared");
+
+    List<MeasureHistoryDto> history = dao.selectByProjectAndMetrics(1L, Arrays.asList(1), 11L);
+
+    assertThat(history).hasSize(1);
+    assertThat(history.get(0).getSnapshotId()).isEqualTo(13L);
+    assertThat(history.get(0).getValue()).isEqualTo(130.0);
+  }
+
+  @Test
+  public void select_nothing_without_metrics() throws Exception {
+    assertThat(dao.selectByProjectAndMetrics(1L, Collections.<Integer>emptyList(), null)).isEmpty();
+  }
+
+  @Test
+  public void select_last_snapshot_id() throws Exception {
+    setupData("shared");
+
+    assertThat(dao.selectLastSnapshotId(1L)).isEqualTo(13L);
+    assertThat(dao.selectLastSnapshotId(999L)).isNull();
+  }
+}
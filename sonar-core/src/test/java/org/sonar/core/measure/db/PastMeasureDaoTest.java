@@ -0,0 +1,103 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.measure.db;
+
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
+import org.junit.Before;
+import org.junit.Test;
+import org.sonar.core.persistence.AbstractDaoTestCase;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static org.fest.assertions.Assertions.assertThat;
+
+public class PastMeasureDaoTest extends AbstractDaoTestCase {
+
+  PastMeasureDao dao;
+  List<PastMeasureDto> measures = newArrayList();
+  ResultHandler handler = new ResultHandler() {
+    public void handleResult(ResultContext context) {
+      measures.add((PastMeasureDto) context.getResultObject());
+    }
+  };
+
+  @Before
+  public void createDao() {
+    dao = new PastMeasureDao(getMyBatis());
+  }
+
+  @Test
+  public void select_measures_of_projects_and_directories() throws Exception {
+    setupData("shared");
+
+    dao.selectProjectsAndDirectories(1000L, 1000L, "", Arrays.asList(1, 2), handler);
+
+    assertThat(measures).onProperty("value").containsOnly(60.0, 80.0, 20.0, 40.0);
+    PastMeasureDto ruleMeasure = findByValue(80.0);
+    assertThat(ruleMeasure.getResourceKey()).isEqualTo("struts");
+    assertThat(ruleMeasure.getMetricId()).isEqualTo(2);
+    assertThat(ruleMeasure.getRuleId()).isEqualTo(30);
+    assertThat(ruleMeasure.getCharacteristicId()).isNull();
+    assertThat(ruleMeasure.getPersonId()).isNull();
+    assertThat(findByValue(20.0).getResourceKey()).isEqualTo("struts:org.struts");
+  }
+
+  @Test
+  public void select_measures_of_sub_tree() throws Exception {
+    setupData("shared");
+
+    dao.selectProjectsAndDirectories(1000L, 1001L, "1000.", Arrays.asList(1, 2), handler);
+
+    assertThat(measures).hasSize(1);
+    assertThat(measures.get(0).getResourceKey()).isEqualTo("struts:org.struts");
+    assertThat(measures.get(0).getValue()).isEqualTo(20.0);
+  }
+
+  @Test
+  public void select_nothing_without_metrics() throws Exception {
+    setupData("shared");
+
+    dao.selectProjectsAndDirectories(1000L, 1000L, "", Collections.<Integer>emptyList(), handler);
+
+    assertThat(measures).isEmpty();
+  }
+
+  @Test
+  public void select_nothing_on_unprocessed_snapshot() throws Exception {
+    setupData("shared");
+
+    dao.selectProjectsAndDirectories(2000L, 2000L, "", Arrays.asList(1, 2), handler);
+
+    assertThat(measures).isEmpty();
+  }
+
+  private PastMeasureDto findByValue(double value) {
+    for (PastMeasureDto measure : measures) {
+      if (measure.getValue() == value) {
+        return measure;
+      }
+    }
+    throw new IllegalStateException("No measure with value " + value);
+  }
+}
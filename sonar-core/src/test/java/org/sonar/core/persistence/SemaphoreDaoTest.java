@@ -219,6 +219,32 @@ public class SemaphoreDaoTest extends AbstractDaoTestCase {
     assertThat(semaphore.getLockedAt()).isNotNull();
   }
 
+  @Test
+  public void waiters_are_served_in_arrival_order() throws Exception {
+    String first = dao.addWaiter("foo_bar");
+    String second = dao.addWaiter("foo_bar");
+    String other = dao.addWaiter("fooXbar");
+
+    assertThat(first).startsWith("foo_bar");
+    assertThat(dao.isFirstWaiter("foo_bar", first, 60)).isTrue();
+    assertThat(dao.isFirstWaiter("foo_bar", second, 60)).isFalse();
+    assertThat(dao.isFirstWaiter("fooXbar", other, 60)).isTrue();
+
+    dao.release(first);
+    assertThat(dao.isFirstWaiter("foo_bar", second, 60)).isTrue();
+  }
+
+  @Test
+  public void outdated_waiters_are_removed() throws Exception {
+    String first = dao.addWaiter("foo");
+    Thread.sleep(1500);
+    String second = dao.addWaiter("foo");
+
+    assertThat(dao.isFirstWaiter("foo", second, 1)).isTrue();
+    assertThat(selectSemaphore(first)).isNull();
+    assertThat(selectSemaphore(second)).isNotNull();
+  }
+
   @Test
   public void test_concurrent_locks() throws Exception {
     for (int tests = 0; tests < 5; tests++) {
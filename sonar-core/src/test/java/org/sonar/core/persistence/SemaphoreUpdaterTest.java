@@ -25,10 +25,20 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.sonar.api.utils.Semaphores;
 
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.google.common.collect.Lists.newArrayList;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
 
 public class SemaphoreUpdaterTest extends AbstractDaoTestCase {
 
@@ -65,6 +75,51 @@ public class SemaphoreUpdaterTest extends AbstractDaoTestCase {
     verify(dao, never()).update(semaphore);
   }
 
+  @Test
+  public void cancel_update_of_reacquired_semaphore() throws Exception {
+    Semaphores.Semaphore first = new Semaphores.Semaphore().setName("foo");
+    Semaphores.Semaphore second = new Semaphores.Semaphore().setName("foo");
+    updater.scheduleForUpdate(first, 1);
+    updater.scheduleForUpdate(second, 1);
+    updater.stopUpdate("foo");
+
+    Thread.sleep(2000);
+
+    verifyZeroInteractions(dao);
+  }
+
+  @Test
+  public void schedule_and_cancel_updates_concurrently() throws Exception {
+    final int threads = 20;
+    final CountDownLatch start = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    List<Future<Object>> results = newArrayList();
+    for (int i = 0; i < threads; i++) {
+      final Semaphores.Semaphore semaphore = new Semaphores.Semaphore().setName("foo-" + i);
+      results.add(executor.submit(new Callable<Object>() {
+        public Object call() throws Exception {
+          start.await();
+          for (int j = 0; j < 20; j++) {
+            updater.scheduleForUpdate(semaphore, 1);
+            updater.stopUpdate(semaphore.getName());
+          }
+          return null;
+        }
+      }));
+    }
+    start.countDown();
+    for (Future<Object> result : results) {
+      result.get();
+    }
+    executor.shutdown();
+    reset(dao);
+
+    Thread.sleep(2000);
+
+    // no updater is left running
+    verifyZeroInteractions(dao);
+  }
+
   @Test
   public void shouldNotFailWhenCancelNotExistingSemaphore() throws Exception {
     updater.stopUpdate("foo");
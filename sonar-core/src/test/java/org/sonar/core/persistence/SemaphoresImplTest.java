@@ -22,18 +22,23 @@ package org.sonar.core.persistence;
 import org.junit.Test;
 import org.sonar.api.utils.Semaphores;
 
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class SemaphoresImplTest {
 
+  SemaphoreDao dao = mock(SemaphoreDao.class);
+  SemaphoreUpdater updater = mock(SemaphoreUpdater.class);
+
   @Test
   public void should_be_a_bridge_over_dao() {
-    SemaphoreDao dao = mock(SemaphoreDao.class);
-    SemaphoreUpdater updater = mock(SemaphoreUpdater.class);
     Semaphores.Semaphore semaphore = new Semaphores.Semaphore();
     when(dao.acquire(anyString(), anyInt())).thenReturn(semaphore);
 
@@ -48,4 +53,55 @@ public class SemaphoresImplTest {
     impl.release("do-xxx");
     verify(dao).release("do-xxx");
   }
+
+  @Test
+  public void should_update_only_acquired_semaphore() {
+    when(dao.acquire("do-xxx", 15)).thenReturn(new Semaphores.Semaphore().setName("do-xxx").setLocked(false));
+
+    Semaphores.Semaphore semaphore = new SemaphoresImpl(dao, updater).acquire("do-xxx", 15, 10);
+
+    assertThat(semaphore.isLocked()).isFalse();
+    verify(updater, never()).scheduleForUpdate(any(Semaphores.Semaphore.class), anyInt());
+  }
+
+  @Test
+  public void should_not_wait_if_max_wait_is_zero() {
+    when(dao.acquire("do-xxx", 15)).thenReturn(new Semaphores.Semaphore().setName("do-xxx").setLocked(false));
+
+    Semaphores.Semaphore semaphore = new SemaphoresImpl(dao, updater).acquire("do-xxx", 15, 10, 0);
+
+    assertThat(semaphore.isLocked()).isFalse();
+    verify(dao, never()).addWaiter(anyString());
+  }
+
+  @Test
+  public void should_acquire_semaphore_once_first_waiter() {
+    Semaphores.Semaphore locked = new Semaphores.Semaphore().setName("do-xxx").setLocked(true);
+    when(dao.addWaiter("do-xxx")).thenReturn("do-xxx#waiting#1");
+    when(dao.isFirstWaiter("do-xxx", "do-xxx#waiting#1", 15)).thenReturn(false, true);
+    when(dao.acquire("do-xxx", 15)).thenReturn(locked);
+
+    Semaphores.Semaphore semaphore = new SemaphoresImpl(dao, updater, 1L).acquire("do-xxx", 15, 10, 60);
+
+    assertThat(semaphore).isSameAs(locked);
+    verify(updater).scheduleForUpdate(locked, 10);
+    verify(updater).stopUpdate("do-xxx#waiting#1");
+    verify(dao).release("do-xxx#waiting#1");
+    verify(dao, never()).release("do-xxx");
+  }
+
+  @Test
+  public void should_give_up_when_max_wait_is_reached() {
+    when(dao.addWaiter("do-xxx")).thenReturn("do-xxx#waiting#1");
+    when(dao.isFirstWaiter("do-xxx", "do-xxx#waiting#1", 15)).thenReturn(false);
+    when(dao.acquire("do-xxx", 15)).thenReturn(new Semaphores.Semaphore().setName("do-xxx").setLocked(false).setDurationSinceLocked(1000L));
+
+    Semaphores.Semaphore semaphore = new SemaphoresImpl(dao, updater, 10L).acquire("do-xxx", 15, 10, 1);
+
+    assertThat(semaphore.isLocked()).isFalse();
+    // waiter is kept alive while waiting
+    verify(updater).scheduleForUpdate(any(Semaphores.Semaphore.class), eq(10));
+    verify(updater).stopUpdate("do-xxx#waiting#1");
+    verify(dao).release("do-xxx#waiting#1");
+  }
 }
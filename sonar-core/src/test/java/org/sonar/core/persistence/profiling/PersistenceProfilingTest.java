@@ -100,4 +100,104 @@ public class PersistenceProfilingTest {
     assertThat(appender.list.get(1).getLevel()).isEqualTo(Level.INFO);
     assertThat(appender.list.get(1).getFormattedMessage()).contains(sql);
   }
+
+  @Test
+  public void should_aggregate_sql_statistics_without_logging_when_metrics_are_enabled() throws Exception {
+    final Logger sqlLogger = (Logger) LoggerFactory.getLogger("sql");
+    ListAppender<ILoggingEvent> appender = new ListAppender<ILoggingEvent>();
+    appender.setContext(new ContextBase());
+    appender.start();
+    sqlLogger.addAppender(appender);
+    SqlStatistics.INSTANCE.reset();
+
+    BasicDataSource originDataSource = mock(BasicDataSource.class);
+    Connection connection = mock(Connection.class);
+    when(originDataSource.getConnection()).thenReturn(connection);
+    String sql = "select id from projects where kee=?";
+    PreparedStatement preparedStatement = mock(PreparedStatement.class);
+    when(connection.prepareStatement(sql)).thenReturn(preparedStatement);
+    ResultSet resultSet = mock(ResultSet.class);
+    when(preparedStatement.executeQuery()).thenReturn(resultSet);
+    when(resultSet.next()).thenReturn(true, true, false, true, false);
+
+    Settings settings = new Settings();
+    settings.setProperty(Profiling.CONFIG_PROFILING_METRICS, true);
+    BasicDataSource resultDataSource = PersistenceProfiling.addProfilingIfNeeded(originDataSource, settings);
+    assertThat(resultDataSource).isInstanceOf(ProfilingDataSource.class);
+
+    for (int i = 0; i < 2; i++) {
+      PreparedStatement preparedStatementProxy = resultDataSource.getConnection().prepareStatement(sql);
+      preparedStatementProxy.setString(1, "struts" + i);
+      ResultSet resultSetProxy = preparedStatementProxy.executeQuery();
+      while (resultSetProxy.next()) {
+        resultSetProxy.getLong(1);
+      }
+      resultSetProxy.close();
+    }
+
+    assertThat(appender.list).isEmpty();
+    assertThat(SqlStatistics.INSTANCE.entries(10)).hasSize(1);
+    SqlStatistics.Entry entry = SqlStatistics.INSTANCE.entries(10).get(0);
+    assertThat(entry.sql()).isEqualTo(sql);
+    assertThat(entry.executions()).isEqualTo(2);
+    assertThat(entry.rows()).isEqualTo(3);
+  }
+
+  @Test
+  public void should_aggregate_batched_statements() throws Exception {
+    SqlStatistics.INSTANCE.reset();
+    BasicDataSource originDataSource = mock(BasicDataSource.class);
+    Connection connection = mock(Connection.class);
+    when(originDataSource.getConnection()).thenReturn(connection);
+    String sql = "insert into measures (value) values (?)";
+    PreparedStatement preparedStatement = mock(PreparedStatement.class);
+    when(connection.prepareStatement(sql)).thenReturn(preparedStatement);
+    when(preparedStatement.executeBatch()).thenReturn(new int[] {1, 1, 1});
+
+    Settings settings = new Settings();
+    settings.setProperty(Profiling.CONFIG_PROFILING_METRICS, true);
+    PreparedStatement preparedStatementProxy = PersistenceProfiling.addProfilingIfNeeded(originDataSource, settings).getConnection().prepareStatement(sql);
+    for (int i = 0; i < 3; i++) {
+      preparedStatementProxy.setInt(1, i);
+      preparedStatementProxy.addBatch();
+    }
+    preparedStatementProxy.executeBatch();
+
+    SqlStatistics.Entry entry = SqlStatistics.INSTANCE.entries(10).get(0);
+    assertThat(entry.executions()).isEqualTo(1);
+    assertThat(entry.batches()).isEqualTo(1);
+    assertThat(entry.batchedStatements()).isEqualTo(3);
+    assertThat(entry.rows()).isEqualTo(3);
+  }
+
+  @Test
+  public void should_count_updated_rows_once() throws Exception {
+    SqlStatistics.INSTANCE.reset();
+    BasicDataSource originDataSource = mock(BasicDataSource.class);
+    Connection connection = mock(Connection.class);
+    when(originDataSource.getConnection()).thenReturn(connection);
+    String sql = "update projects set enabled=? where id=?";
+    PreparedStatement preparedStatement = mock(PreparedStatement.class);
+    when(connection.prepareStatement(sql)).thenReturn(preparedStatement);
+    when(preparedStatement.executeUpdate()).thenReturn(2);
+    when(preparedStatement.execute()).thenReturn(false);
+    when(preparedStatement.getUpdateCount()).thenReturn(2);
+
+    Settings settings = new Settings();
+    settings.setProperty(Profiling.CONFIG_PROFILING_METRICS, true);
+    PreparedStatement preparedStatementProxy = PersistenceProfiling.addProfilingIfNeeded(originDataSource, settings).getConnection().prepareStatement(sql);
+
+    // update count returned by executeUpdate(), then read again
+    preparedStatementProxy.executeUpdate();
+    assertThat(preparedStatementProxy.getUpdateCount()).isEqualTo(2);
+    SqlStatistics.Entry entry = SqlStatistics.INSTANCE.entries(10).get(0);
+    assertThat(entry.rows()).isEqualTo(2);
+
+    // update count of execute() read several times
+    preparedStatementProxy.execute();
+    preparedStatementProxy.getUpdateCount();
+    preparedStatementProxy.getUpdateCount();
+    assertThat(entry.executions()).isEqualTo(2);
+    assertThat(entry.rows()).isEqualTo(4);
+  }
 }
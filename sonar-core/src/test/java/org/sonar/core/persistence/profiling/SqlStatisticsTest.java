@@ -0,0 +1,89 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.persistence.profiling;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class SqlStatisticsTest {
+
+  SqlStatistics statistics = new SqlStatistics();
+
+  @Test
+  public void normalize_sql() throws Exception {
+    assertThat(SqlStatistics.normalize("select *\n  from projects where id=12 and kee='struts'")).isEqualTo("select * from projects where id=? and kee=?");
+    assertThat(SqlStatistics.normalize("select * from t where name='it''s' and value>-1.5")).isEqualTo("select * from t where name=? and value>?");
+    assertThat(SqlStatistics.normalize("select col1, t2.col2 from table1 t1, table2 t2 where t1.id = ?")).isEqualTo("select col1, t2.col2 from table1 t1, table2 t2 where t1.id = ?");
+  }
+
+  @Test
+  public void aggregate_executions_of_same_request() throws Exception {
+    statistics.entry("select * from projects where id=1").recordExecution(10L);
+    statistics.entry("select * from projects where id=2").recordExecution(30L);
+    statistics.entry("select * from projects where id=3").addRows(1L);
+
+    List<SqlStatistics.Entry> entries = statistics.entries(10);
+    assertThat(entries).hasSize(1);
+    SqlStatistics.Entry entry = entries.get(0);
+    assertThat(entry.sql()).isEqualTo("select * from projects where id=?");
+    assertThat(entry.executions()).isEqualTo(2);
+    assertThat(entry.totalTime()).isEqualTo(40);
+    assertThat(entry.maxTime()).isEqualTo(30);
+    assertThat(entry.rows()).isEqualTo(1);
+  }
+
+  @Test
+  public void record_batches() throws Exception {
+    SqlStatistics.Entry entry = statistics.entry("insert into measures (value) values (?)");
+    entry.recordBatch(5L, 100);
+    entry.recordBatch(3L, 20);
+
+    assertThat(entry.executions()).isEqualTo(2);
+    assertThat(entry.batches()).isEqualTo(2);
+    assertThat(entry.batchedStatements()).isEqualTo(120);
+  }
+
+  @Test
+  public void sort_by_descending_total_time() throws Exception {
+    statistics.entry("select 1 from a").recordExecution(10L);
+    statistics.entry("select 1 from b").recordExecution(30L);
+    statistics.entry("select 1 from c").recordExecution(20L);
+
+    assertThat(statistics.entries(10)).onProperty("sql").containsExactly("select ? from b", "select ? from c", "select ? from a");
+    assertThat(statistics.entries(2)).onProperty("sql").containsExactly("select ? from b", "select ? from c");
+
+    statistics.reset();
+    assertThat(statistics.isEmpty()).isTrue();
+  }
+
+  @Test
+  public void evict_least_executed_entry_when_full() throws Exception {
+    statistics = new SqlStatistics(2);
+    statistics.entry("select 1 from a").recordExecution(1L);
+    statistics.entry("select 1 from a").recordExecution(1L);
+    statistics.entry("select 1 from b").recordExecution(100L);
+    statistics.entry("select 1 from c").recordExecution(1L);
+
+    assertThat(statistics.entries(10)).onProperty("sql").containsExactly("select ? from a", "select ? from c");
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.profiling;
+
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.fest.assertions.Fail.fail;
+
+public class HistogramTest {
+
+  Histogram histogram = new Histogram();
+
+  @Test
+  public void empty_histogram() throws Exception {
+    assertThat(histogram.count()).isEqualTo(0);
+    assertThat(histogram.mean()).isEqualTo(0.0);
+    assertThat(histogram.max()).isEqualTo(0);
+    assertThat(histogram.percentile(99.0)).isEqualTo(0);
+  }
+
+  @Test
+  public void record_values() throws Exception {
+    for (int i = 1; i <= 100; i++) {
+      histogram.record(i);
+    }
+
+    assertThat(histogram.count()).isEqualTo(100);
+    assertThat(histogram.sum()).isEqualTo(5050);
+    assertThat(histogram.mean()).isEqualTo(50.5);
+    assertThat(histogram.max()).isEqualTo(100);
+    assertThat(histogram.percentile(0.0)).isEqualTo(1);
+    assertThat(histogram.percentile(10.0)).isEqualTo(10);
+    assertThat(histogram.percentile(100.0)).isEqualTo(100);
+    // approximated with 12.5% precision
+    assertThat(histogram.percentile(50.0)).isGreaterThanOrEqualTo(50).isLessThanOrEqualTo(57);
+    assertThat(histogram.percentile(99.0)).isGreaterThanOrEqualTo(99).isLessThanOrEqualTo(100);
+  }
+
+  @Test
+  public void negative_values_are_recorded_as_zero() throws Exception {
+    histogram.record(-5);
+
+    assertThat(histogram.count()).isEqualTo(1);
+    assertThat(histogram.percentile(50.0)).isEqualTo(0);
+  }
+
+  @Test
+  public void buckets_cover_all_values() throws Exception {
+    for (long value : new long[] {0L, 7L, 8L, 15L, 16L, 17L, 1000L, 123456789L, Long.MAX_VALUE}) {
+      int bucket = Histogram.bucket(value);
+      assertThat(Histogram.highestValue(bucket)).isGreaterThanOrEqualTo(value);
+      assertThat(Histogram.highestValue(bucket) - value).isLessThanOrEqualTo(value / 8);
+    }
+  }
+
+  @Test
+  public void fail_on_bad_percentile() throws Exception {
+    try {
+      histogram.percentile(101.0);
+      fail();
+    } catch (IllegalArgumentException e) {
+      assertThat(e).hasMessage("Percentile must be between 0 and 100: 101.0");
+    }
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.profiling;
+
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.fest.assertions.MapAssert.entry;
+
+public class ProfilingMetricsTest {
+
+  ProfilingMetrics metrics = new ProfilingMetrics();
+
+  @Test
+  public void register_histograms_and_counters_on_first_use() throws Exception {
+    metrics.histogram("es").record(12L);
+    metrics.histogram("es").record(14L);
+    metrics.histogram("sql").record(1L);
+    metrics.counter("notifications.sent").addAndGet(3L);
+
+    assertThat(metrics.histograms().keySet()).containsExactly("es", "sql");
+    assertThat(metrics.getHistogramNames()).containsOnly("es", "sql");
+    assertThat(metrics.getCount("es")).isEqualTo(2);
+    assertThat(metrics.getPercentile("es", 100.0)).isEqualTo(14);
+    assertThat(metrics.getCount("unknown")).isEqualTo(0);
+    assertThat(metrics.counters()).includes(entry("notifications.sent", 3L));
+  }
+
+  @Test
+  public void evaluate_gauges_when_read() throws Exception {
+    final long[] queueSize = {2L};
+    metrics.gauge("es.queue", new ProfilingMetrics.Gauge() {
+      @Override
+      public long value() {
+        return queueSize[0];
+      }
+    });
+    assertThat(metrics.gauges().get("es.queue")).isEqualTo(2L);
+
+    queueSize[0] = 5L;
+    assertThat(metrics.getGauges().get("es.queue")).isEqualTo(5L);
+
+    metrics.removeGauge("es.queue");
+    assertThat(metrics.gauges()).isEmpty();
+  }
+
+  @Test
+  public void reset() throws Exception {
+    metrics.histogram("es").record(12L);
+    metrics.counter("notifications.sent").incrementAndGet();
+
+    metrics.reset();
+
+    assertThat(metrics.histograms()).isEmpty();
+    assertThat(metrics.counters()).isEmpty();
+  }
+}
@@ -19,6 +19,7 @@
  */
 package org.sonar.core.profiling;
 
+import static org.fest.assertions.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
 
 import org.slf4j.Logger;
@@ -35,6 +36,7 @@ public class ProfilingTest {
   private ProfilingLogFactory logFactory;
   private Logger logger;
   private Profiling profiling;
+  private ProfilingMetrics metrics;
 
   private static final String BASIC_MESSAGE = "Basic message";
   private static final String FULL_MESSAGE = "Full message";
@@ -45,7 +47,8 @@ public class ProfilingTest {
     logFactory = mock(ProfilingLogFactory.class);
     logger = mock(Logger.class);
     Mockito.when(logFactory.getLogger(Mockito.anyString())).thenReturn(logger);
-    profiling = new Profiling(settings, logFactory);
+    metrics = new ProfilingMetrics();
+    profiling = new Profiling(settings, logFactory, metrics);
   }
 
   @Test
@@ -84,6 +87,23 @@ public class ProfilingTest {
     Mockito.verify(logger).info(Mockito.eq("{}ms {}"), Mockito.anyLong(), Mockito.eq(BASIC_MESSAGE));
   }
 
+  @Test
+  public void should_not_record_metrics_by_default() throws Exception {
+    settings.setProperty("sonar.log.profilingLevel", "FULL");
+    doProfiling();
+    assertThat(metrics.histograms()).isEmpty();
+  }
+
+  @Test
+  public void should_record_metrics_of_all_levels_without_logging() throws Exception {
+    settings.setProperty("sonar.log.profilingMetrics", "true");
+    doProfiling();
+    Mockito.verifyZeroInteractions(logger);
+    assertThat(metrics.histograms().keySet()).containsOnly("basic", "full");
+    assertThat(metrics.histogram("full").count()).isEqualTo(1);
+    assertThat(metrics.histogram("full").max()).isGreaterThanOrEqualTo(40);
+  }
+
   private void doProfiling() throws InterruptedException {
     StopWatch basicWatch = profiling.start("basic", Level.BASIC);
     StopWatch fullWatch = profiling.start("full", Level.FULL);
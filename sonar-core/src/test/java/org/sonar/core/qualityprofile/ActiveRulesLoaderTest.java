@@ -0,0 +1,88 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.qualityprofile;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.sonar.api.batch.rule.ActiveRule;
+import org.sonar.api.batch.rule.ActiveRules;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.api.rule.Severity;
+import org.sonar.core.persistence.AbstractDaoTestCase;
+import org.sonar.core.qualityprofile.db.ActiveRuleDao;
+import org.sonar.core.rule.RuleDao;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class ActiveRulesLoaderTest extends AbstractDaoTestCase {
+
+  ActiveRulesLoader loader;
+
+  @Before
+  public void setUp() {
+    loader = new ActiveRulesLoader(getMyBatis(), new ActiveRuleDao(getMyBatis()), new RuleDao(getMyBatis()));
+  }
+
+  @Test
+  public void load_active_rules() throws Exception {
+    setupData("shared");
+
+    // 1 rule is enabled on java with severity INFO, 1 rule is enabled on php with severity BLOCKER
+    ActiveRules activeRules = loader.load(Arrays.asList(2, 3));
+
+    assertThat(activeRules.findAll()).hasSize(2);
+    assertThat(activeRules.findByRepository("squid")).hasSize(1);
+    assertThat(activeRules.findByRepository("phpunit")).hasSize(1);
+    assertThat(activeRules.findByRepository("unknown")).isEmpty();
+    ActiveRule squidRule = activeRules.find(RuleKey.of("squid", "S0001"));
+    assertThat(squidRule.severity()).isEqualTo(Severity.INFO);
+    assertThat(squidRule.internalKey()).isNull();
+    // "max" and "format" parameters are set in db, "min" is not set but has a default value
+    assertThat(squidRule.params()).hasSize(3);
+    assertThat(squidRule.param("min")).isEqualTo("12");
+    assertThat(squidRule.param("max")).isEqualTo("20");
+    assertThat(squidRule.param("format")).isEqualTo("html");
+
+    ActiveRule phpRule = activeRules.find(RuleKey.of("phpunit", "P1"));
+    assertThat(phpRule.severity()).isEqualTo(Severity.BLOCKER);
+    assertThat(phpRule.params()).isEmpty();
+  }
+
+  @Test
+  public void use_config_key_of_template_and_ignore_removed_rules() throws Exception {
+    setupData("shared");
+
+    ActiveRules activeRules = loader.load(Arrays.asList(4));
+
+    assertThat(activeRules.findAll()).hasSize(1);
+    assertThat(activeRules.find(RuleKey.of("cobol", "Template_1234")).internalKey()).isEqualTo("Checker/Template");
+    assertThat(activeRules.find(RuleKey.of("cobol", "Removed"))).isNull();
+  }
+
+  @Test
+  public void no_active_rules_without_profiles() throws Exception {
+    setupData("shared");
+
+    assertThat(loader.load(Collections.<Integer>emptyList()).findAll()).isEmpty();
+  }
+}
@@ -92,6 +92,17 @@ public class ResourceDaoTest extends AbstractDaoTestCase {
     assertThat(file.getPath()).isEqualTo("src/org/struts/RequestContext.java");
   }
 
+  @Test
+  public void get_snapshot_by_id() {
+    setupData("fixture");
+
+    SnapshotDto snapshot = dao.getSnapshot(1L);
+    assertThat(snapshot.getId()).isEqualTo(1L);
+    assertThat(snapshot.getStatus()).isEqualTo("P");
+
+    assertThat(dao.getSnapshot(987654321L)).isNull();
+  }
+
   @Test
   public void getResource_not_found() {
     setupData("fixture");
@@ -28,7 +28,9 @@ import org.sonar.api.rules.Rule;
 import org.sonar.api.utils.DateUtils;
 import org.sonar.check.Cardinality;
 import org.sonar.core.persistence.AbstractDaoTestCase;
+import org.sonar.core.persistence.MyBatis;
 
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 
@@ -70,6 +72,22 @@ public class RuleDaoTest extends AbstractDaoTestCase {
     assertThat(ruleDto.getRepositoryKey()).isEqualTo("checkstyle");
   }
 
+  @Test
+  public void select_by_ids() throws Exception {
+    setupData("selectById");
+    SqlSession session = getMyBatis().openSession();
+    try {
+      List<RuleDto> ruleDtos = dao.selectByIds(ImmutableList.of(2, 42), session);
+
+      assertThat(ruleDtos).hasSize(1);
+      assertThat(ruleDtos.get(0).getId()).isEqualTo(2);
+      assertThat(ruleDtos.get(0).getRepositoryKey()).isEqualTo("checkstyle");
+      assertThat(dao.selectByIds(Collections.<Integer>emptyList(), session)).isEmpty();
+    } finally {
+      MyBatis.closeQuietly(session);
+    }
+  }
+
   @Test
   public void select_by_name() throws Exception {
     setupData("select_by_name");
@@ -262,6 +280,21 @@ public class RuleDaoTest extends AbstractDaoTestCase {
     assertThat(ruleDto.getRuleId()).isEqualTo(ruleId);
   }
 
+  @Test
+  public void select_parameters_by_rule_ids() throws Exception {
+    setupData("selectParamsForRule");
+    SqlSession session = getMyBatis().openSession();
+    try {
+      List<RuleParamDto> ruleDtos = dao.selectParametersByRuleIds(ImmutableList.of(1, 2), session);
+
+      assertThat(ruleDtos).hasSize(2);
+      assertThat(dao.selectParametersByRuleIds(ImmutableList.of(1), session)).onProperty("name").containsOnly("myParameter");
+      assertThat(dao.selectParametersByRuleIds(Collections.<Integer>emptyList(), session)).isEmpty();
+    } finally {
+      MyBatis.closeQuietly(session);
+    }
+  }
+
   @Test
   public void insert_parameter() {
     setupData("insert_parameter");
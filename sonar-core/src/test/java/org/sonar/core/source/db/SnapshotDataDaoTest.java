@@ -21,11 +21,14 @@
 package org.sonar.core.source.db;
 
 import com.google.common.collect.Lists;
+import org.apache.ibatis.session.SqlSession;
 import org.junit.Before;
 import org.junit.Test;
 import org.sonar.core.persistence.AbstractDaoTestCase;
+import org.sonar.core.persistence.MyBatis;
 
 import java.util.Collection;
+import java.util.List;
 
 import static org.fest.assertions.Assertions.assertThat;
 
@@ -77,4 +80,15 @@ public class SnapshotDataDaoTest extends AbstractDaoTestCase {
     assertThat(data).onProperty("dataType").containsOnly("highlight_syntax", "symbol");
     assertThat(data).onProperty("data").containsOnly("0,10,k;", "20,25,20,35,45;");
   }
+
+  @Test
+  public void select_snapshot_ids_by_component_key() throws Exception {
+    SqlSession session = getMyBatis().openSession();
+    try {
+      List<Long> snapshotIds = dao.selectSnapshotIdsByComponentKey("org.apache.struts:struts:Dispatcher", Lists.newArrayList("highlight_syntax", "symbol"), session);
+      assertThat(snapshotIds).containsOnly(10L);
+    } finally {
+      MyBatis.closeQuietly(session);
+    }
+  }
 }
@@ -19,9 +19,13 @@
  */
 package org.sonar.core.template;
 
+import org.apache.ibatis.session.SqlSession;
 import org.junit.Before;
 import org.junit.Test;
 import org.sonar.core.persistence.AbstractDaoTestCase;
+import org.sonar.core.persistence.MyBatis;
+
+import java.util.List;
 
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
@@ -52,4 +56,30 @@ public class LoadedTemplateDaoTest extends AbstractDaoTestCase {
 
     checkTables("shouldInsert", "loaded_templates");
   }
+
+  @Test
+  public void shouldSelectByType() throws Exception {
+    setupData("shouldSelectByType");
+
+    List<LoadedTemplateDto> templates = dao.selectByType(LoadedTemplateDto.RULE_REPOSITORY_TYPE);
+
+    assertThat(templates.size(), is(2));
+    assertThat(templates.get(0).getType(), is(LoadedTemplateDto.RULE_REPOSITORY_TYPE));
+    assertThat(dao.selectByType("UNKNOWN").isEmpty(), is(true));
+  }
+
+  @Test
+  public void shouldDelete() throws Exception {
+    setupData("shouldSelectByType");
+
+    SqlSession session = getMyBatis().openSession();
+    try {
+      dao.delete(LoadedTemplateDto.RULE_REPOSITORY_TYPE, "java:8c6cb4a1a4a1e0c2f1d2b5d4e3f0a9b7", session);
+      session.commit();
+    } finally {
+      MyBatis.closeQuietly(session);
+    }
+
+    checkTables("shouldDelete", "loaded_templates");
+  }
 }
@@ -152,6 +152,39 @@ public class AuthorizationDaoTest extends AbstractDaoTestCase {
     assertThat(rootProjectIds).isEmpty();
   }
 
+  @Test
+  public void should_select_authorized_root_project_ids() {
+    setupData("should_select_authorized_root_project_ids");
+
+    AuthorizationDao authorization = new AuthorizationDao(getMyBatis());
+    assertThat(authorization.selectAuthorizedRootProjectIdsOfUser(USER, "user")).containsOnly(300L);
+    assertThat(authorization.selectAuthorizedRootProjectIdsOfUser(USER, "admin")).isEmpty();
+    assertThat(authorization.selectAuthorizedRootProjectIdsOfGroup(200L, "user")).containsOnly(301L);
+    assertThat(authorization.selectAuthorizedRootProjectIdsOfGroup(200L, "admin")).containsOnly(302L);
+    assertThat(authorization.selectAuthorizedRootProjectIdsOfGroup(null, "user")).containsOnly(302L);
+    assertThat(authorization.selectAuthorizedRootProjectIdsOfGroup(201L, "user")).isEmpty();
+  }
+
+  @Test
+  public void should_select_group_ids_of_user() {
+    setupData("should_select_authorized_root_project_ids");
+
+    AuthorizationDao authorization = new AuthorizationDao(getMyBatis());
+    assertThat(authorization.selectGroupIdsOfUser(USER)).containsOnly(200L, 201L);
+    assertThat(authorization.selectGroupIdsOfUser(999L)).isEmpty();
+  }
+
+  @Test
+  public void should_select_root_project_ids() {
+    setupData("should_select_authorized_root_project_ids");
+
+    AuthorizationDao authorization = new AuthorizationDao(getMyBatis());
+    assertThat(authorization.selectRootProjectIdByKey(PROJECT)).isEqualTo(300L);
+    assertThat(authorization.selectRootProjectIdByKey(FILE)).isNull();
+    assertThat(authorization.selectRootProjectIdByKey("unknown")).isNull();
+    assertThat(authorization.selectMaxRootProjectId()).isEqualTo(302L);
+  }
+
   @Test
   public void should_return_user_global_permissions() {
     setupData("should_return_user_global_permissions");
@@ -19,21 +19,25 @@
  */
 package org.sonar.duplications.token;
 
+import java.util.BitSet;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.sonar.channel.Channel;
 import org.sonar.channel.CodeBuffer.Cursor;
 import org.sonar.channel.CodeReader;
+import org.sonar.channel.RegexFirstCharacters;
 
 class TokenChannel extends Channel<TokenQueue> {
 
   private final StringBuilder tmpBuilder = new StringBuilder();
   private final Matcher matcher;
+  private final BitSet firstCharacters;
   private String normalizationValue;
 
   public TokenChannel(String regex) {
     matcher = Pattern.compile(regex).matcher("");
+    firstCharacters = RegexFirstCharacters.of(regex);
   }
 
   public TokenChannel(String regex, String normalizationValue) {
@@ -58,4 +62,9 @@ class TokenChannel extends Channel<TokenQueue> {
     return false;
   }
 
+  @Override
+  public BitSet getFirstCharacters() {
+    return firstCharacters == null ? null : (BitSet) firstCharacters.clone();
+  }
+
 }
@@ -19,21 +19,26 @@
  */
 package org.sonar.duplications.token;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
 
 public class TokenQueue implements Iterable<Token> {
 
-  private final LinkedList<Token> tokenQueue;
+  // array-backed : no node allocated per token, unlike LinkedList. It does not accept null elements.
+  private final Deque<Token> tokenQueue;
 
   public TokenQueue(List<Token> tokenList) {
-    tokenQueue = new LinkedList<Token>(tokenList);
+    tokenQueue = new ArrayDeque<Token>(tokenList.size());
+    for (Token token : tokenList) {
+      add(token);
+    }
   }
 
   public TokenQueue() {
-    tokenQueue = new LinkedList<Token>();
+    tokenQueue = new ArrayDeque<Token>();
   }
 
   /**
@@ -58,8 +63,11 @@ public class TokenQueue implements Iterable<Token> {
     return tokenQueue.size();
   }
 
+  /**
+   * @throws IllegalArgumentException if token is null
+   */
   public void add(Token token) {
-    tokenQueue.addLast(token);
+    tokenQueue.addLast(checkNotNull(token));
   }
 
   public boolean isNextTokenValue(String expectedValue) {
@@ -75,11 +83,25 @@ public class TokenQueue implements Iterable<Token> {
     return tokenQueue.iterator();
   }
 
+  /**
+   * @throws IllegalArgumentException if one of the tokens is null
+   */
   public void pushForward(List<Token> matchedTokenList) {
+    // checked before any change, so that the queue is left unchanged on failure
+    for (Token token : matchedTokenList) {
+      checkNotNull(token);
+    }
     ListIterator<Token> iter = matchedTokenList.listIterator(matchedTokenList.size());
     while (iter.hasPrevious()) {
       tokenQueue.addFirst(iter.previous());
     }
   }
 
+  private static Token checkNotNull(Token token) {
+    if (token == null) {
+      throw new IllegalArgumentException("A token queue can't contain null tokens");
+    }
+    return token;
+  }
+
 }
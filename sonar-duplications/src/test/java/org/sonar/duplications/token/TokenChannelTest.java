@@ -20,6 +20,7 @@
 package org.sonar.duplications.token;
 
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
@@ -62,6 +63,13 @@ public class TokenChannelTest {
     assertThat(codeReader.getColumnPosition(), is(3));
   }
 
+  @Test
+  public void shouldDeclareFirstCharacters() {
+    assertThat(new TokenChannel("[0-9]++").getFirstCharacters().get('1'), is(true));
+    assertThat(new TokenChannel("[0-9]++").getFirstCharacters().get('a'), is(false));
+    assertThat(new TokenChannel(".").getFirstCharacters(), nullValue());
+  }
+
   @Test
   public void shouldNotConsume() {
     TokenChannel channel = new TokenChannel("ABC");
@@ -21,6 +21,7 @@ package org.sonar.duplications.token;
 
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -65,4 +66,29 @@ public class TokenQueueTest {
     assertThat(tokenQueue.size(), is(4));
   }
 
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldNotCreateQueueWithNullToken() {
+    List<Token> tokenList = new ArrayList<Token>();
+    tokenList.add(new Token("a", 1, 0));
+    tokenList.add(null);
+    new TokenQueue(tokenList);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldNotAddNullToken() {
+    tokenQueue.add(null);
+  }
+
+  @Test
+  public void shouldNotPushNullToken() {
+    List<Token> pushedTokenList = new ArrayList<Token>();
+    pushedTokenList.add(null);
+    try {
+      tokenQueue.pushForward(pushedTokenList);
+      fail();
+    } catch (IllegalArgumentException e) {
+      assertThat(e.getMessage(), is("A token queue can't contain null tokens"));
+    }
+  }
+
 }
@@ -187,11 +187,23 @@ public class FileCache {
     if (!destDir.exists()) {
       File tempDir = createTempDir();
       ZipUtils.unzip(cachedFile, tempDir, new LibFilter());
-      FileUtils.moveDirectory(tempDir, destDir);
+      renameDirQuietly(tempDir, destDir);
     }
     return destDir;
   }
 
+  private void renameDirQuietly(File sourceDir, File targetDir) throws IOException {
+    boolean rename = sourceDir.renameTo(targetDir);
+    if (!rename) {
+      if (targetDir.exists()) {
+        // unzipped by another process during extraction
+        FileUtils.deleteQuietly(sourceDir);
+      } else {
+        FileUtils.moveDirectory(sourceDir, targetDir);
+      }
+    }
+  }
+
   private static final class LibFilter implements ZipUtils.ZipEntryFilter {
     public boolean accept(ZipEntry entry) {
       return entry.getName().startsWith("META-INF/lib");
@@ -514,6 +514,15 @@ public interface CoreProperties {
   String WORKING_DIRECTORY = "sonar.working.directory";
   String WORKING_DIRECTORY_DEFAULT_VALUE = ".sonar";
 
+  /**
+   * Max duration in seconds an analysis waits for the end of a concurrent analysis of the same project
+   * before failing. Zero fails immediately.
+   *
+   * @since 4.2.1
+   */
+  String ANALYSIS_LOCK_MAX_WAIT = "sonar.analysis.lockMaxWait";
+  int ANALYSIS_LOCK_MAX_WAIT_DEFAULT_VALUE = 0;
+
   String BATCH_INCLUDE_PLUGINS = "sonar.includePlugins";
   String BATCH_EXCLUDE_PLUGINS = "sonar.excludePlugins";
 
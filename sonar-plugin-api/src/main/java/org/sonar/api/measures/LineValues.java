@@ -0,0 +1,271 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.measures;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Maps;
+import org.apache.commons.lang.math.NumberUtils;
+import org.sonar.api.utils.DateUtils;
+import org.sonar.api.utils.KeyValueFormat;
+import org.sonar.api.utils.SonarException;
+
+import javax.annotation.Nullable;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * Numeric values of the lines of a file, for example the number of hits of each line or the date of last commit
+ * of each line. Values are stored in primitive arrays: while lines are set from 1 without gaps, only values are stored,
+ * else values are stored with their sorted line numbers.
+ * <p/>
+ * The text format is the one of {@link KeyValueFormat}, for example <code>1=2;3=4</code>,
+ * so that data can be stored in the data of measures.
+ * <p/>
+ * This class is not thread-safe.
+ *
+ * @since 4.2.1
+ */
+@Beta
+public final class LineValues {
+
+  private static final int DEFAULT_CAPACITY = 16;
+
+  // null while lines are 1..size
+  private int[] lines = null;
+  private long[] values;
+  private int size = 0;
+
+  public LineValues() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  public LineValues(int capacity) {
+    values = new long[Math.max(capacity, 1)];
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Sets the value of a line. Setting lines in increasing order is the fastest.
+   */
+  public LineValues set(int line, long value) {
+    Preconditions.checkArgument(line > 0, "Line must be greater than 0: " + line);
+    int index = indexOf(line);
+    if (index >= 0) {
+      values[index] = value;
+      return this;
+    }
+    insert(-index - 1, line, value);
+    return this;
+  }
+
+  public boolean has(int line) {
+    return indexOf(line) >= 0;
+  }
+
+  /**
+   * @return the value of the line, or <code>defaultValue</code> if the line has no value
+   */
+  public long get(int line, long defaultValue) {
+    int index = indexOf(line);
+    return index >= 0 ? values[index] : defaultValue;
+  }
+
+  /**
+   * Line at the given position, lines being sorted
+   */
+  public int lineAt(int index) {
+    Preconditions.checkElementIndex(index, size);
+    return lines == null ? index + 1 : lines[index];
+  }
+
+  /**
+   * Value at the given position, lines being sorted
+   */
+  public long valueAt(int index) {
+    Preconditions.checkElementIndex(index, size);
+    return values[index];
+  }
+
+  /**
+   * @return the position of the line if found, else <code>-(insertion point) - 1</code>
+   */
+  private int indexOf(int line) {
+    if (lines == null) {
+      if (line >= 1 && line <= size) {
+        return line - 1;
+      }
+      return line > size ? -size - 1 : -1;
+    }
+    if (size > 0 && line > lines[size - 1]) {
+      return -size - 1;
+    }
+    return Arrays.binarySearch(lines, 0, size, line);
+  }
+
+  private void insert(int index, int line, long value) {
+    if (lines == null && !(index == size && line == size + 1)) {
+      // a line is missing, lines must be stored
+      lines = new int[values.length];
+      for (int i = 0; i < size; i++) {
+        lines[i] = i + 1;
+      }
+    }
+    if (size == values.length) {
+      int capacity = size * 2;
+      values = Arrays.copyOf(values, capacity);
+      if (lines != null) {
+        lines = Arrays.copyOf(lines, capacity);
+      }
+    }
+    System.arraycopy(values, index, values, index + 1, size - index);
+    values[index] = value;
+    if (lines != null) {
+      System.arraycopy(lines, index, lines, index + 1, size - index);
+      lines[index] = line;
+    }
+    size++;
+  }
+
+  /**
+   * Format of {@link KeyValueFormat}, sorted by line, for example <code>1=2;3=4</code>
+   */
+  public String format() {
+    StringBuilder sb = new StringBuilder(size * 6);
+    for (int i = 0; i < size; i++) {
+      if (i > 0) {
+        sb.append(KeyValueFormat.PAIR_SEPARATOR);
+      }
+      sb.append(lineAt(i)).append(KeyValueFormat.FIELD_SEPARATOR).append(values[i]);
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Same as {@link #format()}, values being dates in milliseconds formatted with {@link DateUtils#DATETIME_FORMAT}
+   */
+  public String formatDateTimes() {
+    SimpleDateFormat dateFormat = new SimpleDateFormat(DateUtils.DATETIME_FORMAT);
+    StringBuilder sb = new StringBuilder(size * 30);
+    for (int i = 0; i < size; i++) {
+      if (i > 0) {
+        sb.append(KeyValueFormat.PAIR_SEPARATOR);
+      }
+      sb.append(lineAt(i)).append(KeyValueFormat.FIELD_SEPARATOR).append(dateFormat.format(new Date(values[i])));
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Parses integer values, for example the data of {@link CoreMetrics#COVERAGE_LINE_HITS_DATA}.
+   * Lines without values are ignored. Invalid numbers are parsed as zero, as in {@link KeyValueFormat#parseIntInt(String)}.
+   */
+  public static LineValues parse(@Nullable String data) {
+    return parse(data, null);
+  }
+
+  /**
+   * Parses dates with format {@link DateUtils#DATETIME_FORMAT}, for example the data of {@link CoreMetrics#SCM_LAST_COMMIT_DATETIMES_BY_LINE}.
+   * Values are the dates in milliseconds.
+   */
+  public static LineValues parseDateTimes(@Nullable String data) {
+    return parse(data, new DateTimeParser());
+  }
+
+  private static LineValues parse(@Nullable String data, @Nullable DateTimeParser dateTimeParser) {
+    if (data == null) {
+      return new LineValues();
+    }
+    LineValues result = new LineValues(data.length() / 4);
+    int length = data.length();
+    int start = 0;
+    while (start < length) {
+      int end = data.indexOf(KeyValueFormat.PAIR_SEPARATOR, start);
+      if (end < 0) {
+        end = length;
+      }
+      int separator = data.indexOf(KeyValueFormat.FIELD_SEPARATOR, start);
+      // lines without values are ignored
+      if (separator > start && separator < end - 1) {
+        int line = (int) parseLong(data, start, separator);
+        if (line > 0) {
+          long value = dateTimeParser == null ? parseLong(data, separator + 1, end) : dateTimeParser.parse(data.substring(separator + 1, end));
+          result.set(line, value);
+        }
+      }
+      start = end + 1;
+    }
+    return result;
+  }
+
+  private static long parseLong(String data, int start, int end) {
+    boolean negative = data.charAt(start) == '-';
+    int i = negative ? start + 1 : start;
+    if (i == end || end - i > 18) {
+      return NumberUtils.toLong(data.substring(start, end));
+    }
+    long result = 0L;
+    for (; i < end; i++) {
+      int digit = data.charAt(i) - '0';
+      if (digit < 0 || digit > 9) {
+        return NumberUtils.toLong(data.substring(start, end));
+      }
+      result = result * 10 + digit;
+    }
+    return negative ? -result : result;
+  }
+
+  /**
+   * Files usually have few distinct dates of commits, so parsed dates are reused
+   */
+  private static class DateTimeParser {
+    private final SimpleDateFormat dateFormat = new SimpleDateFormat(DateUtils.DATETIME_FORMAT);
+    private final Map<String, Long> parsed = Maps.newHashMap();
+
+    long parse(String s) {
+      Long time = parsed.get(s);
+      if (time == null) {
+        try {
+          time = dateFormat.parse(s).getTime();
+        } catch (ParseException e) {
+          throw new SonarException("Not a date with format: " + DateUtils.DATETIME_FORMAT, e);
+        }
+        parsed.put(s, time);
+      }
+      return time;
+    }
+  }
+
+  @Override
+  public String toString() {
+    return format();
+  }
+}
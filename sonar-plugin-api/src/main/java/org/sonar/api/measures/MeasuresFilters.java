@@ -120,6 +120,32 @@ public final class MeasuresFilters {
       measureRequirement.equals(requirement);
   }
 
+  /**
+   * All the measures of the metric that are attached to a requirement. Allows to aggregate values of
+   * all requirements in a single pass instead of requesting them one by one.
+   * @since 4.2.1
+   */
+  public static MeasuresFilter<Collection<Measure>> requirements(final Metric metric) {
+    return new MetricFilter<Collection<Measure>>(metric) {
+
+      public Collection<Measure> filter(Collection<Measure> measures) {
+        if (measures == null) {
+          return null;
+        }
+        List<Measure> result = new ArrayList<Measure>();
+        for (Measure measure : measures) {
+          if (measure.getClass().equals(Measure.class) &&
+            measure.getMetric().equals(metric) &&
+            measure.getPersonId() == null &&
+            measure.getRequirement() != null) {
+            result.add(measure);
+          }
+        }
+        return result;
+      }
+    };
+  }
+
   /**
    * @since 2.0
    */
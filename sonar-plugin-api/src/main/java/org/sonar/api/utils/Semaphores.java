@@ -48,6 +48,23 @@ public interface Semaphores extends TaskComponent, ServerComponent {
    */
   Semaphore acquire(String name, int maxAgeInSeconds, int updatePeriodInSeconds);
 
+  /**
+   * Same as {@link #acquire(String, int, int)}, but waits up to the given duration for the semaphore to be
+   * released instead of returning immediately. Concurrent waiters are granted the semaphore in their order of arrival.
+   * Waiters are also periodically updated, so the ones that disappeared without giving up are considered as
+   * outdated after the max age and do not block the next ones.
+   *
+   * @param name                  the key of the semaphore
+   * @param maxAgeInSeconds       the max duration in seconds the semaphore, or a waiter, will be considered unlocked if
+   *                              it was not updated.
+   * @param updatePeriodInSeconds the period in seconds the semaphore, or the waiter, will be updated.
+   * @param maxWaitInSeconds      the max duration in seconds to wait for the semaphore. The value zero is
+   *                              equivalent to {@link #acquire(String, int, int)}.
+   * @return the semaphore, whatever its status (locked or unlocked). Can't be null.
+   * @since 4.2.1
+   */
+  Semaphore acquire(String name, int maxAgeInSeconds, int updatePeriodInSeconds, int maxWaitInSeconds);
+
   /**
    * Try to acquire a semaphore.
    * The semaphore will be acquired only if there's no existing lock.
@@ -251,6 +251,21 @@ public class JsonWriter {
     return name(name).value(value);
   }
 
+  /**
+   * Sends the characters written so far to the underlying writer, so that they can be streamed
+   * to client without waiting for the end of the document.
+   * @throws org.sonar.api.utils.text.WriterException on any failure
+   * @since 4.2.1
+   */
+  public JsonWriter flush() {
+    try {
+      stream.flush();
+      return this;
+    } catch (Exception e) {
+      throw rethrow(e);
+    }
+  }
+
   /**
    * @throws org.sonar.api.utils.text.WriterException on any failure
    */
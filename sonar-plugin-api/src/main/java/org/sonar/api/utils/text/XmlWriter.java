@@ -151,6 +151,20 @@ public class XmlWriter {
     }
   }
 
+  /**
+   * Sends the characters written so far to the underlying writer, so that they can be streamed
+   * to client without waiting for the end of the document.
+   * @since 4.2.1
+   */
+  public XmlWriter flush() {
+    try {
+      stream.flush();
+      return this;
+    } catch (XMLStreamException e) {
+      throw rethrow(e);
+    }
+  }
+
   public void close() {
     try {
       stream.writeEndDocument();
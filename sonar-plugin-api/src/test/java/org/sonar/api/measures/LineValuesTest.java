@@ -0,0 +1,108 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.measures;
+
+import org.junit.Test;
+import org.sonar.api.utils.DateUtils;
+import org.sonar.api.utils.SonarException;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.fest.assertions.Fail.fail;
+
+public class LineValuesTest {
+
+  @Test
+  public void set_contiguous_lines() {
+    LineValues values = new LineValues(1);
+    values.set(1, 10L).set(2, 20L).set(3, 30L);
+
+    assertThat(values.size()).isEqualTo(3);
+    assertThat(values.has(2)).isTrue();
+    assertThat(values.get(2, -1L)).isEqualTo(20L);
+    assertThat(values.has(4)).isFalse();
+    assertThat(values.get(4, -1L)).isEqualTo(-1L);
+    assertThat(values.lineAt(2)).isEqualTo(3);
+    assertThat(values.valueAt(2)).isEqualTo(30L);
+  }
+
+  @Test
+  public void set_sparse_lines() {
+    LineValues values = new LineValues(2);
+    values.set(5, 50L).set(1, 10L).set(1000, 0L).set(3, 30L).set(5, 55L);
+
+    assertThat(values.size()).isEqualTo(4);
+    assertThat(values.has(2)).isFalse();
+    assertThat(values.get(5, -1L)).isEqualTo(55L);
+    assertThat(values.get(1000, -1L)).isEqualTo(0L);
+    assertThat(values.format()).isEqualTo("1=10;3=30;5=55;1000=0");
+  }
+
+  @Test
+  public void switch_to_sparse_lines() {
+    LineValues values = new LineValues().set(1, 10L).set(2, 20L).set(4, 40L).set(3, 30L);
+
+    assertThat(values.format()).isEqualTo("1=10;2=20;3=30;4=40");
+    assertThat(values.has(5)).isFalse();
+  }
+
+  @Test
+  public void fail_if_bad_line() {
+    try {
+      new LineValues().set(0, 10L);
+      fail();
+    } catch (IllegalArgumentException e) {
+      assertThat(e).hasMessage("Line must be greater than 0: 0");
+    }
+  }
+
+  @Test
+  public void parse() {
+    LineValues values = LineValues.parse("1=2;3=4;5=;7=-8;9=foo");
+
+    assertThat(values.format()).isEqualTo("1=2;3=4;7=-8;9=0");
+    assertThat(LineValues.parse(null).isEmpty()).isTrue();
+    assertThat(LineValues.parse("").isEmpty()).isTrue();
+  }
+
+  @Test
+  public void parse_and_format_date_times() {
+    long date1 = DateUtils.parseDateTime("2014-01-15T16:30:00+0100").getTime();
+    long date2 = DateUtils.parseDateTime("2013-10-01T09:00:00+0200").getTime();
+    String data = "1=2014-01-15T16:30:00+0100;2=2013-10-01T09:00:00+0200;4=2014-01-15T16:30:00+0100";
+
+    LineValues values = LineValues.parseDateTimes(data);
+
+    assertThat(values.size()).isEqualTo(3);
+    assertThat(values.get(1, 0L)).isEqualTo(date1);
+    assertThat(values.get(2, 0L)).isEqualTo(date2);
+    assertThat(values.get(4, 0L)).isEqualTo(date1);
+    assertThat(LineValues.parseDateTimes(values.formatDateTimes()).get(2, 0L)).isEqualTo(date2);
+  }
+
+  @Test
+  public void fail_to_parse_bad_date() {
+    try {
+      LineValues.parseDateTimes("1=2014-01-15");
+      fail();
+    } catch (SonarException e) {
+      assertThat(e).hasMessage("Not a date with format: " + DateUtils.DATETIME_FORMAT);
+    }
+  }
+}
@@ -20,8 +20,11 @@
 package org.sonar.api.measures;
 
 import org.junit.Test;
+import org.sonar.api.rule.RuleKey;
 import org.sonar.api.rules.Rule;
 import org.sonar.api.rules.RulePriority;
+import org.sonar.api.technicaldebt.batch.internal.DefaultCharacteristic;
+import org.sonar.api.technicaldebt.batch.internal.DefaultRequirement;
 
 import java.util.Arrays;
 import java.util.Collection;
@@ -86,6 +89,21 @@ public class MeasuresFiltersTest {
     assertThat(filter.filter(measures).size(), is(2));
   }
 
+  @Test
+  public void requirements() {
+    DefaultCharacteristic characteristic = new DefaultCharacteristic().setKey("char");
+    DefaultRequirement requirement1 = new DefaultRequirement().setRuleKey(RuleKey.of("repo", "rule1")).setCharacteristic(characteristic);
+    DefaultRequirement requirement2 = new DefaultRequirement().setRuleKey(RuleKey.of("repo", "rule2")).setCharacteristic(characteristic);
+    MeasuresFilter<Collection<Measure>> filter = MeasuresFilters.requirements(CoreMetrics.TECHNICAL_DEBT);
+    List<Measure> measures = Arrays.asList(
+        new Measure(CoreMetrics.TECHNICAL_DEBT, 1.0).setRequirement(requirement1),
+        new Measure(CoreMetrics.TECHNICAL_DEBT, 2.0).setRequirement(requirement2),
+        new Measure(CoreMetrics.TECHNICAL_DEBT, 3.0).setCharacteristic(characteristic),
+        new Measure(CoreMetrics.TECHNICAL_DEBT, 6.0));
+
+    assertThat(filter.filter(measures).size(), is(2));
+  }
+
   @Test
   public void measure() {
     MeasuresFilter<Measure> filter = MeasuresFilters.measure(new Measure(CoreMetrics.VIOLATIONS));
@@ -28,11 +28,13 @@ import org.sonar.api.utils.text.WriterException;
 
 import java.io.IOException;
 import java.io.StringWriter;
+import java.io.Writer;
 import java.util.Date;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.fest.assertions.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class JsonWriterTest {
@@ -66,6 +68,13 @@ public class JsonWriterTest {
     expect("{\"foo\":\"bar\"");
   }
 
+  @Test
+  public void flush_while_streaming() throws Exception {
+    Writer output = mock(Writer.class);
+    JsonWriter.of(output).beginObject().name("foo").value("bar").flush();
+    verify(output).flush();
+  }
+
   @Test
   public void objects_and_arrays() throws Exception {
     writer.beginObject().name("issues")
@@ -44,6 +44,13 @@ public class XmlWriterTest {
     expect("<?xml version='1.0' encoding='UTF-8'?><foo/>");
   }
 
+  @Test
+  public void flush_while_streaming() throws Exception {
+    writer.begin("foo").prop("bar", "baz").flush();
+    // end() and close() are missing
+    expect("<foo><bar>baz</bar>");
+  }
+
   @Test
   public void only_root() throws Exception {
     writer.begin("foo").end().close();
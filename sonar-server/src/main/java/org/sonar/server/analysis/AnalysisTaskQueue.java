@@ -0,0 +1,255 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.analysis;
+
+import com.google.common.annotations.VisibleForTesting;
+import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.api.Properties;
+import org.sonar.api.Property;
+import org.sonar.api.ServerComponent;
+import org.sonar.api.config.Settings;
+import org.sonar.api.utils.System2;
+import org.sonar.core.analysis.AnalysisTaskDao;
+import org.sonar.core.analysis.AnalysisTaskDto;
+import org.sonar.core.analysis.AnalysisTaskHandler;
+
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executes the tasks queued by batch at the end of analysis (purge of history, indexing of resources, ...).
+ * The queue is polled periodically and tasks are executed by a bounded pool of workers. Only one worker is
+ * used during peak hours.
+ * <p/>
+ * A task that fails is postponed and executed again at the next polls of the queue. It is dropped after
+ * {@link #MAX_ATTEMPTS} consecutive failures. Failures are counted in memory, so the counters are reset
+ * by a server restart.
+ *
+ * @since 4.2.1
+ */
+@Properties({
+  @Property(
+    key = AnalysisTaskQueue.PROPERTY_DELAY,
+    defaultValue = "10",
+    name = "Delay between two polls of the queue of analysis tasks, in seconds",
+    project = false,
+    global = false),
+  @Property(
+    key = AnalysisTaskQueue.PROPERTY_WORKERS,
+    defaultValue = "2",
+    name = "Maximum number of analysis tasks executed concurrently",
+    project = false,
+    global = false),
+  @Property(
+    key = AnalysisTaskQueue.PROPERTY_PEAK_HOURS,
+    name = "Peak hours, for example 8-19. Only one analysis task is executed at a time during peak hours",
+    project = false,
+    global = false)
+})
+public class AnalysisTaskQueue implements ServerComponent {
+
+  private static final Logger LOG = LoggerFactory.getLogger(AnalysisTaskQueue.class);
+
+  public static final String PROPERTY_DELAY = "sonar.analysisTasks.delay";
+  public static final String PROPERTY_WORKERS = "sonar.analysisTasks.workers";
+  public static final String PROPERTY_PEAK_HOURS = "sonar.analysisTasks.peakHours";
+
+  @VisibleForTesting
+  static final int MAX_ATTEMPTS = 3;
+
+  private final AnalysisTaskDao dao;
+  private final Map<String, AnalysisTaskHandler> handlersByType = new HashMap<String, AnalysisTaskHandler>();
+  private final System2 system;
+  private final long delayInSeconds;
+  private final int workers;
+  private final int peakHoursStart;
+  private final int peakHoursEnd;
+  private final AtomicInteger runningTasks = new AtomicInteger(0);
+  // number of consecutive failures by task type and project
+  private final ConcurrentMap<String, Integer> failures = new ConcurrentHashMap<String, Integer>();
+
+  private ScheduledExecutorService dispatcher;
+  private ExecutorService workerPool;
+
+  public AnalysisTaskQueue(Settings settings, AnalysisTaskDao dao, AnalysisTaskHandler[] handlers) {
+    this(settings, dao, handlers, System2.INSTANCE);
+  }
+
+  /**
+   * Default constructor when no handlers.
+   */
+  public AnalysisTaskQueue(Settings settings, AnalysisTaskDao dao) {
+    this(settings, dao, new AnalysisTaskHandler[0]);
+  }
+
+  @VisibleForTesting
+  AnalysisTaskQueue(Settings settings, AnalysisTaskDao dao, AnalysisTaskHandler[] handlers, System2 system) {
+    this.dao = dao;
+    this.system = system;
+    for (AnalysisTaskHandler handler : handlers) {
+      handlersByType.put(handler.taskType(), handler);
+    }
+    this.delayInSeconds = settings.getLong(PROPERTY_DELAY);
+    this.workers = Math.max(1, settings.getInt(PROPERTY_WORKERS));
+    String peakHours = settings.getString(PROPERTY_PEAK_HOURS);
+    if (StringUtils.isBlank(peakHours)) {
+      this.peakHoursStart = -1;
+      this.peakHoursEnd = -1;
+    } else {
+      String[] bounds = StringUtils.split(peakHours, '-');
+      if (bounds.length != 2 || !StringUtils.isNumeric(bounds[0].trim()) || !StringUtils.isNumeric(bounds[1].trim())) {
+        throw new IllegalArgumentException("Peak hours must be formatted as <start hour>-<end hour>, for example 8-19: " + peakHours);
+      }
+      this.peakHoursStart = Integer.parseInt(bounds[0].trim());
+      this.peakHoursEnd = Integer.parseInt(bounds[1].trim());
+    }
+  }
+
+  public void start() {
+    // tasks interrupted by the previous shutdown are executed again
+    dao.resetStarted();
+    workerPool = Executors.newFixedThreadPool(workers);
+    dispatcher = Executors.newSingleThreadScheduledExecutor();
+    dispatcher.scheduleWithFixedDelay(new Runnable() {
+      public void run() {
+        try {
+          processQueue();
+        } catch (Exception e) {
+          LOG.error("Error in AnalysisTaskQueue", e);
+        }
+      }
+    }, delayInSeconds, delayInSeconds, TimeUnit.SECONDS);
+    LOG.info("Analysis task queue started (delay {} sec., {} workers)", delayInSeconds, workers);
+  }
+
+  public void stop() {
+    try {
+      dispatcher.shutdown();
+      workerPool.shutdown();
+      dispatcher.awaitTermination(5, TimeUnit.SECONDS);
+      workerPool.awaitTermination(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      LOG.error("Error during stop of analysis task queue", e);
+    }
+    LOG.info("Analysis task queue stopped");
+  }
+
+  @VisibleForTesting
+  synchronized void processQueue() {
+    int maxRunningTasks = isPeakHour() ? 1 : workers;
+    for (final AnalysisTaskDto task : dao.selectPending()) {
+      if (runningTasks.get() >= maxRunningTasks) {
+        return;
+      }
+      final AnalysisTaskHandler handler = handlersByType.get(task.getTaskType());
+      if (handler == null) {
+        LOG.warn("Analysis task is ignored because no handler supports the type {}", task.getTaskType());
+        dao.start(task);
+        dao.finish(task);
+
+      } else if (dao.start(task)) {
+        runningTasks.incrementAndGet();
+        workerPool.execute(new Runnable() {
+          public void run() {
+            try {
+              execute(handler, task);
+            } finally {
+              runningTasks.decrementAndGet();
+            }
+          }
+        });
+      }
+    }
+  }
+
+  private void execute(AnalysisTaskHandler handler, AnalysisTaskDto task) {
+    long start = system.now();
+    boolean done;
+    try {
+      done = handler.execute(task.getProjectId());
+      failures.remove(failureKey(task));
+      if (done) {
+        LOG.debug("Analysis task {} executed on project {} in {} ms", new Object[] {task.getTaskType(), task.getProjectId(), system.now() - start});
+      } else {
+        LOG.debug("Analysis task {} on project {} is postponed", task.getTaskType(), task.getProjectId());
+      }
+    } catch (Exception e) {
+      done = onFailure(task, e);
+    }
+    if (done) {
+      dao.finish(task);
+    } else {
+      dao.postpone(task);
+    }
+  }
+
+  /**
+   * @return true if the task must be dropped
+   */
+  private boolean onFailure(AnalysisTaskDto task, Exception e) {
+    String key = failureKey(task);
+    Integer previousFailures = failures.get(key);
+    int attempts = previousFailures == null ? 1 : previousFailures + 1;
+    if (attempts >= MAX_ATTEMPTS) {
+      failures.remove(key);
+      LOG.error("Fail to execute analysis task " + task.getTaskType() + " on project " + task.getProjectId()
+        + ". The task is dropped after " + attempts + " attempts.", e);
+      return true;
+    }
+    failures.put(key, attempts);
+    LOG.error("Fail to execute analysis task " + task.getTaskType() + " on project " + task.getProjectId()
+      + ". The task is postponed (attempt " + attempts + " of " + MAX_ATTEMPTS + ").", e);
+    return false;
+  }
+
+  private static String failureKey(AnalysisTaskDto task) {
+    return task.getTaskType() + ":" + task.getProjectId();
+  }
+
+  @VisibleForTesting
+  boolean isPeakHour() {
+    if (peakHoursStart < 0) {
+      return false;
+    }
+    Calendar calendar = Calendar.getInstance();
+    calendar.setTimeInMillis(system.now());
+    int hour = calendar.get(Calendar.HOUR_OF_DAY);
+    if (peakHoursStart <= peakHoursEnd) {
+      return hour >= peakHoursStart && hour < peakHoursEnd;
+    }
+    // for example 22-6
+    return hour >= peakHoursStart || hour < peakHoursEnd;
+  }
+
+  @VisibleForTesting
+  int runningTasks() {
+    return runningTasks.get();
+  }
+}
@@ -0,0 +1,150 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.batch;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Charsets;
+import com.google.common.base.Function;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.Ordering;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.sonar.api.ServerComponent;
+import org.sonar.api.batch.rule.ActiveRule;
+import org.sonar.api.batch.rule.ActiveRules;
+import org.sonar.api.utils.text.JsonWriter;
+import org.sonar.core.preview.PreviewCache;
+import org.sonar.core.properties.PropertiesDao;
+import org.sonar.core.properties.PropertyDto;
+import org.sonar.core.qualityprofile.ActiveRulesLoader;
+
+import java.io.StringWriter;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Active rules of a set of Quality profiles, serialized in JSON for the batch.
+ * <p/>
+ * Bundles are kept in memory and identified by the MD5 hash of their content, so that the batch keeps them in
+ * its file cache and downloads them only when they change. A bundle is generated again as soon as the global
+ * timestamp of {@link PreviewCache} changes, which is the case each time a rule is activated, deactivated or changed.
+ *
+ * @since 4.2.1
+ */
+public class ActiveRulesBundle implements ServerComponent {
+
+  @VisibleForTesting
+  static final int MAX_BUNDLES = 100;
+
+  private static final Ordering<ActiveRule> BY_RULE_KEY = Ordering.natural().onResultOf(new Function<ActiveRule, String>() {
+    @Override
+    public String apply(ActiveRule rule) {
+      return rule.ruleKey().toString();
+    }
+  });
+
+  private final ActiveRulesLoader loader;
+  private final PropertiesDao propertiesDao;
+  private final Cache<List<Integer>, Bundle> bundlesByProfileIds;
+
+  public ActiveRulesBundle(ActiveRulesLoader loader, PropertiesDao propertiesDao) {
+    this.loader = loader;
+    this.propertiesDao = propertiesDao;
+    this.bundlesByProfileIds = CacheBuilder.newBuilder()
+      .maximumSize(MAX_BUNDLES)
+      .build(new CacheLoader<List<Integer>, Bundle>() {
+        @Override
+        public Bundle load(List<Integer> profileIds) {
+          return generate(profileIds);
+        }
+      });
+  }
+
+  /**
+   * MD5 hash of the JSON document returned by {@link #content(java.util.Collection)}
+   */
+  public String hash(Collection<Integer> profileIds) {
+    return get(profileIds).hash;
+  }
+
+  public byte[] content(Collection<Integer> profileIds) {
+    return get(profileIds).content;
+  }
+
+  private Bundle get(Collection<Integer> profileIds) {
+    List<Integer> key = ImmutableList.copyOf(ImmutableSortedSet.copyOf(profileIds));
+    Bundle bundle = bundlesByProfileIds.getUnchecked(key);
+    if (bundle.timestamp != lastModification()) {
+      bundlesByProfileIds.invalidate(key);
+      bundle = bundlesByProfileIds.getUnchecked(key);
+    }
+    return bundle;
+  }
+
+  private Bundle generate(List<Integer> profileIds) {
+    // the timestamp is read before the rules, so that a concurrent modification makes the bundle outdated
+    long timestamp = lastModification();
+    byte[] content = serialize(loader.load(profileIds));
+    return new Bundle(timestamp, content);
+  }
+
+  private long lastModification() {
+    PropertyDto dto = propertiesDao.selectGlobalProperty(PreviewCache.SONAR_PREVIEW_CACHE_LAST_UPDATE_KEY);
+    return dto != null ? Long.valueOf(dto.getValue()) : 0L;
+  }
+
+  private static byte[] serialize(ActiveRules activeRules) {
+    StringWriter writer = new StringWriter();
+    JsonWriter json = JsonWriter.of(writer);
+    json.beginObject().name("rules").beginArray();
+    // rules are sorted so that the hash does not change as long as the rules do not change
+    for (ActiveRule rule : BY_RULE_KEY.sortedCopy(activeRules.findAll())) {
+      json.beginObject()
+        .prop("repository", rule.ruleKey().repository())
+        .prop("key", rule.ruleKey().rule())
+        .prop("severity", rule.severity())
+        .prop("internalKey", rule.internalKey());
+      json.name("params").beginObject();
+      for (Map.Entry<String, String> param : new TreeMap<String, String>(rule.params()).entrySet()) {
+        json.prop(param.getKey(), param.getValue());
+      }
+      json.endObject().endObject();
+    }
+    json.endArray().endObject().close();
+    return writer.toString().getBytes(Charsets.UTF_8);
+  }
+
+  private static class Bundle {
+    private final long timestamp;
+    private final byte[] content;
+    private final String hash;
+
+    Bundle(long timestamp, byte[] content) {
+      this.timestamp = timestamp;
+      this.content = content;
+      this.hash = DigestUtils.md5Hex(content);
+    }
+  }
+}
@@ -0,0 +1,119 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.batch;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.Lists;
+import org.sonar.api.server.ws.Request;
+import org.sonar.api.server.ws.RequestHandler;
+import org.sonar.api.server.ws.Response;
+import org.sonar.api.server.ws.WebService;
+import org.sonar.core.permission.GlobalPermissions;
+import org.sonar.server.exceptions.BadRequestException;
+import org.sonar.server.exceptions.ForbiddenException;
+import org.sonar.server.plugins.MimeTypes;
+import org.sonar.server.user.UserSession;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Internal web services used by the batch to bootstrap analyses.
+ *
+ * @since 4.2.1
+ */
+public class BatchWs implements WebService {
+
+  private final ActiveRulesBundle activeRulesBundle;
+
+  public BatchWs(ActiveRulesBundle activeRulesBundle) {
+    this.activeRulesBundle = activeRulesBundle;
+  }
+
+  @Override
+  public void define(Context context) {
+    NewController controller = context.createController("api/batch")
+      .setDescription("Bootstrap of analyses. For internal use only.");
+
+    NewAction hash = controller.createAction("active_rules_hash")
+      .setDescription("MD5 hash of the active rules of a set of Quality profiles. Requires the Execute Analysis or the Execute Preview Analysis permission.")
+      .setSince("4.2.1")
+      .setHandler(new RequestHandler() {
+        @Override
+        public void handle(Request request, Response response) {
+          activeRulesHash(request, response);
+        }
+      });
+    hash.createParam("profileIds", "Comma-separated list of Quality profile ids. Required.");
+
+    NewAction show = controller.createAction("active_rules")
+      .setDescription("Active rules of a set of Quality profiles. Requires the Execute Analysis or the Execute Preview Analysis permission.")
+      .setSince("4.2.1")
+      .setHandler(new RequestHandler() {
+        @Override
+        public void handle(Request request, Response response) {
+          activeRules(request, response);
+        }
+      });
+    show.createParam("profileIds", "Comma-separated list of Quality profile ids. Required.");
+
+    controller.done();
+  }
+
+  private void activeRulesHash(Request request, Response response) {
+    checkExecutionPermission();
+    List<Integer> profileIds = profileIds(request);
+    response.newJsonWriter()
+      .beginObject()
+      .prop("hash", activeRulesBundle.hash(profileIds))
+      .endObject()
+      .close();
+  }
+
+  private void activeRules(Request request, Response response) {
+    checkExecutionPermission();
+    List<Integer> profileIds = profileIds(request);
+    byte[] content = activeRulesBundle.content(profileIds);
+    try {
+      response.stream().setMediaType(MimeTypes.JSON).output().write(content);
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to write active rules", e);
+    }
+  }
+
+  private static void checkExecutionPermission() {
+    UserSession session = UserSession.get();
+    if (!session.hasGlobalPermission(GlobalPermissions.SCAN_EXECUTION) && !session.hasGlobalPermission(GlobalPermissions.DRY_RUN_EXECUTION)) {
+      throw new ForbiddenException("You're not authorized to execute any SonarQube analysis. Please contact your SonarQube administrator.");
+    }
+  }
+
+  private static List<Integer> profileIds(Request request) {
+    List<Integer> ids = Lists.newArrayList();
+    for (String id : Splitter.on(',').omitEmptyStrings().trimResults().split(request.mandatoryParam("profileIds"))) {
+      try {
+        ids.add(Integer.parseInt(id));
+      } catch (NumberFormatException e) {
+        throw BadRequestException.of("Parameter 'profileIds' must be a comma-separated list of integers");
+      }
+    }
+    return ids;
+  }
+}
@@ -17,9 +17,11 @@
  * along with this program; if not, write to the Free Software Foundation,
  * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
  */
-
 package org.sonar.server.db.migrations;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
 import org.apache.commons.dbutils.DbUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -27,21 +29,48 @@ import org.sonar.api.utils.MessageException;
 import org.sonar.core.persistence.Database;
 import org.sonar.core.persistence.dialect.MySql;
 
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
 import java.sql.*;
+import java.util.List;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Update a table by iterating a sub-set of rows. For each row a SQL UPDATE request
  * is executed.
+ * <p/>
+ * When the input is a {@link PartitionedInputLoader}, the rows are split in ranges of primary keys
+ * which are updated concurrently, each range with its own connections.
  */
 public class MassUpdater {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(MassUpdater.class);
   private static final String FAILURE_MESSAGE = "Fail to migrate data";
   private static final int GROUP_SIZE = 1000;
+  static final int DEFAULT_THREADS = 4;
+  // more partitions than threads, so that a range containing more rows than the others does not delay the end of migration
+  private static final int PARTITIONS_PER_THREAD = 4;
+
   private final Database db;
+  private final int threads;
 
   public MassUpdater(Database db) {
+    this(db, DEFAULT_THREADS);
+  }
+
+  public MassUpdater(Database db, int threads) {
+    Preconditions.checkArgument(threads > 0, "Number of threads must be positive: " + threads);
     this.db = db;
+    this.threads = threads;
   }
 
   public static interface InputLoader<S> {
@@ -50,6 +79,27 @@ public class MassUpdater {
     S load(ResultSet rs) throws SQLException;
   }
 
+  /**
+   * Input that can be split in ranges of a numeric key, usually the primary key.
+   * <p/>
+   * The rows that are already converted should not be selected, so that a migration
+   * that failed resumes where it stopped when it is executed again.
+   */
+  public static interface PartitionedInputLoader<S> extends InputLoader<S> {
+    /**
+     * Request returning the minimum and the maximum values of the key, and the number of rows to convert, for example
+     * <code>SELECT MIN(id), MAX(id), COUNT(id) FROM issues WHERE message IS NULL</code>
+     */
+    String rangeSql();
+
+    /**
+     * Same as {@link #selectSql()}, but with two parameters for the lower and upper bounds (inclusive) of the key, for example
+     * <code>SELECT id, kee FROM issues WHERE message IS NULL AND id&gt;=? AND id&lt;=?</code>
+     */
+    @Override
+    String selectSql();
+  }
+
   public static interface InputConverter<S> {
     String updateSql();
 
@@ -59,48 +109,65 @@ public class MassUpdater {
   public <S> void execute(InputLoader<S> inputLoader, InputConverter<S> converter) {
     long count = 0;
     try {
-      Connection readConnection = db.getDataSource().getConnection();
-      Statement stmt = null;
-      ResultSet rs = null;
-      Connection writeConnection = db.getDataSource().getConnection();
-      PreparedStatement writeStatement = null;
-      try {
-        readConnection.setAutoCommit(false);
-        writeConnection.setAutoCommit(false);
-        writeStatement = writeConnection.prepareStatement(converter.updateSql());
-        stmt = readConnection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
-        stmt.setFetchSize(GROUP_SIZE);
-        if (db.getDialect().getId().equals(MySql.ID)) {
-          stmt.setFetchSize(Integer.MIN_VALUE);
-        } else {
-          stmt.setFetchSize(GROUP_SIZE);
-        }
-        rs = stmt.executeQuery(inputLoader.selectSql());
-
-        int cursor = 0;
-        while (rs.next()) {
-          converter.convert(inputLoader.load(rs), writeStatement);
-          writeStatement.addBatch();
-
-          cursor++;
-          count++;
-          if (cursor == GROUP_SIZE) {
-            writeStatement.executeBatch();
-            writeConnection.commit();
-            cursor = 0;
+      count = update(inputLoader, converter, null, null, new AtomicBoolean(false));
+    } catch (SQLException e) {
+      LOGGER.error(FAILURE_MESSAGE, e);
+      SqlUtil.log(LOGGER, e);
+      throw MessageException.of(FAILURE_MESSAGE);
+
+    } catch (Exception e) {
+      LOGGER.error(FAILURE_MESSAGE, e);
+      throw MessageException.of(FAILURE_MESSAGE);
+
+    } finally {
+      LOGGER.info("{} rows have been updated", count);
+    }
+  }
+
+  public <S> void execute(final PartitionedInputLoader<S> inputLoader, final InputConverter<S> converter) {
+    ExecutorService executor = null;
+    Timer timer = null;
+    Progress progress = null;
+    try {
+      long[] range = selectRange(inputLoader);
+      if (range == null) {
+        LOGGER.info("0 rows have been updated");
+        return;
+      }
+      progress = new Progress(range[2], LOGGER, System.currentTimeMillis());
+      timer = new Timer(Progress.THREAD_NAME, true);
+      timer.schedule(progress, Progress.DELAY_MS, Progress.DELAY_MS);
+
+      final Progress rangeProgress = progress;
+      final AtomicBoolean stopped = new AtomicBoolean(false);
+      List<Callable<Long>> tasks = Lists.newArrayList();
+      for (final long[] partition : partitions(range[0], range[1], threads * PARTITIONS_PER_THREAD)) {
+        tasks.add(new Callable<Long>() {
+          @Override
+          public Long call() throws Exception {
+            try {
+              return update(inputLoader, converter, partition, rangeProgress, stopped);
+            } catch (Exception e) {
+              // other partitions stop at the end of their current group of rows
+              stopped.set(true);
+              throw e;
+            }
           }
-        }
-        if (cursor > 0) {
-          writeStatement.executeBatch();
-          writeConnection.commit();
-        }
-      } finally {
-        DbUtils.closeQuietly(writeStatement);
-        DbUtils.closeQuietly(writeConnection);
-        DbUtils.closeQuietly(readConnection, stmt, rs);
+        });
+      }
+      executor = Executors.newFixedThreadPool(Math.min(threads, tasks.size()));
+      for (Future<Long> result : executor.invokeAll(tasks)) {
+        result.get();
+      }
 
-        LOGGER.info("{} rows have been updated", count);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      LOGGER.error(FAILURE_MESSAGE, cause);
+      if (cause instanceof SQLException) {
+        SqlUtil.log(LOGGER, (SQLException) cause);
       }
+      throw MessageException.of(FAILURE_MESSAGE);
+
     } catch (SQLException e) {
       LOGGER.error(FAILURE_MESSAGE, e);
       SqlUtil.log(LOGGER, e);
@@ -109,7 +176,161 @@ public class MassUpdater {
     } catch (Exception e) {
       LOGGER.error(FAILURE_MESSAGE, e);
       throw MessageException.of(FAILURE_MESSAGE);
+
+    } finally {
+      if (executor != null) {
+        executor.shutdownNow();
+      }
+      if (timer != null) {
+        progress.cancel();
+        timer.cancel();
+        timer.purge();
+      }
+      if (progress != null) {
+        LOGGER.info("{} rows have been updated", progress.count());
+      }
     }
   }
 
+  /**
+   * @return min key, max key and number of rows, or null if there are no rows to convert
+   */
+  @CheckForNull
+  private long[] selectRange(PartitionedInputLoader<?> inputLoader) throws SQLException {
+    Connection connection = db.getDataSource().getConnection();
+    Statement stmt = null;
+    ResultSet rs = null;
+    try {
+      stmt = connection.createStatement();
+      rs = stmt.executeQuery(inputLoader.rangeSql());
+      if (rs.next()) {
+        Long min = SqlUtil.getLong(rs, 1);
+        Long max = SqlUtil.getLong(rs, 2);
+        long count = rs.getLong(3);
+        if (min != null && max != null && count > 0) {
+          return new long[] {min, max, count};
+        }
+      }
+      return null;
+    } finally {
+      DbUtils.closeQuietly(connection, stmt, rs);
+    }
+  }
+
+  /**
+   * Splits [min, max] in ranges of same width
+   */
+  @VisibleForTesting
+  static List<long[]> partitions(long min, long max, int maxPartitions) {
+    long width = Math.max(1L, (max - min) / maxPartitions + 1L);
+    List<long[]> partitions = Lists.newArrayList();
+    for (long lower = min; lower <= max; lower += width) {
+      long upper = Math.min(max, lower + width - 1L);
+      partitions.add(new long[] {lower, upper});
+      if (upper == max) {
+        break;
+      }
+    }
+    return partitions;
+  }
+
+  private <S> long update(InputLoader<S> inputLoader, InputConverter<S> converter, @Nullable long[] partition,
+                          @Nullable Progress progress, AtomicBoolean stopped) throws SQLException {
+    long count = 0;
+    Connection readConnection = db.getDataSource().getConnection();
+    Statement stmt = null;
+    ResultSet rs = null;
+    Connection writeConnection = db.getDataSource().getConnection();
+    PreparedStatement writeStatement = null;
+    try {
+      readConnection.setAutoCommit(false);
+      writeConnection.setAutoCommit(false);
+      writeStatement = writeConnection.prepareStatement(converter.updateSql());
+      if (partition == null) {
+        stmt = readConnection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+      } else {
+        PreparedStatement selectStatement = readConnection.prepareStatement(inputLoader.selectSql(), ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        selectStatement.setLong(1, partition[0]);
+        selectStatement.setLong(2, partition[1]);
+        stmt = selectStatement;
+      }
+      if (db.getDialect().getId().equals(MySql.ID)) {
+        stmt.setFetchSize(Integer.MIN_VALUE);
+      } else {
+        stmt.setFetchSize(GROUP_SIZE);
+      }
+      rs = partition == null ? stmt.executeQuery(inputLoader.selectSql()) : ((PreparedStatement) stmt).executeQuery();
+
+      int cursor = 0;
+      while (!stopped.get() && rs.next()) {
+        converter.convert(inputLoader.load(rs), writeStatement);
+        writeStatement.addBatch();
+
+        cursor++;
+        count++;
+        if (cursor == GROUP_SIZE) {
+          writeStatement.executeBatch();
+          writeConnection.commit();
+          if (progress != null) {
+            progress.increment(cursor);
+          }
+          cursor = 0;
+        }
+      }
+      if (cursor > 0) {
+        writeStatement.executeBatch();
+        writeConnection.commit();
+        if (progress != null) {
+          progress.increment(cursor);
+        }
+      }
+      return count;
+    } finally {
+      DbUtils.closeQuietly(writeStatement);
+      DbUtils.closeQuietly(writeConnection);
+      DbUtils.closeQuietly(readConnection, stmt, rs);
+    }
+  }
+
+  /**
+   * Logs every minute the status of a partitioned migration
+   */
+  static class Progress extends TimerTask {
+
+    static final String THREAD_NAME = "Mass Update Progress";
+    static final long DELAY_MS = 60000L;
+
+    private final AtomicLong counter = new AtomicLong(0L);
+    private final Logger logger;
+    private final long total;
+    private final long start;
+
+    Progress(long total, Logger logger, long startDate) {
+      this.total = total;
+      this.logger = logger;
+      this.start = startDate;
+    }
+
+    void increment(int delta) {
+      counter.addAndGet(delta);
+    }
+
+    long count() {
+      return counter.get();
+    }
+
+    @Override
+    public void run() {
+      long count = counter.get();
+      long durationMinutes = (System.currentTimeMillis() - start) / 60000L;
+      int percents = (int) ((100L * count) / total);
+      if (count > 0 && durationMinutes > 0) {
+        long frequency = Math.max(1L, count / durationMinutes);
+        long remaining = Math.max(0L, total - count) / frequency;
+        logger.info(String.format("%d%% [%d/%d rows, %d minutes remaining]", percents, count, total, remaining));
+      } else {
+        logger.info(String.format("%d%% [%d/%d rows]", percents, count, total));
+      }
+    }
+  }
 }
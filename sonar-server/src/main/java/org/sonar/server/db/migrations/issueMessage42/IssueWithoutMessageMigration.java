@@ -44,10 +44,15 @@ public class IssueWithoutMessageMigration implements DatabaseMigration {
   @Override
   public void execute() {
     new MassUpdater(db).execute(
-      new MassUpdater.InputLoader<Row>() {
+      new MassUpdater.PartitionedInputLoader<Row>() {
+        @Override
+        public String rangeSql() {
+          return "SELECT MIN(i.id), MAX(i.id), COUNT(i.id) FROM issues i WHERE i.message IS NULL";
+        }
+
         @Override
         public String selectSql() {
-          return "SELECT i.id, r.name FROM issues i INNER JOIN rules r ON r.id=i.rule_id WHERE i.message IS NULL";
+          return "SELECT i.id, r.name FROM issues i INNER JOIN rules r ON r.id=i.rule_id WHERE i.message IS NULL AND i.id>=? AND i.id<=?";
         }
 
         @Override
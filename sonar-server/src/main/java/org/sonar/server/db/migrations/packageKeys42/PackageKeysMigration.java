@@ -45,10 +45,15 @@ public class PackageKeysMigration implements DatabaseMigration {
   @Override
   public void execute() {
     new MassUpdater(db).execute(
-      new MassUpdater.InputLoader<Row>() {
+      new MassUpdater.PartitionedInputLoader<Row>() {
+        @Override
+        public String rangeSql() {
+          return "SELECT MIN(id), MAX(id), COUNT(id) FROM projects WHERE qualifier='PAC'";
+        }
+
         @Override
         public String selectSql() {
-          return "SELECT id, kee FROM projects WHERE qualifier='PAC'";
+          return "SELECT id, kee FROM projects WHERE qualifier='PAC' AND id>=? AND id<=?";
         }
 
         @Override
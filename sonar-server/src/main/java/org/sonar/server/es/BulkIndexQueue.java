@@ -0,0 +1,344 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.es;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Lists;
+import org.elasticsearch.action.ActionRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.delete.DeleteRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.client.Client;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.core.profiling.Profiling;
+import org.sonar.core.profiling.StopWatch;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Queue of index and delete requests, sent to Elasticsearch in bulk by a background thread. A bulk is executed
+ * as soon as it reaches {@link #MAX_BULK_ACTIONS} requests or {@link #MAX_BULK_BYTES} bytes, or {@link #FLUSH_DELAY_MS}
+ * milliseconds after its first request. Producers are blocked when {@link #CAPACITY} requests are waiting.
+ * <p/>
+ * Failures of requests queued with {@link #add(ActionRequest)} are only logged. Failures of requests queued with
+ * {@link #addAndFlush(ActionRequest, String...)} are reported to their caller.
+ *
+ * @since 4.2
+ */
+class BulkIndexQueue {
+
+  static final int CAPACITY = 10000;
+  static final int MAX_BULK_ACTIONS = 500;
+  static final long MAX_BULK_BYTES = 5L * 1024 * 1024;
+  static final long FLUSH_DELAY_MS = 200L;
+  static final long DEFAULT_TIMEOUT_MS = TimeUnit.MINUTES.toMillis(5);
+
+  private static final long DELETE_REQUEST_BYTES = 64L;
+  private static final String PROFILE_DOMAIN = "es";
+  private static final Logger LOG = LoggerFactory.getLogger(BulkIndexQueue.class);
+
+  private final Client client;
+  private final Profiling profiling;
+  private final long timeoutMs;
+  private final BlockingQueue<Object> queue = new LinkedBlockingQueue<Object>(CAPACITY);
+  private final Thread worker;
+
+  BulkIndexQueue(Client client, Profiling profiling) {
+    this(client, profiling, DEFAULT_TIMEOUT_MS);
+  }
+
+  @VisibleForTesting
+  BulkIndexQueue(Client client, Profiling profiling, long timeoutMs) {
+    this.client = client;
+    this.profiling = profiling;
+    this.timeoutMs = timeoutMs;
+    this.worker = new Thread(new Worker(), "ES bulk indexer");
+    this.worker.setDaemon(true);
+  }
+
+  void start() {
+    worker.start();
+  }
+
+  /**
+   * Flushes pending requests then stops the background thread.
+   */
+  void stop() {
+    if (worker.isAlive()) {
+      Barrier barrier = new Barrier(true);
+      put(barrier);
+      barrier.await(timeoutMs);
+    }
+  }
+
+  /**
+   * Blocks while the queue is full.
+   */
+  void add(ActionRequest request) {
+    put(new Item(request, null));
+  }
+
+  /**
+   * Queues the request then waits for it to be executed and for the given indices to be refreshed.
+   *
+   * @throws IllegalStateException if the request or the refresh failed
+   */
+  void addAndFlush(ActionRequest request, String... indicesToRefresh) {
+    Barrier barrier = new Barrier(false, indicesToRefresh);
+    put(new Item(request, barrier));
+    put(barrier);
+    barrier.await(timeoutMs);
+  }
+
+  /**
+   * Waits for all the requests previously added to be executed, then refreshes the given indices so that
+   * documents are visible to search.
+   *
+   * @throws IllegalStateException if the refresh failed
+   */
+  void flush(String... indicesToRefresh) {
+    Barrier barrier = new Barrier(false, indicesToRefresh);
+    put(barrier);
+    barrier.await(timeoutMs);
+  }
+
+  int depth() {
+    return queue.size();
+  }
+
+  private void put(Object item) {
+    try {
+      if (!queue.offer(item, timeoutMs, TimeUnit.MILLISECONDS)) {
+        throw new IllegalStateException("Timeout while queuing index request");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while queuing index request", e);
+    }
+  }
+
+  private class Worker implements Runnable {
+    private final List<ActionRequest> pending = Lists.newArrayList();
+    // barriers of the callers waiting for the pending requests, in the same order
+    private final List<Barrier> pendingOwners = Lists.newArrayList();
+    private long pendingBytes = 0L;
+    private long deadline = 0L;
+
+    @Override
+    public void run() {
+      while (true) {
+        try {
+          Object item = next();
+          if (item == null) {
+            executePending();
+          } else if (item instanceof Barrier) {
+            if (release((Barrier) item)) {
+              return;
+            }
+          } else {
+            addToPending((Item) item);
+          }
+        } catch (InterruptedException e) {
+          LOG.warn("ES bulk indexer interrupted, {} requests lost", pending.size() + queue.size());
+          abort("ES bulk indexer interrupted");
+          Thread.currentThread().interrupt();
+          return;
+        } catch (Throwable t) {
+          // the worker must survive to any error, otherwise all the callers would wait for ever
+          LOG.error("Unexpected failure of ES bulk indexer", t);
+          failPending("Unexpected failure of ES bulk indexer: " + t.getMessage());
+        }
+      }
+    }
+
+    @CheckForNull
+    private Object next() throws InterruptedException {
+      if (pending.isEmpty()) {
+        return queue.take();
+      }
+      return queue.poll(Math.max(0L, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+    }
+
+    private void addToPending(Item item) {
+      if (pending.isEmpty()) {
+        deadline = System.currentTimeMillis() + FLUSH_DELAY_MS;
+      }
+      pending.add(item.request);
+      pendingOwners.add(item.owner);
+      pendingBytes += item.request instanceof IndexRequest ? ((IndexRequest) item.request).source().length() : DELETE_REQUEST_BYTES;
+      if (pending.size() >= MAX_BULK_ACTIONS || pendingBytes >= MAX_BULK_BYTES) {
+        executePending();
+      }
+    }
+
+    /**
+     * @return true if the worker must stop
+     */
+    private boolean release(Barrier barrier) {
+      try {
+        executePending();
+        if (!barrier.hasFailed() && barrier.indicesToRefresh.length > 0) {
+          client.admin().indices().prepareRefresh(barrier.indicesToRefresh).execute().actionGet();
+        }
+      } catch (RuntimeException e) {
+        LOG.error("Fail to refresh indices", e);
+        barrier.fail("Fail to refresh indices: " + e.getMessage());
+      } finally {
+        barrier.release();
+      }
+      return barrier.stop;
+    }
+
+    private void executePending() {
+      if (pending.isEmpty()) {
+        return;
+      }
+      BulkRequest bulk = new BulkRequest();
+      for (ActionRequest request : pending) {
+        if (request instanceof IndexRequest) {
+          bulk.add((IndexRequest) request);
+        } else {
+          bulk.add((DeleteRequest) request);
+        }
+      }
+      List<Barrier> owners = Lists.newArrayList(pendingOwners);
+      int size = pending.size();
+      clearPending();
+
+      StopWatch watch = profiling.start(PROFILE_DOMAIN, Profiling.Level.BASIC);
+      try {
+        BulkResponse response = client.bulk(bulk).actionGet();
+        if (response.hasFailures()) {
+          for (BulkItemResponse item : response.getItems()) {
+            if (item.isFailed()) {
+              String message = "Bulk operation partially executed: " + item.getFailureMessage();
+              LOG.error(message);
+              fail(owners.get(item.getItemId()), message);
+            }
+          }
+        }
+      } catch (RuntimeException e) {
+        LOG.error("Execution of bulk operation failed", e);
+        for (Barrier owner : owners) {
+          fail(owner, "Execution of bulk operation failed: " + e.getMessage());
+        }
+      } finally {
+        watch.stop("queued bulk of %d requests, %d requests remaining in queue", size, queue.size());
+      }
+    }
+
+    private void failPending(String message) {
+      for (Barrier owner : pendingOwners) {
+        fail(owner, message);
+      }
+      clearPending();
+    }
+
+    /**
+     * Releases the callers that wait for pending and queued requests
+     */
+    private void abort(String message) {
+      failPending(message);
+      List<Object> items = Lists.newArrayList();
+      queue.drainTo(items);
+      for (Object item : items) {
+        if (item instanceof Barrier) {
+          ((Barrier) item).fail(message);
+          ((Barrier) item).release();
+        }
+      }
+    }
+
+    private void clearPending() {
+      pending.clear();
+      pendingOwners.clear();
+      pendingBytes = 0L;
+    }
+
+    private void fail(@Nullable Barrier owner, String message) {
+      if (owner != null) {
+        owner.fail(message);
+      }
+    }
+  }
+
+  private static class Item {
+    private final ActionRequest request;
+    private final Barrier owner;
+
+    Item(ActionRequest request, @Nullable Barrier owner) {
+      this.request = request;
+      this.owner = owner;
+    }
+  }
+
+  private static class Barrier {
+    private final boolean stop;
+    private final String[] indicesToRefresh;
+    private final CountDownLatch latch = new CountDownLatch(1);
+    private volatile String failure;
+
+    Barrier(boolean stop, String... indicesToRefresh) {
+      this.stop = stop;
+      this.indicesToRefresh = indicesToRefresh;
+    }
+
+    /**
+     * Keeps the first failure of the requests of the caller
+     */
+    void fail(String message) {
+      if (failure == null) {
+        failure = message;
+      }
+    }
+
+    boolean hasFailed() {
+      return failure != null;
+    }
+
+    void release() {
+      latch.countDown();
+    }
+
+    void await(long timeoutMs) {
+      try {
+        if (!latch.await(timeoutMs, TimeUnit.MILLISECONDS)) {
+          throw new IllegalStateException("Timeout while waiting for index requests");
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while waiting for index requests", e);
+      }
+      if (failure != null) {
+        throw new IllegalStateException(failure);
+      }
+    }
+  }
+}
@@ -48,6 +48,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.sonar.core.profiling.Profiling;
 import org.sonar.core.profiling.Profiling.Level;
+import org.sonar.core.profiling.ProfilingMetrics;
 import org.sonar.core.profiling.StopWatch;
 
 import java.io.IOException;
@@ -61,11 +62,13 @@ public class ESIndex implements Startable {
   private static final String BULK_EXECUTE_FAILED = "Execution of bulk operation failed";
   private static final String BULK_INTERRUPTED = "Interrupted during bulk operation";
   private static final String PROFILE_DOMAIN = "es";
+  private static final String QUEUE_DEPTH_GAUGE = "es.queue";
   private static final Logger LOG = LoggerFactory.getLogger(ESIndex.class);
 
   private final ESNode node;
   private final Profiling profiling;
   private Client client;
+  private volatile BulkIndexQueue queue;
 
   public ESIndex(ESNode node, Profiling profiling) {
     this.node = node;
@@ -75,10 +78,26 @@ public class ESIndex implements Startable {
   @Override
   public void start() {
     this.client = node.client();
+    if (queue == null) {
+      queue = new BulkIndexQueue(client, profiling);
+      queue.start();
+    }
+    profiling.metrics().gauge(QUEUE_DEPTH_GAUGE, new ProfilingMetrics.Gauge() {
+      @Override
+      public long value() {
+        BulkIndexQueue currentQueue = queue;
+        return currentQueue != null ? currentQueue.depth() : 0L;
+      }
+    });
   }
 
   @Override
   public void stop() {
+    profiling.metrics().removeGauge(QUEUE_DEPTH_GAUGE);
+    if (queue != null) {
+      queue.stop();
+      queue = null;
+    }
     if (client != null) {
       client.close();
     }
@@ -91,10 +110,18 @@ public class ESIndex implements Startable {
     return client;
   }
 
+  /**
+   * Queues the document. It is sent to the index asynchronously, in bulk with other queued requests,
+   * and is visible to search only after the next {@link #refresh(String...)}.
+   */
   public void put(String index, String type, String id, BytesStream source) {
     internalPut(index, type, id, source, false, null);
   }
 
+  /**
+   * Same as {@link #put(String, String, String, org.elasticsearch.common.io.BytesStream)} but waits for the document
+   * to be indexed and visible to search.
+   */
   public void putSynchronous(String index, String type, String id, BytesStream source) {
     internalPut(index, type, id, source, true, null);
   }
@@ -107,14 +134,45 @@ public class ESIndex implements Startable {
     internalPut(index, type, id, source, true, parent);
   }
 
+  /**
+   * Queues the deletion of a document. See {@link #put(String, String, String, org.elasticsearch.common.io.BytesStream)}.
+   */
+  public void delete(String index, String type, String id) {
+    BulkIndexQueue currentQueue = queue();
+    currentQueue.add(client.prepareDelete(index, type, id).request());
+  }
+
+  /**
+   * Waits for queued requests to be executed, then makes the documents of the given indices visible to search.
+   */
+  public void refresh(String... indices) {
+    StopWatch watch = createWatch();
+    BulkIndexQueue currentQueue = queue();
+    int depth = currentQueue.depth();
+    currentQueue.flush(indices);
+    watch.stop("flushed %d queued requests and refreshed ind(ex|ices) '%s'", depth, Arrays.toString(indices));
+  }
+
+  /**
+   * Number of index requests waiting to be sent
+   */
+  public int queueDepth() {
+    return queue().depth();
+  }
+
   private void internalPut(String index, String type, String id, BytesStream source, boolean refresh, String parent) {
-    IndexRequestBuilder builder = client.prepareIndex(index, type, id).setSource(source.bytes()).setRefresh(refresh);
+    BulkIndexQueue currentQueue = queue();
+    IndexRequestBuilder builder = client.prepareIndex(index, type, id).setSource(source.bytes());
     if (parent != null) {
       builder.setParent(parent);
     }
-    StopWatch watch = createWatch();
-    builder.execute().actionGet();
-    watch.stop("put document with id '%s' with type '%s' into index '%s'", id, type, index);
+    if (refresh) {
+      StopWatch watch = createWatch();
+      currentQueue.addAndFlush(builder.request(), index);
+      watch.stop("indexed document '%s' and refreshed index '%s'", id, index);
+    } else {
+      currentQueue.add(builder.request());
+    }
   }
 
   public void bulkIndex(String index, String type, String[] ids, BytesStream[] sources) {
@@ -268,6 +326,8 @@ public class ESIndex implements Startable {
   }
 
   private void doBulkOperation(BulkRequestBuilder builder) {
+    // keep ordering with queued requests, that may target the same documents
+    queue().flush();
     try {
       BulkResponse bulkResponse = client.bulk(builder.setRefresh(true).request()).get();
       if (bulkResponse.hasFailures()) {
@@ -284,6 +344,14 @@ public class ESIndex implements Startable {
     }
   }
 
+  private BulkIndexQueue queue() {
+    BulkIndexQueue currentQueue = queue;
+    if (currentQueue == null) {
+      throw new IllegalStateException("Index requests can't be queued before the start or after the stop of ES index");
+    }
+    return currentQueue;
+  }
+
   private StopWatch createWatch() {
     return profiling.start(PROFILE_DOMAIN, Level.FULL);
   }
@@ -88,12 +88,13 @@ public class InternalRubyIssueService implements ServerComponent {
   private final ActionService actionService;
   private final IssueFilterService issueFilterService;
   private final IssueBulkChangeService issueBulkChangeService;
+  private final IssueBulkChangeJobs issueBulkChangeJobs;
 
   public InternalRubyIssueService(IssueService issueService,
     IssueCommentService commentService,
     IssueChangelogService changelogService, ActionPlanService actionPlanService,
     IssueStatsFinder issueStatsFinder, ResourceDao resourceDao, ActionService actionService,
-    IssueFilterService issueFilterService, IssueBulkChangeService issueBulkChangeService) {
+    IssueFilterService issueFilterService, IssueBulkChangeService issueBulkChangeService, IssueBulkChangeJobs issueBulkChangeJobs) {
     this.issueService = issueService;
     this.commentService = commentService;
     this.changelogService = changelogService;
@@ -103,6 +104,7 @@ public class InternalRubyIssueService implements ServerComponent {
     this.actionService = actionService;
     this.issueFilterService = issueFilterService;
     this.issueBulkChangeService = issueBulkChangeService;
+    this.issueBulkChangeJobs = issueBulkChangeJobs;
   }
 
   public IssueStatsFinder.IssueStatsResult findIssueAssignees(Map<String, Object> params) {
@@ -602,6 +604,17 @@ public class InternalRubyIssueService implements ServerComponent {
     return issueBulkChangeService.execute(issueBulkChangeQuery, UserSession.get());
   }
 
+  /**
+   * Execute a bulk change in background. Progress is available through the web service api/issues/bulk_change_status.
+   *
+   * @return key of the bulk change
+   * @since 4.2.1
+   */
+  public String bulkChangeInBackground(Map<String, Object> props, String comment, boolean sendNotifications) {
+    IssueBulkChangeQuery issueBulkChangeQuery = new IssueBulkChangeQuery(props, comment, sendNotifications);
+    return issueBulkChangeJobs.submit(issueBulkChangeQuery, UserSession.get()).key();
+  }
+
   private void checkMandatoryParameter(String value, String paramName, Result result) {
     if (Strings.isNullOrEmpty(value)) {
       result.addError(Result.Message.ofL10n(Validation.CANT_BE_EMPTY_MESSAGE, paramName));
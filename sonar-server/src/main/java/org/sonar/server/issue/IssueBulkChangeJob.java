@@ -0,0 +1,123 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.issue;
+
+import javax.annotation.CheckForNull;
+
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Progress of a bulk change executed in background
+ *
+ * @since 4.2.1
+ */
+public class IssueBulkChangeJob {
+
+  public enum Status {
+    PENDING, RUNNING, DONE, FAILED
+  }
+
+  private final String key;
+  private final String login;
+  private final Date createdAt;
+  private final AtomicInteger processed = new AtomicInteger(0);
+  private volatile Status status = Status.PENDING;
+  private volatile int total = 0;
+  private volatile Date finishedAt;
+  private volatile IssueBulkChangeResult result;
+  private volatile String errorMessage;
+
+  IssueBulkChangeJob(String key, String login, Date createdAt) {
+    this.key = key;
+    this.login = login;
+    this.createdAt = createdAt;
+  }
+
+  public String key() {
+    return key;
+  }
+
+  public String login() {
+    return login;
+  }
+
+  public Date createdAt() {
+    return createdAt;
+  }
+
+  public Status status() {
+    return status;
+  }
+
+  /**
+   * Number of selected issues, known when job is running
+   */
+  public int total() {
+    return total;
+  }
+
+  public int processed() {
+    return processed.get();
+  }
+
+  @CheckForNull
+  public Date finishedAt() {
+    return finishedAt;
+  }
+
+  /**
+   * Available when job is done
+   */
+  @CheckForNull
+  public IssueBulkChangeResult result() {
+    return result;
+  }
+
+  @CheckForNull
+  public String errorMessage() {
+    return errorMessage;
+  }
+
+  public boolean isFinished() {
+    return status == Status.DONE || status == Status.FAILED;
+  }
+
+  void start(int total) {
+    this.total = total;
+    this.status = Status.RUNNING;
+  }
+
+  void addProcessed(int count) {
+    processed.addAndGet(count);
+  }
+
+  void done(IssueBulkChangeResult result, Date date) {
+    this.result = result;
+    this.finishedAt = date;
+    this.status = Status.DONE;
+  }
+
+  void fail(String errorMessage, Date date) {
+    this.errorMessage = errorMessage;
+    this.finishedAt = date;
+    this.status = Status.FAILED;
+  }
+}
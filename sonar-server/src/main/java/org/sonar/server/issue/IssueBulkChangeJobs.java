@@ -0,0 +1,154 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.issue;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Maps;
+import org.picocontainer.Startable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.api.ServerComponent;
+import org.sonar.api.utils.System2;
+import org.sonar.server.exceptions.ServerException;
+import org.sonar.server.user.UserSession;
+
+import javax.annotation.CheckForNull;
+
+import java.util.Date;
+import java.util.Iterator;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executes bulk changes in background, one at a time, so that large changes do not hold the HTTP request.
+ * Progress of jobs can be requested by their authors until one hour after their end.
+ *
+ * @since 4.2.1
+ */
+public class IssueBulkChangeJobs implements ServerComponent, Startable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(IssueBulkChangeJobs.class);
+  private static final long RETENTION_MS = TimeUnit.HOURS.toMillis(1);
+
+  private final IssueBulkChangeService service;
+  private final System2 system;
+  private final ConcurrentMap<String, IssueBulkChangeJob> jobs = Maps.newConcurrentMap();
+  private ExecutorService executor;
+
+  public IssueBulkChangeJobs(IssueBulkChangeService service) {
+    this(service, System2.INSTANCE);
+  }
+
+  @VisibleForTesting
+  IssueBulkChangeJobs(IssueBulkChangeService service, System2 system) {
+    this.service = service;
+    this.system = system;
+  }
+
+  @Override
+  public void start() {
+    executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+      @Override
+      public Thread newThread(Runnable r) {
+        Thread thread = new Thread(r, "Issue bulk changes");
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+  }
+
+  @Override
+  public void stop() {
+    if (executor != null) {
+      executor.shutdownNow();
+    }
+  }
+
+  public IssueBulkChangeJob submit(final IssueBulkChangeQuery query, UserSession userSession) {
+    userSession.checkLoggedIn();
+    purge();
+
+    // the session of the HTTP request must not be shared with the worker thread
+    final UserSession jobSession = userSession.copy();
+    final IssueBulkChangeJob job = new IssueBulkChangeJob(UUID.randomUUID().toString(), jobSession.login(), new Date(system.now()));
+    jobs.put(job.key(), job);
+    executor.submit(new Runnable() {
+      @Override
+      public void run() {
+        execute(job, query, jobSession);
+      }
+    });
+    return job;
+  }
+
+  @VisibleForTesting
+  void execute(IssueBulkChangeJob job, IssueBulkChangeQuery query, UserSession userSession) {
+    // actions check permissions of the thread session
+    UserSession.set(userSession);
+    try {
+      IssueBulkChangeResult result = service.execute(query, userSession, job);
+      job.done(result, new Date(system.now()));
+    } catch (Exception e) {
+      LOG.error("Fail to execute issue bulk change " + job.key(), e);
+      job.fail(errorMessage(e), new Date(system.now()));
+    } finally {
+      UserSession.remove();
+    }
+  }
+
+  /**
+   * Localized exceptions may have no message but only a l10n key
+   */
+  private static String errorMessage(Exception e) {
+    if (e.getMessage() != null) {
+      return e.getMessage();
+    }
+    if (e instanceof ServerException && ((ServerException) e).l10nKey() != null) {
+      return ((ServerException) e).l10nKey();
+    }
+    return e.getClass().getName();
+  }
+
+  /**
+   * @return the job, or null if it does not exist or if it is not submitted by the user
+   */
+  @CheckForNull
+  public IssueBulkChangeJob job(String key, UserSession userSession) {
+    IssueBulkChangeJob job = jobs.get(key);
+    if (job != null && job.login().equals(userSession.login())) {
+      return job;
+    }
+    return null;
+  }
+
+  private void purge() {
+    long limit = system.now() - RETENTION_MS;
+    for (Iterator<IssueBulkChangeJob> it = jobs.values().iterator(); it.hasNext(); ) {
+      IssueBulkChangeJob job = it.next();
+      if (job.isFinished() && job.finishedAt().getTime() < limit) {
+        it.remove();
+      }
+    }
+  }
+}
@@ -37,6 +37,8 @@ import org.sonar.core.issue.db.IssueStorage;
 import org.sonar.server.exceptions.BadRequestException;
 import org.sonar.server.user.UserSession;
 
+import javax.annotation.Nullable;
+
 import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
@@ -47,6 +49,7 @@ import static com.google.common.collect.Lists.newArrayList;
 public class IssueBulkChangeService {
 
   private static final Logger LOG = LoggerFactory.getLogger(IssueBulkChangeService.class);
+  static final int SAVE_BATCH_SIZE = 500;
 
   private final DefaultIssueFinder issueFinder;
   private final IssueStorage issueStorage;
@@ -63,6 +66,13 @@ public class IssueBulkChangeService {
   }
 
   public IssueBulkChangeResult execute(IssueBulkChangeQuery issueBulkChangeQuery, UserSession userSession) {
+    return execute(issueBulkChangeQuery, userSession, null);
+  }
+
+  /**
+   * Actions are applied in memory. Changed issues are saved by groups of {@link #SAVE_BATCH_SIZE}, then notifications are queued at once.
+   */
+  IssueBulkChangeResult execute(IssueBulkChangeQuery issueBulkChangeQuery, UserSession userSession, @Nullable IssueBulkChangeJob job) {
     LOG.debug("BulkChangeQuery : {}", issueBulkChangeQuery);
     long start = System.currentTimeMillis();
     userSession.checkLoggedIn();
@@ -71,9 +81,14 @@ public class IssueBulkChangeService {
     IssueQueryResult issueQueryResult = issueFinder.find(IssueQuery.builder().issueKeys(issueBulkChangeQuery.issues()).pageSize(-1).requiredRole(UserRole.USER).build());
     List<Issue> issues = issueQueryResult.issues();
     List<Action> bulkActions = getActionsToApply(issueBulkChangeQuery, issues, userSession);
+    if (job != null) {
+      job.start(issues.size());
+    }
 
     IssueChangeContext issueChangeContext = IssueChangeContext.createUser(new Date(), userSession.login());
     Set<String> concernedProjects = new HashSet<String>();
+    List<DefaultIssue> changedIssues = newArrayList();
+    List<DefaultIssue> issuesToSave = newArrayList();
     for (Issue issue : issues) {
       ActionContext actionContext = new ActionContext(issue, issueChangeContext);
       for (Action action : bulkActions) {
@@ -84,12 +99,23 @@ public class IssueBulkChangeService {
         if (issueBulkChangeQuery.hasComment()) {
           applyAction(getAction(CommentAction.KEY), actionContext, issueBulkChangeQuery, result);
         }
-        issueStorage.save((DefaultIssue) issue);
-        if (issueBulkChangeQuery.sendNotifications()) {
-          issueNotifications.sendChanges((DefaultIssue) issue, issueChangeContext, issueQueryResult);
-        }
+        changedIssues.add((DefaultIssue) issue);
+        issuesToSave.add((DefaultIssue) issue);
         concernedProjects.add(((DefaultIssue) issue).projectKey());
       }
+      if (issuesToSave.size() == SAVE_BATCH_SIZE) {
+        issueStorage.save(issuesToSave);
+        issuesToSave = newArrayList();
+      }
+      if (job != null) {
+        job.addProcessed(1);
+      }
+    }
+    if (!issuesToSave.isEmpty()) {
+      issueStorage.save(issuesToSave);
+    }
+    if (issueBulkChangeQuery.sendNotifications() && !changedIssues.isEmpty()) {
+      issueNotifications.sendChanges(changedIssues, issueChangeContext, issueQueryResult);
     }
     // Purge dryRun cache
     for (String projectKey : concernedProjects) {
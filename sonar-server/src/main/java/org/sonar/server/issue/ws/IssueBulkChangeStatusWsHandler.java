@@ -0,0 +1,69 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.issue.ws;
+
+import org.sonar.api.server.ws.Request;
+import org.sonar.api.server.ws.RequestHandler;
+import org.sonar.api.server.ws.Response;
+import org.sonar.api.utils.text.JsonWriter;
+import org.sonar.server.exceptions.NotFoundException;
+import org.sonar.server.issue.IssueBulkChangeJob;
+import org.sonar.server.issue.IssueBulkChangeJobs;
+import org.sonar.server.issue.IssueBulkChangeResult;
+import org.sonar.server.user.UserSession;
+
+/**
+ * @since 4.2.1
+ */
+public class IssueBulkChangeStatusWsHandler implements RequestHandler {
+
+  private final IssueBulkChangeJobs jobs;
+
+  public IssueBulkChangeStatusWsHandler(IssueBulkChangeJobs jobs) {
+    this.jobs = jobs;
+  }
+
+  @Override
+  public void handle(Request request, Response response) {
+    UserSession userSession = UserSession.get();
+    userSession.checkLoggedIn();
+    String key = request.mandatoryParam("key");
+    IssueBulkChangeJob job = jobs.job(key, userSession);
+    if (job == null) {
+      throw new NotFoundException("Bulk change not found: " + key);
+    }
+
+    JsonWriter json = response.newJsonWriter();
+    json.beginObject()
+      .prop("key", job.key())
+      .prop("status", job.status().name())
+      .propDateTime("createdAt", job.createdAt())
+      .propDateTime("finishedAt", job.finishedAt())
+      .prop("total", job.total())
+      .prop("processed", job.processed());
+    IssueBulkChangeResult result = job.result();
+    if (result != null) {
+      json.prop("changed", result.issuesChanged().size());
+      json.prop("notChanged", result.issuesNotChanged().size());
+    }
+    json.prop("error", job.errorMessage());
+    json.endObject().close();
+  }
+}
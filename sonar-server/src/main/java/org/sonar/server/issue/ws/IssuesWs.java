@@ -24,9 +24,11 @@ import org.sonar.api.server.ws.WebService;
 public class IssuesWs implements WebService {
 
   private final IssueShowWsHandler showHandler;
+  private final IssueBulkChangeStatusWsHandler bulkChangeStatusHandler;
 
-  public IssuesWs(IssueShowWsHandler showHandler) {
+  public IssuesWs(IssueShowWsHandler showHandler, IssueBulkChangeStatusWsHandler bulkChangeStatusHandler) {
     this.showHandler = showHandler;
+    this.bulkChangeStatusHandler = bulkChangeStatusHandler;
   }
 
   @Override
@@ -41,6 +43,13 @@ public class IssuesWs implements WebService {
       .setHandler(showHandler)
       .createParam("key", "Issue key");
 
+    controller.createAction("bulk_change_status")
+      .setDescription("Progress of a bulk change executed in background. Only the author of the bulk change can request it.")
+      .setSince("4.2.1")
+      .setInternal(true)
+      .setHandler(bulkChangeStatusHandler)
+      .createParam("key", "Key of the bulk change");
+
     controller.done();
   }
 }
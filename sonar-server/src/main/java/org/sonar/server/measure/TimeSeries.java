@@ -0,0 +1,206 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.measure;
+
+import com.google.common.base.Preconditions;
+
+import javax.annotation.Nullable;
+
+import java.util.Arrays;
+import java.util.Date;
+
+/**
+ * Immutable series of numeric values sorted by date. Dates are stored with a precision of one second,
+ * as deltas from the previous date, in order to keep long histories compact in memory.
+ *
+ * @since 4.2.1
+ */
+public final class TimeSeries {
+
+  private static final long SECOND = 1000L;
+
+  public static final TimeSeries EMPTY = new TimeSeries(0L, new int[0], new double[0]);
+
+  // in seconds
+  private final long firstTime;
+  private final int[] deltas;
+  private final double[] values;
+
+  private TimeSeries(long firstTime, int[] deltas, double[] values) {
+    this.firstTime = firstTime;
+    this.deltas = deltas;
+    this.values = values;
+  }
+
+  public int size() {
+    return values.length;
+  }
+
+  public boolean isEmpty() {
+    return values.length == 0;
+  }
+
+  /**
+   * Dates of the points, in milliseconds
+   */
+  public long[] times() {
+    long[] times = new long[deltas.length];
+    long time = firstTime;
+    for (int i = 0; i < deltas.length; i++) {
+      time += deltas[i];
+      times[i] = time * SECOND;
+    }
+    return times;
+  }
+
+  public double[] values() {
+    return Arrays.copyOf(values, values.length);
+  }
+
+  /**
+   * Date of the last point, in milliseconds
+   */
+  public long lastTime() {
+    Preconditions.checkState(!isEmpty(), "Time series is empty");
+    long time = firstTime;
+    for (int delta : deltas) {
+      time += delta;
+    }
+    return time * SECOND;
+  }
+
+  /**
+   * Points between the two dates, inclusive
+   */
+  public TimeSeries between(@Nullable Date from, @Nullable Date to) {
+    if (from == null && to == null) {
+      return this;
+    }
+    long fromTime = from != null ? from.getTime() : Long.MIN_VALUE;
+    long toTime = to != null ? to.getTime() : Long.MAX_VALUE;
+    long[] times = times();
+    Builder builder = new Builder(times.length);
+    for (int i = 0; i < times.length; i++) {
+      if (times[i] >= fromTime && times[i] <= toTime) {
+        builder.add(times[i], values[i]);
+      }
+    }
+    return builder.build();
+  }
+
+  /**
+   * Reduces the number of points by splitting the period in <code>maxPoints</code> intervals of same duration
+   * and by keeping the last point of each interval. The first and the last points are always kept.
+   */
+  public TimeSeries downsample(int maxPoints) {
+    Preconditions.checkArgument(maxPoints >= 2, "At least two points must be kept");
+    if (size() <= maxPoints) {
+      return this;
+    }
+    long[] times = times();
+    long start = times[0];
+    double interval = (double) (times[times.length - 1] - start) / (maxPoints - 1);
+    Builder builder = new Builder(maxPoints);
+    builder.add(times[0], values[0]);
+    for (int i = 1; i < times.length; i++) {
+      boolean lastOfInterval = i == times.length - 1 || bucket(times[i + 1], start, interval) != bucket(times[i], start, interval);
+      if (lastOfInterval && (bucket(times[i], start, interval) != 0 || i == times.length - 1)) {
+        builder.add(times[i], values[i]);
+      }
+    }
+    return builder.build();
+  }
+
+  private static long bucket(long time, long start, double interval) {
+    return interval == 0.0 ? 0L : (long) Math.ceil((time - start) / interval);
+  }
+
+  /**
+   * Points of this series followed by the points of the given series, which must not be older than the last point of this series.
+   */
+  public TimeSeries append(TimeSeries other) {
+    if (other.isEmpty()) {
+      return this;
+    }
+    if (isEmpty()) {
+      return other;
+    }
+    long lastTime = lastTime() / SECOND;
+    Preconditions.checkArgument(other.firstTime >= lastTime, "Points must be sorted by date");
+    int[] newDeltas = Arrays.copyOf(deltas, deltas.length + other.deltas.length);
+    System.arraycopy(other.deltas, 0, newDeltas, deltas.length, other.deltas.length);
+    // first delta of other series is relative to its own first time
+    newDeltas[deltas.length] = checkedDelta(other.firstTime + other.deltas[0] - lastTime);
+    double[] newValues = Arrays.copyOf(values, values.length + other.values.length);
+    System.arraycopy(other.values, 0, newValues, values.length, other.values.length);
+    return new TimeSeries(firstTime, newDeltas, newValues);
+  }
+
+  private static int checkedDelta(long delta) {
+    Preconditions.checkArgument(delta >= 0L, "Points must be sorted by date");
+    Preconditions.checkArgument(delta <= Integer.MAX_VALUE, "Points are too far from each other");
+    return (int) delta;
+  }
+
+  public static final class Builder {
+    private long firstTime = 0L;
+    private long lastTime = 0L;
+    private int[] deltas;
+    private double[] values;
+    private int size = 0;
+
+    public Builder() {
+      this(16);
+    }
+
+    public Builder(int capacity) {
+      int initialCapacity = Math.max(capacity, 1);
+      deltas = new int[initialCapacity];
+      values = new double[initialCapacity];
+    }
+
+    /**
+     * @param time in milliseconds, greater than or equal to the time of the previous point
+     */
+    public Builder add(long time, double value) {
+      long timeInSeconds = time / SECOND;
+      if (size == 0) {
+        firstTime = timeInSeconds;
+        lastTime = timeInSeconds;
+      }
+      if (size == values.length) {
+        deltas = Arrays.copyOf(deltas, size * 2);
+        values = Arrays.copyOf(values, size * 2);
+      }
+      deltas[size] = checkedDelta(timeInSeconds - lastTime);
+      values[size] = value;
+      lastTime = timeInSeconds;
+      size++;
+      return this;
+    }
+
+    public TimeSeries build() {
+      if (size == 0) {
+        return EMPTY;
+      }
+      return new TimeSeries(firstTime, Arrays.copyOf(deltas, size), Arrays.copyOf(values, size));
+    }
+  }
+}
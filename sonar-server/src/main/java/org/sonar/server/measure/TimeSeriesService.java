@@ -0,0 +1,202 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.measure;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+import org.sonar.api.ServerComponent;
+import org.sonar.core.measure.db.MeasureHistoryDao;
+import org.sonar.core.measure.db.MeasureHistoryDto;
+
+import javax.annotation.Nullable;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * History of the numeric measures of projects. Series are kept in memory and completed with the
+ * snapshots processed since the last call, so that only new measures are read from database.
+ *
+ * @since 4.2.1
+ */
+public class TimeSeriesService implements ServerComponent {
+
+  private static final int CACHE_SIZE = 2000;
+
+  private final MeasureHistoryDao dao;
+  private final Cache<SeriesKey, CachedSeries> cache;
+
+  public TimeSeriesService(MeasureHistoryDao dao) {
+    this.dao = dao;
+    this.cache = CacheBuilder.newBuilder()
+      .maximumSize(CACHE_SIZE)
+      .softValues()
+      // purged snapshots are evicted from memory after one hour
+      .expireAfterWrite(1, TimeUnit.HOURS)
+      .build(new CacheLoader<SeriesKey, CachedSeries>() {
+        @Override
+        public CachedSeries load(SeriesKey key) {
+          return new CachedSeries();
+        }
+      });
+  }
+
+  /**
+   * Series of the given metrics, indexed by metric id. Series of metrics without measures are empty.
+   */
+  public Map<Integer, TimeSeries> findByProjectAndMetrics(long projectId, Collection<Integer> metricIds) {
+    Map<Integer, TimeSeries> result = Maps.newLinkedHashMap();
+    Long lastSnapshotId = dao.selectLastSnapshotId(projectId);
+    if (lastSnapshotId == null) {
+      for (Integer metricId : metricIds) {
+        result.put(metricId, TimeSeries.EMPTY);
+      }
+      return result;
+    }
+
+    Map<Integer, CachedSeries> toComplete = Maps.newHashMap();
+    Map<Integer, CachedSeries> toLoad = Maps.newHashMap();
+    Long oldestSnapshotId = null;
+    for (Integer metricId : metricIds) {
+      CachedSeries cached = cache.getUnchecked(new SeriesKey(projectId, metricId));
+      Long cachedSnapshotId = cached.lastSnapshotId();
+      if (cachedSnapshotId == null) {
+        toLoad.put(metricId, cached);
+      } else if (cachedSnapshotId < lastSnapshotId) {
+        toComplete.put(metricId, cached);
+        oldestSnapshotId = oldestSnapshotId == null ? cachedSnapshotId : Math.min(oldestSnapshotId, cachedSnapshotId);
+      }
+    }
+
+    if (!toComplete.isEmpty()) {
+      Multimap<Integer, MeasureHistoryDto> rows = selectByMetric(projectId, toComplete.keySet(), oldestSnapshotId);
+      for (Map.Entry<Integer, CachedSeries> entry : toComplete.entrySet()) {
+        if (!entry.getValue().complete(rows.get(entry.getKey()), lastSnapshotId)) {
+          // measures of a snapshot older than the cached ones, for example when project date is forced
+          toLoad.put(entry.getKey(), entry.getValue());
+        }
+      }
+    }
+    if (!toLoad.isEmpty()) {
+      Multimap<Integer, MeasureHistoryDto> rows = selectByMetric(projectId, toLoad.keySet(), null);
+      for (Map.Entry<Integer, CachedSeries> entry : toLoad.entrySet()) {
+        entry.getValue().reload(rows.get(entry.getKey()), lastSnapshotId);
+      }
+    }
+
+    for (Integer metricId : metricIds) {
+      result.put(metricId, cache.getUnchecked(new SeriesKey(projectId, metricId)).series());
+    }
+    return result;
+  }
+
+  private Multimap<Integer, MeasureHistoryDto> selectByMetric(long projectId, Collection<Integer> metricIds, @Nullable Long afterSnapshotId) {
+    Multimap<Integer, MeasureHistoryDto> rowsByMetric = ArrayListMultimap.create();
+    for (MeasureHistoryDto row : dao.selectByProjectAndMetrics(projectId, Lists.newArrayList(metricIds), afterSnapshotId)) {
+      rowsByMetric.put(row.getMetricId(), row);
+    }
+    return rowsByMetric;
+  }
+
+  private static final class SeriesKey {
+    private final long projectId;
+    private final int metricId;
+
+    private SeriesKey(long projectId, int metricId) {
+      this.projectId = projectId;
+      this.metricId = metricId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      SeriesKey other = (SeriesKey) o;
+      return projectId == other.projectId && metricId == other.metricId;
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * (int) (projectId ^ (projectId >>> 32)) + metricId;
+    }
+  }
+
+  private static final class CachedSeries {
+    private Long lastSnapshotId = null;
+    private TimeSeries series = TimeSeries.EMPTY;
+
+    synchronized Long lastSnapshotId() {
+      return lastSnapshotId;
+    }
+
+    synchronized TimeSeries series() {
+      return series;
+    }
+
+    /**
+     * @return false if the rows can not be appended to the series
+     */
+    synchronized boolean complete(Collection<MeasureHistoryDto> rows, long upToSnapshotId) {
+      if (lastSnapshotId == null) {
+        return false;
+      }
+      long previousSnapshotId = lastSnapshotId;
+      long greatestSnapshotId = Math.max(previousSnapshotId, upToSnapshotId);
+      TimeSeries.Builder builder = new TimeSeries.Builder(rows.size());
+      long previousTime = series.isEmpty() ? Long.MIN_VALUE : series.lastTime();
+      for (MeasureHistoryDto row : rows) {
+        // rows were selected from the oldest snapshot of all the requested series
+        if (row.getSnapshotId() > previousSnapshotId) {
+          long time = row.getCreatedAt().getTime();
+          if (time < previousTime) {
+            return false;
+          }
+          builder.add(time, row.getValue());
+          previousTime = time;
+          greatestSnapshotId = Math.max(greatestSnapshotId, row.getSnapshotId());
+        }
+      }
+      series = series.append(builder.build());
+      lastSnapshotId = greatestSnapshotId;
+      return true;
+    }
+
+    synchronized void reload(Collection<MeasureHistoryDto> rows, long upToSnapshotId) {
+      long greatestSnapshotId = upToSnapshotId;
+      TimeSeries.Builder builder = new TimeSeries.Builder(rows.size());
+      for (MeasureHistoryDto row : rows) {
+        builder.add(row.getCreatedAt().getTime(), row.getValue());
+        greatestSnapshotId = Math.max(greatestSnapshotId, row.getSnapshotId());
+      }
+      series = builder.build();
+      lastSnapshotId = greatestSnapshotId;
+    }
+  }
+}
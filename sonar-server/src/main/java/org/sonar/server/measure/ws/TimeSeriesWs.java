@@ -0,0 +1,138 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.measure.ws;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.sonar.api.measures.Metric;
+import org.sonar.api.measures.MetricFinder;
+import org.sonar.api.server.ws.Request;
+import org.sonar.api.server.ws.RequestHandler;
+import org.sonar.api.server.ws.Response;
+import org.sonar.api.server.ws.WebService;
+import org.sonar.api.utils.DateUtils;
+import org.sonar.api.utils.text.JsonWriter;
+import org.sonar.api.web.UserRole;
+import org.sonar.core.resource.ResourceDao;
+import org.sonar.core.resource.ResourceDto;
+import org.sonar.core.resource.ResourceQuery;
+import org.sonar.server.exceptions.BadRequestException;
+import org.sonar.server.exceptions.NotFoundException;
+import org.sonar.server.measure.TimeSeries;
+import org.sonar.server.measure.TimeSeriesService;
+import org.sonar.server.user.UserSession;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @since 4.2.1
+ */
+public class TimeSeriesWs implements WebService {
+
+  private final TimeSeriesService service;
+  private final MetricFinder metricFinder;
+  private final ResourceDao resourceDao;
+
+  public TimeSeriesWs(TimeSeriesService service, MetricFinder metricFinder, ResourceDao resourceDao) {
+    this.service = service;
+    this.metricFinder = metricFinder;
+    this.resourceDao = resourceDao;
+  }
+
+  @Override
+  public void define(Context context) {
+    NewController controller = context.createController("api/timeseries")
+      .setDescription("History of numeric measures");
+
+    NewAction action = controller.createAction("show")
+      .setDescription("History of the numeric measures of a component. Requires the Browse permission on its project.")
+      .setSince("4.2.1")
+      .setHandler(new RequestHandler() {
+        @Override
+        public void handle(Request request, Response response) {
+          show(request, response);
+        }
+      });
+    action.createParam("resource", "Component key. Required.");
+    action.createParam("metrics", "Comma-separated list of numeric metric keys. Required.");
+    action.createParam("fromDateTime", "Lower bound of the dates of the measures, for example 2013-05-01T00:00:00+0100");
+    action.createParam("toDateTime", "Upper bound of the dates of the measures, for example 2013-05-01T00:00:00+0100");
+    action.createParam("maxPoints", "Maximum number of measures per metric. Measures are sampled on periods of same duration.");
+
+    controller.done();
+  }
+
+  private void show(Request request, Response response) {
+    String componentKey = request.mandatoryParam("resource");
+    ResourceDto project = resourceDao.getRootProjectByComponentKey(componentKey);
+    if (project == null) {
+      throw new NotFoundException("Component not found: " + componentKey);
+    }
+    UserSession.get().checkProjectPermission(UserRole.USER, project.getKey());
+    ResourceDto component = resourceDao.getResource(ResourceQuery.create().setKey(componentKey));
+    if (component == null) {
+      throw new NotFoundException("Component not found: " + componentKey);
+    }
+
+    Map<Integer, Metric> metricsById = findMetrics(request.mandatoryParam("metrics"));
+    Date from = DateUtils.parseDateTimeQuietly(request.param("fromDateTime"));
+    Date to = DateUtils.parseDateTimeQuietly(request.param("toDateTime"));
+    Integer maxPoints = request.paramAsInt("maxPoints");
+    if (maxPoints != null && maxPoints < 2) {
+      throw BadRequestException.of("Parameter 'maxPoints' must be greater than 1");
+    }
+
+    Map<Integer, TimeSeries> seriesByMetric = service.findByProjectAndMetrics(component.getId(), metricsById.keySet());
+    JsonWriter json = response.newJsonWriter();
+    json.beginObject().name("metrics").beginArray();
+    for (Map.Entry<Integer, TimeSeries> entry : seriesByMetric.entrySet()) {
+      TimeSeries series = entry.getValue().between(from, to);
+      if (maxPoints != null) {
+        series = series.downsample(maxPoints);
+      }
+      json.beginObject().prop("key", metricsById.get(entry.getKey()).getKey());
+      json.name("points").beginArray();
+      long[] times = series.times();
+      double[] values = series.values();
+      for (int i = 0; i < times.length; i++) {
+        json.beginObject()
+          .propDateTime("d", new Date(times[i]))
+          .prop("v", values[i])
+          .endObject();
+      }
+      json.endArray().endObject();
+    }
+    json.endArray().endObject().close();
+  }
+
+  private Map<Integer, Metric> findMetrics(String metricKeys) {
+    List<String> keys = Lists.newArrayList(Splitter.on(',').omitEmptyStrings().trimResults().split(metricKeys));
+    Map<Integer, Metric> metricsById = Maps.newLinkedHashMap();
+    for (Metric metric : metricFinder.findAll(keys)) {
+      if (metric.isNumericType()) {
+        metricsById.put(metric.getId(), metric);
+      }
+    }
+    return metricsById;
+  }
+}
@@ -33,6 +33,7 @@ import org.sonar.api.notifications.NotificationChannel;
 import org.sonar.api.notifications.NotificationDispatcher;
 import org.sonar.api.utils.TimeProfiler;
 import org.sonar.core.notification.DefaultNotificationManager;
+import org.sonar.core.profiling.ProfilingMetrics;
 import org.sonar.jpa.session.DatabaseSessionFactory;
 
 import java.util.Arrays;
@@ -68,6 +69,7 @@ public class NotificationService implements ServerComponent {
   public static final String PROPERTY_DELAY_BEFORE_REPORTING_STATUS = "sonar.notifications.runningDelayBeforeReportingStatus";
 
   private static final TimeProfiler TIME_PROFILER = new TimeProfiler(LOG).setLevelToDebug();
+  private static final String SENT_COUNTER = "notifications.sent";
 
   private final long delayInSeconds;
   private final long delayBeforeReportingStatusInSeconds;
@@ -149,6 +151,7 @@ public class NotificationService implements ServerComponent {
       notifToSend = manager.getFromQueue();
     }
 
+    ProfilingMetrics.INSTANCE.counter(SENT_COUNTER).addAndGet(notifSentCount);
     TIME_PROFILER.stop();
   }
 
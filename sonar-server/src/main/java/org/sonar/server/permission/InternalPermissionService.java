@@ -62,12 +62,15 @@ public class InternalPermissionService implements ServerComponent {
   private final ResourceDao resourceDao;
   private final PermissionFacade permissionFacade;
   private final PermissionFinder finder;
+  private final ProjectPermissionCache projectPermissionCache;
 
-  public InternalPermissionService(UserDao userDao, ResourceDao resourceDao, PermissionFacade permissionFacade, PermissionFinder finder) {
+  public InternalPermissionService(UserDao userDao, ResourceDao resourceDao, PermissionFacade permissionFacade, PermissionFinder finder,
+    ProjectPermissionCache projectPermissionCache) {
     this.userDao = userDao;
     this.resourceDao = resourceDao;
     this.permissionFacade = permissionFacade;
     this.finder = finder;
+    this.projectPermissionCache = projectPermissionCache;
   }
 
   public List<String> globalPermissions() {
@@ -94,6 +97,24 @@ public class InternalPermissionService implements ServerComponent {
     changePermission(REMOVE, params);
   }
 
+  /**
+   * To be called when permissions or group memberships are changed by ruby code, for example when a group is deleted.
+   *
+   * @since 4.2.1
+   */
+  public void invalidateProjectPermissionCache() {
+    projectPermissionCache.invalidateAll();
+  }
+
+  /**
+   * To be called when the user is added to or removed from a group.
+   *
+   * @since 4.2.1
+   */
+  public void invalidateGroupsOfUser(long userId) {
+    projectPermissionCache.invalidateGroupsOfUser(userId);
+  }
+
   public void applyDefaultPermissionTemplate(final String componentKey) {
     UserSession.get().checkLoggedIn();
 
@@ -108,6 +129,7 @@ public class InternalPermissionService implements ServerComponent {
     }
 
     permissionFacade.grantDefaultRoles(component.getId(), component.qualifier());
+    projectPermissionCache.invalidateAll();
   }
 
   public void applyPermissionTemplate(Map<String, Object> params) {
@@ -132,6 +154,7 @@ public class InternalPermissionService implements ServerComponent {
       }
       permissionFacade.applyPermissionTemplate(query.getTemplateKey(), component.getId());
     }
+    projectPermissionCache.invalidateAll();
   }
 
   private void changePermission(String permissionChange, Map<String, Object> params) {
@@ -164,6 +187,7 @@ public class InternalPermissionService implements ServerComponent {
       } else {
         permissionFacade.deleteGroupPermission(componentId, targetedGroup, permissionChangeQuery.permission());
       }
+      projectPermissionCache.invalidateGroup(targetedGroup);
     }
   }
 
@@ -182,6 +206,7 @@ public class InternalPermissionService implements ServerComponent {
       } else {
         permissionFacade.deleteUserPermission(componentId, targetedUser, permissionChangeQuery.permission());
       }
+      projectPermissionCache.invalidateUser(targetedUser);
     }
   }
 
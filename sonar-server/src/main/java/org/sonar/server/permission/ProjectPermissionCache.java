@@ -0,0 +1,242 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.permission;
+
+import com.google.common.base.Objects;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.primitives.Longs;
+import org.sonar.api.ServerComponent;
+import org.sonar.core.user.AuthorizationDao;
+
+import javax.annotation.Nullable;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Permissions of users and groups on root projects, shared by all the HTTP sessions. Grants of each user and of each group
+ * are kept as sorted arrays of project ids, so that checking a permission does not request the database.
+ * <p/>
+ * Entries must be invalidated when permissions or group memberships are changed. Projects created after the load of an entry,
+ * for example by an analysis applying the default permission template, are detected by their id and reload the entry.
+ * Changes made outside of the server are visible at the latest after {@link #EXPIRATION_MINUTES} minutes.
+ *
+ * @since 4.2.1
+ */
+public class ProjectPermissionCache implements ServerComponent {
+
+  static final int EXPIRATION_MINUTES = 10;
+  private static final int MAX_GRANTS = 20000;
+  private static final int MAX_USERS = 10000;
+  private static final int MAX_PROJECTS = 50000;
+  private static final long UNKNOWN_PROJECT = -1L;
+
+  private final AuthorizationDao dao;
+  private final Cache<Grantee, Grants> grants;
+  private final Cache<Long, long[]> groupIdsByUserId;
+  private final Cache<String, Long> projectIdsByKey;
+
+  public ProjectPermissionCache(AuthorizationDao dao) {
+    this.dao = dao;
+    this.grants = CacheBuilder.newBuilder()
+      .maximumSize(MAX_GRANTS)
+      .expireAfterWrite(EXPIRATION_MINUTES, TimeUnit.MINUTES)
+      .build(new CacheLoader<Grantee, Grants>() {
+        @Override
+        public Grants load(Grantee grantee) {
+          return loadGrants(grantee);
+        }
+      });
+    this.groupIdsByUserId = CacheBuilder.newBuilder()
+      .maximumSize(MAX_USERS)
+      .expireAfterWrite(EXPIRATION_MINUTES, TimeUnit.MINUTES)
+      .build(new CacheLoader<Long, long[]>() {
+        @Override
+        public long[] load(Long userId) {
+          return Longs.toArray(ProjectPermissionCache.this.dao.selectGroupIdsOfUser(userId));
+        }
+      });
+    this.projectIdsByKey = CacheBuilder.newBuilder()
+      .maximumSize(MAX_PROJECTS)
+      .expireAfterWrite(EXPIRATION_MINUTES, TimeUnit.MINUTES)
+      .build(new CacheLoader<String, Long>() {
+        @Override
+        public Long load(String projectKey) {
+          Long id = ProjectPermissionCache.this.dao.selectRootProjectIdByKey(projectKey);
+          return id != null ? id : UNKNOWN_PROJECT;
+        }
+      });
+  }
+
+  /**
+   * Does the user have the permission on the root project, directly or through one of his groups ? A null user is anonymous.
+   */
+  public boolean hasProjectPermission(@Nullable Integer userId, String permission, String projectKey) {
+    long projectId = projectId(projectKey);
+    if (projectId == UNKNOWN_PROJECT) {
+      return false;
+    }
+    if (isGranted(Grantee.group(null, permission), projectId)) {
+      return true;
+    }
+    if (userId == null) {
+      return false;
+    }
+    if (isGranted(Grantee.user(userId, permission), projectId)) {
+      return true;
+    }
+    for (long groupId : groupIdsByUserId.getUnchecked(userId.longValue())) {
+      if (isGranted(Grantee.group(groupId, permission), projectId)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * To be called when permissions are directly granted to or revoked from the user.
+   */
+  public void invalidateUser(long userId) {
+    invalidateGrants(Grantee.USER, userId);
+  }
+
+  /**
+   * To be called when permissions are granted to or revoked from the group. A null group is the group "Anyone".
+   */
+  public void invalidateGroup(@Nullable Long groupId) {
+    invalidateGrants(Grantee.GROUP, groupId);
+  }
+
+  /**
+   * To be called when the user is added to or removed from groups.
+   */
+  public void invalidateGroupsOfUser(long userId) {
+    groupIdsByUserId.asMap().remove(userId);
+  }
+
+  /**
+   * To be called when permissions of several users or groups are changed, for example when a permission template is applied
+   * or when a project or a group is deleted.
+   */
+  public void invalidateAll() {
+    grants.asMap().clear();
+    groupIdsByUserId.asMap().clear();
+    projectIdsByKey.asMap().clear();
+  }
+
+  private long projectId(String projectKey) {
+    long id = projectIdsByKey.getUnchecked(projectKey);
+    if (id == UNKNOWN_PROJECT) {
+      // the project can be created later
+      projectIdsByKey.asMap().remove(projectKey);
+    }
+    return id;
+  }
+
+  private boolean isGranted(Grantee grantee, long projectId) {
+    Grants granted = grants.getUnchecked(grantee);
+    if (projectId > granted.maxProjectId) {
+      // project created after the load of grants
+      grants.asMap().remove(grantee);
+      granted = grants.getUnchecked(grantee);
+    }
+    return granted.contains(projectId);
+  }
+
+  private void invalidateGrants(String type, @Nullable Long id) {
+    for (Iterator<Grantee> it = grants.asMap().keySet().iterator(); it.hasNext(); ) {
+      Grantee grantee = it.next();
+      if (grantee.type.equals(type) && Objects.equal(grantee.id, id)) {
+        it.remove();
+      }
+    }
+  }
+
+  private Grants loadGrants(Grantee grantee) {
+    // read before grants, so that projects created in the meantime are reloaded
+    Long maxProjectId = dao.selectMaxRootProjectId();
+    Collection<Long> projectIds;
+    if (Grantee.USER.equals(grantee.type)) {
+      projectIds = dao.selectAuthorizedRootProjectIdsOfUser(grantee.id, grantee.permission);
+    } else {
+      projectIds = dao.selectAuthorizedRootProjectIdsOfGroup(grantee.id, grantee.permission);
+    }
+    return new Grants(Longs.toArray(projectIds), maxProjectId != null ? maxProjectId : 0L);
+  }
+
+  private static class Grants {
+    private final long[] projectIds;
+    private final long maxProjectId;
+
+    Grants(long[] projectIds, long maxProjectId) {
+      this.projectIds = projectIds;
+      Arrays.sort(this.projectIds);
+      this.maxProjectId = maxProjectId;
+    }
+
+    boolean contains(long projectId) {
+      return Arrays.binarySearch(projectIds, projectId) >= 0;
+    }
+  }
+
+  private static class Grantee {
+    static final String USER = "user";
+    static final String GROUP = "group";
+
+    private final String type;
+    private final Long id;
+    private final String permission;
+
+    private Grantee(String type, @Nullable Long id, String permission) {
+      this.type = type;
+      this.id = id;
+      this.permission = permission;
+    }
+
+    static Grantee user(long userId, String permission) {
+      return new Grantee(USER, userId, permission);
+    }
+
+    static Grantee group(@Nullable Long groupId, String permission) {
+      return new Grantee(GROUP, groupId, permission);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      Grantee other = (Grantee) o;
+      return type.equals(other.type) && Objects.equal(id, other.id) && permission.equals(other.permission);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(type, id, permission);
+    }
+  }
+}
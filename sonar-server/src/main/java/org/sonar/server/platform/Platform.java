@@ -57,6 +57,7 @@ import org.sonar.core.persistence.*;
 import org.sonar.core.preview.PreviewCache;
 import org.sonar.core.profiling.Profiling;
 import org.sonar.core.purge.PurgeProfiler;
+import org.sonar.core.qualityprofile.ActiveRulesLoader;
 import org.sonar.core.resource.DefaultResourcePermissions;
 import org.sonar.core.rule.DefaultRuleFinder;
 import org.sonar.core.technicaldebt.DefaultTechnicalDebtManager;
@@ -75,6 +76,9 @@ import org.sonar.jpa.session.DatabaseSessionFactory;
 import org.sonar.jpa.session.DatabaseSessionProvider;
 import org.sonar.jpa.session.DefaultDatabaseConnector;
 import org.sonar.jpa.session.ThreadLocalDatabaseSessionFactory;
+import org.sonar.server.analysis.AnalysisTaskQueue;
+import org.sonar.server.batch.ActiveRulesBundle;
+import org.sonar.server.batch.BatchWs;
 import org.sonar.server.charts.ChartFactory;
 import org.sonar.server.component.DefaultComponentFinder;
 import org.sonar.server.component.DefaultRubyComponentService;
@@ -87,13 +91,18 @@ import org.sonar.server.es.ESNode;
 import org.sonar.server.issue.*;
 import org.sonar.server.issue.filter.IssueFilterService;
 import org.sonar.server.issue.filter.IssueFilterWs;
+import org.sonar.server.issue.ws.IssueBulkChangeStatusWsHandler;
 import org.sonar.server.issue.ws.IssueShowWsHandler;
 import org.sonar.server.issue.ws.IssuesWs;
+import org.sonar.server.measure.TimeSeriesService;
+import org.sonar.server.measure.ws.TimeSeriesWs;
 import org.sonar.server.notifications.NotificationCenter;
 import org.sonar.server.notifications.NotificationService;
 import org.sonar.server.permission.InternalPermissionService;
 import org.sonar.server.permission.InternalPermissionTemplateService;
 import org.sonar.server.permission.PermissionFinder;
+import org.sonar.server.permission.ProjectPermissionCache;
+import org.sonar.server.platform.ws.SystemWs;
 import org.sonar.server.plugins.*;
 import org.sonar.server.qualityprofile.*;
 import org.sonar.server.rule.*;
@@ -188,6 +197,7 @@ public final class Platform {
     rootContainer.addSingleton(Logback.class);
     rootContainer.addSingleton(Profiling.class);
     rootContainer.addSingleton(JRubyProfiling.class);
+    rootContainer.addSingleton(ProfilingMetricsJmx.class);
     rootContainer.addSingleton(EmbeddedDatabaseFactory.class);
     rootContainer.addSingleton(DefaultDatabase.class);
     rootContainer.addSingleton(MyBatis.class);
@@ -279,9 +289,19 @@ public final class Platform {
     servicesContainer.addSingleton(DefaultResourcePermissions.class);
     servicesContainer.addSingleton(Periods.class);
 
+    // measures
+    servicesContainer.addSingleton(TimeSeriesService.class);
+    servicesContainer.addSingleton(TimeSeriesWs.class);
+
+    // batch
+    servicesContainer.addSingleton(ActiveRulesLoader.class);
+    servicesContainer.addSingleton(ActiveRulesBundle.class);
+    servicesContainer.addSingleton(BatchWs.class);
+
     // web services
     servicesContainer.addSingleton(WebServiceEngine.class);
     servicesContainer.addSingleton(ListingWs.class);
+    servicesContainer.addSingleton(SystemWs.class);
 
     // quality profiles
     servicesContainer.addSingleton(QProfileRuleLookup.class);
@@ -310,6 +330,7 @@ public final class Platform {
     servicesContainer.addSingleton(InternalPermissionService.class);
     servicesContainer.addSingleton(InternalPermissionTemplateService.class);
     servicesContainer.addSingleton(PermissionFinder.class);
+    servicesContainer.addSingleton(ProjectPermissionCache.class);
 
     // components
     servicesContainer.addSingleton(DefaultComponentFinder.class);
@@ -334,9 +355,11 @@ public final class Platform {
     servicesContainer.addSingleton(IssueFilterSerializer.class);
     servicesContainer.addSingleton(IssueFilterService.class);
     servicesContainer.addSingleton(IssueBulkChangeService.class);
+    servicesContainer.addSingleton(IssueBulkChangeJobs.class);
     servicesContainer.addSingleton(IssueChangelogFormatter.class);
     servicesContainer.addSingleton(IssueFilterWs.class);
     servicesContainer.addSingleton(IssueShowWsHandler.class);
+    servicesContainer.addSingleton(IssueBulkChangeStatusWsHandler.class);
     servicesContainer.addSingleton(IssuesWs.class);
 
     // issues actions
@@ -387,6 +410,7 @@ public final class Platform {
     // Notifications
     servicesContainer.addSingleton(EmailSettings.class);
     servicesContainer.addSingleton(NotificationService.class);
+    servicesContainer.addSingleton(AnalysisTaskQueue.class);
     servicesContainer.addSingleton(NotificationCenter.class);
     servicesContainer.addSingleton(DefaultNotificationManager.class);
 
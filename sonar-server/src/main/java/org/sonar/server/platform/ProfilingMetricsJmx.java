@@ -0,0 +1,78 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform;
+
+import org.picocontainer.Startable;
+import org.slf4j.LoggerFactory;
+import org.sonar.api.ServerComponent;
+import org.sonar.core.profiling.Profiling;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Exposes {@link org.sonar.core.profiling.ProfilingMetrics} through JMX
+ *
+ * @since 4.2.1
+ */
+public class ProfilingMetricsJmx implements ServerComponent, Startable {
+
+  static final String OBJECT_NAME = "org.sonar:type=ProfilingMetrics";
+
+  private final Profiling profiling;
+  private final MBeanServer mBeanServer;
+
+  public ProfilingMetricsJmx(Profiling profiling) {
+    this(profiling, ManagementFactory.getPlatformMBeanServer());
+  }
+
+  ProfilingMetricsJmx(Profiling profiling, MBeanServer mBeanServer) {
+    this.profiling = profiling;
+    this.mBeanServer = mBeanServer;
+  }
+
+  @Override
+  public void start() {
+    try {
+      ObjectName name = new ObjectName(OBJECT_NAME);
+      if (!mBeanServer.isRegistered(name)) {
+        mBeanServer.registerMBean(profiling.metrics(), name);
+      }
+    } catch (JMException e) {
+      // JMX is optional, the server must start anyway
+      LoggerFactory.getLogger(ProfilingMetricsJmx.class).warn("Fail to register profiling metrics in JMX", e);
+    }
+  }
+
+  @Override
+  public void stop() {
+    try {
+      ObjectName name = new ObjectName(OBJECT_NAME);
+      if (mBeanServer.isRegistered(name)) {
+        mBeanServer.unregisterMBean(name);
+      }
+    } catch (JMException e) {
+      LoggerFactory.getLogger(ProfilingMetricsJmx.class).warn("Fail to unregister profiling metrics from JMX", e);
+    }
+  }
+}
@@ -0,0 +1,136 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.ws;
+
+import org.sonar.api.server.ws.Request;
+import org.sonar.api.server.ws.RequestHandler;
+import org.sonar.api.server.ws.Response;
+import org.sonar.api.server.ws.WebService;
+import org.sonar.api.utils.text.JsonWriter;
+import org.sonar.core.permission.GlobalPermissions;
+import org.sonar.core.persistence.profiling.SqlStatistics;
+import org.sonar.core.profiling.Histogram;
+import org.sonar.core.profiling.Profiling;
+import org.sonar.core.profiling.ProfilingMetrics;
+import org.sonar.server.user.UserSession;
+
+import java.util.Map;
+
+/**
+ * @since 4.2.1
+ */
+public class SystemWs implements WebService {
+
+  private static final int DEFAULT_SQL_LIMIT = 50;
+
+  private final Profiling profiling;
+
+  public SystemWs(Profiling profiling) {
+    this.profiling = profiling;
+  }
+
+  @Override
+  public void define(Context context) {
+    NewController controller = context.createController("api/system")
+      .setDescription("System information");
+
+    controller.createAction("metrics")
+      .setDescription("Durations (in milliseconds) of Elasticsearch, SQL and web service requests, and internal counters. " +
+        "Durations are recorded only when the property " + Profiling.CONFIG_PROFILING_METRICS + " is true. " +
+        "Requires the system administration permission.")
+      .setSince("4.2.1")
+      .setInternal(true)
+      .setHandler(new RequestHandler() {
+        @Override
+        public void handle(Request request, Response response) {
+          metrics(response);
+        }
+      });
+
+    NewAction sqlAction = controller.createAction("sql_statistics")
+      .setDescription("Executions of SQL requests aggregated by normalized SQL text, sorted by total execution time. " +
+        "Requests are aggregated only when the property " + Profiling.CONFIG_PROFILING_METRICS + " is true or when profiling level is FULL. " +
+        "Requires the system administration permission.")
+      .setSince("4.2.1")
+      .setInternal(true)
+      .setHandler(new RequestHandler() {
+        @Override
+        public void handle(Request request, Response response) {
+          sqlStatistics(request, response);
+        }
+      });
+    sqlAction.createParam("limit").setDescription("Maximum number of SQL requests, default is " + DEFAULT_SQL_LIMIT);
+
+    controller.done();
+  }
+
+  private void metrics(Response response) {
+    UserSession.get().checkGlobalPermission(GlobalPermissions.SYSTEM_ADMIN);
+
+    ProfilingMetrics metrics = profiling.metrics();
+    JsonWriter json = response.newJsonWriter();
+    json.beginObject();
+    json.prop("enabled", profiling.isMetricsEnabled());
+    json.name("histograms").beginObject();
+    for (Map.Entry<String, Histogram> entry : metrics.histograms().entrySet()) {
+      Histogram histogram = entry.getValue();
+      json.name(entry.getKey()).beginObject()
+        .prop("count", histogram.count())
+        .prop("mean", Math.round(histogram.mean()))
+        .prop("p50", histogram.percentile(50.0))
+        .prop("p95", histogram.percentile(95.0))
+        .prop("p99", histogram.percentile(99.0))
+        .prop("max", histogram.max())
+        .endObject();
+    }
+    json.endObject();
+    writeValues(json, "counters", metrics.counters());
+    writeValues(json, "gauges", metrics.gauges());
+    json.endObject().close();
+  }
+
+  private void sqlStatistics(Request request, Response response) {
+    UserSession.get().checkGlobalPermission(GlobalPermissions.SYSTEM_ADMIN);
+
+    int limit = request.paramAsInt("limit", DEFAULT_SQL_LIMIT);
+    JsonWriter json = response.newJsonWriter();
+    json.beginObject().name("requests").beginArray();
+    for (SqlStatistics.Entry entry : SqlStatistics.INSTANCE.entries(limit)) {
+      json.beginObject()
+        .prop("sql", entry.sql())
+        .prop("executions", entry.executions())
+        .prop("totalTime", entry.totalTime())
+        .prop("maxTime", entry.maxTime())
+        .prop("rows", entry.rows())
+        .prop("batches", entry.batches())
+        .prop("batchedStatements", entry.batchedStatements())
+        .endObject();
+    }
+    json.endArray().endObject().close();
+  }
+
+  private static void writeValues(JsonWriter json, String name, Map<String, Long> values) {
+    json.name(name).beginObject();
+    for (Map.Entry<String, Long> entry : values.entrySet()) {
+      json.prop(entry.getKey(), entry.getValue());
+    }
+    json.endObject();
+  }
+}
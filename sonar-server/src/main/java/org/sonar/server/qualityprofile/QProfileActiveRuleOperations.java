@@ -91,7 +91,7 @@ public class QProfileActiveRuleOperations implements ServerComponent {
       RuleDto rule = findRuleNotNull(ruleId, session);
       ActiveRuleDto activeRule = findActiveRule(profileId, ruleId, session);
       if (activeRule == null) {
-        createActiveRule(profile.getId(), rule.getId(), severity, userSession, session);
+        createActiveRule(profile.getId(), rule.getId(), severity, userSession, session, null);
       } else {
         updateSeverity(activeRule, severity, userSession, session);
       }
@@ -100,7 +100,11 @@ public class QProfileActiveRuleOperations implements ServerComponent {
     }
   }
 
-  private ActiveRuleDto createActiveRule(int profileId, int ruleId, String severity, UserSession userSession, SqlSession session) {
+  /**
+   * @param pendingIndexing if not null, changes to index are added to it instead of being indexed immediately
+   */
+  private ActiveRuleDto createActiveRule(int profileId, int ruleId, String severity, UserSession userSession, SqlSession session,
+                                         @Nullable ProfilesManager.RuleInheritanceActions pendingIndexing) {
     ActiveRuleDto activeRule = new ActiveRuleDto()
       .setProfileId(profileId)
       .setRuleId(ruleId)
@@ -120,7 +124,7 @@ public class QProfileActiveRuleOperations implements ServerComponent {
     }
     session.commit();
     ProfilesManager.RuleInheritanceActions actions = profilesManager.activated(profileId, activeRule.getId(), getLoggedName(userSession));
-    reindexInheritanceResult(actions, session);
+    reindexInheritanceResult(actions, session, pendingIndexing);
     return activeRule;
   }
 
@@ -139,10 +143,13 @@ public class QProfileActiveRuleOperations implements ServerComponent {
     SqlSession session = myBatis.openSession();
     try {
       List<Integer> ruleIdsToActivate = rules.searchInactiveProfileRuleIds(query);
+      ProfilesManager.RuleInheritanceActions pendingIndexing = new ProfilesManager.RuleInheritanceActions();
       for (Integer ruleId : ruleIdsToActivate) {
         RuleDto rule = findRuleNotNull(ruleId, session);
-        createActiveRule(profileId, ruleId, rule.getSeverityString(), userSession, session);
+        createActiveRule(profileId, ruleId, rule.getSeverityString(), userSession, session, pendingIndexing);
       }
+      // all the documents are indexed by a single bulk request, which fails if any of them is rejected
+      reindexInheritanceResult(pendingIndexing, session);
       return ruleIdsToActivate.size();
     } finally {
       MyBatis.closeQuietly(session);
@@ -154,13 +161,14 @@ public class QProfileActiveRuleOperations implements ServerComponent {
     SqlSession session = myBatis.openSession();
     try {
       ActiveRuleDto activeRule = findActiveRuleNotNull(profileId, ruleId, session);
-      return deactivateRule(activeRule, userSession, session);
+      return deactivateRule(activeRule, userSession, session, null);
     } finally {
       MyBatis.closeQuietly(session);
     }
   }
 
-  private boolean deactivateRule(ActiveRuleDto activeRule, UserSession userSession, SqlSession session) {
+  private boolean deactivateRule(ActiveRuleDto activeRule, UserSession userSession, SqlSession session,
+                                 @Nullable ProfilesManager.RuleInheritanceActions pendingIndexing) {
     if (activeRule.getInheritance() == null) {
       ProfilesManager.RuleInheritanceActions actions = profilesManager.deactivated(activeRule.getProfileId(), activeRule.getId(), getLoggedName(userSession));
 
@@ -169,7 +177,7 @@ public class QProfileActiveRuleOperations implements ServerComponent {
       actions.addToDelete(activeRule.getId());
       session.commit();
 
-      reindexInheritanceResult(actions, session);
+      reindexInheritanceResult(actions, session, pendingIndexing);
       return true;
     }
     return false;
@@ -182,12 +190,14 @@ public class QProfileActiveRuleOperations implements ServerComponent {
     int numberOfDeactivatedRules = 0;
     try {
       List<Integer> activeRuleIdsToDeactivate = rules.searchProfileRuleIds(query);
+      ProfilesManager.RuleInheritanceActions pendingIndexing = new ProfilesManager.RuleInheritanceActions();
       for (int activeRuleId : activeRuleIdsToDeactivate) {
         ActiveRuleDto activeRule = findActiveRuleNotNull(activeRuleId, session);
-        if (deactivateRule(activeRule, userSession, session)) {
+        if (deactivateRule(activeRule, userSession, session, pendingIndexing)) {
           numberOfDeactivatedRules++;
         }
       }
+      reindexInheritanceResult(pendingIndexing, session);
       return numberOfDeactivatedRules;
     } finally {
       MyBatis.closeQuietly(session);
@@ -412,6 +422,15 @@ public class QProfileActiveRuleOperations implements ServerComponent {
     esActiveRule.bulkIndexActiveRuleIds(actions.idsToIndex(), session);
   }
 
+  private void reindexInheritanceResult(ProfilesManager.RuleInheritanceActions actions, SqlSession session,
+                                        @Nullable ProfilesManager.RuleInheritanceActions pendingIndexing) {
+    if (pendingIndexing == null) {
+      reindexInheritanceResult(actions, session);
+    } else {
+      pendingIndexing.add(actions);
+    }
+  }
+
   private void reindexActiveRule(ActiveRuleDto activeRuleDto, SqlSession session) {
     reindexActiveRule(activeRuleDto, activeRuleDao.selectParamsByActiveRuleId(activeRuleDto.getId(), session));
   }
@@ -0,0 +1,125 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.rule;
+
+import com.google.common.base.Function;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Ordering;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.sonar.api.server.rule.RuleDefinitions;
+
+import javax.annotation.Nullable;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Content fingerprints of rule repositories, used to detect at startup the repositories that changed since
+ * the previous registration.
+ *
+ * @since 4.2
+ */
+class RepositoryFingerprints {
+
+  static final char SEPARATOR = ':';
+  private static final char FIELD_SEPARATOR = '\u0000';
+
+  private static final Function<RuleDefinitions.Rule, String> RULE_KEY = new Function<RuleDefinitions.Rule, String>() {
+    @Override
+    public String apply(RuleDefinitions.Rule rule) {
+      return rule.key();
+    }
+  };
+
+  private static final Function<RuleDefinitions.Param, String> PARAM_KEY = new Function<RuleDefinitions.Param, String>() {
+    @Override
+    public String apply(RuleDefinitions.Param param) {
+      return param.key();
+    }
+  };
+
+  private RepositoryFingerprints() {
+    // only static methods
+  }
+
+  /**
+   * Fingerprints by repository key. Extensions of a repository are part of its fingerprint.
+   */
+  static Map<String, String> compute(RuleDefinitions.Context context) {
+    Map<String, String> result = Maps.newLinkedHashMap();
+    for (RuleDefinitions.Repository repository : context.repositories()) {
+      result.put(repository.key(), fingerprint(definitions(context, repository.key())));
+    }
+    return result;
+  }
+
+  static List<RuleDefinitions.ExtendedRepository> definitions(RuleDefinitions.Context context, String repositoryKey) {
+    List<RuleDefinitions.ExtendedRepository> result = Lists.newArrayList();
+    RuleDefinitions.Repository repository = context.repository(repositoryKey);
+    if (repository != null) {
+      result.add(repository);
+    }
+    for (RuleDefinitions.ExtendedRepository extension : context.extendedRepositories()) {
+      if (repositoryKey.equals(extension.key())) {
+        result.add(extension);
+      }
+    }
+    return result;
+  }
+
+  static String templateKey(String repositoryKey, String fingerprint) {
+    return repositoryKey + SEPARATOR + fingerprint;
+  }
+
+  private static String fingerprint(List<RuleDefinitions.ExtendedRepository> repositories) {
+    StringBuilder sb = new StringBuilder();
+    for (RuleDefinitions.ExtendedRepository repository : repositories) {
+      append(sb, repository.key());
+      append(sb, repository.language());
+      // rules and params are sorted so that fingerprint does not depend on declaration order
+      List<RuleDefinitions.Rule> rules = Ordering.<String>natural().onResultOf(RULE_KEY).sortedCopy(repository.rules());
+      for (RuleDefinitions.Rule rule : rules) {
+        append(sb, rule.key());
+        append(sb, rule.name());
+        append(sb, rule.htmlDescription());
+        append(sb, rule.internalKey());
+        append(sb, rule.severity());
+        append(sb, String.valueOf(rule.template()));
+        append(sb, rule.status().name());
+        for (String tag : new TreeSet<String>(rule.tags())) {
+          append(sb, tag);
+        }
+        for (RuleDefinitions.Param param : Ordering.<String>natural().onResultOf(PARAM_KEY).sortedCopy(rule.params())) {
+          append(sb, param.key());
+          append(sb, param.description());
+          append(sb, param.defaultValue());
+          append(sb, param.type().toString());
+        }
+      }
+    }
+    return DigestUtils.md5Hex(sb.toString());
+  }
+
+  private static void append(StringBuilder sb, @Nullable String field) {
+    sb.append(field != null ? field : "").append(FIELD_SEPARATOR);
+  }
+}
@@ -36,6 +36,7 @@ import org.sonar.api.utils.System2;
 import org.sonar.check.Cardinality;
 import org.sonar.core.permission.GlobalPermissions;
 import org.sonar.core.persistence.MyBatis;
+import org.sonar.core.preview.PreviewCache;
 import org.sonar.core.qualityprofile.db.ActiveRuleDao;
 import org.sonar.core.qualityprofile.db.ActiveRuleDto;
 import org.sonar.core.rule.RuleDao;
@@ -64,17 +65,18 @@ public class RuleOperations implements ServerComponent {
   private final RuleTagOperations ruleTagOperations;
   private final ESActiveRule esActiveRule;
   private final RuleRegistry ruleRegistry;
+  private final PreviewCache dryRunCache;
 
   private final System2 system;
 
   public RuleOperations(MyBatis myBatis, ActiveRuleDao activeRuleDao, RuleDao ruleDao, RuleTagDao ruleTagDao, RuleTagOperations ruleTagOperations,
-    ESActiveRule esActiveRule, RuleRegistry ruleRegistry) {
-    this(myBatis, activeRuleDao, ruleDao, ruleTagDao, ruleTagOperations, esActiveRule, ruleRegistry, System2.INSTANCE);
+    ESActiveRule esActiveRule, RuleRegistry ruleRegistry, PreviewCache dryRunCache) {
+    this(myBatis, activeRuleDao, ruleDao, ruleTagDao, ruleTagOperations, esActiveRule, ruleRegistry, dryRunCache, System2.INSTANCE);
   }
 
   @VisibleForTesting
   RuleOperations(MyBatis myBatis, ActiveRuleDao activeRuleDao, RuleDao ruleDao, RuleTagDao ruleTagDao, RuleTagOperations ruleTagOperations, ESActiveRule esActiveRule,
-    RuleRegistry ruleRegistry, System2 system) {
+    RuleRegistry ruleRegistry, PreviewCache dryRunCache, System2 system) {
     this.myBatis = myBatis;
     this.activeRuleDao = activeRuleDao;
     this.ruleDao = ruleDao;
@@ -82,6 +84,7 @@ public class RuleOperations implements ServerComponent {
     this.ruleTagOperations = ruleTagOperations;
     this.esActiveRule = esActiveRule;
     this.ruleRegistry = ruleRegistry;
+    this.dryRunCache = dryRunCache;
     this.system = system;
   }
 
@@ -198,6 +201,8 @@ public class RuleOperations implements ServerComponent {
         ruleDao.update(ruleParam, session);
       }
       List<RuleRuleTagDto> ruleTags = ruleDao.selectTags(rule.getId(), session);
+      // default values of parameters are used by the profiles that activate the rule
+      dryRunCache.reportGlobalModification(session);
       session.commit();
       reindexRule(rule, ruleParams, ruleTags);
     } finally {
@@ -222,6 +227,7 @@ public class RuleOperations implements ServerComponent {
         activeRuleDao.deleteParameters(activeRule.getId(), session);
       }
       activeRuleDao.deleteFromRule(rule.getId(), session);
+      dryRunCache.reportGlobalModification(session);
       session.commit();
       esActiveRule.deleteActiveRules(newArrayList(Iterables.transform(activeRules, new Function<ActiveRuleDto, Integer>() {
         @Override
@@ -38,6 +38,8 @@ import org.sonar.check.Cardinality;
 import org.sonar.core.persistence.MyBatis;
 import org.sonar.core.qualityprofile.db.ActiveRuleDao;
 import org.sonar.core.rule.*;
+import org.sonar.core.template.LoadedTemplateDao;
+import org.sonar.core.template.LoadedTemplateDto;
 import org.sonar.server.qualityprofile.ProfilesManager;
 
 import javax.annotation.CheckForNull;
@@ -63,18 +65,22 @@ public class RuleRegistration implements Startable {
   private final RuleTagDao ruleTagDao;
   private final RuleTagOperations ruleTagOperations;
   private final ActiveRuleDao activeRuleDao;
+  private final LoadedTemplateDao loadedTemplateDao;
   private final System2 system;
 
   public RuleRegistration(RuleDefinitionsLoader defLoader, ProfilesManager profilesManager,
                           RuleRegistry ruleRegistry, ESRuleTags esRuleTags, RuleTagOperations ruleTagOperations,
-                          MyBatis myBatis, RuleDao ruleDao, RuleTagDao ruleTagDao, ActiveRuleDao activeRuleDao) {
-    this(defLoader, profilesManager, ruleRegistry, esRuleTags, ruleTagOperations, myBatis, ruleDao, ruleTagDao, activeRuleDao, System2.INSTANCE);
+                          MyBatis myBatis, RuleDao ruleDao, RuleTagDao ruleTagDao, ActiveRuleDao activeRuleDao,
+                          LoadedTemplateDao loadedTemplateDao) {
+    this(defLoader, profilesManager, ruleRegistry, esRuleTags, ruleTagOperations, myBatis, ruleDao, ruleTagDao, activeRuleDao, loadedTemplateDao,
+      System2.INSTANCE);
   }
 
   @VisibleForTesting
   RuleRegistration(RuleDefinitionsLoader defLoader, ProfilesManager profilesManager,
                           RuleRegistry ruleRegistry, ESRuleTags esRuleTags, RuleTagOperations ruleTagOperations,
-                          MyBatis myBatis, RuleDao ruleDao, RuleTagDao ruleTagDao, ActiveRuleDao activeRuleDao, System2 system) {
+                          MyBatis myBatis, RuleDao ruleDao, RuleTagDao ruleTagDao, ActiveRuleDao activeRuleDao,
+                          LoadedTemplateDao loadedTemplateDao, System2 system) {
     this.defLoader = defLoader;
     this.profilesManager = profilesManager;
     this.ruleRegistry = ruleRegistry;
@@ -84,6 +90,7 @@ public class RuleRegistration implements Startable {
     this.ruleDao = ruleDao;
     this.ruleTagDao = ruleTagDao;
     this.activeRuleDao = activeRuleDao;
+    this.loadedTemplateDao = loadedTemplateDao;
     this.system = system;
   }
 
@@ -95,11 +102,14 @@ public class RuleRegistration implements Startable {
       RuleDefinitions.Context context = defLoader.load();
       Buffer buffer = new Buffer(system.now());
       selectRulesFromDb(buffer, sqlSession);
+      Map<String, String> fingerprints = RepositoryFingerprints.compute(context);
+      selectUnchangedRepositories(buffer, context, fingerprints);
       enableRuleDefinitions(context, buffer, sqlSession);
       List<RuleDto> removedRules = processRemainingDbRules(buffer, sqlSession);
       removeActiveRulesOnStillExistingRepositories(removedRules, context);
       index(buffer);
       ruleTagOperations.deleteUnusedTags(sqlSession);
+      saveFingerprints(buffer, fingerprints, sqlSession);
       sqlSession.commit();
 
     } finally {
@@ -129,6 +139,51 @@ public class RuleRegistration implements Startable {
     }
   }
 
+  /**
+   * A repository is unchanged if its definition has the same fingerprint than at the previous startup and if
+   * all its rules are still enabled in db. Such repositories are neither updated nor re-indexed.
+   */
+  private void selectUnchangedRepositories(Buffer buffer, RuleDefinitions.Context context, Map<String, String> fingerprints) {
+    for (LoadedTemplateDto template : loadedTemplateDao.selectByType(LoadedTemplateDto.RULE_REPOSITORY_TYPE)) {
+      buffer.addPreviousFingerprint(template.getKey());
+    }
+    for (Map.Entry<String, String> entry : fingerprints.entrySet()) {
+      String repositoryKey = entry.getKey();
+      if (entry.getValue().equals(buffer.previousFingerprints.get(repositoryKey)) && areRulesEnabled(buffer, context, repositoryKey)) {
+        buffer.markUnchanged(repositoryKey);
+      }
+    }
+    if (!buffer.unchangedRepositories.isEmpty()) {
+      LOG.info("Rule repositories not changed since last startup: " + buffer.unchangedRepositories.size() + "/" + fingerprints.size());
+    }
+  }
+
+  private boolean areRulesEnabled(Buffer buffer, RuleDefinitions.Context context, String repositoryKey) {
+    for (RuleDefinitions.ExtendedRepository repoDef : RepositoryFingerprints.definitions(context, repositoryKey)) {
+      for (RuleDefinitions.Rule ruleDef : repoDef.rules()) {
+        RuleDto dto = buffer.rule(RuleKey.of(repositoryKey, ruleDef.key()));
+        if (dto == null || Rule.STATUS_REMOVED.equals(dto.getStatus())) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  private void saveFingerprints(Buffer buffer, Map<String, String> fingerprints, SqlSession sqlSession) {
+    for (Map.Entry<String, String> entry : buffer.previousFingerprints.entrySet()) {
+      if (!entry.getValue().equals(fingerprints.get(entry.getKey()))) {
+        loadedTemplateDao.delete(LoadedTemplateDto.RULE_REPOSITORY_TYPE, RepositoryFingerprints.templateKey(entry.getKey(), entry.getValue()), sqlSession);
+      }
+    }
+    for (Map.Entry<String, String> entry : fingerprints.entrySet()) {
+      if (!entry.getValue().equals(buffer.previousFingerprints.get(entry.getKey()))) {
+        loadedTemplateDao.insert(new LoadedTemplateDto(RepositoryFingerprints.templateKey(entry.getKey(), entry.getValue()),
+          LoadedTemplateDto.RULE_REPOSITORY_TYPE), sqlSession);
+      }
+    }
+  }
+
   private void enableRuleDefinitions(RuleDefinitions.Context context, Buffer buffer, SqlSession sqlSession) {
     for (RuleDefinitions.Repository repoDef : context.repositories()) {
       enableRepository(buffer, sqlSession, repoDef);
@@ -143,6 +198,11 @@ public class RuleRegistration implements Startable {
   }
 
   private void enableRepository(Buffer buffer, SqlSession sqlSession, RuleDefinitions.ExtendedRepository repoDef) {
+    if (buffer.isUnchanged(repoDef.key())) {
+      // rules, including copies of template rules, are already up-to-date in db and in index
+      buffer.markRepositoryProcessed(repoDef.key());
+      return;
+    }
     int count = 0;
     for (RuleDefinitions.Rule ruleDef : repoDef.rules()) {
       RuleDto dto = buffer.rule(RuleKey.of(ruleDef.repository().key(), ruleDef.key()));
@@ -408,13 +468,28 @@ public class RuleRegistration implements Startable {
   }
 
   private void index(Buffer buffer) {
-    ruleRegistry.bulkRegisterRules(buffer.rulesById.values(), buffer.paramsByRuleId, buffer.tagsByRuleId);
+    if (buffer.unchangedRepositories.isEmpty()) {
+      ruleRegistry.bulkRegisterRules(buffer.rulesById.values(), buffer.paramsByRuleId, buffer.tagsByRuleId);
+    } else {
+      List<RuleDto> changedRules = newArrayList();
+      List<RuleDto> unchangedRules = newArrayList();
+      for (RuleDto rule : buffer.rulesById.values()) {
+        if (buffer.isUnchanged(rule.getRepositoryKey())) {
+          unchangedRules.add(rule);
+        } else {
+          changedRules.add(rule);
+        }
+      }
+      ruleRegistry.bulkRegisterRules(changedRules, unchangedRules, buffer.paramsByRuleId, buffer.tagsByRuleId);
+    }
     esRuleTags.putAllTags(buffer.referenceTagsByTagValue.values());
   }
 
   static class Buffer {
     private Date now;
-    private List<Integer> unprocessedRuleIds = newArrayList();
+    private Set<Integer> unprocessedRuleIds = Sets.newLinkedHashSet();
+    private Map<String, String> previousFingerprints = Maps.newHashMap();
+    private Set<String> unchangedRepositories = Sets.newHashSet();
     private Map<RuleKey, RuleDto> rulesByKey = Maps.newHashMap();
     private Map<Integer, RuleDto> rulesById = Maps.newHashMap();
     private Multimap<Integer, RuleParamDto> paramsByRuleId = ArrayListMultimap.create();
@@ -478,5 +553,29 @@ public class RuleRegistration implements Startable {
     void markProcessed(RuleDto ruleDto) {
       unprocessedRuleIds.remove(ruleDto.getId());
     }
+
+    void markRepositoryProcessed(String repositoryKey) {
+      Iterator<Integer> it = unprocessedRuleIds.iterator();
+      while (it.hasNext()) {
+        if (repositoryKey.equals(rulesById.get(it.next()).getRepositoryKey())) {
+          it.remove();
+        }
+      }
+    }
+
+    void addPreviousFingerprint(String templateKey) {
+      int index = templateKey.lastIndexOf(RepositoryFingerprints.SEPARATOR);
+      if (index > 0) {
+        previousFingerprints.put(templateKey.substring(0, index), templateKey.substring(index + 1));
+      }
+    }
+
+    void markUnchanged(String repositoryKey) {
+      unchangedRepositories.add(repositoryKey);
+    }
+
+    boolean isUnchanged(String repositoryKey) {
+      return unchangedRepositories.contains(repositoryKey);
+    }
   }
 }
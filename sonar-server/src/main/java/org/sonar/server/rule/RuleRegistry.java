@@ -21,6 +21,7 @@
 package org.sonar.server.rule;
 
 import com.google.common.collect.Multimap;
+import com.google.common.collect.Sets;
 import org.elasticsearch.ElasticSearchException;
 import org.elasticsearch.common.collect.Lists;
 import org.elasticsearch.common.collect.Maps;
@@ -43,6 +44,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static com.google.common.collect.Lists.newArrayList;
 
@@ -75,6 +77,37 @@ public class RuleRegistry {
     removeDeletedRules(ids);
   }
 
+  /**
+   * Same as {@link #bulkRegisterRules(java.util.Collection, com.google.common.collect.Multimap, com.google.common.collect.Multimap)},
+   * except that <code>unchangedRules</code> are indexed only if they are missing from the index.
+   *
+   * @since 4.2
+   */
+  public void bulkRegisterRules(Collection<RuleDto> changedRules, Collection<RuleDto> unchangedRules,
+                                Multimap<Integer, RuleParamDto> paramsByRule, Multimap<Integer, RuleRuleTagDto> tagsByRule) {
+    Set<String> indexIds = Sets.newHashSet(searchIndex.findDocumentIds(SearchQuery.create().index(INDEX_RULES).type(TYPE_RULE)));
+    List<RuleDto> rulesToIndex = newArrayList(changedRules);
+    Set<String> existingIds = Sets.newHashSet();
+    for (RuleDto rule : changedRules) {
+      existingIds.add(rule.getId().toString());
+    }
+    for (RuleDto rule : unchangedRules) {
+      String id = rule.getId().toString();
+      existingIds.add(id);
+      if (!indexIds.contains(id)) {
+        rulesToIndex.add(rule);
+      }
+    }
+    bulkIndexRules(rulesToIndex, paramsByRule, tagsByRule);
+
+    indexIds.removeAll(existingIds);
+    if (!indexIds.isEmpty()) {
+      TimeProfiler profiler = new TimeProfiler().start("Remove deleted rule documents");
+      searchIndex.bulkDelete(INDEX_RULES, TYPE_RULE, indexIds.toArray(new String[indexIds.size()]));
+      profiler.stop();
+    }
+  }
+
   /**
    * <p>Find rule IDs matching the given criteria.</p>
    *
@@ -20,54 +20,75 @@
 package org.sonar.server.source;
 
 import com.google.common.collect.Lists;
+import com.google.common.primitives.Ints;
 
 import java.util.Arrays;
-import java.util.Iterator;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 
+/**
+ * Tags are appended while loading data, then sorted once by offset. Sort is stable, so that tags
+ * starting at the same offset are opened in the order they have been loaded.
+ */
 class DecorationDataHolder {
 
-  private static final String ENTITY_SEPARATOR = ";";
-  private static final String FIELD_SEPARATOR = ",";
+  private static final char ENTITY_SEPARATOR = ';';
+  private static final char FIELD_SEPARATOR = ',';
   private static final String SYMBOL_PREFIX = "sym-";
   private static final String HIGHLIGHTABLE = "sym";
 
+  private static final Comparator<OpeningHtmlTag> BY_START_OFFSET = new Comparator<OpeningHtmlTag>() {
+    @Override
+    public int compare(OpeningHtmlTag left, OpeningHtmlTag right) {
+      return Ints.compare(left.getStartOffset(), right.getStartOffset());
+    }
+  };
+
   private List<OpeningHtmlTag> openingTagsEntries;
   private int openingTagsIndex;
-  private List<Integer> closingTagsOffsets;
+  private int[] closingTagsOffsets;
+  private int closingTagsSize;
   private int closingTagsIndex;
+  private boolean sorted = true;
 
   DecorationDataHolder() {
     openingTagsEntries = Lists.newArrayList();
-    closingTagsOffsets = Lists.newArrayList();
+    closingTagsOffsets = new int[16];
   }
 
   void loadSymbolReferences(String symbolsReferences) {
-    String[] symbols = symbolsReferences.split(ENTITY_SEPARATOR);
-    for (String symbol : symbols) {
-      String[] symbolFields = symbol.split(FIELD_SEPARATOR);
-      int declarationStartOffset = Integer.parseInt(symbolFields[0]);
-      int declarationEndOffset = Integer.parseInt(symbolFields[1]);
+    FieldsReader reader = new FieldsReader(symbolsReferences);
+    while (reader.hasNextEntity()) {
+      int declarationStartOffset = reader.nextInt();
+      int declarationEndOffset = reader.nextInt();
       int symbolLength = declarationEndOffset - declarationStartOffset;
-      String[] symbolOccurrences = Arrays.copyOfRange(symbolFields, 2, symbolFields.length);
-      loadSymbolOccurrences(declarationStartOffset, symbolLength, symbolOccurrences);
+      String cssClass = SYMBOL_PREFIX + declarationStartOffset + " " + HIGHLIGHTABLE;
+      while (reader.hasNextField()) {
+        int occurrenceStartOffset = reader.nextInt();
+        addTag(new OpeningHtmlTag(occurrenceStartOffset, cssClass), occurrenceStartOffset + symbolLength);
+      }
+      reader.endEntity();
     }
   }
 
   void loadSyntaxHighlightingData(String syntaxHighlightingRules) {
-    String[] rules = syntaxHighlightingRules.split(ENTITY_SEPARATOR);
-    for (String rule : rules) {
-      String[] ruleFields = rule.split(FIELD_SEPARATOR);
-      insertAndPreserveOrder(new OpeningHtmlTag(Integer.parseInt(ruleFields[0]), ruleFields[2]), openingTagsEntries);
-      insertAndPreserveOrder(Integer.parseInt(ruleFields[1]), closingTagsOffsets);
+    FieldsReader reader = new FieldsReader(syntaxHighlightingRules);
+    while (reader.hasNextEntity()) {
+      int startOffset = reader.nextInt();
+      int endOffset = reader.nextInt();
+      addTag(new OpeningHtmlTag(startOffset, reader.nextString()), endOffset);
+      reader.endEntity();
     }
   }
 
   List<OpeningHtmlTag> getOpeningTagsEntries() {
+    sort();
     return openingTagsEntries;
   }
 
   OpeningHtmlTag getCurrentOpeningTagEntry() {
+    sort();
     return openingTagsIndex < openingTagsEntries.size() ? openingTagsEntries.get(openingTagsIndex) : null;
   }
 
@@ -76,41 +97,90 @@ class DecorationDataHolder {
   }
 
   List<Integer> getClosingTagsOffsets() {
-    return closingTagsOffsets;
+    sort();
+    return Ints.asList(Arrays.copyOf(closingTagsOffsets, closingTagsSize));
   }
 
   int getCurrentClosingTagOffset() {
-    return closingTagsIndex < closingTagsOffsets.size() ? closingTagsOffsets.get(closingTagsIndex) : -1;
+    sort();
+    return closingTagsIndex < closingTagsSize ? closingTagsOffsets[closingTagsIndex] : -1;
   }
 
   void nextClosingTagOffset() {
     closingTagsIndex++;
   }
 
-  private void loadSymbolOccurrences(int declarationStartOffset, int symbolLength, String[] symbolOccurrences) {
-    for (String symbolOccurrence : symbolOccurrences) {
-      int occurrenceStartOffset = Integer.parseInt(symbolOccurrence);
-      int occurrenceEndOffset = occurrenceStartOffset + symbolLength;
-      insertAndPreserveOrder(new OpeningHtmlTag(occurrenceStartOffset, SYMBOL_PREFIX + declarationStartOffset + " " + HIGHLIGHTABLE), openingTagsEntries);
-      insertAndPreserveOrder(occurrenceEndOffset, closingTagsOffsets);
+  private void addTag(OpeningHtmlTag openingTag, int closingOffset) {
+    if (sorted && !openingTagsEntries.isEmpty()) {
+      sorted = openingTagsEntries.get(openingTagsEntries.size() - 1).getStartOffset() <= openingTag.getStartOffset()
+        && closingTagsOffsets[closingTagsSize - 1] <= closingOffset;
     }
+    openingTagsEntries.add(openingTag);
+    if (closingTagsSize == closingTagsOffsets.length) {
+      closingTagsOffsets = Arrays.copyOf(closingTagsOffsets, closingTagsSize * 2);
+    }
+    closingTagsOffsets[closingTagsSize] = closingOffset;
+    closingTagsSize++;
   }
 
-  private void insertAndPreserveOrder(OpeningHtmlTag newEntry, List<OpeningHtmlTag> openingHtmlTags) {
-    int insertionIndex = 0;
-    Iterator<OpeningHtmlTag> tagIterator = openingHtmlTags.iterator();
-    while (tagIterator.hasNext() && tagIterator.next().getStartOffset() <= newEntry.getStartOffset()) {
-      insertionIndex++;
+  private void sort() {
+    if (!sorted) {
+      Collections.sort(openingTagsEntries, BY_START_OFFSET);
+      Arrays.sort(closingTagsOffsets, 0, closingTagsSize);
+      sorted = true;
     }
-    openingHtmlTags.add(insertionIndex, newEntry);
   }
 
-  private void insertAndPreserveOrder(int newOffset, List<Integer> orderedOffsets) {
-    int insertionIndex = 0;
-    Iterator<Integer> entriesIterator = orderedOffsets.iterator();
-    while (entriesIterator.hasNext() && entriesIterator.next() <= newOffset) {
-      insertionIndex++;
+  /**
+   * Reads the fields of entities formatted as "field1,field2,...;field1,field2,...;" without splitting the whole string
+   */
+  private static class FieldsReader {
+    private final String data;
+    private int position = 0;
+
+    FieldsReader(String data) {
+      this.data = data;
+    }
+
+    boolean hasNextEntity() {
+      return position < data.length();
+    }
+
+    boolean hasNextField() {
+      return position < data.length() && data.charAt(position) != ENTITY_SEPARATOR;
+    }
+
+    void endEntity() {
+      // ignore unexpected fields
+      int end = data.indexOf(ENTITY_SEPARATOR, position);
+      position = end < 0 ? data.length() : (end + 1);
+    }
+
+    int nextInt() {
+      int end = endOfField();
+      int value = Integer.parseInt(data.substring(position, end));
+      skipSeparator(end);
+      return value;
+    }
+
+    String nextString() {
+      int end = endOfField();
+      String value = data.substring(position, end);
+      skipSeparator(end);
+      return value;
+    }
+
+    private int endOfField() {
+      int end = position;
+      while (end < data.length() && data.charAt(end) != FIELD_SEPARATOR && data.charAt(end) != ENTITY_SEPARATOR) {
+        end++;
+      }
+      return end;
+    }
+
+    private void skipSeparator(int end) {
+      // field separator is consumed, entity separator is consumed by endEntity()
+      position = end < data.length() && data.charAt(end) == FIELD_SEPARATOR ? (end + 1) : end;
     }
-    orderedOffsets.add(insertionIndex, newOffset);
   }
 }
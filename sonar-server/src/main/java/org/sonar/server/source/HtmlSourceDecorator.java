@@ -20,10 +20,16 @@
 package org.sonar.server.source;
 
 import com.google.common.base.Strings;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
 import com.google.common.collect.Lists;
 import org.apache.ibatis.session.SqlSession;
 import org.sonar.api.ServerComponent;
+import org.sonar.api.database.model.Snapshot;
 import org.sonar.core.persistence.MyBatis;
+import org.sonar.core.resource.ResourceDao;
+import org.sonar.core.resource.SnapshotDto;
 import org.sonar.core.source.SnapshotDataTypes;
 import org.sonar.core.source.db.SnapshotDataDao;
 import org.sonar.core.source.db.SnapshotDataDto;
@@ -38,22 +44,49 @@ import java.util.List;
 
 public class HtmlSourceDecorator implements ServerComponent {
 
+  /**
+   * Maximum number of decorated files kept in memory. Sources and highlighting data of a processed snapshot never change,
+   * so pages of the same file are extracted from the cache instead of being decorated again. Snapshots of analyses
+   * in progress are not cached, as their highlighting data may not be completely persisted yet.
+   */
+  private static final int CACHE_SIZE = 50;
+
+  // snapshots without highlighting data or source
+  private static final List<String> NOT_DECORATED = Collections.unmodifiableList(Lists.<String>newArrayList());
+
   private final MyBatis mybatis;
 
   private final SnapshotSourceDao snapshotSourceDao;
   private final SnapshotDataDao snapshotDataDao;
+  private final ResourceDao resourceDao;
+  private final Cache<Long, DecoratedSource> decoratedSourcesBySnapshotId;
 
-  public HtmlSourceDecorator(MyBatis mybatis, SnapshotSourceDao snapshotSourceDao, SnapshotDataDao snapshotDataDao) {
+  public HtmlSourceDecorator(MyBatis mybatis, SnapshotSourceDao snapshotSourceDao, SnapshotDataDao snapshotDataDao, ResourceDao resourceDao) {
     this.mybatis = mybatis;
     this.snapshotSourceDao = snapshotSourceDao;
     this.snapshotDataDao = snapshotDataDao;
+    this.resourceDao = resourceDao;
+    this.decoratedSourcesBySnapshotId = CacheBuilder.newBuilder()
+      .maximumSize(CACHE_SIZE)
+      .softValues()
+      .build(new CacheLoader<Long, DecoratedSource>() {
+        @Override
+        public DecoratedSource load(Long snapshotId) {
+          return loadDecoratedSource(snapshotId);
+        }
+      });
   }
 
   public List<String> getDecoratedSourceAsHtml(String componentKey, @Nullable Integer from, @Nullable Integer to) {
     SqlSession session = mybatis.openSession();
     try {
-      Collection<SnapshotDataDto> snapshotDataEntries = snapshotDataDao.selectSnapshotDataByComponentKey(componentKey, highlightingDataTypes(), session);
-      if (!snapshotDataEntries.isEmpty()) {
+      List<Long> snapshotIds = snapshotDataDao.selectSnapshotIdsByComponentKey(componentKey, highlightingDataTypes(), session);
+      if (snapshotIds.size() == 1) {
+        return lines(decoratedSource(snapshotIds.get(0)), from, to);
+      }
+      if (!snapshotIds.isEmpty()) {
+        // data of several snapshots, should not occur
+        Collection<SnapshotDataDto> snapshotDataEntries = snapshotDataDao.selectSnapshotDataByComponentKey(componentKey, highlightingDataTypes(), session);
         String snapshotSource = snapshotSourceDao.selectSnapshotSourceByComponentKey(componentKey, session);
         return decorate(snapshotSource, snapshotDataEntries, from, to);
       }
@@ -65,14 +98,42 @@ public class HtmlSourceDecorator implements ServerComponent {
 
   @CheckForNull
   public List<String> getDecoratedSourceAsHtml(long snapshotId) {
+    List<String> lines = decoratedSource(snapshotId);
+    return lines == NOT_DECORATED ? null : Lists.newArrayList(lines);
+  }
+
+  private List<String> decoratedSource(long snapshotId) {
+    DecoratedSource source = decoratedSourcesBySnapshotId.getUnchecked(snapshotId);
+    if (!source.processed) {
+      decoratedSourcesBySnapshotId.invalidate(snapshotId);
+    }
+    return source.lines;
+  }
+
+  private DecoratedSource loadDecoratedSource(long snapshotId) {
+    // status is loaded before data, so that data of a snapshot processed in the meantime is never cached partially
+    SnapshotDto snapshot = resourceDao.getSnapshot(snapshotId);
+    boolean processed = snapshot != null && Snapshot.STATUS_PROCESSED.equals(snapshot.getStatus());
     Collection<SnapshotDataDto> snapshotDataEntries = snapshotDataDao.selectSnapshotData(snapshotId, highlightingDataTypes());
     if (!snapshotDataEntries.isEmpty()) {
       String snapshotSource = snapshotSourceDao.selectSnapshotSource(snapshotId);
       if (snapshotSource != null) {
-        return decorate(snapshotSource, snapshotDataEntries, null, null);
+        return new DecoratedSource(Collections.unmodifiableList(decorate(snapshotSource, snapshotDataEntries, null, null)), processed);
       }
     }
-    return null;
+    return new DecoratedSource(NOT_DECORATED, processed);
+  }
+
+  /**
+   * Lines [from, to] (1-based, inclusive), as returned by {@link HtmlTextDecorator#decorateTextWithHtml(String, DecorationDataHolder, Integer, Integer)}
+   */
+  private static List<String> lines(List<String> decoratedLines, @Nullable Integer from, @Nullable Integer to) {
+    int fromIndex = from == null ? 0 : Math.max(from - 1, 0);
+    int toIndex = to == null ? decoratedLines.size() : Math.min(to, decoratedLines.size());
+    if (fromIndex >= toIndex) {
+      return Lists.newArrayList();
+    }
+    return Lists.newArrayList(decoratedLines.subList(fromIndex, toIndex));
   }
 
   @CheckForNull
@@ -103,4 +164,15 @@ public class HtmlSourceDecorator implements ServerComponent {
       }
     }
   }
+
+  private static class DecoratedSource {
+    private final List<String> lines;
+    // only the sources of processed snapshots are kept in cache
+    private final boolean processed;
+
+    DecoratedSource(List<String> lines, boolean processed) {
+      this.lines = lines;
+      this.processed = processed;
+    }
+  }
 }
@@ -27,7 +27,6 @@ import javax.annotation.Nullable;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.StringReader;
-import java.util.Collection;
 import java.util.List;
 
 import static com.google.common.collect.Lists.newArrayList;
@@ -112,12 +111,11 @@ class HtmlTextDecorator {
       closeCurrentSyntaxTags(charsReader, currentHtmlLine);
     }
 
-    Collection<String> tagsToOpen = getTagsToOpen(charsReader.getCurrentIndex(), decorationDataHolder);
-    openNewTags(charsReader, tagsToOpen, currentHtmlLine);
+    openNewTags(charsReader, charsReader.getCurrentIndex(), decorationDataHolder, currentHtmlLine);
 
     if (shouldAppendCharToHtmlOutput(charsReader)) {
       char currentChar = (char) charsReader.getCurrentValue();
-      currentHtmlLine.append(normalize(currentChar));
+      appendNormalized(currentChar, currentHtmlLine);
     }
   }
 
@@ -136,18 +134,16 @@ class HtmlTextDecorator {
   }
 
 
-  private char[] normalize(char currentChar) {
-    char[] normalizedChars;
+  private void appendNormalized(char currentChar, StringBuilder decoratedText) {
     if (currentChar == HTML_OPENING) {
-      normalizedChars = ENCODED_HTML_OPENING.toCharArray();
+      decoratedText.append(ENCODED_HTML_OPENING);
     } else if (currentChar == HTML_CLOSING) {
-      normalizedChars = ENCODED_HTML_CLOSING.toCharArray();
+      decoratedText.append(ENCODED_HTML_CLOSING);
     } else if (currentChar == AMPERSAND) {
-      normalizedChars = ENCODED_AMPERSAND.toCharArray();
+      decoratedText.append(ENCODED_AMPERSAND);
     } else {
-      normalizedChars = new char[]{currentChar};
+      decoratedText.append(currentChar);
     }
-    return normalizedChars;
   }
 
   private boolean shouldAppendCharToHtmlOutput(CharactersReader charsReader) {
@@ -164,15 +160,6 @@ class HtmlTextDecorator {
     return numberOfTagsToClose;
   }
 
-  private Collection<String> getTagsToOpen(int currentIndex, DecorationDataHolder dataHolder) {
-    Collection<String> tagsToOpen = newArrayList();
-    while (dataHolder.getCurrentOpeningTagEntry() != null && currentIndex == dataHolder.getCurrentOpeningTagEntry().getStartOffset()) {
-      tagsToOpen.add(dataHolder.getCurrentOpeningTagEntry().getCssClass());
-      dataHolder.nextOpeningTagEntry();
-    }
-    return tagsToOpen;
-  }
-
   private boolean shouldClosePendingTags(CharactersReader charactersReader) {
     return charactersReader.getCurrentValue() == CR_END_OF_LINE
       || (charactersReader.getCurrentValue() == LF_END_OF_LINE && charactersReader.getPreviousValue() != CR_END_OF_LINE)
@@ -198,11 +185,15 @@ class HtmlTextDecorator {
     }
   }
 
-  private void openNewTags(CharactersReader charactersReader, Collection<String> tagsToOpen,
+  private void openNewTags(CharactersReader charactersReader, int currentIndex, DecorationDataHolder dataHolder,
                            StringBuilder decoratedText) {
-    for (String tagToOpen : tagsToOpen) {
-      injectOpeningHtmlForRule(tagToOpen, decoratedText);
-      charactersReader.registerOpenTag(tagToOpen);
+    // opening tags are sorted by offset, so that they are consumed while characters are read
+    OpeningHtmlTag tagToOpen = dataHolder.getCurrentOpeningTagEntry();
+    while (tagToOpen != null && currentIndex == tagToOpen.getStartOffset()) {
+      injectOpeningHtmlForRule(tagToOpen.getCssClass(), decoratedText);
+      charactersReader.registerOpenTag(tagToOpen.getCssClass());
+      dataHolder.nextOpeningTagEntry();
+      tagToOpen = dataHolder.getCurrentOpeningTagEntry();
     }
   }
 
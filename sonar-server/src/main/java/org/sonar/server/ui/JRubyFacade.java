@@ -46,6 +46,7 @@ import org.sonar.core.resource.ResourceIndexerDao;
 import org.sonar.core.resource.ResourceKeyUpdaterDao;
 import org.sonar.core.timemachine.Periods;
 import org.sonar.server.db.migrations.DatabaseMigrator;
+import org.sonar.server.permission.ProjectPermissionCache;
 import org.sonar.server.platform.Platform;
 import org.sonar.server.platform.ServerIdGenerator;
 import org.sonar.server.platform.ServerSettings;
@@ -341,6 +342,9 @@ public final class JRubyFacade {
     } catch (RuntimeException e) {
       LoggerFactory.getLogger(JRubyFacade.class).error("Fail to delete resource with ID: " + rootProjectId, e);
       throw e;
+    } finally {
+      // the key of the deleted project can be reused by a new project
+      get(ProjectPermissionCache.class).invalidateAll();
     }
   }
 
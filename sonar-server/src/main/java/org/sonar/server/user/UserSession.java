@@ -21,25 +21,22 @@ package org.sonar.server.user;
 
 import com.google.common.base.Objects;
 import com.google.common.base.Strings;
-import com.google.common.collect.HashMultimap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.sonar.core.permission.GlobalPermissions;
 import org.sonar.core.user.AuthorizationDao;
 import org.sonar.server.exceptions.ForbiddenException;
 import org.sonar.server.exceptions.UnauthorizedException;
+import org.sonar.server.permission.ProjectPermissionCache;
 import org.sonar.server.platform.Platform;
 
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.List;
 import java.util.Locale;
 
-import static com.google.common.collect.Lists.newArrayList;
-
 /**
  * Part of the current HTTP session
  */
@@ -57,9 +54,6 @@ public class UserSession {
   private Locale locale = Locale.ENGLISH;
   List<String> globalPermissions = null;
 
-  HashMultimap<String, String> projectKeyByPermission = HashMultimap.create();
-  List<String> projectPermissions = newArrayList();
-
   UserSession() {
   }
 
@@ -159,29 +153,46 @@ public class UserSession {
    * Does the user have the given project permission ?
    */
   public boolean hasProjectPermission(String permission, String projectKey) {
-    if (!projectPermissions.contains(permission)) {
-      Collection<String> projectKeys = authorizationDao().selectAuthorizedRootProjectsKeys(userId, permission);
-      for (String key : projectKeys) {
-        projectKeyByPermission.put(permission, key);
-      }
-      projectPermissions.add(permission);
-    }
-    return projectKeyByPermission.get(permission).contains(projectKey);
+    return projectPermissionCache().hasProjectPermission(userId, permission, projectKey);
+  }
+
+  /**
+   * Copy of the session to be used by another thread, for example by a job executed in background on behalf of the user.
+   * Login and global permissions are copied, project permissions are still checked through the shared cache.
+   *
+   * @since 4.2.1
+   */
+  public UserSession copy() {
+    UserSession copy = new UserSession()
+      .setUserId(userId)
+      .setLogin(login)
+      .setName(name)
+      .setLocale(locale);
+    copy.globalPermissions = new ArrayList<String>(globalPermissions());
+    return copy;
   }
 
   AuthorizationDao authorizationDao() {
     return Platform.component(AuthorizationDao.class);
   }
 
+  ProjectPermissionCache projectPermissionCache() {
+    return Platform.component(ProjectPermissionCache.class);
+  }
+
   public static UserSession get() {
     return Objects.firstNonNull(THREAD_LOCAL.get(), ANONYMOUS);
   }
 
-  static void set(UserSession session) {
+  /**
+   * Attaches the session to the current thread, for example a thread executing a job on behalf of a user.
+   * It must be removed with {@link #remove()}.
+   */
+  public static void set(UserSession session) {
     THREAD_LOCAL.set(session);
   }
 
-  static void remove() {
+  public static void remove() {
     THREAD_LOCAL.remove();
   }
 
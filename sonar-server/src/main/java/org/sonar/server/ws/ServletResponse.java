@@ -19,13 +19,18 @@
  */
 package org.sonar.server.ws;
 
+import com.google.common.base.Charsets;
 import org.sonar.api.server.ws.Response;
 import org.sonar.api.utils.text.JsonWriter;
 import org.sonar.api.utils.text.XmlWriter;
 import org.sonar.server.plugins.MimeTypes;
 
 import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import javax.servlet.http.HttpServletResponse;
+
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 
@@ -34,7 +39,25 @@ public class ServletResponse implements Response {
   public static class ServletStream implements Stream {
     private String mediaType;
     private int httpStatus = 200;
-    private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream buffer;
+    private final HttpServletResponse source;
+    private final OutputStream output;
+
+    /**
+     * @param source if not null, the response is directly written to it. Status and media type are sent
+     *               on the first write, so they can't be changed afterwards. If null, the response is kept
+     *               in memory.
+     */
+    ServletStream(@Nullable HttpServletResponse source) {
+      this.source = source;
+      if (source == null) {
+        this.buffer = new ByteArrayOutputStream();
+        this.output = buffer;
+      } else {
+        this.buffer = null;
+        this.output = new CommittingOutputStream();
+      }
+    }
 
     @CheckForNull
     public String mediaType() {
@@ -62,28 +85,139 @@ public class ServletResponse implements Response {
       return output;
     }
 
+    public boolean isStreamed() {
+      return source != null;
+    }
+
+    /**
+     * True if status and headers have already been sent to the client. In that case the response can't be reset.
+     */
+    public boolean isCommitted() {
+      return source != null && source.isCommitted();
+    }
+
+    /**
+     * Only available when response is kept in memory
+     */
     public String outputAsString() {
-      return output.toString();
+      return new String(outputAsBytes(), Charsets.UTF_8);
+    }
+
+    /**
+     * Only available when response is kept in memory
+     */
+    public byte[] outputAsBytes() {
+      if (buffer == null) {
+        throw new IllegalStateException("Response is streamed to client");
+      }
+      return buffer.toByteArray();
     }
 
     public ServletStream reset() {
-      output.reset();
+      if (buffer != null) {
+        buffer.reset();
+      } else {
+        // fails if response is already committed
+        source.resetBuffer();
+      }
       return this;
     }
+
+    /**
+     * Sends status, headers and pending bytes to client. Does nothing when response is kept in memory.
+     */
+    public void flushBuffer() throws IOException {
+      if (source != null) {
+        commitHeaders();
+        source.flushBuffer();
+      }
+    }
+
+    private void commitHeaders() {
+      if (!source.isCommitted()) {
+        source.setStatus(httpStatus);
+        if (mediaType != null) {
+          source.setContentType(mediaType);
+        }
+      }
+    }
+
+    /**
+     * Content length is unknown, so servlet container sends the response with chunked transfer encoding
+     * as soon as its buffer is full.
+     */
+    private class CommittingOutputStream extends OutputStream {
+      private OutputStream delegate;
+
+      private OutputStream delegate() throws IOException {
+        if (delegate == null) {
+          commitHeaders();
+          delegate = source.getOutputStream();
+        }
+        return delegate;
+      }
+
+      @Override
+      public void write(int b) throws IOException {
+        delegate().write(b);
+      }
+
+      @Override
+      public void write(byte[] b, int off, int len) throws IOException {
+        delegate().write(b, off, len);
+      }
+
+      @Override
+      public void flush() throws IOException {
+        delegate().flush();
+      }
+
+      @Override
+      public void close() throws IOException {
+        // the servlet output stream is closed by container
+        flush();
+      }
+    }
+  }
+
+  private final ServletStream stream;
+
+  /**
+   * Response is kept in memory
+   */
+  public ServletResponse() {
+    this(null);
+  }
+
+  /**
+   * Response is directly written to the given servlet response
+   */
+  public ServletResponse(@Nullable HttpServletResponse source) {
+    this.stream = new ServletStream(source);
   }
 
-  private final ServletStream stream = new ServletStream();
+  /**
+   * Response is directly written to the servlet response exposed by {@link ServletResponseFilter}, if any.
+   * Otherwise it's kept in memory.
+   */
+  public static ServletResponse of(javax.servlet.ServletRequest request) {
+    Object source = request.getAttribute(ServletResponseFilter.RESPONSE_ATTRIBUTE);
+    if (source instanceof HttpServletResponse) {
+      return new ServletResponse((HttpServletResponse) source);
+    }
+    return new ServletResponse();
+  }
 
   @Override
   public JsonWriter newJsonWriter() {
     stream.setMediaType(MimeTypes.JSON);
-    return JsonWriter.of(new OutputStreamWriter(stream.output()));
+    return JsonWriter.of(new OutputStreamWriter(stream.output(), Charsets.UTF_8));
   }
 
   @Override
   public XmlWriter newXmlWriter() {
     stream.setMediaType(MimeTypes.XML);
-    return XmlWriter.of(new OutputStreamWriter(stream.output()));
+    return XmlWriter.of(new OutputStreamWriter(stream.output(), Charsets.UTF_8));
   }
 
   @Override
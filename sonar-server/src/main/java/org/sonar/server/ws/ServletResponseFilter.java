@@ -0,0 +1,60 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.ws;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+
+import java.io.IOException;
+
+/**
+ * Exposes the servlet response to Rails, so that the responses of Java web services are directly written
+ * to it. See {@link org.sonar.server.ws.ServletResponse#of(javax.servlet.ServletRequest)}.
+ *
+ * @since 4.2.1
+ */
+public class ServletResponseFilter implements Filter {
+
+  static final String RESPONSE_ATTRIBUTE = "sonar.servletResponse";
+
+  @Override
+  public void init(FilterConfig filterConfig) throws ServletException {
+    // nothing to do
+  }
+
+  @Override
+  public void destroy() {
+    // nothing to do
+  }
+
+  @Override
+  public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain chain) throws IOException, ServletException {
+    servletRequest.setAttribute(RESPONSE_ATTRIBUTE, servletResponse);
+    try {
+      chain.doFilter(servletRequest, servletResponse);
+    } finally {
+      servletRequest.removeAttribute(RESPONSE_ATTRIBUTE);
+    }
+  }
+}
@@ -25,11 +25,14 @@ import org.sonar.api.ServerComponent;
 import org.sonar.api.server.ws.Request;
 import org.sonar.api.server.ws.WebService;
 import org.sonar.api.utils.text.JsonWriter;
+import org.sonar.core.profiling.Profiling;
+import org.sonar.core.profiling.StopWatch;
 import org.sonar.server.exceptions.BadRequestException;
 import org.sonar.server.exceptions.ServerException;
 import org.sonar.server.plugins.MimeTypes;
 
 import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.util.List;
 
@@ -38,9 +41,13 @@ import java.util.List;
  */
 public class WebServiceEngine implements ServerComponent, Startable {
 
+  private static final String PROFILE_DOMAIN = "ws";
+
   private final WebService.Context context;
+  private final Profiling profiling;
 
-  public WebServiceEngine(WebService[] webServices) {
+  public WebServiceEngine(WebService[] webServices, Profiling profiling) {
+    this.profiling = profiling;
     context = new WebService.Context();
     for (WebService webService : webServices) {
       webService.define(context);
@@ -67,11 +74,13 @@ public class WebServiceEngine implements ServerComponent, Startable {
 
   public void execute(InternalRequest request, ServletResponse response,
                       String controllerPath, String actionKey) {
+    StopWatch watch = profiling.start(PROFILE_DOMAIN, Profiling.Level.FULL);
     try {
       WebService.Action action = getAction(controllerPath, actionKey);
       request.setAction(action);
       verifyRequest(action, request);
       action.handler().handle(request, response);
+      response.stream().flushBuffer();
 
     } catch (IllegalArgumentException e) {
       // TODO replace by BadRequestException in Request#mandatoryParam()
@@ -85,6 +94,9 @@ public class WebServiceEngine implements ServerComponent, Startable {
       // TODO implement Request.toString()
       LoggerFactory.getLogger(getClass()).error("Fail to process request " + request, e);
       sendError(500, e.getMessage(), response);
+
+    } finally {
+      watch.stop("%s/%s", controllerPath, actionKey);
     }
   }
 
@@ -109,6 +121,11 @@ public class WebServiceEngine implements ServerComponent, Startable {
 
   private void sendError(int status, String message, ServletResponse response) {
     ServletResponse.ServletStream stream = response.stream();
+    if (stream.isCommitted()) {
+      // status and part of the response have already been sent, client gets a truncated response
+      LoggerFactory.getLogger(getClass()).error(String.format("Fail to send error %d to client, response is already committed: %s", status, message));
+      return;
+    }
     stream.reset();
     stream.setStatus(status);
     stream.setMediaType(MimeTypes.JSON);
@@ -124,5 +141,10 @@ public class WebServiceEngine implements ServerComponent, Startable {
       // potential exception raised in the try block.
       json.close();
     }
+    try {
+      stream.flushBuffer();
+    } catch (IOException e) {
+      LoggerFactory.getLogger(getClass()).error("Fail to send error to client", e);
+    }
   }
 }
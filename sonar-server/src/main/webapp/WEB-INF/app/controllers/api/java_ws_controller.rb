@@ -22,13 +22,21 @@
 class Api::JavaWsController < Api::ApiController
   def index
     ws_request = Java::OrgSonarServerWs::ServletRequest.new(servlet_request, params.to_java)
-    ws_response = Java::OrgSonarServerWs::ServletResponse.new()
+    # streamed to the servlet response exposed by ServletResponseFilter, else kept in memory
+    ws_response = Java::OrgSonarServerWs::ServletResponse.of(servlet_request)
     engine = Java::OrgSonarServerPlatform::Platform.component(Java::OrgSonarServerWs::WebServiceEngine.java_class)
     engine.execute(ws_request, ws_response, params[:wspath], params[:wsaction])
 
-    # response is already written to HttpServletResponse
-    render :text => ws_response.stream().output().toByteArray(),
-           :status => ws_response.stream().httpStatus(),
-           :content_type => ws_response.stream().mediaType()
+    if ws_response.stream().isStreamed()
+      # Status, headers and body have already been written and committed by the Java engine. Rails must not render
+      # anything else, otherwise it would append its own body (" " for render :nothing) to the response.
+      @performed_render = true
+      response.body = ''
+    else
+      # bytes are rendered as-is, whatever the default charset of the JVM
+      render :text => String.from_java_bytes(ws_response.stream().outputAsBytes()),
+             :status => ws_response.stream().httpStatus(),
+             :content_type => ws_response.stream().mediaType()
+    end
   end
 end
@@ -158,10 +158,11 @@ class IssuesController < ApplicationController
   end
 
   # POST /issues/bulk_change?criteria
+  # The change is executed in background. The returned key is used to follow its progress with /api/issues/bulk_change_status
   def bulk_change
     verify_post_request
-    Internal.issues.bulkChange(params, params[:comment], params[:sendNotifications] == 'true')
-    render :text => '', :status => 200
+    key = Internal.issues.bulkChangeInBackground(params, params[:comment], params[:sendNotifications] == 'true')
+    render :text => key, :status => 200
   end
 
 
@@ -21,8 +21,9 @@ class Group < ActiveRecord::Base
 
   ANYONE = 'anyone'
 
-  has_and_belongs_to_many :users, :uniq => true
+  has_and_belongs_to_many :users, :uniq => true, :after_add => :membership_changed, :after_remove => :membership_changed
   has_many :group_roles, :dependent => :delete_all
+  after_destroy :invalidate_permissions
   
   validates_presence_of     :name
   validates_length_of       :name,    :within => 1..255
@@ -35,6 +36,14 @@ class Group < ActiveRecord::Base
     User.find(:all, :conditions => ["active=?", true], :order => 'name') - users
   end
 
+  def membership_changed(user)
+    Internal.permissions.invalidateGroupsOfUser(user.id) if user.id
+  end
+
+  def invalidate_permissions
+    Internal.permissions.invalidateProjectPermissionCache()
+  end
+
   def set_users(new_users=[])
     self.users.clear
     
@@ -23,7 +23,7 @@ class User < ActiveRecord::Base
 
   FAVOURITE_PROPERTY_KEY='favourite'
 
-  has_and_belongs_to_many :groups
+  has_and_belongs_to_many :groups, :after_add => :group_membership_changed, :after_remove => :group_membership_changed
 
   has_many :user_roles, :dependent => :delete_all
   has_many :properties, :foreign_key => 'user_id', :dependent => :delete_all
@@ -72,6 +72,10 @@ class User < ActiveRecord::Base
     Group.all - self.groups
   end
 
+  def group_membership_changed(group)
+    Internal.permissions.invalidateGroupsOfUser(id) if id
+  end
+
   def set_groups(new_groups=[])
     self.groups.clear
 
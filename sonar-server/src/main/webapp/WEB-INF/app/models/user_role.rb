@@ -34,5 +34,6 @@ class UserRole < ActiveRecord::Base
         UserRole.create(:user_id => user_id, :role=> role, :resource_id => resource_id)
       end
     end
+    Internal.permissions.invalidateProjectPermissionCache()
   end  
 end
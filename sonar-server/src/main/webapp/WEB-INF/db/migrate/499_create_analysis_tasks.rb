@@ -0,0 +1,36 @@
+#
+# SonarQube, open source software quality management tool.
+# Copyright (C) 2008-2013 SonarSource
+# mailto:contact AT sonarsource DOT com
+#
+# SonarQube is free software; you can redistribute it and/or
+# modify it under the terms of the GNU Lesser General Public
+# License as published by the Free Software Foundation; either
+# version 3 of the License, or (at your option) any later version.
+#
+# SonarQube is distributed in the hope that it will be useful,
+# but WITHOUT ANY WARRANTY; without even the implied warranty of
+# MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+# Lesser General Public License for more details.
+#
+# You should have received a copy of the GNU Lesser General Public License
+# along with this program; if not, write to the Free Software Foundation,
+# Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+#
+
+#
+# Sonar 4.2.1
+#
+class CreateAnalysisTasks < ActiveRecord::Migration
+
+  def self.up
+    create_table :analysis_tasks do |t|
+      t.column :task_type,   :string,    :null => false,   :limit => 40
+      t.column :project_id,  :integer,   :null => false
+      t.column :created_at,  :datetime,  :null => true
+      t.column :started_at,  :datetime,  :null => true
+    end
+    add_index :analysis_tasks, [:project_id, :task_type], :name => 'analysis_tasks_project'
+  end
+
+end
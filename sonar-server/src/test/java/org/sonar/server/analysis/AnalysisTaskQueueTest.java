@@ -0,0 +1,258 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.analysis;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.sonar.api.config.Settings;
+import org.sonar.api.utils.System2;
+import org.sonar.core.analysis.AnalysisTaskDao;
+import org.sonar.core.analysis.AnalysisTaskDto;
+import org.sonar.core.analysis.AnalysisTaskHandler;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.fest.assertions.Fail.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+public class AnalysisTaskQueueTest {
+
+  Settings settings = new Settings();
+  AnalysisTaskDao dao = mock(AnalysisTaskDao.class);
+  AnalysisTaskHandler purgeHandler = mock(AnalysisTaskHandler.class);
+  System2 system = mock(System2.class);
+  AnalysisTaskQueue queue;
+
+  @Before
+  public void setUp() {
+    settings.setProperty(AnalysisTaskQueue.PROPERTY_DELAY, 3600);
+    settings.setProperty(AnalysisTaskQueue.PROPERTY_WORKERS, 2);
+    when(purgeHandler.taskType()).thenReturn("PURGE");
+    when(system.now()).thenReturn(time(3, 0));
+  }
+
+  @After
+  public void tearDown() {
+    if (queue != null) {
+      queue.stop();
+    }
+  }
+
+  @Test
+  public void reset_started_tasks_on_startup() {
+    queue = new AnalysisTaskQueue(settings, dao, new AnalysisTaskHandler[] {purgeHandler}, system);
+    queue.start();
+
+    verify(dao).resetStarted();
+  }
+
+  @Test
+  public void execute_pending_tasks() {
+    AnalysisTaskDto task = new AnalysisTaskDto().setTaskType("PURGE").setProjectId(10L);
+    when(dao.selectPending()).thenReturn(Arrays.asList(task));
+    when(dao.start(task)).thenReturn(true);
+    when(purgeHandler.execute(10L)).thenReturn(true);
+
+    queue = new AnalysisTaskQueue(settings, dao, new AnalysisTaskHandler[] {purgeHandler}, system);
+    queue.start();
+    queue.processQueue();
+    queue.stop();
+
+    verify(purgeHandler).execute(10L);
+    verify(dao).finish(task);
+    assertThat(queue.runningTasks()).isEqualTo(0);
+  }
+
+  @Test
+  public void postpone_tasks_that_can_not_be_executed_yet() {
+    AnalysisTaskDto task = new AnalysisTaskDto().setTaskType("PURGE").setProjectId(10L);
+    when(dao.selectPending()).thenReturn(Arrays.asList(task));
+    when(dao.start(task)).thenReturn(true);
+    when(purgeHandler.execute(10L)).thenReturn(false);
+
+    queue = new AnalysisTaskQueue(settings, dao, new AnalysisTaskHandler[] {purgeHandler}, system);
+    queue.start();
+    queue.processQueue();
+    queue.stop();
+
+    verify(dao).postpone(task);
+    verify(dao, never()).finish(task);
+  }
+
+  @Test
+  public void do_not_execute_tasks_already_started() {
+    AnalysisTaskDto task = new AnalysisTaskDto().setTaskType("PURGE").setProjectId(10L);
+    when(dao.selectPending()).thenReturn(Arrays.asList(task));
+    when(dao.start(task)).thenReturn(false);
+
+    queue = new AnalysisTaskQueue(settings, dao, new AnalysisTaskHandler[] {purgeHandler}, system);
+    queue.start();
+    queue.processQueue();
+    queue.stop();
+
+    verify(purgeHandler, never()).execute(anyLong());
+    verify(dao, never()).finish(any(AnalysisTaskDto.class));
+  }
+
+  @Test
+  public void postpone_task_on_failure_then_drop_it_after_max_attempts() {
+    AnalysisTaskDto task = new AnalysisTaskDto().setTaskType("PURGE").setProjectId(10L);
+    when(dao.selectPending()).thenReturn(Arrays.asList(task));
+    when(dao.start(task)).thenReturn(true);
+    doThrow(new IllegalStateException()).when(purgeHandler).execute(10L);
+
+    queue = new AnalysisTaskQueue(settings, dao, new AnalysisTaskHandler[] {purgeHandler}, system);
+    for (int i = 0; i < AnalysisTaskQueue.MAX_ATTEMPTS; i++) {
+      queue.start();
+      queue.processQueue();
+      queue.stop();
+    }
+
+    verify(purgeHandler, times(AnalysisTaskQueue.MAX_ATTEMPTS)).execute(10L);
+    InOrder inOrder = inOrder(dao);
+    inOrder.verify(dao, times(AnalysisTaskQueue.MAX_ATTEMPTS - 1)).postpone(task);
+    inOrder.verify(dao).finish(task);
+  }
+
+  @Test
+  public void reset_failures_when_task_succeeds() {
+    AnalysisTaskDto task = new AnalysisTaskDto().setTaskType("PURGE").setProjectId(10L);
+    when(dao.selectPending()).thenReturn(Arrays.asList(task));
+    when(dao.start(task)).thenReturn(true);
+    when(purgeHandler.execute(10L)).thenThrow(new IllegalStateException()).thenReturn(false)
+      .thenThrow(new IllegalStateException()).thenThrow(new IllegalStateException());
+
+    queue = new AnalysisTaskQueue(settings, dao, new AnalysisTaskHandler[] {purgeHandler}, system);
+    for (int i = 0; i < 4; i++) {
+      queue.start();
+      queue.processQueue();
+      queue.stop();
+    }
+
+    verify(dao, times(4)).postpone(task);
+    verify(dao, never()).finish(task);
+  }
+
+  @Test
+  public void drop_tasks_without_handler() {
+    AnalysisTaskDto task = new AnalysisTaskDto().setTaskType("UNKNOWN").setProjectId(10L);
+    when(dao.selectPending()).thenReturn(Arrays.asList(task));
+
+    queue = new AnalysisTaskQueue(settings, dao, new AnalysisTaskHandler[] {purgeHandler}, system);
+    queue.start();
+    queue.processQueue();
+
+    verify(dao).start(task);
+    verify(dao).finish(task);
+    verifyZeroInteractions(purgeHandler);
+  }
+
+  @Test
+  public void no_pending_tasks() {
+    when(dao.selectPending()).thenReturn(Collections.<AnalysisTaskDto>emptyList());
+
+    queue = new AnalysisTaskQueue(settings, dao, new AnalysisTaskHandler[0], system);
+    queue.start();
+    queue.processQueue();
+
+    verify(dao, never()).start(any(AnalysisTaskDto.class));
+  }
+
+  @Test
+  public void peak_hours() {
+    settings.setProperty(AnalysisTaskQueue.PROPERTY_PEAK_HOURS, "8-19");
+    AnalysisTaskQueue peakQueue = new AnalysisTaskQueue(settings, dao, new AnalysisTaskHandler[0], system);
+
+    when(system.now()).thenReturn(time(7, 59));
+    assertThat(peakQueue.isPeakHour()).isFalse();
+    when(system.now()).thenReturn(time(8, 0));
+    assertThat(peakQueue.isPeakHour()).isTrue();
+    when(system.now()).thenReturn(time(19, 0));
+    assertThat(peakQueue.isPeakHour()).isFalse();
+  }
+
+  @Test
+  public void peak_hours_over_midnight() {
+    settings.setProperty(AnalysisTaskQueue.PROPERTY_PEAK_HOURS, "22-6");
+    AnalysisTaskQueue peakQueue = new AnalysisTaskQueue(settings, dao, new AnalysisTaskHandler[0], system);
+
+    when(system.now()).thenReturn(time(23, 0));
+    assertThat(peakQueue.isPeakHour()).isTrue();
+    when(system.now()).thenReturn(time(12, 0));
+    assertThat(peakQueue.isPeakHour()).isFalse();
+  }
+
+  @Test
+  public void no_peak_hours_by_default() {
+    AnalysisTaskQueue peakQueue = new AnalysisTaskQueue(settings, dao, new AnalysisTaskHandler[0], system);
+
+    assertThat(peakQueue.isPeakHour()).isFalse();
+  }
+
+  @Test
+  public void only_one_task_during_peak_hours() {
+    settings.setProperty(AnalysisTaskQueue.PROPERTY_PEAK_HOURS, "0-24");
+    AnalysisTaskDto task1 = new AnalysisTaskDto().setTaskType("PURGE").setProjectId(10L);
+    AnalysisTaskDto task2 = new AnalysisTaskDto().setTaskType("PURGE").setProjectId(20L);
+    when(dao.selectPending()).thenReturn(Arrays.asList(task1, task2));
+    when(dao.start(any(AnalysisTaskDto.class))).thenReturn(true);
+    final CountDownLatch latch = new CountDownLatch(1);
+    doAnswer(new Answer() {
+      public Object answer(InvocationOnMock invocation) throws Throwable {
+        latch.await();
+        return true;
+      }
+    }).when(purgeHandler).execute(10L);
+
+    queue = new AnalysisTaskQueue(settings, dao, new AnalysisTaskHandler[] {purgeHandler}, system);
+    queue.start();
+    queue.processQueue();
+    latch.countDown();
+
+    verify(dao).start(task1);
+    verify(dao, never()).start(task2);
+  }
+
+  @Test
+  public void fail_if_bad_peak_hours() {
+    settings.setProperty(AnalysisTaskQueue.PROPERTY_PEAK_HOURS, "8h-19h");
+    try {
+      new AnalysisTaskQueue(settings, dao, new AnalysisTaskHandler[0], system);
+      fail();
+    } catch (IllegalArgumentException e) {
+      assertThat(e).hasMessage("Peak hours must be formatted as <start hour>-<end hour>, for example 8-19: 8h-19h");
+    }
+  }
+
+  private long time(int hour, int minute) {
+    Calendar calendar = Calendar.getInstance();
+    calendar.set(2014, Calendar.MARCH, 20, hour, minute, 0);
+    return calendar.getTimeInMillis();
+  }
+}
@@ -0,0 +1,110 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.batch;
+
+import com.google.common.base.Charsets;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.Before;
+import org.junit.Test;
+import org.skyscreamer.jsonassert.JSONAssert;
+import org.sonar.api.batch.rule.internal.ActiveRulesBuilder;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.api.rule.Severity;
+import org.sonar.core.preview.PreviewCache;
+import org.sonar.core.properties.PropertiesDao;
+import org.sonar.core.properties.PropertyDto;
+import org.sonar.core.qualityprofile.ActiveRulesLoader;
+
+import java.util.Arrays;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Matchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ActiveRulesBundleTest {
+
+  ActiveRulesLoader loader = mock(ActiveRulesLoader.class);
+  PropertiesDao propertiesDao = mock(PropertiesDao.class);
+  ActiveRulesBundle bundle = new ActiveRulesBundle(loader, propertiesDao);
+
+  @Before
+  public void setUp() {
+    ActiveRulesBuilder builder = new ActiveRulesBuilder();
+    builder.activate(RuleKey.of("squid", "S0001")).setSeverity(Severity.INFO).setParam("max", "20").setParam("min", "12");
+    builder.activate(RuleKey.of("phpunit", "P1")).setSeverity(Severity.BLOCKER).setInternalKey("Checker/P1");
+    when(loader.load(anyCollection())).thenReturn(builder.build());
+    setLastModification("1000");
+  }
+
+  @Test
+  public void serialize_active_rules() throws Exception {
+    String json = new String(bundle.content(Arrays.asList(2, 3)), Charsets.UTF_8);
+
+    JSONAssert.assertEquals("{\"rules\": [" +
+      "{\"repository\": \"phpunit\", \"key\": \"P1\", \"severity\": \"BLOCKER\", \"internalKey\": \"Checker/P1\", \"params\": {}}," +
+      "{\"repository\": \"squid\", \"key\": \"S0001\", \"severity\": \"INFO\", \"params\": {\"max\": \"20\", \"min\": \"12\"}}" +
+      "]}", json, true);
+  }
+
+  @Test
+  public void hash_is_md5_of_content() throws Exception {
+    byte[] content = bundle.content(Arrays.asList(2, 3));
+
+    assertThat(bundle.hash(Arrays.asList(2, 3))).isEqualTo(DigestUtils.md5Hex(content));
+  }
+
+  @Test
+  public void load_rules_once_per_set_of_profiles() throws Exception {
+    bundle.hash(Arrays.asList(2, 3));
+    bundle.content(Arrays.asList(3, 2));
+    bundle.content(Arrays.asList(3, 2, 3));
+    verify(loader).load(Arrays.asList(2, 3));
+
+    bundle.content(Arrays.asList(2));
+    verify(loader).load(Arrays.asList(2));
+  }
+
+  @Test
+  public void load_rules_again_when_profiles_are_modified() throws Exception {
+    bundle.hash(Arrays.asList(2, 3));
+    setLastModification("2000");
+    bundle.hash(Arrays.asList(2, 3));
+    bundle.content(Arrays.asList(2, 3));
+
+    verify(loader, times(2)).load(Arrays.asList(2, 3));
+  }
+
+  @Test
+  public void profiles_have_never_been_modified() throws Exception {
+    when(propertiesDao.selectGlobalProperty(PreviewCache.SONAR_PREVIEW_CACHE_LAST_UPDATE_KEY)).thenReturn(null);
+    bundle.hash(Arrays.asList(2, 3));
+    bundle.hash(Arrays.asList(2, 3));
+
+    verify(loader).load(Arrays.asList(2, 3));
+  }
+
+  private void setLastModification(String timestamp) {
+    when(propertiesDao.selectGlobalProperty(PreviewCache.SONAR_PREVIEW_CACHE_LAST_UPDATE_KEY))
+      .thenReturn(new PropertyDto().setKey(PreviewCache.SONAR_PREVIEW_CACHE_LAST_UPDATE_KEY).setValue(timestamp));
+  }
+}
@@ -0,0 +1,103 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.batch;
+
+import com.google.common.base.Charsets;
+import org.junit.Test;
+import org.sonar.api.server.ws.WebService;
+import org.sonar.api.server.ws.WsTester;
+import org.sonar.core.permission.GlobalPermissions;
+import org.sonar.server.exceptions.BadRequestException;
+import org.sonar.server.exceptions.ForbiddenException;
+import org.sonar.server.user.MockUserSession;
+
+import java.util.Arrays;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.fest.assertions.Fail.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+public class BatchWsTest {
+
+  ActiveRulesBundle bundle = mock(ActiveRulesBundle.class);
+  WsTester tester = new WsTester(new BatchWs(bundle));
+
+  @Test
+  public void define_ws() throws Exception {
+    WebService.Controller controller = tester.controller("api/batch");
+    assertThat(controller).isNotNull();
+    assertThat(controller.actions()).hasSize(2);
+
+    WebService.Action hash = controller.action("active_rules_hash");
+    assertThat(hash.handler()).isNotNull();
+    assertThat(hash.since()).isEqualTo("4.2.1");
+    assertThat(hash.isPost()).isFalse();
+    assertThat(hash.params()).hasSize(1);
+
+    WebService.Action show = controller.action("active_rules");
+    assertThat(show.handler()).isNotNull();
+    assertThat(show.since()).isEqualTo("4.2.1");
+    assertThat(show.isPost()).isFalse();
+    assertThat(show.params()).hasSize(1);
+  }
+
+  @Test
+  public void active_rules_hash() throws Exception {
+    MockUserSession.set().setLogin("john").setGlobalPermissions(GlobalPermissions.SCAN_EXECUTION);
+    when(bundle.hash(Arrays.asList(2, 3))).thenReturn("abcde");
+
+    tester.newRequest("api/batch", "active_rules_hash").setParam("profileIds", "2,3").execute().assertJson("{\"hash\": \"abcde\"}");
+  }
+
+  @Test
+  public void active_rules() throws Exception {
+    MockUserSession.set().setLogin("john").setGlobalPermissions(GlobalPermissions.DRY_RUN_EXECUTION);
+    when(bundle.content(Arrays.asList(2, 3))).thenReturn("{\"rules\": []}".getBytes(Charsets.UTF_8));
+
+    tester.newRequest("api/batch", "active_rules").setParam("profileIds", "2, 3").execute().assertJson("{\"rules\": []}");
+  }
+
+  @Test
+  public void fail_if_missing_execution_permission() throws Exception {
+    MockUserSession.set().setLogin("john").setGlobalPermissions(GlobalPermissions.QUALITY_PROFILE_ADMIN);
+
+    try {
+      tester.newRequest("api/batch", "active_rules").setParam("profileIds", "2,3").execute();
+      fail();
+    } catch (ForbiddenException e) {
+      verifyZeroInteractions(bundle);
+    }
+  }
+
+  @Test
+  public void fail_if_profile_ids_are_not_integers() throws Exception {
+    MockUserSession.set().setLogin("john").setGlobalPermissions(GlobalPermissions.SCAN_EXECUTION);
+
+    try {
+      tester.newRequest("api/batch", "active_rules_hash").setParam("profileIds", "2,java").execute();
+      fail();
+    } catch (BadRequestException e) {
+      assertThat(e.getMessage()).isEqualTo("Parameter 'profileIds' must be a comma-separated list of integers");
+      verifyZeroInteractions(bundle);
+    }
+  }
+}
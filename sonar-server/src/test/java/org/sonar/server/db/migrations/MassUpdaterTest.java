@@ -0,0 +1,180 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.db.migrations;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.slf4j.Logger;
+import org.sonar.api.utils.MessageException;
+import org.sonar.core.persistence.TestDatabase;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.fest.assertions.Fail.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class MassUpdaterTest {
+
+  @Rule
+  public TestDatabase db = new TestDatabase().schema(getClass(), "schema.sql");
+
+  @Test
+  public void update_rows() throws Exception {
+    db.prepareDbUnit(getClass(), "update_rows.xml");
+
+    new MassUpdater(db.database()).execute(new PackageLoader(), new PackageConverter());
+
+    db.assertDbUnit(getClass(), "update_rows_result.xml", "projects");
+  }
+
+  @Test
+  public void update_partitioned_rows() throws Exception {
+    db.prepareDbUnit(getClass(), "update_rows.xml");
+
+    new MassUpdater(db.database(), 2).execute(new PartitionedPackageLoader(), new PackageConverter());
+
+    db.assertDbUnit(getClass(), "update_rows_result.xml", "projects");
+  }
+
+  @Test
+  public void resume_partitioned_update() throws Exception {
+    db.prepareDbUnit(getClass(), "update_rows.xml");
+    db.executeUpdateSql("UPDATE projects SET kee='struts:org/struts', qualifier='DIR' WHERE id=1");
+
+    new MassUpdater(db.database(), 2).execute(new PartitionedPackageLoader(), new PackageConverter());
+
+    db.assertDbUnit(getClass(), "update_rows_result.xml", "projects");
+  }
+
+  @Test
+  public void no_rows_to_update() throws Exception {
+    db.prepareDbUnit(getClass(), "no_rows.xml");
+
+    new MassUpdater(db.database(), 2).execute(new PartitionedPackageLoader(), new PackageConverter());
+
+    db.assertDbUnit(getClass(), "no_rows.xml", "projects");
+  }
+
+  @Test
+  public void fail_if_a_partition_fails() throws Exception {
+    db.prepareDbUnit(getClass(), "update_rows.xml");
+
+    try {
+      new MassUpdater(db.database(), 2).execute(new PartitionedPackageLoader(), new PackageConverter() {
+        @Override
+        public void convert(Row row, PreparedStatement updateStatement) throws SQLException {
+          if (row.id == 50L) {
+            throw new SQLException("Fail to convert row 50");
+          }
+          super.convert(row, updateStatement);
+        }
+      });
+      fail();
+    } catch (MessageException e) {
+      assertThat(e).hasMessage("Fail to migrate data");
+    }
+  }
+
+  @Test
+  public void split_keys_in_partitions() throws Exception {
+    List<long[]> partitions = MassUpdater.partitions(1L, 100L, 8);
+
+    assertThat(partitions).hasSize(8);
+    assertThat(partitions.get(0)).isEqualTo(new long[] {1L, 13L});
+    assertThat(partitions.get(1)).isEqualTo(new long[] {14L, 26L});
+    assertThat(partitions.get(7)).isEqualTo(new long[] {92L, 100L});
+
+    // less keys than partitions
+    partitions = MassUpdater.partitions(5L, 7L, 16);
+    assertThat(partitions).hasSize(3);
+    assertThat(partitions.get(2)).isEqualTo(new long[] {7L, 7L});
+
+    assertThat(MassUpdater.partitions(3L, 3L, 16)).hasSize(1);
+  }
+
+  @Test
+  public void log_progress() throws Exception {
+    Logger logger = mock(Logger.class);
+    ArgumentCaptor<String> argument = ArgumentCaptor.forClass(String.class);
+
+    long fiveMinutesAgo = System.currentTimeMillis() - 5 * 60 * 1000;
+    MassUpdater.Progress progress = new MassUpdater.Progress(5000, logger, fiveMinutesAgo);
+    progress.run();
+    progress.increment(2000);
+    progress.run();
+
+    verify(logger, times(2)).info(argument.capture());
+    assertThat(argument.getAllValues().get(0)).isEqualTo("0% [0/5000 rows]");
+    assertThat(argument.getAllValues().get(1)).isEqualTo("40% [2000/5000 rows, 7 minutes remaining]");
+    assertThat(progress.count()).isEqualTo(2000L);
+  }
+
+  private static class Row {
+    private Long id;
+    private String key;
+  }
+
+  private static class PackageLoader implements MassUpdater.InputLoader<Row> {
+    @Override
+    public String selectSql() {
+      return "SELECT id, kee FROM projects WHERE qualifier='PAC'";
+    }
+
+    @Override
+    public Row load(ResultSet rs) throws SQLException {
+      Row row = new Row();
+      row.id = SqlUtil.getLong(rs, 1);
+      row.key = rs.getString(2);
+      return row;
+    }
+  }
+
+  private static class PartitionedPackageLoader extends PackageLoader implements MassUpdater.PartitionedInputLoader<Row> {
+    @Override
+    public String rangeSql() {
+      return "SELECT MIN(id), MAX(id), COUNT(id) FROM projects WHERE qualifier='PAC'";
+    }
+
+    @Override
+    public String selectSql() {
+      return "SELECT id, kee FROM projects WHERE qualifier='PAC' AND id>=? AND id<=?";
+    }
+  }
+
+  private static class PackageConverter implements MassUpdater.InputConverter<Row> {
+    @Override
+    public String updateSql() {
+      return "UPDATE projects SET qualifier='DIR', kee=? WHERE id=?";
+    }
+
+    @Override
+    public void convert(Row row, PreparedStatement updateStatement) throws SQLException {
+      updateStatement.setString(1, row.key.replace('.', '/'));
+      updateStatement.setLong(2, row.id);
+    }
+  }
+}
@@ -0,0 +1,175 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.es;
+
+import org.elasticsearch.action.ActionFuture;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.client.Client;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.sonar.api.config.Settings;
+import org.sonar.core.profiling.Profiling;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.fest.assertions.Fail.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class BulkIndexQueueTest {
+
+  Client client = mock(Client.class, Mockito.RETURNS_DEEP_STUBS);
+  ActionFuture<BulkResponse> future = mock(ActionFuture.class);
+  BulkResponse response = mock(BulkResponse.class);
+  BulkIndexQueue queue;
+
+  @Before
+  public void before() {
+    when(client.bulk(any(BulkRequest.class))).thenReturn(future);
+    when(future.actionGet()).thenReturn(response);
+  }
+
+  @After
+  public void after() {
+    if (queue != null) {
+      queue.stop();
+    }
+  }
+
+  @Test
+  public void execute_queued_requests_in_bulk() {
+    startQueue(10000L);
+    queue.add(indexRequest("1"));
+    queue.add(indexRequest("2"));
+    queue.flush("index");
+
+    verify(client, times(1)).bulk(any(BulkRequest.class));
+    assertThat(queue.depth()).isEqualTo(0);
+  }
+
+  @Test
+  public void report_failure_to_the_caller_of_the_failed_request() {
+    when(future.actionGet()).thenThrow(new IllegalStateException("No node available"));
+    startQueue(10000L);
+
+    try {
+      queue.addAndFlush(indexRequest("1"), "index");
+      fail();
+    } catch (IllegalStateException e) {
+      assertThat(e.getMessage()).contains("No node available");
+    }
+  }
+
+  @Test
+  public void do_not_report_failure_to_unrelated_callers() {
+    when(future.actionGet()).thenThrow(new IllegalStateException("No node available")).thenReturn(response);
+    startQueue(10000L);
+
+    queue.add(indexRequest("1"));
+    // failure of the previous request is only logged
+    queue.flush("index");
+    queue.addAndFlush(indexRequest("2"), "index");
+  }
+
+  @Test
+  public void report_partial_failure_only_to_the_caller_of_the_failed_item() {
+    BulkItemResponse success = mock(BulkItemResponse.class);
+    BulkItemResponse failure = mock(BulkItemResponse.class);
+    when(failure.isFailed()).thenReturn(true);
+    when(failure.getItemId()).thenReturn(0);
+    when(failure.getFailureMessage()).thenReturn("MapperParsingException");
+    when(response.hasFailures()).thenReturn(true);
+    when(response.getItems()).thenReturn(new BulkItemResponse[] {failure, success});
+    startQueue(10000L);
+
+    // both requests are sent in the same bulk, the first one fails
+    queue.add(indexRequest("1"));
+    queue.addAndFlush(indexRequest("2"), "index");
+
+    when(failure.getItemId()).thenReturn(1);
+    queue.add(indexRequest("3"));
+    try {
+      queue.addAndFlush(indexRequest("4"), "index");
+      fail();
+    } catch (IllegalStateException e) {
+      assertThat(e.getMessage()).contains("MapperParsingException");
+    }
+  }
+
+  @Test
+  public void worker_survives_unexpected_errors() {
+    when(client.bulk(any(BulkRequest.class))).thenThrow(new NoClassDefFoundError("Boom")).thenReturn(future);
+    startQueue(10000L);
+
+    try {
+      queue.addAndFlush(indexRequest("1"), "index");
+      fail();
+    } catch (IllegalStateException e) {
+      assertThat(e.getMessage()).contains("Boom");
+    }
+
+    queue.addAndFlush(indexRequest("2"), "index");
+    verify(client, times(2)).bulk(any(BulkRequest.class));
+  }
+
+  @Test
+  public void wait_is_bounded() {
+    final CountDownLatch latch = new CountDownLatch(1);
+    when(future.actionGet()).thenAnswer(new Answer<BulkResponse>() {
+      @Override
+      public BulkResponse answer(InvocationOnMock invocation) throws Throwable {
+        latch.await();
+        return response;
+      }
+    });
+    startQueue(100L);
+
+    try {
+      queue.addAndFlush(indexRequest("1"), "index");
+      fail();
+    } catch (IllegalStateException e) {
+      assertThat(e).hasMessage("Timeout while waiting for index requests");
+    } finally {
+      latch.countDown();
+      // the worker is a daemon thread, no need to wait for it
+      queue = null;
+    }
+  }
+
+  private void startQueue(long timeoutMs) {
+    queue = new BulkIndexQueue(client, new Profiling(new Settings()), timeoutMs);
+    queue.start();
+  }
+
+  private IndexRequest indexRequest(String id) {
+    return new IndexRequest("index", "type", id).source("{\"value\":\"" + id + "\"}");
+  }
+}
@@ -32,6 +32,7 @@ import org.sonar.core.profiling.Profiling;
 import java.util.List;
 
 import static org.fest.assertions.Assertions.assertThat;
+import static org.fest.assertions.Fail.fail;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -146,4 +147,62 @@ public class ESIndexTest {
     assertThat(docIds).hasSize(numberOfDocuments);
   }
 
+  @Test
+  public void should_make_queued_documents_visible_after_refresh() throws Exception {
+    searchIndex.addMappingFromClasspath("index", "type1", "/org/sonar/server/es/ESIndexTest/correct_mapping1.json");
+    for (int i = 0; i < 1000; i++) {
+      searchIndex.put("index", "type1", Integer.toString(i), XContentFactory.jsonBuilder().startObject().field("value", Integer.toString(i)).endObject());
+    }
+    searchIndex.refresh("index");
+
+    assertThat(searchIndex.queueDepth()).isEqualTo(0);
+    assertThat(searchIndex.findDocumentIds(SearchQuery.create())).hasSize(1000);
+  }
+
+  @Test
+  public void should_delete_queued_documents_in_order() throws Exception {
+    searchIndex.addMappingFromClasspath("index", "type1", "/org/sonar/server/es/ESIndexTest/correct_mapping1.json");
+    searchIndex.put("index", "type1", "1", XContentFactory.jsonBuilder().startObject().field("value", "1").endObject());
+    searchIndex.put("index", "type1", "2", XContentFactory.jsonBuilder().startObject().field("value", "2").endObject());
+    searchIndex.delete("index", "type1", "1");
+    searchIndex.refresh("index");
+
+    assertThat(searchIndex.findDocumentIds(SearchQuery.create())).containsOnly("2");
+  }
+
+  @Test
+  public void should_see_put_synchronous_document_immediately() throws Exception {
+    searchIndex.addMappingFromClasspath("index", "type1", "/org/sonar/server/es/ESIndexTest/correct_mapping1.json");
+    searchIndex.putSynchronous("index", "type1", "1", XContentFactory.jsonBuilder().startObject().field("value", "1").endObject());
+
+    assertThat(searchIndex.findDocumentIds(SearchQuery.create())).containsOnly("1");
+  }
+
+  @Test
+  public void should_fail_when_documents_of_bulk_are_rejected() throws Exception {
+    searchIndex.addMappingFromClasspath("index", "type1", "/org/sonar/server/es/ESIndexTest/integer_mapping.json");
+    String[] ids = {"1", "2"};
+    BytesStream[] sources = {
+      XContentFactory.jsonBuilder().startObject().field("value", 1).endObject(),
+      XContentFactory.jsonBuilder().startObject().field("value", "not a number").endObject()
+    };
+
+    try {
+      searchIndex.bulkIndex("index", "type1", ids, sources);
+      fail();
+    } catch (IllegalStateException e) {
+      assertThat(e.getMessage()).startsWith("Bulk operation partially executed");
+    }
+  }
+
+  @Test
+  public void should_fail_to_queue_documents_before_start() throws Exception {
+    ESIndex notStarted = new ESIndex(searchNode, new Profiling(new Settings()));
+    try {
+      notStarted.put("index", "type1", "1", XContentFactory.jsonBuilder().startObject().field("value", "1").endObject());
+      fail();
+    } catch (IllegalStateException e) {
+      assertThat(e).hasMessage("Index requests can't be queued before the start or after the stop of ES index");
+    }
+  }
 }
@@ -0,0 +1,132 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.issue;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.sonar.api.utils.System2;
+import org.sonar.server.exceptions.BadRequestException;
+import org.sonar.server.user.MockUserSession;
+import org.sonar.server.user.UserSession;
+
+import java.util.Date;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class IssueBulkChangeJobsTest {
+
+  IssueBulkChangeService service = mock(IssueBulkChangeService.class);
+  System2 system = mock(System2.class);
+  IssueBulkChangeQuery query = mock(IssueBulkChangeQuery.class);
+  UserSession userSession = MockUserSession.create().setLogin("john");
+  IssueBulkChangeJobs jobs;
+
+  @Before
+  public void before() {
+    when(system.now()).thenReturn(1000000L);
+    jobs = new IssueBulkChangeJobs(service, system);
+  }
+
+  @Test
+  public void execute_job() {
+    IssueBulkChangeJob job = new IssueBulkChangeJob("ABCD", "john", new Date());
+    IssueBulkChangeResult result = new IssueBulkChangeResult();
+    when(service.execute(eq(query), eq(userSession), eq(job))).thenReturn(result);
+
+    jobs.execute(job, query, userSession);
+
+    assertThat(job.status()).isEqualTo(IssueBulkChangeJob.Status.DONE);
+    assertThat(job.isFinished()).isTrue();
+    assertThat(job.result()).isSameAs(result);
+    assertThat(job.finishedAt().getTime()).isEqualTo(1000000L);
+  }
+
+  @Test
+  public void fail_job() {
+    IssueBulkChangeJob job = new IssueBulkChangeJob("ABCD", "john", new Date());
+    when(service.execute(eq(query), eq(userSession), eq(job))).thenThrow(new IllegalStateException("Boom"));
+
+    jobs.execute(job, query, userSession);
+
+    assertThat(job.status()).isEqualTo(IssueBulkChangeJob.Status.FAILED);
+    assertThat(job.isFinished()).isTrue();
+    assertThat(job.errorMessage()).isEqualTo("Boom");
+    assertThat(job.result()).isNull();
+  }
+
+  @Test
+  public void use_l10n_key_as_error_message_of_localized_failure() {
+    IssueBulkChangeJob job = new IssueBulkChangeJob("ABCD", "john", new Date());
+    when(service.execute(eq(query), eq(userSession), eq(job))).thenThrow(new BadRequestException(null, "issue_filter.error.name_required", null));
+
+    jobs.execute(job, query, userSession);
+
+    assertThat(job.status()).isEqualTo(IssueBulkChangeJob.Status.FAILED);
+    assertThat(job.errorMessage()).isEqualTo("issue_filter.error.name_required");
+  }
+
+  @Test
+  public void use_exception_class_as_error_message_of_failure_without_message() {
+    IssueBulkChangeJob job = new IssueBulkChangeJob("ABCD", "john", new Date());
+    when(service.execute(eq(query), eq(userSession), eq(job))).thenThrow(new NullPointerException());
+
+    jobs.execute(job, query, userSession);
+
+    assertThat(job.status()).isEqualTo(IssueBulkChangeJob.Status.FAILED);
+    assertThat(job.errorMessage()).isEqualTo("java.lang.NullPointerException");
+  }
+
+  @Test
+  public void job_does_not_share_session_of_http_request() {
+    jobs.start();
+    try {
+      IssueBulkChangeJob job = jobs.submit(query, userSession);
+
+      ArgumentCaptor<UserSession> session = ArgumentCaptor.forClass(UserSession.class);
+      verify(service, timeout(5000)).execute(eq(query), session.capture(), eq(job));
+      assertThat(session.getValue()).isNotSameAs(userSession);
+      assertThat(session.getValue().login()).isEqualTo("john");
+    } finally {
+      jobs.stop();
+    }
+  }
+
+  @Test
+  public void job_is_visible_only_by_its_author() {
+    jobs.start();
+    try {
+      IssueBulkChangeJob job = jobs.submit(query, userSession);
+
+      assertThat(job.login()).isEqualTo("john");
+      assertThat(jobs.job(job.key(), userSession)).isSameAs(job);
+      assertThat(jobs.job(job.key(), MockUserSession.create().setLogin("fred"))).isNull();
+      assertThat(jobs.job("UNKNOWN", userSession)).isNull();
+    } finally {
+      jobs.stop();
+    }
+  }
+}
@@ -39,6 +39,7 @@ import org.sonar.server.exceptions.UnauthorizedException;
 import org.sonar.server.user.MockUserSession;
 import org.sonar.server.user.UserSession;
 
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 
@@ -96,9 +97,9 @@ public class IssueBulkChangeServiceTest {
     assertThat(result.issuesChanged()).hasSize(1);
     assertThat(result.issuesNotChanged()).isEmpty();
 
-    verify(issueStorage).save(eq(issue));
+    verify(issueStorage).save(eq(newArrayList(issue)));
     verifyNoMoreInteractions(issueStorage);
-    verify(issueNotifications).sendChanges(eq(issue), any(IssueChangeContext.class), eq(issueQueryResult));
+    verify(issueNotifications).sendChanges(eq(newArrayList(issue)), any(IssueChangeContext.class), eq(issueQueryResult));
     verifyNoMoreInteractions(issueNotifications);
   }
 
@@ -115,9 +116,9 @@ public class IssueBulkChangeServiceTest {
     assertThat(result.issuesChanged()).hasSize(1);
     assertThat(result.issuesNotChanged()).isEmpty();
 
-    verify(issueStorage).save(eq(issue));
+    verify(issueStorage).save(eq(newArrayList(issue)));
     verifyNoMoreInteractions(issueStorage);
-    verify(issueNotifications, never()).sendChanges(eq(issue), any(IssueChangeContext.class), eq(issueQueryResult));
+    verify(issueNotifications, never()).sendChanges(eq(newArrayList(issue)), any(IssueChangeContext.class), eq(issueQueryResult));
     verifyNoMoreInteractions(issueNotifications);
   }
 
@@ -142,7 +143,7 @@ public class IssueBulkChangeServiceTest {
     assertThat(result.issuesNotChanged()).isEmpty();
 
     verify(commentAction).execute(anyMap(), any(IssueBulkChangeService.ActionContext.class));
-    verify(issueStorage).save(eq(issue));
+    verify(issueStorage).save(eq(newArrayList(issue)));
   }
 
   @Test
@@ -176,7 +177,7 @@ public class IssueBulkChangeServiceTest {
 
     // Only one issue will receive the comment
     verify(assignAction, times(1)).execute(anyMap(), any(IssueBulkChangeService.ActionContext.class));
-    verify(issueStorage).save(eq(issue));
+    verify(issueStorage).save(eq(newArrayList(issue)));
   }
 
   @Test
@@ -195,12 +196,40 @@ public class IssueBulkChangeServiceTest {
     assertThat(result.issuesChanged()).hasSize(1);
     assertThat(result.issuesNotChanged()).isEmpty();
 
-    verify(issueStorage, times(1)).save(eq(issue));
+    verify(issueStorage, times(1)).save(eq(newArrayList(issue)));
     verifyNoMoreInteractions(issueStorage);
-    verify(issueNotifications, times(1)).sendChanges(eq(issue), any(IssueChangeContext.class), eq(issueQueryResult));
+    verify(issueNotifications, times(1)).sendChanges(eq(newArrayList(issue)), any(IssueChangeContext.class), eq(issueQueryResult));
     verifyNoMoreInteractions(issueNotifications);
   }
 
+  @Test
+  public void should_save_by_batches_and_send_notifications_at_once() {
+    List<Issue> issues = newArrayList();
+    for (int i = 0; i < IssueBulkChangeService.SAVE_BATCH_SIZE + 1; i++) {
+      issues.add(new DefaultIssue().setKey("ISSUE-" + i));
+    }
+    when(issueQueryResult.issues()).thenReturn(issues);
+
+    Map<String, Object> properties = newHashMap();
+    properties.put("issues", "ABCD");
+    properties.put("actions", "assign");
+    properties.put("assign.assignee", "fred");
+    actions.add(new MockAction("assign"));
+
+    IssueBulkChangeJob job = new IssueBulkChangeJob("JOB", "john", new Date());
+    IssueBulkChangeResult result = service.execute(new IssueBulkChangeQuery(properties, true), userSession, job);
+    assertThat(result.issuesChanged()).hasSize(IssueBulkChangeService.SAVE_BATCH_SIZE + 1);
+
+    ArgumentCaptor<List> saved = ArgumentCaptor.forClass(List.class);
+    verify(issueStorage, times(2)).save(saved.capture());
+    assertThat(saved.getAllValues().get(0)).hasSize(IssueBulkChangeService.SAVE_BATCH_SIZE);
+    assertThat(saved.getAllValues().get(1)).hasSize(1);
+    verify(issueNotifications, times(1)).sendChanges(anyListOf(DefaultIssue.class), any(IssueChangeContext.class), eq(issueQueryResult));
+
+    assertThat(job.total()).isEqualTo(IssueBulkChangeService.SAVE_BATCH_SIZE + 1);
+    assertThat(job.processed()).isEqualTo(IssueBulkChangeService.SAVE_BATCH_SIZE + 1);
+  }
+
   @Test
   public void should_load_issues_from_issue_keys_with_maximum_page_size() {
     Map<String, Object> properties = newHashMap();
@@ -0,0 +1,91 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.issue.ws;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.sonar.api.issue.internal.DefaultIssue;
+import org.sonar.api.server.ws.WsTester;
+import org.sonar.server.exceptions.NotFoundException;
+import org.sonar.server.issue.IssueBulkChangeJob;
+import org.sonar.server.issue.IssueBulkChangeJobs;
+import org.sonar.server.issue.IssueBulkChangeResult;
+import org.sonar.server.user.MockUserSession;
+import org.sonar.server.user.UserSession;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.fest.assertions.Fail.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class IssueBulkChangeStatusWsHandlerTest {
+
+  IssueBulkChangeJobs jobs = mock(IssueBulkChangeJobs.class);
+  IssueBulkChangeJob job = mock(IssueBulkChangeJob.class);
+  WsTester tester;
+
+  @Before
+  public void setUp() throws Exception {
+    when(job.key()).thenReturn("ABCD");
+    tester = new WsTester(new IssuesWs(mock(IssueShowWsHandler.class), new IssueBulkChangeStatusWsHandler(jobs)));
+  }
+
+  @Test
+  public void show_running_bulk_change() throws Exception {
+    when(job.status()).thenReturn(IssueBulkChangeJob.Status.RUNNING);
+    when(job.total()).thenReturn(10);
+    when(job.processed()).thenReturn(3);
+    when(jobs.job(eq("ABCD"), any(UserSession.class))).thenReturn(job);
+
+    MockUserSession.set().setLogin("john");
+    tester.newRequest("bulk_change_status").setParam("key", "ABCD").execute()
+      .assertJson("{\"key\": \"ABCD\", \"status\": \"RUNNING\", \"total\": 10, \"processed\": 3}");
+  }
+
+  @Test
+  public void show_result_of_finished_bulk_change() throws Exception {
+    IssueBulkChangeResult result = new IssueBulkChangeResult();
+    result.addIssueChanged(new DefaultIssue().setKey("ISSUE-1"));
+    result.addIssueChanged(new DefaultIssue().setKey("ISSUE-2"));
+    result.addIssueNotChanged(new DefaultIssue().setKey("ISSUE-3"));
+    when(job.status()).thenReturn(IssueBulkChangeJob.Status.DONE);
+    when(job.total()).thenReturn(3);
+    when(job.processed()).thenReturn(3);
+    when(job.result()).thenReturn(result);
+    when(jobs.job(eq("ABCD"), any(UserSession.class))).thenReturn(job);
+
+    MockUserSession.set().setLogin("john");
+    tester.newRequest("bulk_change_status").setParam("key", "ABCD").execute()
+      .assertJson("{\"key\": \"ABCD\", \"status\": \"DONE\", \"total\": 3, \"processed\": 3, \"changed\": 2, \"notChanged\": 1}");
+  }
+
+  @Test
+  public void fail_if_bulk_change_not_found() throws Exception {
+    MockUserSession.set().setLogin("john");
+    try {
+      tester.newRequest("bulk_change_status").setParam("key", "UNKNOWN").execute();
+      fail();
+    } catch (Exception e) {
+      assertThat(e).isInstanceOf(NotFoundException.class);
+    }
+  }
+}
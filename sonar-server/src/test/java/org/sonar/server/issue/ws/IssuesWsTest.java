@@ -30,7 +30,8 @@ import static org.mockito.Mockito.mock;
 public class IssuesWsTest {
 
   IssueShowWsHandler showHandler = mock(IssueShowWsHandler.class);
-  WsTester tester = new WsTester(new IssuesWs(showHandler));
+  IssueBulkChangeStatusWsHandler bulkChangeStatusHandler = mock(IssueBulkChangeStatusWsHandler.class);
+  WsTester tester = new WsTester(new IssuesWs(showHandler, bulkChangeStatusHandler));
 
   @Test
   public void define_ws() throws Exception {
@@ -45,6 +46,13 @@ public class IssuesWsTest {
     assertThat(show.isPost()).isFalse();
     assertThat(show.isInternal()).isTrue();
     assertThat(show.handler()).isSameAs(showHandler);
+
+    WebService.Action bulkChangeStatus = controller.action("bulk_change_status");
+    assertThat(bulkChangeStatus).isNotNull();
+    assertThat(bulkChangeStatus.since()).isEqualTo("4.2.1");
+    assertThat(bulkChangeStatus.isPost()).isFalse();
+    assertThat(bulkChangeStatus.isInternal()).isTrue();
+    assertThat(bulkChangeStatus.handler()).isSameAs(bulkChangeStatusHandler);
   }
 
 }
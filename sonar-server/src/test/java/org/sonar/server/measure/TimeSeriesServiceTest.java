@@ -0,0 +1,139 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.measure;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.sonar.core.measure.db.MeasureHistoryDao;
+import org.sonar.core.measure.db.MeasureHistoryDto;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Map;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+public class TimeSeriesServiceTest {
+
+  static final long PROJECT_ID = 100L;
+  static final int COVERAGE = 1;
+  static final int LINES = 2;
+
+  MeasureHistoryDao dao = mock(MeasureHistoryDao.class);
+  TimeSeriesService service;
+
+  @Before
+  public void setUp() {
+    service = new TimeSeriesService(dao);
+  }
+
+  @Test
+  public void return_empty_series_if_project_is_not_analyzed() throws Exception {
+    when(dao.selectLastSnapshotId(PROJECT_ID)).thenReturn(null);
+
+    Map<Integer, TimeSeries> result = service.findByProjectAndMetrics(PROJECT_ID, Arrays.asList(COVERAGE));
+
+    assertThat(result.get(COVERAGE).isEmpty()).isTrue();
+    verify(dao, never()).selectByProjectAndMetrics(anyLong(), anyListOf(Integer.class), anyLong());
+  }
+
+  @Test
+  public void load_full_history_then_only_new_snapshots() throws Exception {
+    when(dao.selectLastSnapshotId(PROJECT_ID)).thenReturn(11L);
+    when(dao.selectByProjectAndMetrics(PROJECT_ID, Arrays.asList(COVERAGE), null)).thenReturn(Arrays.asList(
+      row(10L, 1000L, COVERAGE, 50.0),
+      row(11L, 2000L, COVERAGE, 60.0)));
+
+    Map<Integer, TimeSeries> result = service.findByProjectAndMetrics(PROJECT_ID, Arrays.asList(COVERAGE));
+    assertThat(result.get(COVERAGE).values()).isEqualTo(new double[] {50.0, 60.0});
+
+    // no new analysis
+    result = service.findByProjectAndMetrics(PROJECT_ID, Arrays.asList(COVERAGE));
+    assertThat(result.get(COVERAGE).values()).isEqualTo(new double[] {50.0, 60.0});
+    verify(dao, times(1)).selectByProjectAndMetrics(anyLong(), anyListOf(Integer.class), any(Long.class));
+
+    // new analysis
+    when(dao.selectLastSnapshotId(PROJECT_ID)).thenReturn(12L);
+    when(dao.selectByProjectAndMetrics(PROJECT_ID, Arrays.asList(COVERAGE), 11L)).thenReturn(Arrays.asList(
+      row(12L, 3000L, COVERAGE, 70.0)));
+
+    result = service.findByProjectAndMetrics(PROJECT_ID, Arrays.asList(COVERAGE));
+    assertThat(result.get(COVERAGE).times()).isEqualTo(new long[] {1000L, 2000L, 3000L});
+    assertThat(result.get(COVERAGE).values()).isEqualTo(new double[] {50.0, 60.0, 70.0});
+    verify(dao).selectByProjectAndMetrics(PROJECT_ID, Arrays.asList(COVERAGE), 11L);
+  }
+
+  @Test
+  public void complete_series_from_the_oldest_cached_snapshot() throws Exception {
+    when(dao.selectLastSnapshotId(PROJECT_ID)).thenReturn(10L);
+    when(dao.selectByProjectAndMetrics(PROJECT_ID, Arrays.asList(COVERAGE), null)).thenReturn(Arrays.asList(
+      row(10L, 1000L, COVERAGE, 50.0)));
+    service.findByProjectAndMetrics(PROJECT_ID, Arrays.asList(COVERAGE));
+
+    when(dao.selectLastSnapshotId(PROJECT_ID)).thenReturn(11L);
+    when(dao.selectByProjectAndMetrics(PROJECT_ID, Arrays.asList(LINES), null)).thenReturn(Arrays.asList(
+      row(10L, 1000L, LINES, 100.0),
+      row(11L, 2000L, LINES, 120.0)));
+    when(dao.selectByProjectAndMetrics(PROJECT_ID, Arrays.asList(COVERAGE), 10L)).thenReturn(Arrays.asList(
+      row(11L, 2000L, COVERAGE, 60.0)));
+
+    Map<Integer, TimeSeries> result = service.findByProjectAndMetrics(PROJECT_ID, Arrays.asList(COVERAGE, LINES));
+
+    assertThat(result.keySet()).containsExactly(COVERAGE, LINES);
+    assertThat(result.get(COVERAGE).values()).isEqualTo(new double[] {50.0, 60.0});
+    assertThat(result.get(LINES).values()).isEqualTo(new double[] {100.0, 120.0});
+  }
+
+  @Test
+  public void reload_series_if_new_measures_are_older() throws Exception {
+    when(dao.selectLastSnapshotId(PROJECT_ID)).thenReturn(10L);
+    when(dao.selectByProjectAndMetrics(PROJECT_ID, Arrays.asList(COVERAGE), null)).thenReturn(Arrays.asList(
+      row(10L, 5000L, COVERAGE, 50.0)));
+    service.findByProjectAndMetrics(PROJECT_ID, Arrays.asList(COVERAGE));
+
+    // analysis with a forced date in the past
+    when(dao.selectLastSnapshotId(PROJECT_ID)).thenReturn(11L);
+    when(dao.selectByProjectAndMetrics(PROJECT_ID, Arrays.asList(COVERAGE), 10L)).thenReturn(Arrays.asList(
+      row(11L, 1000L, COVERAGE, 40.0)));
+    when(dao.selectByProjectAndMetrics(PROJECT_ID, Arrays.asList(COVERAGE), null)).thenReturn(Arrays.asList(
+      row(11L, 1000L, COVERAGE, 40.0),
+      row(10L, 5000L, COVERAGE, 50.0)));
+
+    Map<Integer, TimeSeries> result = service.findByProjectAndMetrics(PROJECT_ID, Arrays.asList(COVERAGE));
+
+    assertThat(result.get(COVERAGE).values()).isEqualTo(new double[] {40.0, 50.0});
+  }
+
+  @Test
+  public void return_empty_series_if_no_measures() throws Exception {
+    when(dao.selectLastSnapshotId(PROJECT_ID)).thenReturn(10L);
+    when(dao.selectByProjectAndMetrics(PROJECT_ID, Arrays.asList(COVERAGE), null)).thenReturn(Collections.<MeasureHistoryDto>emptyList());
+
+    Map<Integer, TimeSeries> result = service.findByProjectAndMetrics(PROJECT_ID, Arrays.asList(COVERAGE));
+
+    assertThat(result.get(COVERAGE).isEmpty()).isTrue();
+  }
+
+  private static MeasureHistoryDto row(long snapshotId, long time, int metricId, double value) {
+    return new MeasureHistoryDto().setSnapshotId(snapshotId).setCreatedAt(new Date(time)).setMetricId(metricId).setValue(value);
+  }
+}
@@ -0,0 +1,132 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.measure;
+
+import org.junit.Test;
+
+import java.util.Date;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.fest.assertions.Fail.fail;
+
+public class TimeSeriesTest {
+
+  @Test
+  public void build_series() throws Exception {
+    TimeSeries series = new TimeSeries.Builder(1)
+      .add(1000000L, 1.0)
+      .add(1000000L, 2.0)
+      .add(5000000L, 3.5)
+      .build();
+
+    assertThat(series.size()).isEqualTo(3);
+    assertThat(series.isEmpty()).isFalse();
+    assertThat(series.times()).isEqualTo(new long[] {1000000L, 1000000L, 5000000L});
+    assertThat(series.values()).isEqualTo(new double[] {1.0, 2.0, 3.5});
+    assertThat(series.lastTime()).isEqualTo(5000000L);
+  }
+
+  @Test
+  public void truncate_dates_to_seconds() throws Exception {
+    TimeSeries series = new TimeSeries.Builder().add(1999L, 1.0).add(3001L, 2.0).build();
+
+    assertThat(series.times()).isEqualTo(new long[] {1000L, 3000L});
+  }
+
+  @Test
+  public void empty_series() throws Exception {
+    TimeSeries series = new TimeSeries.Builder().build();
+
+    assertThat(series).isSameAs(TimeSeries.EMPTY);
+    assertThat(series.isEmpty()).isTrue();
+    assertThat(series.times()).isEmpty();
+  }
+
+  @Test
+  public void fail_if_points_are_not_sorted() throws Exception {
+    try {
+      new TimeSeries.Builder().add(5000L, 1.0).add(1000L, 2.0);
+      fail();
+    } catch (IllegalArgumentException e) {
+      assertThat(e).hasMessage("Points must be sorted by date");
+    }
+  }
+
+  @Test
+  public void append_series() throws Exception {
+    TimeSeries first = new TimeSeries.Builder().add(1000L, 1.0).add(2000L, 2.0).build();
+    TimeSeries second = new TimeSeries.Builder().add(7000L, 3.0).add(9000L, 4.0).build();
+
+    TimeSeries series = first.append(second);
+
+    assertThat(series.times()).isEqualTo(new long[] {1000L, 2000L, 7000L, 9000L});
+    assertThat(series.values()).isEqualTo(new double[] {1.0, 2.0, 3.0, 4.0});
+    // immutable
+    assertThat(first.size()).isEqualTo(2);
+    assertThat(first.append(TimeSeries.EMPTY)).isSameAs(first);
+    assertThat(TimeSeries.EMPTY.append(second)).isSameAs(second);
+  }
+
+  @Test
+  public void fail_to_append_older_points() throws Exception {
+    TimeSeries first = new TimeSeries.Builder().add(5000L, 1.0).build();
+    try {
+      first.append(new TimeSeries.Builder().add(1000L, 2.0).build());
+      fail();
+    } catch (IllegalArgumentException e) {
+      assertThat(e).hasMessage("Points must be sorted by date");
+    }
+  }
+
+  @Test
+  public void select_points_between_dates() throws Exception {
+    TimeSeries series = new TimeSeries.Builder().add(1000L, 1.0).add(2000L, 2.0).add(3000L, 3.0).add(4000L, 4.0).build();
+
+    assertThat(series.between(null, null)).isSameAs(series);
+    assertThat(series.between(new Date(2000L), new Date(3000L)).values()).isEqualTo(new double[] {2.0, 3.0});
+    assertThat(series.between(new Date(2500L), null).values()).isEqualTo(new double[] {3.0, 4.0});
+    assertThat(series.between(null, new Date(1500L)).values()).isEqualTo(new double[] {1.0});
+    assertThat(series.between(new Date(5000L), null).isEmpty()).isTrue();
+  }
+
+  @Test
+  public void downsample() throws Exception {
+    TimeSeries.Builder builder = new TimeSeries.Builder();
+    for (int i = 0; i <= 100; i++) {
+      builder.add(i * 1000L, i);
+    }
+    TimeSeries series = builder.build();
+
+    TimeSeries sample = series.downsample(11);
+
+    assertThat(sample.size()).isEqualTo(11);
+    assertThat(sample.values()).isEqualTo(new double[] {0, 10, 20, 30, 40, 50, 60, 70, 80, 90, 100});
+    assertThat(series.downsample(200)).isSameAs(series);
+  }
+
+  @Test
+  public void downsample_points_with_same_date() throws Exception {
+    TimeSeries series = new TimeSeries.Builder().add(1000L, 1.0).add(1000L, 2.0).add(1000L, 3.0).build();
+
+    TimeSeries sample = series.downsample(2);
+
+    assertThat(sample.values()).isEqualTo(new double[] {1.0, 3.0});
+  }
+}
@@ -0,0 +1,133 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.measure.ws;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.Before;
+import org.junit.Test;
+import org.sonar.api.measures.Metric;
+import org.sonar.api.measures.MetricFinder;
+import org.sonar.api.server.ws.WebService;
+import org.sonar.api.server.ws.WsTester;
+import org.sonar.api.utils.DateUtils;
+import org.sonar.api.web.UserRole;
+import org.sonar.core.resource.ResourceDao;
+import org.sonar.core.resource.ResourceDto;
+import org.sonar.core.resource.ResourceQuery;
+import org.sonar.server.exceptions.ForbiddenException;
+import org.sonar.server.exceptions.NotFoundException;
+import org.sonar.server.measure.TimeSeries;
+import org.sonar.server.measure.TimeSeriesService;
+import org.sonar.server.user.MockUserSession;
+
+import java.util.Arrays;
+import java.util.Date;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.fest.assertions.Fail.fail;
+import static org.mockito.Mockito.*;
+
+public class TimeSeriesWsTest {
+
+  TimeSeriesService service = mock(TimeSeriesService.class);
+  MetricFinder metricFinder = mock(MetricFinder.class);
+  ResourceDao resourceDao = mock(ResourceDao.class);
+  WsTester tester = new WsTester(new TimeSeriesWs(service, metricFinder, resourceDao));
+
+  @Before
+  public void setUp() {
+    ResourceDto project = new ResourceDto().setId(10L).setKey("org.struts:struts");
+    when(resourceDao.getRootProjectByComponentKey("org.struts:struts")).thenReturn(project);
+    when(resourceDao.getResource(any(ResourceQuery.class))).thenReturn(project);
+    when(metricFinder.findAll(Arrays.asList("coverage", "alert_status"))).thenReturn(Arrays.asList(
+      new Metric("coverage", Metric.ValueType.PERCENT).setId(1),
+      new Metric("alert_status", Metric.ValueType.LEVEL).setId(2)));
+  }
+
+  @Test
+  public void define_ws() throws Exception {
+    WebService.Controller controller = tester.controller("api/timeseries");
+    assertThat(controller).isNotNull();
+
+    WebService.Action show = controller.action("show");
+    assertThat(show).isNotNull();
+    assertThat(show.handler()).isNotNull();
+    assertThat(show.since()).isEqualTo("4.2.1");
+    assertThat(show.isPost()).isFalse();
+    assertThat(show.params()).hasSize(5);
+  }
+
+  @Test
+  public void show_history_of_numeric_metrics() throws Exception {
+    MockUserSession.set().setLogin("john").addProjectPermissions(UserRole.USER, "org.struts:struts");
+    TimeSeries series = new TimeSeries.Builder().add(1000000000000L, 50.0).add(1100000000000L, 60.5).build();
+    when(service.findByProjectAndMetrics(10L, ImmutableMap.of(1, series).keySet())).thenReturn(ImmutableMap.of(1, series));
+
+    tester.newRequest("show")
+      .setParam("resource", "org.struts:struts")
+      .setParam("metrics", "coverage,alert_status")
+      .execute()
+      .assertJson("{\"metrics\":[{\"key\":\"coverage\",\"points\":[" +
+        "{\"d\":\"" + DateUtils.formatDateTime(new Date(1000000000000L)) + "\",\"v\":50.0}," +
+        "{\"d\":\"" + DateUtils.formatDateTime(new Date(1100000000000L)) + "\",\"v\":60.5}]}]}");
+  }
+
+  @Test
+  public void filter_and_downsample_points() throws Exception {
+    MockUserSession.set().setLogin("john").addProjectPermissions(UserRole.USER, "org.struts:struts");
+    TimeSeries series = new TimeSeries.Builder().add(1000000000000L, 1.0).add(1100000000000L, 2.0)
+      .add(1200000000000L, 3.0).add(1300000000000L, 4.0).build();
+    when(service.findByProjectAndMetrics(10L, ImmutableMap.of(1, series).keySet())).thenReturn(ImmutableMap.of(1, series));
+
+    String result = tester.newRequest("show")
+      .setParam("resource", "org.struts:struts")
+      .setParam("metrics", "coverage,alert_status")
+      .setParam("fromDateTime", DateUtils.formatDateTime(new Date(1100000000000L)))
+      .setParam("maxPoints", "2")
+      .execute()
+      .outputAsString();
+
+    assertThat(result).doesNotContain("\"v\":1.0").contains("\"v\":2.0").doesNotContain("\"v\":3.0").contains("\"v\":4.0");
+  }
+
+  @Test
+  public void fail_if_missing_browse_permission() throws Exception {
+    MockUserSession.set().setLogin("john");
+
+    try {
+      tester.newRequest("show").setParam("resource", "org.struts:struts").setParam("metrics", "coverage").execute();
+      fail();
+    } catch (ForbiddenException e) {
+      verifyZeroInteractions(service);
+    }
+  }
+
+  @Test
+  public void fail_if_unknown_component() throws Exception {
+    MockUserSession.set().setLogin("john");
+
+    try {
+      tester.newRequest("show").setParam("resource", "unknown").setParam("metrics", "coverage").execute();
+      fail();
+    } catch (NotFoundException e) {
+      assertThat(e).hasMessage("Component not found: unknown");
+    }
+  }
+}
@@ -76,6 +76,9 @@ public class InternalPermissionServiceTest {
   @Mock
   PermissionFinder finder;
 
+  @Mock
+  ProjectPermissionCache projectPermissionCache;
+
   Map<String, Object> params;
   InternalPermissionService service;
 
@@ -86,7 +89,7 @@ public class InternalPermissionServiceTest {
 
     MockUserSession.set().setLogin("admin").setGlobalPermissions(GlobalPermissions.SYSTEM_ADMIN);
 
-    service = new InternalPermissionService(userDao, resourceDao, permissionFacade, finder);
+    service = new InternalPermissionService(userDao, resourceDao, permissionFacade, finder, projectPermissionCache);
   }
 
   @Test
@@ -150,6 +153,7 @@ public class InternalPermissionServiceTest {
     service.addPermission(params);
 
     verify(permissionFacade).insertUserPermission(eq(10L), eq(2L), eq("user"));
+    verify(projectPermissionCache).invalidateUser(2L);
   }
 
   @Test
@@ -220,6 +224,7 @@ public class InternalPermissionServiceTest {
     service.addPermission(params);
 
     verify(permissionFacade).insertGroupPermission(eq(10L), eq((Long) null), eq("user"));
+    verify(projectPermissionCache).invalidateGroup(null);
   }
 
   @Test
@@ -244,6 +249,7 @@ public class InternalPermissionServiceTest {
     service.removePermission(params);
 
     verify(permissionFacade).deleteGroupPermission(eq(10L), eq(2L), eq("codeviewer"));
+    verify(projectPermissionCache).invalidateGroup(2L);
   }
 
   @Test
@@ -414,6 +420,7 @@ public class InternalPermissionServiceTest {
     verify(permissionFacade).applyPermissionTemplate("my_template_key", 1L);
     verify(permissionFacade).applyPermissionTemplate("my_template_key", 2L);
     verify(permissionFacade).applyPermissionTemplate("my_template_key", 3L);
+    verify(projectPermissionCache).invalidateAll();
   }
 
   @Test(expected = ForbiddenException.class)
@@ -0,0 +1,153 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.permission;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.sonar.api.web.UserRole;
+import org.sonar.core.user.AuthorizationDao;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ProjectPermissionCacheTest {
+
+  static final Integer USER = 1;
+  static final long GROUP = 10L;
+  static final String PROJECT = "org.sonar:project", OTHER_PROJECT = "org.sonar:other";
+
+  AuthorizationDao dao = mock(AuthorizationDao.class);
+  ProjectPermissionCache cache;
+
+  @Before
+  public void before() {
+    when(dao.selectRootProjectIdByKey(PROJECT)).thenReturn(100L);
+    when(dao.selectRootProjectIdByKey(OTHER_PROJECT)).thenReturn(200L);
+    when(dao.selectMaxRootProjectId()).thenReturn(200L);
+    cache = new ProjectPermissionCache(dao);
+  }
+
+  @Test
+  public void user_permission() {
+    when(dao.selectAuthorizedRootProjectIdsOfUser(1L, UserRole.USER)).thenReturn(newArrayList(200L, 100L));
+
+    assertThat(cache.hasProjectPermission(USER, UserRole.USER, PROJECT)).isTrue();
+    assertThat(cache.hasProjectPermission(USER, UserRole.USER, OTHER_PROJECT)).isTrue();
+    assertThat(cache.hasProjectPermission(USER, UserRole.ADMIN, PROJECT)).isFalse();
+    assertThat(cache.hasProjectPermission(USER, UserRole.USER, "unknown")).isFalse();
+
+    // loaded once
+    verify(dao, times(1)).selectAuthorizedRootProjectIdsOfUser(1L, UserRole.USER);
+  }
+
+  @Test
+  public void group_permission() {
+    when(dao.selectGroupIdsOfUser(1L)).thenReturn(newArrayList(GROUP));
+    when(dao.selectAuthorizedRootProjectIdsOfGroup(GROUP, UserRole.USER)).thenReturn(newArrayList(100L));
+
+    assertThat(cache.hasProjectPermission(USER, UserRole.USER, PROJECT)).isTrue();
+    assertThat(cache.hasProjectPermission(USER, UserRole.USER, OTHER_PROJECT)).isFalse();
+    assertThat(cache.hasProjectPermission(2, UserRole.USER, PROJECT)).isFalse();
+  }
+
+  @Test
+  public void anyone_permission() {
+    when(dao.selectAuthorizedRootProjectIdsOfGroup(null, UserRole.USER)).thenReturn(newArrayList(100L));
+
+    assertThat(cache.hasProjectPermission(null, UserRole.USER, PROJECT)).isTrue();
+    assertThat(cache.hasProjectPermission(USER, UserRole.USER, PROJECT)).isTrue();
+    assertThat(cache.hasProjectPermission(null, UserRole.USER, OTHER_PROJECT)).isFalse();
+  }
+
+  @Test
+  public void invalidate_user() {
+    when(dao.selectAuthorizedRootProjectIdsOfUser(1L, UserRole.USER)).thenReturn(newArrayList(100L));
+    assertThat(cache.hasProjectPermission(USER, UserRole.USER, OTHER_PROJECT)).isFalse();
+
+    when(dao.selectAuthorizedRootProjectIdsOfUser(1L, UserRole.USER)).thenReturn(newArrayList(100L, 200L));
+    assertThat(cache.hasProjectPermission(USER, UserRole.USER, OTHER_PROJECT)).isFalse();
+
+    cache.invalidateUser(1L);
+    assertThat(cache.hasProjectPermission(USER, UserRole.USER, OTHER_PROJECT)).isTrue();
+  }
+
+  @Test
+  public void invalidate_group() {
+    assertThat(cache.hasProjectPermission(null, UserRole.USER, PROJECT)).isFalse();
+
+    when(dao.selectAuthorizedRootProjectIdsOfGroup(null, UserRole.USER)).thenReturn(newArrayList(100L));
+    cache.invalidateGroup(GROUP);
+    assertThat(cache.hasProjectPermission(null, UserRole.USER, PROJECT)).isFalse();
+
+    cache.invalidateGroup(null);
+    assertThat(cache.hasProjectPermission(null, UserRole.USER, PROJECT)).isTrue();
+  }
+
+  @Test
+  public void invalidate_groups_of_user() {
+    when(dao.selectAuthorizedRootProjectIdsOfGroup(GROUP, UserRole.USER)).thenReturn(newArrayList(100L));
+    assertThat(cache.hasProjectPermission(USER, UserRole.USER, PROJECT)).isFalse();
+
+    when(dao.selectGroupIdsOfUser(1L)).thenReturn(newArrayList(GROUP));
+    cache.invalidateGroupsOfUser(1L);
+    assertThat(cache.hasProjectPermission(USER, UserRole.USER, PROJECT)).isTrue();
+  }
+
+  @Test
+  public void reload_grants_when_project_is_created_after_loading() {
+    when(dao.selectAuthorizedRootProjectIdsOfUser(1L, UserRole.USER)).thenReturn(newArrayList(100L));
+    assertThat(cache.hasProjectPermission(USER, UserRole.USER, PROJECT)).isTrue();
+
+    // new project, for example created by an analysis with the default permission template
+    when(dao.selectRootProjectIdByKey("org.sonar:new")).thenReturn(300L);
+    when(dao.selectMaxRootProjectId()).thenReturn(300L);
+    when(dao.selectAuthorizedRootProjectIdsOfUser(1L, UserRole.USER)).thenReturn(newArrayList(100L, 300L));
+
+    assertThat(cache.hasProjectPermission(USER, UserRole.USER, "org.sonar:new")).isTrue();
+  }
+
+  @Test
+  public void invalidate_all_when_project_is_deleted() {
+    when(dao.selectAuthorizedRootProjectIdsOfUser(1L, UserRole.USER)).thenReturn(newArrayList(100L));
+    assertThat(cache.hasProjectPermission(USER, UserRole.USER, PROJECT)).isTrue();
+
+    // project deleted then created again with the same key but without permissions
+    when(dao.selectRootProjectIdByKey(PROJECT)).thenReturn(300L);
+    when(dao.selectMaxRootProjectId()).thenReturn(300L);
+    assertThat(cache.hasProjectPermission(USER, UserRole.USER, PROJECT)).isTrue();
+
+    cache.invalidateAll();
+    assertThat(cache.hasProjectPermission(USER, UserRole.USER, PROJECT)).isFalse();
+  }
+
+  @Test
+  public void unknown_project_is_not_cached() {
+    when(dao.selectAuthorizedRootProjectIdsOfUser(1L, UserRole.USER)).thenReturn(newArrayList(100L, 300L));
+    assertThat(cache.hasProjectPermission(USER, UserRole.USER, "org.sonar:new")).isFalse();
+
+    when(dao.selectRootProjectIdByKey("org.sonar:new")).thenReturn(300L);
+    when(dao.selectMaxRootProjectId()).thenReturn(300L);
+    assertThat(cache.hasProjectPermission(USER, UserRole.USER, "org.sonar:new")).isTrue();
+  }
+}
@@ -0,0 +1,48 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform;
+
+import org.junit.Test;
+import org.sonar.api.config.Settings;
+import org.sonar.core.profiling.Profiling;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class ProfilingMetricsJmxTest {
+
+  MBeanServer mBeanServer = MBeanServerFactory.newMBeanServer();
+  ProfilingMetricsJmx jmx = new ProfilingMetricsJmx(new Profiling(new Settings()), mBeanServer);
+
+  @Test
+  public void register_and_unregister_mbean() throws Exception {
+    ObjectName name = new ObjectName(ProfilingMetricsJmx.OBJECT_NAME);
+
+    jmx.start();
+    assertThat(mBeanServer.isRegistered(name)).isTrue();
+    assertThat(mBeanServer.getAttribute(name, "HistogramNames")).isNotNull();
+
+    jmx.stop();
+    assertThat(mBeanServer.isRegistered(name)).isFalse();
+  }
+}
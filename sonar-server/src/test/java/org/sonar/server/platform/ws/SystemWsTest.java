@@ -0,0 +1,101 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.ws;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.sonar.api.config.Settings;
+import org.sonar.api.server.ws.WebService;
+import org.sonar.api.server.ws.WsTester;
+import org.sonar.core.permission.GlobalPermissions;
+import org.sonar.core.persistence.profiling.SqlStatistics;
+import org.sonar.core.profiling.Histogram;
+import org.sonar.core.profiling.Profiling;
+import org.sonar.server.exceptions.ForbiddenException;
+import org.sonar.server.user.MockUserSession;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.fest.assertions.Fail.fail;
+
+public class SystemWsTest {
+
+  Settings settings = new Settings();
+  Profiling profiling = new Profiling(settings);
+  WsTester tester = new WsTester(new SystemWs(profiling));
+
+  @Before
+  public void setUp() {
+    profiling.metrics().reset();
+  }
+
+  @Test
+  public void define_ws() throws Exception {
+    WebService.Controller controller = tester.controller("api/system");
+    assertThat(controller).isNotNull();
+    assertThat(controller.description()).isNotEmpty();
+
+    WebService.Action metrics = controller.action("metrics");
+    assertThat(metrics).isNotNull();
+    assertThat(metrics.handler()).isNotNull();
+    assertThat(metrics.since()).isEqualTo("4.2.1");
+    assertThat(metrics.isInternal()).isTrue();
+    assertThat(metrics.isPost()).isFalse();
+
+    WebService.Action sql = controller.action("sql_statistics");
+    assertThat(sql).isNotNull();
+    assertThat(sql.since()).isEqualTo("4.2.1");
+    assertThat(sql.param("limit")).isNotNull();
+  }
+
+  @Test
+  public void return_empty_sql_statistics() throws Exception {
+    MockUserSession.set().setLogin("admin").setGlobalPermissions(GlobalPermissions.SYSTEM_ADMIN);
+    SqlStatistics.INSTANCE.reset();
+
+    tester.newRequest("sql_statistics").execute().assertJson("{\"requests\":[]}");
+  }
+
+  @Test
+  public void return_metrics() throws Exception {
+    MockUserSession.set().setLogin("admin").setGlobalPermissions(GlobalPermissions.SYSTEM_ADMIN);
+    settings.setProperty(Profiling.CONFIG_PROFILING_METRICS, true);
+    Histogram histogram = profiling.metrics().histogram("es");
+    histogram.record(4L);
+    histogram.record(6L);
+    profiling.metrics().counter("notifications.sent").addAndGet(3L);
+
+    String json = tester.newRequest("metrics").execute().outputAsString();
+
+    assertThat(json).contains("\"enabled\":true");
+    assertThat(json).contains("\"histograms\":{\"es\":{\"count\":2,\"mean\":5,\"p50\":4,\"p95\":6,\"p99\":6,\"max\":6}}");
+    assertThat(json).contains("\"counters\":{\"notifications.sent\":3}");
+  }
+
+  @Test
+  public void fail_if_not_system_administrator() throws Exception {
+    MockUserSession.set().setLogin("john").setGlobalPermissions(GlobalPermissions.DASHBOARD_SHARING);
+    try {
+      tester.newRequest("metrics").execute();
+      fail();
+    } catch (ForbiddenException e) {
+      assertThat(profiling.metrics().histograms()).isEmpty();
+    }
+  }
+}
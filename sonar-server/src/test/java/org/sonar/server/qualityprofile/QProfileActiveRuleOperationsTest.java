@@ -47,6 +47,7 @@ import org.sonar.server.user.MockUserSession;
 import org.sonar.server.user.UserSession;
 import org.sonar.server.util.TypeValidations;
 
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 
@@ -225,10 +226,27 @@ public class QProfileActiveRuleOperationsTest {
 
     verify(session).commit();
     verify(profilesManager).activated(eq(1), anyInt(), eq("Nicolas"));
+    // indexed at once
     verify(esActiveRule).deleteActiveRules(eq(newArrayList(idActiveRuleToDelete)));
     verify(esActiveRule).bulkIndexActiveRuleIds(eq(newArrayList(idActiveRuleToUpdate)), eq(session));
   }
 
+  @Test
+  public void fail_to_activate_rules_when_indexing_fails() throws Exception {
+    when(ruleDao.selectById(10, session)).thenReturn(new RuleDto().setId(10).setSeverity(Severity.CRITICAL));
+    ProfileRuleQuery query = ProfileRuleQuery.create(1);
+    when(rules.searchInactiveProfileRuleIds(query)).thenReturn(newArrayList(10));
+    when(profilesManager.activated(eq(1), anyInt(), eq("Nicolas"))).thenReturn(new ProfilesManager.RuleInheritanceActions().addToIndex(42));
+    doThrow(new IllegalStateException("Bulk operation partially executed")).when(esActiveRule).bulkIndexActiveRuleIds(anyListOf(Integer.class), eq(session));
+
+    try {
+      operations.activateRules(1, query, authorizedUserSession);
+      fail();
+    } catch (IllegalStateException e) {
+      assertThat(e).hasMessage("Bulk operation partially executed");
+    }
+  }
+
   @Test
   public void deactivate_rule() throws Exception {
     when(profileDao.selectById(1, session)).thenReturn(new QualityProfileDto().setId(1).setName("Default").setLanguage("java"));
@@ -282,8 +300,8 @@ public class QProfileActiveRuleOperationsTest {
     verify(activeRuleDao).deleteParameters(eq(5), eq(session));
     verify(session).commit();
     verify(profilesManager).deactivated(eq(1), anyInt(), eq("Nicolas"));
-    verify(esActiveRule).deleteActiveRules(anyListOf(Integer.class));
-    verify(esActiveRule).bulkIndexActiveRuleIds(anyListOf(Integer.class), eq(session));
+    verify(esActiveRule).deleteActiveRules(eq(newArrayList(5)));
+    verify(esActiveRule).bulkIndexActiveRuleIds(eq(Collections.<Integer>emptyList()), eq(session));
   }
 
   @Test
@@ -41,6 +41,7 @@ import org.sonar.api.utils.System2;
 import org.sonar.check.Cardinality;
 import org.sonar.core.permission.GlobalPermissions;
 import org.sonar.core.persistence.MyBatis;
+import org.sonar.core.preview.PreviewCache;
 import org.sonar.core.qualityprofile.db.ActiveRuleDao;
 import org.sonar.core.qualityprofile.db.ActiveRuleDto;
 import org.sonar.core.rule.RuleDao;
@@ -102,6 +103,9 @@ public class RuleOperationsTest {
   @Mock
   RuleRegistry ruleRegistry;
 
+  @Mock
+  PreviewCache dryRunCache;
+
   @Mock
   System2 system;
 
@@ -126,7 +130,7 @@ public class RuleOperationsTest {
       }
     }).when(activeRuleDao).insert(any(ActiveRuleDto.class), any(SqlSession.class));
 
-    operations = new RuleOperations(myBatis, activeRuleDao, ruleDao, ruleTagDao, ruleTagOperations, esActiveRule, ruleRegistry, system);
+    operations = new RuleOperations(myBatis, activeRuleDao, ruleDao, ruleTagDao, ruleTagOperations, esActiveRule, ruleRegistry, dryRunCache, system);
   }
 
   @Test
@@ -276,6 +280,7 @@ public class RuleOperationsTest {
     verify(ruleDao).update(ruleParamArgument.capture(), eq(session));
     assertThat(ruleParamArgument.getValue().getDefaultValue()).isEqualTo("21");
 
+    verify(dryRunCache).reportGlobalModification(session);
     verify(session).commit();
     verify(ruleRegistry).save(eq(ruleArgument.getValue()), eq(newArrayList(ruleParamArgument.getValue())), eq(ruleTags));
   }
@@ -306,6 +311,7 @@ public class RuleOperationsTest {
     verify(ruleRegistry).save(eq(ruleArgument.getValue()), eq(newArrayList(param)), eq(ruleTags));
     verify(activeRuleDao).deleteParameters(eq(activeRuleId), eq(session));
     verify(activeRuleDao).deleteFromRule(eq(ruleId), eq(session));
+    verify(dryRunCache).reportGlobalModification(session);
     verify(session, times(2)).commit();
     verify(esActiveRule).deleteActiveRules(newArrayList(activeRuleId));
   }
@@ -20,8 +20,10 @@
 
 package org.sonar.server.rule;
 
+import com.google.common.collect.Multimap;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentMatcher;
 import org.sonar.api.rule.RuleStatus;
 import org.sonar.api.rule.Severity;
 import org.sonar.api.server.rule.RuleDefinitions;
@@ -31,10 +33,15 @@ import org.sonar.core.persistence.AbstractDaoTestCase;
 import org.sonar.core.persistence.MyBatis;
 import org.sonar.core.qualityprofile.db.ActiveRuleDao;
 import org.sonar.core.rule.RuleDao;
+import org.sonar.core.rule.RuleDto;
 import org.sonar.core.rule.RuleTagDao;
+import org.sonar.core.template.LoadedTemplateDao;
+import org.sonar.core.template.LoadedTemplateDto;
 import org.sonar.server.qualityprofile.ProfilesManager;
 
+import java.util.Collection;
 import java.util.Date;
+import java.util.List;
 
 import static org.fest.assertions.Assertions.assertThat;
 import static org.mockito.Mockito.*;
@@ -53,6 +60,7 @@ public class RuleRegistrationTest extends AbstractDaoTestCase {
   RuleDao ruleDao;
   RuleTagDao ruleTagDao;
   ActiveRuleDao activeRuleDao;
+  LoadedTemplateDao loadedTemplateDao;
   System2 system;
   Date date = DateUtils.parseDateTime("2014-03-17T19:10:03+0100");
 
@@ -65,9 +73,10 @@ public class RuleRegistrationTest extends AbstractDaoTestCase {
     ruleDao = new RuleDao(myBatis);
     ruleTagDao = new RuleTagDao(myBatis);
     activeRuleDao = new ActiveRuleDao(myBatis);
+    loadedTemplateDao = new LoadedTemplateDao(myBatis);
     ruleTagOperations = new RuleTagOperations(ruleTagDao, esRuleTags);
     task = new RuleRegistration(new RuleDefinitionsLoader(mock(RuleRepositories.class), new RuleDefinitions[]{new FakeRepository()}),
-      profilesManager, ruleRegistry, esRuleTags, ruleTagOperations, myBatis, ruleDao, ruleTagDao, activeRuleDao, system);
+      profilesManager, ruleRegistry, esRuleTags, ruleTagOperations, myBatis, ruleDao, ruleTagDao, activeRuleDao, loadedTemplateDao, system);
   }
 
   @Test
@@ -202,7 +211,7 @@ public class RuleRegistrationTest extends AbstractDaoTestCase {
   @Test
   public void test_high_number_of_rules() {
     task = new RuleRegistration(new RuleDefinitionsLoader(mock(RuleRepositories.class), new RuleDefinitions[]{new BigRepository()}),
-      profilesManager, ruleRegistry, esRuleTags, ruleTagOperations, myBatis, ruleDao, ruleTagDao, activeRuleDao);
+      profilesManager, ruleRegistry, esRuleTags, ruleTagOperations, myBatis, ruleDao, ruleTagDao, activeRuleDao, loadedTemplateDao);
 
     setupData("shared");
     task.start();
@@ -217,7 +226,7 @@ public class RuleRegistrationTest extends AbstractDaoTestCase {
   public void should_insert_extended_repositories() {
     task = new RuleRegistration(new RuleDefinitionsLoader(mock(RuleRepositories.class), new RuleDefinitions[]{
         new FindbugsRepository(), new FbContribRepository()}),
-      profilesManager, ruleRegistry, esRuleTags, ruleTagOperations, myBatis, ruleDao, ruleTagDao, activeRuleDao);
+      profilesManager, ruleRegistry, esRuleTags, ruleTagOperations, myBatis, ruleDao, ruleTagDao, activeRuleDao, loadedTemplateDao);
 
     setupData("empty");
     task.start();
@@ -225,6 +234,107 @@ public class RuleRegistrationTest extends AbstractDaoTestCase {
     checkTables("should_insert_extended_repositories", EXCLUDED_COLUMN_NAMES, "rules");
   }
 
+  @Test
+  public void should_store_repository_fingerprints() {
+    setupData("shared");
+    task.start();
+
+    List<LoadedTemplateDto> fingerprints = loadedTemplateDao.selectByType(LoadedTemplateDto.RULE_REPOSITORY_TYPE);
+    assertThat(fingerprints).hasSize(1);
+    assertThat(fingerprints.get(0).getKey()).startsWith("fake:");
+  }
+
+  @Test
+  public void should_not_update_nor_reindex_unchanged_repositories() {
+    setupData("shared");
+    task.start();
+    // the deprecated rule is disabled during the first startup
+    Date firstUpdate = rule("rule1").getUpdatedAt();
+    reset(ruleRegistry);
+
+    when(system.now()).thenReturn(DateUtils.parseDateTime("2014-03-18T19:10:03+0100").getTime());
+    task.start();
+
+    assertThat(rule("rule1").getUpdatedAt()).isEqualTo(firstUpdate);
+    assertThat(rule("rule1").getStatus()).isEqualTo(RuleStatus.READY.name());
+    verify(ruleRegistry).bulkRegisterRules(argThat(new IsCollectionOfSize(1)), argThat(new IsCollectionOfSize(2)),
+      any(Multimap.class), any(Multimap.class));
+    assertThat(loadedTemplateDao.selectByType(LoadedTemplateDto.RULE_REPOSITORY_TYPE)).hasSize(1);
+  }
+
+  @Test
+  public void should_update_repository_if_fingerprint_changed() {
+    setupData("shared");
+    task.start();
+
+    task = new RuleRegistration(new RuleDefinitionsLoader(mock(RuleRepositories.class), new RuleDefinitions[]{new FakeRepositoryV2()}),
+      profilesManager, ruleRegistry, esRuleTags, ruleTagOperations, myBatis, ruleDao, ruleTagDao, activeRuleDao, loadedTemplateDao, system);
+    task.start();
+
+    assertThat(rule("rule1").getName()).isEqualTo("One v2");
+    List<LoadedTemplateDto> fingerprints = loadedTemplateDao.selectByType(LoadedTemplateDto.RULE_REPOSITORY_TYPE);
+    assertThat(fingerprints).hasSize(1);
+  }
+
+  @Test
+  public void should_update_repository_if_rules_have_been_disabled() {
+    setupData("shared");
+    task.start();
+
+    // the plugin is uninstalled then installed again
+    new RuleRegistration(new RuleDefinitionsLoader(mock(RuleRepositories.class), new RuleDefinitions[0]),
+      profilesManager, ruleRegistry, esRuleTags, ruleTagOperations, myBatis, ruleDao, ruleTagDao, activeRuleDao, loadedTemplateDao, system).start();
+    assertThat(rule("rule1").getStatus()).isEqualTo(RuleStatus.REMOVED.name());
+    task.start();
+
+    assertThat(rule("rule1").getStatus()).isEqualTo(RuleStatus.READY.name());
+  }
+
+  private RuleDto rule(String key) {
+    for (RuleDto rule : ruleDao.selectAll()) {
+      if ("fake".equals(rule.getRepositoryKey()) && key.equals(rule.getRuleKey())) {
+        return rule;
+      }
+    }
+    return null;
+  }
+
+  static class IsCollectionOfSize extends ArgumentMatcher<Collection> {
+    private final int size;
+
+    IsCollectionOfSize(int size) {
+      this.size = size;
+    }
+
+    @Override
+    public boolean matches(Object o) {
+      return ((Collection) o).size() == size;
+    }
+  }
+
+  static class FakeRepositoryV2 implements RuleDefinitions {
+    @Override
+    public void define(Context context) {
+      NewRepository repo = context.newRepository("fake", "java");
+
+      NewRule rule1 = repo.newRule("rule1")
+          .setName("One v2")
+          .setHtmlDescription("Description of One")
+          .setSeverity(Severity.BLOCKER)
+          .setInternalKey("config1")
+          .setTags("tag1", "tag3", "tag5");
+      rule1.newParam("param1").setDescription("parameter one").setDefaultValue("default value one");
+      rule1.newParam("param2").setDescription("parameter two").setDefaultValue("default value two");
+
+      repo.newRule("rule2")
+          .setName("Two")
+          .setHtmlDescription("Description of Two")
+          .setSeverity(Severity.INFO)
+          .setStatus(RuleStatus.DEPRECATED);
+      repo.done();
+    }
+  }
+
   static class FakeRepository implements RuleDefinitions {
     @Override
     public void define(Context context) {
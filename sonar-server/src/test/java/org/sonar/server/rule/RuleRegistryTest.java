@@ -273,6 +273,38 @@ public class RuleRegistryTest {
     assertThat(esSetup.exists("rules", "rule", "3")).isFalse();
   }
 
+  @Test
+  public void should_index_only_changed_rules_and_missing_unchanged_rules() {
+    RuleDto rule1 = new RuleDto();
+    rule1.setRepositoryKey("xoo");
+    rule1.setRuleKey("key1");
+    rule1.setId(1);
+    rule1.setName("changed");
+    rule1.setSeverity(Severity.MINOR);
+    RuleDto rule2 = new RuleDto();
+    rule2.setRepositoryKey("xoo");
+    rule2.setRuleKey("key2");
+    rule2.setId(2);
+    rule2.setName("not reindexed");
+    rule2.setSeverity(Severity.MINOR);
+    RuleDto rule4 = new RuleDto();
+    rule4.setRepositoryKey("other");
+    rule4.setRuleKey("key4");
+    rule4.setId(4);
+    rule4.setSeverity(Severity.MINOR);
+
+    assertThat(esSetup.exists("rules", "rule", "3")).isTrue();
+    assertThat(esSetup.exists("rules", "rule", "4")).isFalse();
+    Multimap<Integer, RuleParamDto> params = ArrayListMultimap.create();
+    Multimap<Integer, RuleRuleTagDto> tags = ArrayListMultimap.create();
+    registry.bulkRegisterRules(ImmutableList.of(rule1), ImmutableList.of(rule2, rule4), params, tags);
+
+    assertThat(registry.findIds(new HashMap<String, String>())).containsOnly(1, 2, 4);
+    assertThat(esSetup.exists("rules", "rule", "3")).isFalse();
+    Map<String, Object> rule2Document = esSetup.client().prepareGet("rules", "rule", "2").execute().actionGet().getSourceAsMap();
+    assertThat(rule2Document.get(RuleDocument.FIELD_NAME)).isNotEqualTo("not reindexed");
+  }
+
   private String testFileAsString(String testFile) throws Exception {
     return IOUtils.toString(TestUtils.getResource(getClass(), testFile).toURI());
   }
@@ -26,6 +26,7 @@ import org.junit.Before;
 import org.junit.Test;
 import org.sonar.core.persistence.AbstractDaoTestCase;
 import org.sonar.core.persistence.MyBatis;
+import org.sonar.core.resource.ResourceDao;
 import org.sonar.core.source.db.SnapshotDataDao;
 import org.sonar.core.source.db.SnapshotSourceDao;
 
@@ -45,7 +46,7 @@ public class HtmlSourceDecoratorTest extends AbstractDaoTestCase {
 
     SnapshotSourceDao snapshotSourceDao = new SnapshotSourceDao(getMyBatis());
     SnapshotDataDao snapshotDataDao = new SnapshotDataDao(getMyBatis());
-    sourceDecorator = new HtmlSourceDecorator(getMyBatis(), snapshotSourceDao, snapshotDataDao);
+    sourceDecorator = new HtmlSourceDecorator(getMyBatis(), snapshotSourceDao, snapshotDataDao, new ResourceDao(getMyBatis()));
   }
 
   @Test
@@ -154,7 +155,7 @@ public class HtmlSourceDecoratorTest extends AbstractDaoTestCase {
     SnapshotSourceDao snapshotSourceDao = mock(SnapshotSourceDao.class);
     SnapshotDataDao snapshotDataDao = mock(SnapshotDataDao.class);
 
-    HtmlSourceDecorator sourceDecorator = new HtmlSourceDecorator(mock(MyBatis.class), snapshotSourceDao, snapshotDataDao);
+    HtmlSourceDecorator sourceDecorator = new HtmlSourceDecorator(mock(MyBatis.class), snapshotSourceDao, snapshotDataDao, mock(ResourceDao.class));
 
     sourceDecorator.getDecoratedSourceAsHtml(14L);
 
@@ -167,13 +168,48 @@ public class HtmlSourceDecoratorTest extends AbstractDaoTestCase {
     SnapshotSourceDao snapshotSourceDao = mock(SnapshotSourceDao.class);
     SnapshotDataDao snapshotDataDao = mock(SnapshotDataDao.class);
 
-    HtmlSourceDecorator sourceDecorator = new HtmlSourceDecorator(mock(MyBatis.class), snapshotSourceDao, snapshotDataDao);
+    HtmlSourceDecorator sourceDecorator = new HtmlSourceDecorator(mock(MyBatis.class), snapshotSourceDao, snapshotDataDao, mock(ResourceDao.class));
 
     sourceDecorator.getDecoratedSourceAsHtml("org.apache.struts:struts:DebuggingInterceptor", null, null);
 
-    verify(snapshotDataDao, times(1)).selectSnapshotDataByComponentKey(eq("org.apache.struts:struts:DebuggingInterceptor"), eq(Lists.newArrayList("highlight_syntax", "symbol")),
+    verify(snapshotDataDao, times(1)).selectSnapshotIdsByComponentKey(eq("org.apache.struts:struts:DebuggingInterceptor"), eq(Lists.newArrayList("highlight_syntax", "symbol")),
       any(SqlSession.class));
+    verify(snapshotDataDao, never()).selectSnapshotData(anyLong(), anyList());
     verify(snapshotSourceDao, times(0)).selectSnapshotSourceByComponentKey(eq("org.apache.struts:struts:DebuggingInterceptor"),
       any(SqlSession.class));
   }
+
+  @Test
+  public void decorate_source_only_once_per_snapshot() throws Exception {
+    SnapshotSourceDao snapshotSourceDao = spy(new SnapshotSourceDao(getMyBatis()));
+    SnapshotDataDao snapshotDataDao = spy(new SnapshotDataDao(getMyBatis()));
+    HtmlSourceDecorator sourceDecorator = new HtmlSourceDecorator(getMyBatis(), snapshotSourceDao, snapshotDataDao, new ResourceDao(getMyBatis()));
+
+    assertThat(sourceDecorator.getDecoratedSourceAsHtml("org.apache.struts:struts:Dispatcher", 1, 2)).containsExactly(
+      "<span class=\"cppd\">/*</span>",
+      "<span class=\"cppd\"> * Header</span>"
+    );
+    assertThat(sourceDecorator.getDecoratedSourceAsHtml("org.apache.struts:struts:Dispatcher", 5, null)).containsExactly(
+      "<span class=\"k\">public </span><span class=\"k\">class </span>HelloWorld {",
+      "}"
+    );
+    assertThat(sourceDecorator.getDecoratedSourceAsHtml("org.apache.struts:struts:Dispatcher", 10, 12)).isEmpty();
+    assertThat(sourceDecorator.getDecoratedSourceAsHtml(11L)).hasSize(6);
+
+    verify(snapshotDataDao, times(1)).selectSnapshotData(eq(11L), anyList());
+    verify(snapshotSourceDao, times(1)).selectSnapshotSource(11L);
+  }
+
+  @Test
+  public void do_not_cache_source_of_analysis_in_progress() throws Exception {
+    SnapshotSourceDao snapshotSourceDao = spy(new SnapshotSourceDao(getMyBatis()));
+    SnapshotDataDao snapshotDataDao = spy(new SnapshotDataDao(getMyBatis()));
+    HtmlSourceDecorator sourceDecorator = new HtmlSourceDecorator(getMyBatis(), snapshotSourceDao, snapshotDataDao, new ResourceDao(getMyBatis()));
+
+    assertThat(sourceDecorator.getDecoratedSourceAsHtml(15L)).hasSize(3);
+    assertThat(sourceDecorator.getDecoratedSourceAsHtml(15L)).hasSize(3);
+
+    verify(snapshotDataDao, times(2)).selectSnapshotData(eq(15L), anyList());
+    verify(snapshotSourceDao, times(2)).selectSnapshotSource(15L);
+  }
 }
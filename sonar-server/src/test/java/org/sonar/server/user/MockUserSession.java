@@ -33,9 +33,10 @@ import static org.mockito.Mockito.mock;
 
 public class MockUserSession extends UserSession {
 
+  private HashMultimap<String, String> projectKeyByPermission = HashMultimap.create();
+
   private MockUserSession() {
     globalPermissions = Collections.emptyList();
-    projectKeyByPermission = HashMultimap.create();
   }
 
   public static MockUserSession set() {
@@ -74,11 +75,23 @@ public class MockUserSession extends UserSession {
   }
 
   public MockUserSession addProjectPermissions(String projectPermission, String... projectKeys) {
-    this.projectPermissions.add(projectPermission);
     this.projectKeyByPermission.putAll(projectPermission, newArrayList(projectKeys));
     return this;
   }
 
+  @Override
+  public boolean hasProjectPermission(String permission, String projectKey) {
+    return projectKeyByPermission.get(permission).contains(projectKey);
+  }
+
+  @Override
+  public MockUserSession copy() {
+    MockUserSession copy = create().setLogin(login()).setName(name()).setUserId(userId()).setLocale(locale());
+    copy.globalPermissions = globalPermissions;
+    copy.projectKeyByPermission = HashMultimap.create(projectKeyByPermission);
+    return copy;
+  }
+
   @Override
   AuthorizationDao authorizationDao() {
     return mock(AuthorizationDao.class);
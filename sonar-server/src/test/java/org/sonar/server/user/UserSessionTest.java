@@ -24,6 +24,7 @@ import org.sonar.api.web.UserRole;
 import org.sonar.core.permission.GlobalPermissions;
 import org.sonar.core.user.AuthorizationDao;
 import org.sonar.server.exceptions.ForbiddenException;
+import org.sonar.server.permission.ProjectPermissionCache;
 
 import java.util.Arrays;
 import java.util.Locale;
@@ -103,7 +104,9 @@ public class UserSessionTest {
   public void has_project_permission() throws Exception {
     AuthorizationDao authorizationDao = mock(AuthorizationDao.class);
     UserSession session = new SpyUserSession("marius", authorizationDao).setUserId(1);
-    when(authorizationDao.selectAuthorizedRootProjectsKeys(1, UserRole.USER)).thenReturn(newArrayList("com.foo:Bar"));
+    when(authorizationDao.selectRootProjectIdByKey("com.foo:Bar")).thenReturn(10L);
+    when(authorizationDao.selectMaxRootProjectId()).thenReturn(10L);
+    when(authorizationDao.selectAuthorizedRootProjectIdsOfUser(1L, UserRole.USER)).thenReturn(newArrayList(10L));
 
     assertThat(session.hasProjectPermission(UserRole.USER, "com.foo:Bar")).isTrue();
     assertThat(session.hasProjectPermission(UserRole.CODEVIEWER, "com.foo:Bar")).isFalse();
@@ -114,7 +117,9 @@ public class UserSessionTest {
   public void check_project_permission_ok() throws Exception {
     AuthorizationDao authorizationDao = mock(AuthorizationDao.class);
     UserSession session = new SpyUserSession("marius", authorizationDao).setUserId(1);
-    when(authorizationDao.selectAuthorizedRootProjectsKeys(1, UserRole.USER)).thenReturn(newArrayList("com.foo:Bar"));
+    when(authorizationDao.selectRootProjectIdByKey("com.foo:Bar")).thenReturn(10L);
+    when(authorizationDao.selectMaxRootProjectId()).thenReturn(10L);
+    when(authorizationDao.selectAuthorizedRootProjectIdsOfUser(1L, UserRole.USER)).thenReturn(newArrayList(10L));
 
     session.checkProjectPermission(UserRole.USER, "com.foo:Bar");
   }
@@ -123,16 +128,38 @@ public class UserSessionTest {
   public void check_project_permission_ko() throws Exception {
     AuthorizationDao authorizationDao = mock(AuthorizationDao.class);
     UserSession session = new SpyUserSession("marius", authorizationDao).setUserId(1);
-    when(authorizationDao.selectAuthorizedRootProjectsKeys(1, UserRole.USER)).thenReturn(newArrayList("com.foo:Bar2"));
+    when(authorizationDao.selectRootProjectIdByKey("com.foo:Bar")).thenReturn(10L);
+    when(authorizationDao.selectRootProjectIdByKey("com.foo:Bar2")).thenReturn(20L);
+    when(authorizationDao.selectMaxRootProjectId()).thenReturn(20L);
+    when(authorizationDao.selectAuthorizedRootProjectIdsOfUser(1L, UserRole.USER)).thenReturn(newArrayList(20L));
 
     session.checkProjectPermission(UserRole.USER, "com.foo:Bar");
   }
 
+  @Test
+  public void copy_session() throws Exception {
+    AuthorizationDao authorizationDao = mock(AuthorizationDao.class);
+    UserSession session = new SpyUserSession("marius", authorizationDao).setUserId(1).setName("Marius").setLocale(Locale.FRENCH);
+    when(authorizationDao.selectGlobalPermissions("marius")).thenReturn(Arrays.asList("admin"));
+
+    UserSession copy = session.copy();
+
+    assertThat(copy).isNotSameAs(session);
+    assertThat(copy.userId()).isEqualTo(1);
+    assertThat(copy.login()).isEqualTo("marius");
+    assertThat(copy.name()).isEqualTo("Marius");
+    assertThat(copy.locale()).isEqualTo(Locale.FRENCH);
+    assertThat(copy.globalPermissions()).containsOnly("admin");
+    assertThat(copy.globalPermissions()).isNotSameAs(session.globalPermissions());
+  }
+
   static class SpyUserSession extends UserSession {
     private AuthorizationDao authorizationDao;
+    private ProjectPermissionCache projectPermissionCache;
 
     SpyUserSession(String login, AuthorizationDao authorizationDao) {
       this.authorizationDao = authorizationDao;
+      this.projectPermissionCache = new ProjectPermissionCache(authorizationDao);
       setLogin(login);
     }
 
@@ -140,5 +167,10 @@ public class UserSessionTest {
     AuthorizationDao authorizationDao() {
       return authorizationDao;
     }
+
+    @Override
+    ProjectPermissionCache projectPermissionCache() {
+      return projectPermissionCache;
+    }
   }
 }
@@ -0,0 +1,67 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.ws;
+
+import org.junit.Test;
+
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class ServletResponseFilterTest {
+
+  HttpServletRequest request = mock(HttpServletRequest.class);
+  HttpServletResponse response = mock(HttpServletResponse.class);
+  FilterChain chain = mock(FilterChain.class);
+  ServletResponseFilter filter = new ServletResponseFilter();
+
+  @Test
+  public void expose_response_during_request_handling() throws Exception {
+    filter.doFilter(request, response, chain);
+
+    verify(request).setAttribute(ServletResponseFilter.RESPONSE_ATTRIBUTE, response);
+    verify(chain).doFilter(request, response);
+    verify(request).removeAttribute(ServletResponseFilter.RESPONSE_ATTRIBUTE);
+  }
+
+  @Test
+  public void remove_response_on_failure() throws Exception {
+    doThrow(new IllegalStateException()).when(chain).doFilter(request, response);
+    try {
+      filter.doFilter(request, response, chain);
+    } catch (IllegalStateException e) {
+      // expected
+    }
+
+    verify(request).removeAttribute(ServletResponseFilter.RESPONSE_ATTRIBUTE);
+  }
+
+  @Test
+  public void just_for_fun_and_coverage() throws Exception {
+    filter.init(mock(FilterConfig.class));
+    filter.destroy();
+    // do not fail
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.ws;
+
+import org.junit.Test;
+import org.sonar.api.utils.text.JsonWriter;
+import org.sonar.server.plugins.MimeTypes;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ServletResponseTest {
+
+  @Test
+  public void keep_response_in_memory() throws Exception {
+    ServletResponse response = new ServletResponse();
+    JsonWriter json = response.newJsonWriter();
+    json.beginObject().prop("foo", "bar").endObject().close();
+
+    assertThat(response.stream().isStreamed()).isFalse();
+    assertThat(response.stream().isCommitted()).isFalse();
+    assertThat(response.stream().outputAsString()).isEqualTo("{\"foo\":\"bar\"}");
+  }
+
+  @Test
+  public void stream_response_to_servlet() throws Exception {
+    HttpServletResponse source = mock(HttpServletResponse.class);
+    FakeServletOutputStream output = new FakeServletOutputStream();
+    when(source.getOutputStream()).thenReturn(output);
+
+    ServletResponse response = new ServletResponse(source);
+    response.stream().setStatus(201);
+    JsonWriter json = response.newJsonWriter();
+    verify(source, never()).getOutputStream();
+
+    json.beginObject().prop("foo", "bar").flush();
+    verify(source).setStatus(201);
+    verify(source).setContentType(MimeTypes.JSON);
+    assertThat(output.toString()).isEqualTo("{\"foo\":\"bar\"");
+
+    json.endObject().close();
+    assertThat(output.toString()).isEqualTo("{\"foo\":\"bar\"}");
+  }
+
+  @Test
+  public void send_status_of_empty_response() throws Exception {
+    HttpServletResponse source = mock(HttpServletResponse.class);
+    ServletResponse response = new ServletResponse(source);
+    response.noContent();
+    response.stream().flushBuffer();
+
+    verify(source).setStatus(204);
+    verify(source).flushBuffer();
+    verify(source, never()).getOutputStream();
+  }
+
+  @Test
+  public void encode_response_in_utf8() throws Exception {
+    ServletResponse response = new ServletResponse();
+    JsonWriter json = response.newJsonWriter();
+    json.beginObject().prop("foo", "\u00e9t\u00e9").endObject().close();
+
+    assertThat(response.stream().outputAsBytes()).isEqualTo("{\"foo\":\"\u00e9t\u00e9\"}".getBytes("UTF-8"));
+    assertThat(response.stream().outputAsString()).isEqualTo("{\"foo\":\"\u00e9t\u00e9\"}");
+  }
+
+  @Test
+  public void stream_to_servlet_response_exposed_by_filter() throws Exception {
+    HttpServletRequest request = mock(HttpServletRequest.class);
+    when(request.getAttribute(ServletResponseFilter.RESPONSE_ATTRIBUTE)).thenReturn(mock(HttpServletResponse.class));
+
+    assertThat(ServletResponse.of(request).stream().isStreamed()).isTrue();
+  }
+
+  @Test
+  public void keep_response_in_memory_if_servlet_response_is_not_exposed() throws Exception {
+    HttpServletRequest request = mock(HttpServletRequest.class);
+
+    assertThat(ServletResponse.of(request).stream().isStreamed()).isFalse();
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void streamed_response_is_not_available_as_string() throws Exception {
+    new ServletResponse(mock(HttpServletResponse.class)).stream().outputAsString();
+  }
+
+  private static class FakeServletOutputStream extends ServletOutputStream {
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+    @Override
+    public void write(int b) throws IOException {
+      bytes.write(b);
+    }
+
+    @Override
+    public String toString() {
+      return bytes.toString();
+    }
+  }
+}
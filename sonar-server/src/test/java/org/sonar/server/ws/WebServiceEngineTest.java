@@ -23,19 +23,30 @@ import org.apache.commons.io.IOUtils;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.sonar.api.config.Settings;
 import org.sonar.api.server.ws.Request;
 import org.sonar.api.server.ws.RequestHandler;
 import org.sonar.api.server.ws.Response;
 import org.sonar.api.server.ws.WebService;
+import org.sonar.core.profiling.Profiling;
 import org.sonar.server.plugins.MimeTypes;
 
 import javax.annotation.CheckForNull;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponse;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 
 import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 public class WebServiceEngineTest {
 
@@ -73,7 +84,9 @@ public class WebServiceEngineTest {
 
   }
 
-  WebServiceEngine engine = new WebServiceEngine(new WebService[]{new SystemWebService()});
+  Settings settings = new Settings();
+  Profiling profiling = new Profiling(settings);
+  WebServiceEngine engine = new WebServiceEngine(new WebService[]{new SystemWebService()}, profiling);
 
   @Before
   public void start() {
@@ -100,6 +113,51 @@ public class WebServiceEngineTest {
     assertThat(response.stream().outputAsString()).isEqualTo("good");
   }
 
+  @Test
+  public void record_duration_of_requests_when_profiling_metrics_are_enabled() throws Exception {
+    settings.setProperty(Profiling.CONFIG_PROFILING_METRICS, true);
+    long count = profiling.metrics().histogram("ws").count();
+
+    engine.execute(new SimpleRequest(), new ServletResponse(), "api/system", "health");
+    engine.execute(new SimpleRequest(), new ServletResponse(), "api/system", "xxx");
+
+    assertThat(profiling.metrics().histogram("ws").count()).isEqualTo(count + 2);
+  }
+
+  /**
+   * Rails (see api/java_ws_controller.rb) does not render anything when the response is streamed, so the
+   * response must be complete and committed when the engine returns.
+   */
+  @Test
+  public void streamed_response_is_complete_and_committed() throws Exception {
+    StreamedHttpResponse http = new StreamedHttpResponse();
+    engine.execute(new SimpleRequest(), new ServletResponse(http.mock), "api/system", "health");
+
+    assertThat(http.output.toString()).isEqualTo("good");
+    assertThat(http.committed).isTrue();
+    verify(http.mock).setStatus(200);
+  }
+
+  @Test
+  public void streamed_empty_response_is_committed() throws Exception {
+    StreamedHttpResponse http = new StreamedHttpResponse();
+    engine.execute(new SimpleRequest(), new ServletResponse(http.mock), "api/system", "alive");
+
+    assertThat(http.output.toString()).isEmpty();
+    assertThat(http.committed).isTrue();
+    verify(http.mock).setStatus(204);
+  }
+
+  @Test
+  public void streamed_error_is_committed() throws Exception {
+    StreamedHttpResponse http = new StreamedHttpResponse();
+    engine.execute(new SimpleRequest(), new ServletResponse(http.mock), "api/system", "fail");
+
+    assertThat(http.output.toString()).isEqualTo("{\"errors\":[{\"msg\":\"Unexpected\"}]}");
+    assertThat(http.committed).isTrue();
+    verify(http.mock).setStatus(500);
+  }
+
   @Test
   public void no_content() throws Exception {
     InternalRequest request = new SimpleRequest();
@@ -185,6 +243,37 @@ public class WebServiceEngineTest {
     assertThat(response.stream().mediaType()).isEqualTo(MimeTypes.JSON);
   }
 
+  /**
+   * HttpServletResponse that is committed when its buffer is flushed
+   */
+  private static class StreamedHttpResponse {
+    final HttpServletResponse mock = mock(HttpServletResponse.class);
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    boolean committed = false;
+
+    StreamedHttpResponse() throws IOException {
+      when(mock.getOutputStream()).thenReturn(new ServletOutputStream() {
+        @Override
+        public void write(int b) throws IOException {
+          output.write(b);
+        }
+      });
+      when(mock.isCommitted()).thenAnswer(new Answer<Boolean>() {
+        @Override
+        public Boolean answer(InvocationOnMock invocation) {
+          return committed;
+        }
+      });
+      doAnswer(new Answer<Object>() {
+        @Override
+        public Object answer(InvocationOnMock invocation) {
+          committed = true;
+          return null;
+        }
+      }).when(mock).flushBuffer();
+    }
+  }
+
   static class SystemWebService implements WebService {
     @Override
     public void define(Context context) {
@@ -17,21 +17,81 @@
  * along with this program; if not, write to the Free Software Foundation,
  * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
  */
-
 package org.sonar.squid.api;
 
 import org.sonar.squid.measures.MetricDef;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 public class SourceCodeTreeDecorator {
 
   private final SourceProject project;
+  private final int threads;
 
+  /**
+   * The whole tree is decorated in the calling thread.
+   */
   public SourceCodeTreeDecorator(SourceProject project) {
+    this(project, 1);
+  }
+
+  /**
+   * The subtrees of the direct children of the project (usually packages) are decorated
+   * concurrently by the given number of threads. Units of distinct subtrees must not
+   * share measures, so callers must opt in. A single thread decorates the whole tree in
+   * the calling thread.
+   *
+   * @since 4.2.1
+   */
+  public SourceCodeTreeDecorator(SourceProject project, int threads) {
+    if (threads < 1) {
+      throw new IllegalArgumentException("The number of threads must be strictly positive: " + threads);
+    }
     this.project = project;
+    this.threads = threads;
   }
 
   public void decorateWith(MetricDef... metrics) {
-    decorateWith(project, metrics);
+    if (threads == 1 || !project.hasChildren() || project.getChildren().size() == 1) {
+      decorateWith(project, metrics);
+    } else {
+      decorateChildrenConcurrently(metrics);
+      aggregate(project, metrics);
+    }
+  }
+
+  private void decorateChildrenConcurrently(final MetricDef... metrics) {
+    ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, project.getChildren().size()));
+    try {
+      List<Future<Void>> futures = new ArrayList<Future<Void>>();
+      for (final SourceCode child : project.getChildren()) {
+        futures.add(executor.submit(new Callable<Void>() {
+          public Void call() {
+            decorateWith(child, metrics);
+            return null;
+          }
+        }));
+      }
+      for (Future<Void> future : futures) {
+        future.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while decorating the source code tree", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException("Fail to decorate the source code tree", e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
   }
 
   private void decorateWith(SourceCode sourceCode, MetricDef... metrics) {
@@ -40,6 +100,10 @@ public class SourceCodeTreeDecorator {
         decorateWith(child, metrics);
       }
     }
+    aggregate(sourceCode, metrics);
+  }
+
+  private void aggregate(SourceCode sourceCode, MetricDef... metrics) {
     for (MetricDef metric : metrics) {
       if ( !metric.aggregateIfThereIsAlreadyAValue() && sourceCode.getDouble(metric) != 0) {
         continue;
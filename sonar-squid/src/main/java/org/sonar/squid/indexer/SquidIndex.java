@@ -20,8 +20,12 @@
 
 package org.sonar.squid.indexer;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
@@ -34,10 +38,11 @@ import org.sonar.squid.api.SourceCodeSearchEngine;
 public class SquidIndex implements SourceCodeIndexer, SourceCodeSearchEngine {
 
   private Map<String, SourceCode> index = new TreeMap<String, SourceCode>();
+  private Map<Class<? extends SourceCode>, Set<SourceCode>> indexByType = new HashMap<Class<? extends SourceCode>, Set<SourceCode>>();
 
   public Collection<SourceCode> search(Query... query) {
     Set<SourceCode> result = new HashSet<SourceCode>();
-    for (SourceCode unit : index.values()) {
+    for (SourceCode unit : candidates(query)) {
       if (isSquidUnitMatchQueries(unit, query)) {
         result.add(unit);
       }
@@ -45,6 +50,49 @@ public class SquidIndex implements SourceCodeIndexer, SourceCodeSearchEngine {
     return result;
   }
 
+  /**
+   * Units to be matched against the queries. The secondary indexes are used to avoid
+   * scanning the whole index when the queries are restricted to a type or to a parent.
+   */
+  private Collection<SourceCode> candidates(Query... queries) {
+    QueryByType queryByType = null;
+    for (Query query : queries) {
+      if (query instanceof QueryByParent) {
+        return descendants(((QueryByParent) query).getParent());
+      }
+      if (query instanceof QueryByType) {
+        queryByType = (QueryByType) query;
+      }
+    }
+    if (queryByType != null) {
+      Set<SourceCode> units = indexByType.get(queryByType.getResourceType());
+      return units != null ? units : Collections.<SourceCode>emptySet();
+    }
+    return index.values();
+  }
+
+  private Collection<SourceCode> descendants(SourceCode parent) {
+    if (parent == null) {
+      return Collections.emptyList();
+    }
+    List<SourceCode> result = new ArrayList<SourceCode>();
+    SourceCode indexedParent = index.get(parent.getKey());
+    addIndexedDescendants(indexedParent != null ? indexedParent : parent, result);
+    return result;
+  }
+
+  private void addIndexedDescendants(SourceCode unit, List<SourceCode> result) {
+    if (unit.hasChildren()) {
+      for (SourceCode child : unit.getChildren()) {
+        SourceCode indexedChild = index.get(child.getKey());
+        if (indexedChild != null) {
+          result.add(indexedChild);
+        }
+        addIndexedDescendants(child, result);
+      }
+    }
+  }
+
   private boolean isSquidUnitMatchQueries(SourceCode unit, Query... queries) {
     boolean match;
     for (Query query : queries) {
@@ -62,6 +110,15 @@ public class SquidIndex implements SourceCodeIndexer, SourceCodeSearchEngine {
 
   public void index(SourceCode sourceCode) {
     sourceCode.setSourceCodeIndexer(this);
-    index.put(sourceCode.getKey(), sourceCode);
+    SourceCode previous = index.put(sourceCode.getKey(), sourceCode);
+    if (previous != null) {
+      indexByType.get(previous.getClass()).remove(previous);
+    }
+    Set<SourceCode> units = indexByType.get(sourceCode.getClass());
+    if (units == null) {
+      units = new HashSet<SourceCode>();
+      indexByType.put(sourceCode.getClass(), units);
+    }
+    units.add(sourceCode);
   }
 }
@@ -114,6 +114,47 @@ public class SourceCodeTreeDecoratorTest {
     assertEquals(3281, prj1.getInt(Metric.LINES));
   }
 
+  @Test
+  public void decorateConcurrentlyLargeProject() {
+    SourceProject sequentialProject = createLargeProject();
+    new SourceCodeTreeDecorator(sequentialProject, 1).decorateWith(Metric.values());
+
+    SourceProject concurrentProject = createLargeProject();
+    new SourceCodeTreeDecorator(concurrentProject, 4).decorateWith(Metric.values());
+
+    assertEquals(100000, concurrentProject.getInt(Metric.METHODS));
+    assertEquals(10000, concurrentProject.getInt(Metric.CLASSES));
+    assertEquals(100, concurrentProject.getInt(Metric.PACKAGES));
+    for (Metric metric : Metric.values()) {
+      assertEquals(sequentialProject.getDouble(metric), concurrentProject.getDouble(metric), 0.0);
+    }
+  }
+
+  /**
+   * 100 packages containing each 100 classes of 10 methods
+   */
+  private SourceProject createLargeProject() {
+    SourceProject project = new SourceProject("project");
+    for (int packageIndex = 0; packageIndex < 100; packageIndex++) {
+      SourceCode pack = new SourcePackage("pack" + packageIndex);
+      pack.setMeasure(Metric.PACKAGES, 1);
+      project.addChild(pack);
+      for (int classIndex = 0; classIndex < 100; classIndex++) {
+        SourceCode clazz = new SourceClass(pack.getKey() + ".Class" + classIndex);
+        clazz.setMeasure(Metric.CLASSES, 1);
+        pack.addChild(clazz);
+        for (int methodIndex = 0; methodIndex < 10; methodIndex++) {
+          SourceCode method = new SourceMethod(clazz.getKey() + "#method" + methodIndex);
+          method.setMeasure(Metric.METHODS, 1);
+          method.setMeasure(Metric.COMPLEXITY, 1 + methodIndex % 3);
+          method.setMeasure(Metric.STATEMENTS, methodIndex);
+          clazz.addChild(method);
+        }
+      }
+    }
+    return project;
+  }
+
   private void decorate(SourceProject project) {
     SourceCodeTreeDecorator decorator = new SourceCodeTreeDecorator(project);
     decorator.decorateWith(Metric.values());
@@ -27,6 +27,7 @@ import org.junit.Test;
 import org.sonar.squid.api.SourceClass;
 import org.sonar.squid.api.SourceCode;
 import org.sonar.squid.api.SourceFile;
+import org.sonar.squid.api.SourceMethod;
 import org.sonar.squid.api.SourcePackage;
 import org.sonar.squid.api.SourceProject;
 import org.sonar.squid.indexer.QueryByMeasure.Operator;
@@ -34,6 +35,7 @@ import org.sonar.squid.measures.Metric;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 public class SquidIndexTest {
@@ -97,6 +99,24 @@ public class SquidIndexTest {
     assertTrue(resources.contains(classSquid));
   }
 
+  @Test
+  public void searchByParentNotIndexed() {
+    SourceFile notIndexed = new SourceFile("org.sonar.squid.NotIndexed.java", "NotIndexed.java");
+    assertEquals(0, indexer.search(new QueryByParent(notIndexed)).size());
+    assertEquals(0, indexer.search(new QueryByParent(null)).size());
+  }
+
+  @Test
+  public void searchByTypeAfterReindexing() {
+    SourceFile otherFileSquid = new SourceFile("org.sonar.squid.Squid.java", "Squid.java");
+    indexer.index(otherFileSquid);
+
+    Collection<SourceCode> resources = indexer.search(new QueryByType(SourceFile.class), new QueryByName("Squid.java"));
+    assertEquals(1, resources.size());
+    assertSame(otherFileSquid, resources.iterator().next());
+    assertEquals(0, indexer.search(new QueryByType(SourceMethod.class)).size());
+  }
+
   @Test
   public void searchByMeasure() {
     fileSquid.add(Metric.COMPLEXITY, 2);
@@ -0,0 +1,37 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.wsclient.base;
+
+import java.io.Closeable;
+import java.util.Iterator;
+
+/**
+ * Iterator over the results of a web service, which are loaded while iterating. It must be closed when it's not
+ * consumed until its end, in order to release the HTTP connection.
+ *
+ * @since 4.2.1
+ */
+public interface CloseableIterator<E> extends Iterator<E>, Closeable {
+
+  /**
+   * Stops the iteration and releases the HTTP connection. Does nothing if the iteration is already finished.
+   */
+  void close();
+}
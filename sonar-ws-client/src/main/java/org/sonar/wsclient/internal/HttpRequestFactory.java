@@ -131,19 +131,41 @@ public class HttpRequestFactory {
     return execute(request);
   }
 
+  /**
+   * Same as {@link #get(String, java.util.Map)} but the response body is not loaded in memory. It can be
+   * parsed on the fly. The reader must be closed in order to release the connection, which can then be
+   * reused by the next requests to the same server (HTTP keep-alive), or aborted if it's not read until its end.
+   *
+   * @since 4.2.1
+   */
+  public ResponseReader getReader(String wsUrl, Map<String, Object> queryParams) {
+    HttpRequest request = prepare(HttpRequest.get(baseUrl + wsUrl, queryParams, true));
+    try {
+      checkSuccess(request);
+      return new ResponseReader(request);
+
+    } catch (HttpRequest.HttpRequestException e) {
+      throw new IllegalStateException("Fail to request " + request.url(), e.getCause());
+    }
+  }
+
   private String execute(HttpRequest request) {
     try {
-      if (isSuccess(request)) {
-        return request.body(HttpRequest.CHARSET_UTF8);
-      }
-      // TODO handle error messages
-      throw new HttpException(request.url().toString(), request.code());
+      checkSuccess(request);
+      return request.body(HttpRequest.CHARSET_UTF8);
 
     } catch (HttpRequest.HttpRequestException e) {
       throw new IllegalStateException("Fail to request " + request.url(), e.getCause());
     }
   }
 
+  private void checkSuccess(HttpRequest request) {
+    if (!isSuccess(request)) {
+      // TODO handle error messages
+      throw new HttpException(request.url().toString(), request.code());
+    }
+  }
+
   private boolean isSuccess(HttpRequest request) {
     return Arrays.binarySearch(RESPONSE_SUCCESS, request.code()) >= 0;
   }
@@ -0,0 +1,54 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.wsclient.internal;
+
+import com.github.kevinsawicki.http.HttpRequest;
+
+import java.io.FilterReader;
+import java.io.IOException;
+
+/**
+ * Body of a HTTP response. When it's closed, the connection can be reused by the next requests
+ * to the same server (HTTP keep-alive). When the body is not read until its end, the connection
+ * must be aborted instead.
+ *
+ * @since 4.2.1
+ */
+public class ResponseReader extends FilterReader {
+
+  private final HttpRequest request;
+
+  ResponseReader(HttpRequest request) {
+    super(request.bufferedReader(HttpRequest.CHARSET_UTF8));
+    this.request = request;
+  }
+
+  /**
+   * Closes the connection without reading the rest of the response
+   */
+  public void abort() {
+    request.disconnect();
+    try {
+      close();
+    } catch (IOException e) {
+      // the connection is already closed
+    }
+  }
+}
@@ -19,6 +19,8 @@
  */
 package org.sonar.wsclient.issue;
 
+import org.sonar.wsclient.base.CloseableIterator;
+
 import javax.annotation.Nullable;
 
 import java.util.List;
@@ -35,6 +37,17 @@ public interface IssueClient {
    */
   Issues find(IssueQuery query);
 
+  /**
+   * Iterate over all the issues matching the query. Pages of the web service /api/issues/search are requested
+   * while iterating, and issues are parsed on the fly, so that large numbers of issues can be browsed without
+   * loading them in memory. Rules, users and components are not returned.
+   * <p/>
+   * The iterator must be consumed until its end or closed in order to release the HTTP connection.
+   *
+   * @since 4.2.1
+   */
+  CloseableIterator<Issue> findAll(IssueQuery query);
+
   /**
    * Assign an existing issue to a user. A null assignee removes the assignee.
    *
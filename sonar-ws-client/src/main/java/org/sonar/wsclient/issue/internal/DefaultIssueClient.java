@@ -20,6 +20,7 @@
 package org.sonar.wsclient.issue.internal;
 
 import org.json.simple.JSONValue;
+import org.sonar.wsclient.base.CloseableIterator;
 import org.sonar.wsclient.internal.EncodingUtils;
 import org.sonar.wsclient.internal.HttpRequestFactory;
 import org.sonar.wsclient.issue.*;
@@ -50,6 +51,11 @@ public class DefaultIssueClient implements IssueClient {
     return parser.parseIssues(json);
   }
 
+  @Override
+  public CloseableIterator<Issue> findAll(IssueQuery query) {
+    return new IssueIterator(requestFactory, SEARCH_URL, query);
+  }
+
   @Override
   public Issue create(NewIssue newIssue) {
     String json = requestFactory.post("/api/issues/create", newIssue.urlParams());
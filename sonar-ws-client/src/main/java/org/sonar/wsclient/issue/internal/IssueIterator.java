@@ -0,0 +1,264 @@
+/*
+ * SonarQube, open source software quality management tool.
+ * Copyright (C) 2008-2013 SonarSource
+ * mailto:contact AT sonarsource DOT com
+ *
+ * SonarQube is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * SonarQube is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.wsclient.issue.internal;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.ContentHandler;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+import org.sonar.wsclient.base.CloseableIterator;
+import org.sonar.wsclient.base.Paging;
+import org.sonar.wsclient.internal.HttpRequestFactory;
+import org.sonar.wsclient.internal.ResponseReader;
+import org.sonar.wsclient.issue.Issue;
+import org.sonar.wsclient.issue.IssueQuery;
+
+import javax.annotation.CheckForNull;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterates over the issues returned by the web service /api/issues/search. Pages are requested one after
+ * the other and issues are parsed on the fly, without loading the whole response in memory.
+ *
+ * @since 4.2.1
+ */
+class IssueIterator implements CloseableIterator<Issue> {
+
+  private static final String PAGE_INDEX = "pageIndex";
+
+  private final HttpRequestFactory requestFactory;
+  private final String url;
+  private final Map<String, Object> params;
+  private final JSONParser parser = new JSONParser();
+  private final PageHandler handler = new PageHandler();
+  private int pageIndex;
+  private boolean lastPage = false;
+  private ResponseReader reader;
+  private Issue next;
+
+  IssueIterator(HttpRequestFactory requestFactory, String url, IssueQuery query) {
+    this.requestFactory = requestFactory;
+    this.url = url;
+    this.params = new HashMap<String, Object>(query.urlParams());
+    Object firstPageIndex = params.get(PAGE_INDEX);
+    this.pageIndex = firstPageIndex != null ? Integer.parseInt(firstPageIndex.toString()) : 1;
+  }
+
+  public boolean hasNext() {
+    while (next == null && (reader != null || !lastPage)) {
+      if (reader == null) {
+        openPage();
+      }
+      next = parseNextIssue();
+    }
+    return next != null;
+  }
+
+  public Issue next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    Issue issue = next;
+    next = null;
+    return issue;
+  }
+
+  public void remove() {
+    throw new UnsupportedOperationException("Issues can't be removed");
+  }
+
+  /**
+   * The connection of the current page is aborted, as the rest of the page is not read
+   */
+  public void close() {
+    lastPage = true;
+    next = null;
+    if (reader != null) {
+      reader.abort();
+      reader = null;
+    }
+  }
+
+  private void openPage() {
+    params.put(PAGE_INDEX, pageIndex);
+    reader = requestFactory.getReader(url, params);
+    handler.reset();
+    parse(false);
+  }
+
+  /**
+   * Resumes the parsing of the current page until the next issue. Returns null and closes the page
+   * when the end of response is reached.
+   */
+  @CheckForNull
+  private Issue parseNextIssue() {
+    if (handler.issue == null && !handler.ended) {
+      parse(true);
+    }
+    if (handler.issue != null) {
+      Issue issue = new DefaultIssue(handler.issue);
+      handler.issue = null;
+      handler.issuesInPage++;
+      return issue;
+    }
+    closePage();
+    Integer pages = handler.paging != null ? new Paging(handler.paging).pages() : null;
+    lastPage = handler.issuesInPage == 0 || pages == null || pageIndex >= pages;
+    pageIndex++;
+    return null;
+  }
+
+  private void parse(boolean resume) {
+    try {
+      parser.parse(reader, handler, resume);
+    } catch (ParseException e) {
+      close();
+      throw new IllegalStateException("Fail to parse page " + pageIndex + " of " + url, e);
+    } catch (IOException e) {
+      close();
+      throw new IllegalStateException("Fail to read page " + pageIndex + " of " + url, e);
+    }
+  }
+
+  private void closePage() {
+    try {
+      reader.close();
+    } catch (IOException e) {
+      // ignored
+    } finally {
+      reader = null;
+    }
+  }
+
+  /**
+   * Builds the JSON objects of issues and paging, and ignores the other fields (rules, components, ...).
+   * Parsing is suspended after each issue.
+   */
+  private static class PageHandler implements ContentHandler {
+    // nesting of objects and arrays
+    private int depth;
+    private String rootField;
+    // objects and arrays that are being built, if any
+    private final LinkedList<Object> values = new LinkedList<Object>();
+    private final LinkedList<String> keys = new LinkedList<String>();
+    private Map issue;
+    private Map paging;
+    private int issuesInPage;
+    private boolean ended;
+
+    void reset() {
+      depth = 0;
+      rootField = null;
+      values.clear();
+      keys.clear();
+      issue = null;
+      paging = null;
+      issuesInPage = 0;
+      ended = false;
+    }
+
+    public void startJSON() {
+      // nothing to do
+    }
+
+    public void endJSON() {
+      ended = true;
+    }
+
+    public boolean startObject() {
+      depth++;
+      boolean issueStart = "issues".equals(rootField) && depth == 3;
+      boolean pagingStart = "paging".equals(rootField) && depth == 2;
+      if (!values.isEmpty() || issueStart || pagingStart) {
+        values.push(new JSONObject());
+      }
+      return true;
+    }
+
+    public boolean endObject() {
+      depth--;
+      if (!values.isEmpty()) {
+        Map value = (Map) values.pop();
+        if (!values.isEmpty()) {
+          addValue(value);
+        } else if ("issues".equals(rootField)) {
+          issue = value;
+          // suspend parsing
+          return false;
+        } else {
+          paging = value;
+        }
+      }
+      return true;
+    }
+
+    public boolean startObjectEntry(String key) {
+      if (depth == 1) {
+        rootField = key;
+      } else if (!values.isEmpty()) {
+        keys.push(key);
+      }
+      return true;
+    }
+
+    public boolean endObjectEntry() {
+      return true;
+    }
+
+    public boolean startArray() {
+      depth++;
+      if (!values.isEmpty()) {
+        values.push(new JSONArray());
+      }
+      return true;
+    }
+
+    public boolean endArray() {
+      depth--;
+      if (!values.isEmpty()) {
+        addValue(values.pop());
+      }
+      return true;
+    }
+
+    public boolean primitive(Object value) throws ParseException, IOException {
+      if (!values.isEmpty()) {
+        addValue(value);
+      }
+      return true;
+    }
+
+    private void addValue(Object value) {
+      Object parent = values.peek();
+      if (parent instanceof Map) {
+        ((Map) parent).put(keys.pop(), value);
+      } else {
+        ((List) parent).add(value);
+      }
+    }
+  }
+}
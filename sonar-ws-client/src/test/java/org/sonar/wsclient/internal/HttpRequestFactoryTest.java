@@ -19,13 +19,16 @@
  */
 package org.sonar.wsclient.internal;
 
+import org.apache.commons.io.IOUtils;
 import org.junit.Rule;
 import org.junit.Test;
 import org.sonar.wsclient.MockHttpServerInterceptor;
+import org.sonar.wsclient.base.HttpException;
 import org.sonar.wsclient.issue.IssueClient;
 import org.sonar.wsclient.issue.IssueQuery;
 import org.sonar.wsclient.issue.internal.DefaultIssueClient;
 
+import java.io.IOException;
 import java.net.ConnectException;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
@@ -51,6 +54,50 @@ public class HttpRequestFactoryTest {
     assertThat(httpServer.requestedPath()).isEqualTo("/api/issues");
   }
 
+  @Test
+  public void test_get_reader() throws Exception {
+    httpServer.stubStatusCode(200).stubResponseBody("{'issues': []}");
+
+    HttpRequestFactory factory = new HttpRequestFactory(httpServer.url());
+    ResponseReader reader = factory.getReader("/api/issues", Collections.<String, Object>emptyMap());
+    try {
+      assertThat(IOUtils.toString(reader)).isEqualTo("{'issues': []}");
+    } finally {
+      reader.close();
+    }
+    assertThat(httpServer.requestedPath()).isEqualTo("/api/issues");
+  }
+
+  @Test
+  public void abort_reader() throws Exception {
+    httpServer.stubStatusCode(200).stubResponseBody("{'issues': []}");
+
+    HttpRequestFactory factory = new HttpRequestFactory(httpServer.url());
+    ResponseReader reader = factory.getReader("/api/issues", Collections.<String, Object>emptyMap());
+    assertThat((char) reader.read()).isEqualTo('{');
+    reader.abort();
+
+    try {
+      reader.read();
+      fail();
+    } catch (IOException e) {
+      // closed
+    }
+  }
+
+  @Test
+  public void get_reader_should_fail_if_error_status() {
+    httpServer.stubStatusCode(500);
+
+    HttpRequestFactory factory = new HttpRequestFactory(httpServer.url());
+    try {
+      factory.getReader("/api/issues", Collections.<String, Object>emptyMap());
+      fail();
+    } catch (HttpException e) {
+      assertThat(e.status()).isEqualTo(500);
+    }
+  }
+
   @Test
   public void should_throw_illegal_state_exc_if_connect_exception() {
     HttpRequestFactory factory = new HttpRequestFactory("http://localhost:1");
@@ -23,10 +23,13 @@ import org.apache.commons.io.IOUtils;
 import org.junit.Rule;
 import org.junit.Test;
 import org.sonar.wsclient.MockHttpServerInterceptor;
+import org.sonar.wsclient.base.CloseableIterator;
 import org.sonar.wsclient.base.HttpException;
 import org.sonar.wsclient.internal.HttpRequestFactory;
 import org.sonar.wsclient.issue.*;
 
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
 import static org.fest.assertions.Assertions.assertThat;
@@ -52,6 +55,57 @@ public class DefaultIssueClientTest {
     assertThat(issues.list().get(0).key()).isEqualTo("ABCDE");
   }
 
+  @Test
+  public void should_iterate_over_issues_of_all_pages() {
+    HttpRequestFactory requestFactory = new HttpRequestFactory(httpServer.url());
+    httpServer.stubResponseBody("{\"issues\": [{\"key\": \"ABCDE\", \"attr\": {\"JIRA\": \"FOO-1234\"}}, {\"key\": \"FGHIJ\", \"comments\": [{\"key\": \"COMMENT-1\"}]}]," +
+      "\"rules\": [{\"key\": \"squid:CycleBetweenPackages\"}], \"paging\": {\"pageIndex\": 1, \"pageSize\": 2, \"total\": 4, \"pages\": 2}}");
+
+    IssueClient client = new DefaultIssueClient(requestFactory);
+    List<Issue> issues = new ArrayList<Issue>();
+    Iterator<Issue> it = client.findAll(IssueQuery.create().pageSize(2));
+    while (it.hasNext()) {
+      issues.add(it.next());
+    }
+
+    assertThat(httpServer.requestedPath()).contains("pageIndex=2");
+    assertThat(issues).hasSize(4);
+    assertThat(issues.get(0).key()).isEqualTo("ABCDE");
+    assertThat(issues.get(0).attribute("JIRA")).isEqualTo("FOO-1234");
+    assertThat(issues.get(1).key()).isEqualTo("FGHIJ");
+    assertThat(issues.get(1).comments()).hasSize(1);
+    assertThat(issues.get(2).key()).isEqualTo("ABCDE");
+  }
+
+  @Test
+  public void should_iterate_over_empty_page() {
+    HttpRequestFactory requestFactory = new HttpRequestFactory(httpServer.url());
+    httpServer.stubResponseBody("{\"issues\": [], \"paging\": {\"pageIndex\": 1, \"pageSize\": 100, \"total\": 0, \"pages\": 0}}");
+
+    IssueClient client = new DefaultIssueClient(requestFactory);
+    Iterator<Issue> it = client.findAll(IssueQuery.create());
+
+    assertThat(it.hasNext()).isFalse();
+    assertThat(httpServer.requestedPath()).contains("pageIndex=1");
+  }
+
+  @Test
+  public void should_stop_iteration_when_closed() {
+    HttpRequestFactory requestFactory = new HttpRequestFactory(httpServer.url());
+    httpServer.stubResponseBody("{\"issues\": [{\"key\": \"ABCDE\"}, {\"key\": \"FGHIJ\"}]," +
+      "\"paging\": {\"pageIndex\": 1, \"pageSize\": 2, \"total\": 4, \"pages\": 2}}");
+
+    IssueClient client = new DefaultIssueClient(requestFactory);
+    CloseableIterator<Issue> it = client.findAll(IssueQuery.create().pageSize(2));
+    assertThat(it.next().key()).isEqualTo("ABCDE");
+    it.close();
+
+    assertThat(it.hasNext()).isFalse();
+    assertThat(httpServer.requestedPath()).contains("pageIndex=1");
+    // can be closed several times
+    it.close();
+  }
+
   @Test
   public void should_fail_to_find_issues() {
     HttpRequestFactory requestFactory = new HttpRequestFactory(httpServer.url());